@@ -1,7 +1,11 @@
 package mx.uam.ayd.proyecto.datos;
 
 import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import java.util.List;
 import java.time.LocalDate;
 
@@ -11,12 +15,14 @@ import java.time.LocalDate;
  * <p>Proporciona métodos de búsqueda personalizados, como encontrar el último aviso
  * o buscar por fecha.
  * Extiende {@link org.springframework.data.repository.CrudRepository CrudRepository},
- * heredando operaciones CRUD estándar.</p>
+ * heredando operaciones CRUD estándar, y
+ * {@link org.springframework.data.repository.PagingAndSortingRepository PagingAndSortingRepository}
+ * para recorrer el historial por páginas.</p>
  *
  * @author Tech Solutions (adaptado de PsicologoRepository)
  * @version 1.0
  */
-public interface AvisoRepository extends CrudRepository<Aviso, Integer> {
+public interface AvisoRepository extends CrudRepository<Aviso, Integer>, PagingAndSortingRepository<Aviso, Integer> {
 
 /**
      * Encuentra el aviso más reciente ordenando por ID de forma descendente.
@@ -35,4 +41,14 @@ public interface AvisoRepository extends CrudRepository<Aviso, Integer> {
      * la lista estará vacía.
      */
     List<Aviso> findByFecha(LocalDate fecha);
-}
\ No newline at end of file
+
+    /**
+     * Recupera una ventana de avisos del más reciente al más antiguo, a partir
+     * de la posición indicada.
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos avisos traer como máximo.
+     * @return la ventana con los avisos y la posición para continuar.
+     */
+    Window<Aviso> findByOrderByIdDesc(ScrollPosition posicion, Limit limite);
+}
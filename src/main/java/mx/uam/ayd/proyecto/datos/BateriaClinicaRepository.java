@@ -1,10 +1,14 @@
 package mx.uam.ayd.proyecto.datos;
 
 import mx.uam.ayd.proyecto.negocio.modelo.BateriaClinica;
+import mx.uam.ayd.proyecto.negocio.modelo.CuestionarioAplicado;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoBateria;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,4 +44,19 @@ public interface BateriaClinicaRepository extends CrudRepository<BateriaClinica,
      *         o vacío si no se encontró ninguna que coincida con los criterios.
      */
     public Optional<BateriaClinica> findByPacienteAndTipoDeBateria(Paciente paciente, TipoBateria tipoBateria);
-}
\ No newline at end of file
+
+    /**
+     * Recupera la batería más reciente de cada tipo para varios pacientes, sin
+     * respuestas ni comentarios.
+     *
+     * @param pacientes los ids de los pacientes; no debe estar vacía.
+     * @return una entrada por paciente y tipo de batería, ordenadas por tipo.
+     */
+    @Query("SELECT new mx.uam.ayd.proyecto.negocio.modelo.CuestionarioAplicado("
+            + "b.paciente.id, b.tipoDeBateria, b.calificacion, b.fechaAplicacion) "
+            + "FROM BateriaClinica b WHERE b.paciente.id IN :pacientes "
+            + "AND b.id = (SELECT MAX(u.id) FROM BateriaClinica u "
+            + "WHERE u.paciente = b.paciente AND u.tipoDeBateria = b.tipoDeBateria) "
+            + "ORDER BY b.tipoDeBateria")
+    List<CuestionarioAplicado> findUltimosCuestionarios(@Param("pacientes") Collection<Long> pacientes);
+}
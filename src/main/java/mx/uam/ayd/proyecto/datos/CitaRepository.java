@@ -1,25 +1,53 @@
 package mx.uam.ayd.proyecto.datos;
 
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaAgendada;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaPorPagar;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.PagoHistorial;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoRecordatorio;
+import mx.uam.ayd.proyecto.negocio.modelo.TotalesPago;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.LockModeType;
+
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
-public interface CitaRepository extends CrudRepository<Cita, Integer> {
+public interface CitaRepository extends CrudRepository<Cita, Integer>, PagingAndSortingRepository<Cita, Integer> {
 
-    List<Cita> findByPaciente(Paciente paciente);
+    /**
+     * Recupera una ventana del historial de pagos del paciente, proyectando sólo
+     * las columnas que se muestran. Usa el índice (paciente_id, fecha_cita).
+     *
+     * @param paciente el paciente.
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param orden el orden; debe terminar en una propiedad única, como el id.
+     * @param limite cuántas citas traer como máximo.
+     * @return la ventana con las citas y la posición para continuar.
+     */
+    Window<PagoHistorial> findHistorialByPaciente(Paciente paciente, ScrollPosition posicion, Sort orden, Limit limite);
 
     /**
      * Recupera todas las citas asociadas a un paciente que NO estén canceladas.
      * (de HEAD)
      */
+    @EntityGraph(Cita.GRAFO_CON_PSICOLOGO)
     List<Cita> findByPacienteAndEstadoCitaNot(Paciente paciente, TipoConfirmacionCita estadoCita);
 
     /**
@@ -28,9 +56,13 @@ public interface CitaRepository extends CrudRepository<Cita, Integer> {
      */
     Optional<Cita> findById(int id);
 
-    List<Cita> findByEstadoCita(TipoConfirmacionCita estadoCita);
+    /**
+     * Busca una cita por su id con su paciente y su psicólogo.
+     */
+    @EntityGraph(Cita.GRAFO_COMPLETA)
+    Optional<Cita> findCompletaById(int id);
 
-    Cita findByFechaCita(LocalDateTime fechaCita);
+    List<Cita> findByEstadoCita(TipoConfirmacionCita estadoCita);
 
     List<Cita> findByPacienteAndEstadoCita(Paciente paciente, TipoConfirmacionCita estadoCita);
 
@@ -44,9 +76,31 @@ public interface CitaRepository extends CrudRepository<Cita, Integer> {
      * Busca citas por psicólogo y trae al paciente (para evitar LazyInitializationException).
      * (de HEAD)
      */
-    @Query("SELECT c FROM Cita c LEFT JOIN FETCH c.paciente WHERE c.psicologo = :psicologo")
+    @EntityGraph(Cita.GRAFO_CON_PACIENTE)
+    @Query("SELECT c FROM Cita c WHERE c.psicologo = :psicologo")
     List<Cita> findByPsicologo(@Param("psicologo") Psicologo psicologo);
 
+    /**
+     * Recupera las citas de un psicólogo dentro de un rango de fechas que NO estén en
+     * un estado dado, con su paciente y psicólogo, ordenadas por fecha.
+     *
+     * @param psicologo el psicólogo.
+     * @param desde inicio del rango (inclusivo).
+     * @param hasta fin del rango (exclusivo).
+     * @param estadoCita el estado a excluir (ej. CANCELADA).
+     * @return las citas listas para generar sus comprobantes.
+     */
+    @EntityGraph(Cita.GRAFO_COMPLETA)
+    @Query("SELECT c FROM Cita c " +
+            "WHERE c.psicologo = :psicologo " +
+            "AND c.fechaCita >= :desde AND c.fechaCita < :hasta " +
+            "AND c.estadoCita <> :estadoCita " +
+            "ORDER BY c.fechaCita")
+    List<Cita> findCompletasEntre(@Param("psicologo") Psicologo psicologo,
+                                  @Param("desde") LocalDateTime desde,
+                                  @Param("hasta") LocalDateTime hasta,
+                                  @Param("estadoCita") TipoConfirmacionCita estadoCita);
+
     @Query("SELECT c FROM Cita c " +
             "LEFT JOIN FETCH c.paciente " +
             "LEFT JOIN FETCH c.psicologo " +
@@ -57,6 +111,7 @@ public interface CitaRepository extends CrudRepository<Cita, Integer> {
      * Busca la cita pendiente más próxima (la primera) para un paciente.
      * (de hu-16-historial-de-pagos)
      */
+    @EntityGraph(Cita.GRAFO_COMPLETA)
     Cita findTopByPacienteAndEstadoCitaOrderByFechaCitaAsc(Paciente paciente, TipoConfirmacionCita estadoCita);
 
     /**
@@ -64,4 +119,116 @@ public interface CitaRepository extends CrudRepository<Cita, Integer> {
      * (usualmente "ahora") y que NO estén en un estado específico (ej. CANCELADA).
      */
     List<Cita> findByPacienteAndFechaCitaAfterAndEstadoCitaNot(Paciente paciente, LocalDateTime fecha, TipoConfirmacionCita estadoCita);
-}
\ No newline at end of file
+
+    /**
+     * Recupera las citas a partir de una fecha que NO estén en un estado dado,
+     * proyectando sólo el psicólogo y el horario para reconstruir el índice de agenda.
+     * Usa el índice (psicologo_id, fecha_cita, estado_cita) de la tabla de citas.
+     *
+     * @param desde la fecha y hora inicial (inclusiva).
+     * @param estadoCita el estado a excluir (ej. CANCELADA).
+     * @return las citas agendadas, sin cargar pacientes ni psicólogos.
+     */
+    @Query("SELECT new mx.uam.ayd.proyecto.negocio.modelo.CitaAgendada(c.id, c.psicologo.id, c.fechaCita) " +
+            "FROM Cita c " +
+            "WHERE c.fechaCita >= :desde AND c.estadoCita <> :estadoCita")
+    List<CitaAgendada> findAgendadasDesde(@Param("desde") LocalDateTime desde,
+                                          @Param("estadoCita") TipoConfirmacionCita estadoCita);
+
+    /**
+     * Recupera en una sola consulta las citas de varios psicólogos dentro de un rango
+     * de fechas que NO estén en un estado dado. Se usa para calcular horarios disponibles.
+     *
+     * @param psicologoIds los ids de los psicólogos.
+     * @param desde inicio del rango (inclusivo).
+     * @param hasta fin del rango (exclusivo).
+     * @param estadoCita el estado a excluir (ej. CANCELADA).
+     * @return las citas agendadas en el rango, sin cargar pacientes ni psicólogos.
+     */
+    @Query("SELECT new mx.uam.ayd.proyecto.negocio.modelo.CitaAgendada(c.id, c.psicologo.id, c.fechaCita) " +
+            "FROM Cita c " +
+            "WHERE c.psicologo.id IN :psicologoIds " +
+            "AND c.fechaCita >= :desde AND c.fechaCita < :hasta " +
+            "AND c.estadoCita <> :estadoCita")
+    List<CitaAgendada> findAgendadasEntre(@Param("psicologoIds") List<Integer> psicologoIds,
+                                          @Param("desde") LocalDateTime desde,
+                                          @Param("hasta") LocalDateTime hasta,
+                                          @Param("estadoCita") TipoConfirmacionCita estadoCita);
+
+    /**
+     * Busca, para todos los pacientes, las citas dentro de un rango de fechas que NO estén
+     * en un estado dado y a las que todavía no se les ha enviado el recordatorio indicado.
+     * Trae al paciente para poder notificarlo.
+     *
+     * @param desde inicio del rango (exclusivo), usualmente "ahora".
+     * @param hasta fin del rango (inclusivo).
+     * @param estadoCita el estado a excluir (ej. CANCELADA).
+     * @param tipo el tipo de recordatorio que no debe haberse enviado.
+     * @return las citas que requieren el recordatorio.
+     */
+    @Query("SELECT c FROM Cita c " +
+            "JOIN FETCH c.paciente " +
+            "WHERE c.fechaCita > :desde AND c.fechaCita <= :hasta " +
+            "AND c.estadoCita <> :estadoCita " +
+            "AND NOT EXISTS (SELECT r FROM RecordatorioCita r WHERE r.cita = c AND r.tipoRecordatorio = :tipo)")
+    List<Cita> findSinRecordatorioEntre(@Param("desde") LocalDateTime desde,
+                                        @Param("hasta") LocalDateTime hasta,
+                                        @Param("estadoCita") TipoConfirmacionCita estadoCita,
+                                        @Param("tipo") TipoRecordatorio tipo);
+
+    /**
+     * Recupera las citas con alguna de las líneas de captura dadas, proyectando
+     * sólo lo necesario para conciliar sus pagos. Usa el índice sobre la línea de captura.
+     *
+     * <p>Las citas quedan bloqueadas hasta el fin de la transacción, así que ni otro
+     * pago ni una cancelación las cambian entre esta lectura y {@link #marcarPagadas}.</p>
+     *
+     * @param lineasCaptura las líneas de captura de un lote de pagos.
+     * @return las citas encontradas, sin cargar pacientes ni psicólogos.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new mx.uam.ayd.proyecto.negocio.modelo.CitaPorPagar(" +
+            "c.id, c.paciente.id, c.lineaCaptura, c.monto, c.estadoCita, c.fechaVencimiento, c.fechaPago) " +
+            "FROM Cita c " +
+            "WHERE c.lineaCaptura IN :lineasCaptura")
+    List<CitaPorPagar> findPorPagar(@Param("lineasCaptura") Collection<String> lineasCaptura);
+
+    /**
+     * Marca como pagadas, en una sola sentencia, las citas indicadas que aún no lo estén.
+     *
+     * @param ids los ids de las citas.
+     * @param fechaPago el día en que se pagaron.
+     * @return el número de citas marcadas.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Cita c SET c.fechaPago = :fechaPago WHERE c.id IN :ids AND c.fechaPago IS NULL")
+    int marcarPagadas(@Param("ids") Collection<Integer> ids, @Param("fechaPago") LocalDate fechaPago);
+
+    /**
+     * Calcula en una sola consulta los totales de pago de varios pacientes: lo
+     * pagado, lo pendiente y lo vencido en un día dado. Las citas canceladas sin
+     * pagar no cuentan. Usa el índice (paciente_id, fecha_cita).
+     *
+     * @param pacienteIds los ids de los pacientes.
+     * @param hoy el día de referencia; vence lo que tiene vencimiento anterior.
+     * @param cancelada el estado de las citas canceladas.
+     * @return una fila por paciente con al menos una cita.
+     */
+    @Query("SELECT new mx.uam.ayd.proyecto.negocio.modelo.TotalesPago(c.paciente.id, " +
+            "SUM(CASE WHEN c.fechaPago IS NOT NULL THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN c.fechaPago IS NOT NULL THEN COALESCE(c.monto, 0.0) ELSE 0.0 END), " +
+            "SUM(CASE WHEN c.fechaPago IS NULL AND c.estadoCita <> :cancelada " +
+            "AND (c.fechaVencimiento IS NULL OR c.fechaVencimiento >= :hoy) THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN c.fechaPago IS NULL AND c.estadoCita <> :cancelada " +
+            "AND (c.fechaVencimiento IS NULL OR c.fechaVencimiento >= :hoy) THEN COALESCE(c.monto, 0.0) ELSE 0.0 END), " +
+            "SUM(CASE WHEN c.fechaPago IS NULL AND c.estadoCita <> :cancelada " +
+            "AND c.fechaVencimiento < :hoy THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN c.fechaPago IS NULL AND c.estadoCita <> :cancelada " +
+            "AND c.fechaVencimiento < :hoy THEN COALESCE(c.monto, 0.0) ELSE 0.0 END)) " +
+            "FROM Cita c " +
+            "WHERE c.paciente.id IN :pacienteIds " +
+            "GROUP BY c.paciente.id")
+    List<TotalesPago> calcularTotalesPago(@Param("pacienteIds") Collection<Long> pacienteIds,
+                                          @Param("hoy") LocalDate hoy,
+                                          @Param("cancelada") TipoConfirmacionCita cancelada);
+}
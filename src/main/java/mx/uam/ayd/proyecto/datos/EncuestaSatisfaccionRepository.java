@@ -1,9 +1,17 @@
 package mx.uam.ayd.proyecto.datos;
 
+import mx.uam.ayd.proyecto.negocio.modelo.CalificacionesEncuesta;
 import mx.uam.ayd.proyecto.negocio.modelo.EncuestaSatisfaccion; 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para gestionar operaciones de persistencia sobre la entidad {@link EncuestaSatisfaccion}.
@@ -44,5 +52,42 @@ public interface EncuestaSatisfaccionRepository extends CrudRepository<EncuestaS
      */
     List<EncuestaSatisfaccion> findByQ8MejoraContaining(String comentario);
     List<EncuestaSatisfaccion> findByQ9ComentariosContaining(String comentario);
-    
+
+    /**
+     * Recorre las calificaciones Q1–Q7 de todas las encuestas sin cargar las entidades
+     * ni sus respuestas abiertas. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @return un flujo con las calificaciones de cada encuesta.
+     */
+    @Query("SELECT new mx.uam.ayd.proyecto.negocio.modelo.CalificacionesEncuesta(" +
+            "e.fechaHora, ps.id, e.q1Empatia, e.q2Confianza, e.q3Respeto, e.q4Confidencialidad, " +
+            "e.q5Herramientas, e.q6Satisfaccion, e.q7Recomendacion) " +
+            "FROM EncuestaSatisfaccion e JOIN e.paciente p LEFT JOIN p.psicologo ps")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<CalificacionesEncuesta> streamCalificaciones();
+
+    /**
+     * Página de sugerencias de mejora (Q8) no vacías, de la más reciente a la más antigua.
+     */
+    @Query("SELECT e.q8Mejora FROM EncuestaSatisfaccion e " +
+            "WHERE e.q8Mejora IS NOT NULL AND TRIM(e.q8Mejora) <> '' ORDER BY e.id DESC")
+    Slice<String> findSugerenciasMejora(Pageable pagina);
+
+    /**
+     * Página de comentarios adicionales (Q9) no vacíos, del más reciente al más antiguo.
+     */
+    @Query("SELECT e.q9Comentarios FROM EncuestaSatisfaccion e " +
+            "WHERE e.q9Comentarios IS NOT NULL AND TRIM(e.q9Comentarios) <> '' ORDER BY e.id DESC")
+    Slice<String> findComentarios(Pageable pagina);
+
+    /**
+     * Indica si el paciente ya respondió la encuesta (usa el índice sobre paciente_id).
+     */
+    boolean existsByPacienteId(Long pacienteId);
+
+    /**
+     * Ids de los pacientes que han respondido la encuesta al menos una vez.
+     */
+    @Query("SELECT DISTINCT e.paciente.id FROM EncuestaSatisfaccion e")
+    List<Long> findIdsPacientesQueRespondieron();
 }
@@ -3,7 +3,10 @@ package mx.uam.ayd.proyecto.datos;
 import mx.uam.ayd.proyecto.negocio.modelo.Notificacion;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -27,4 +30,28 @@ public interface NotificacionRepository extends CrudRepository<Notificacion, Lon
 
     // Contador de no leídas del paciente (para activar/desactivar burbuja roja)
     long countByPacienteAndLeidaFalse(Paciente paciente);
+
+    // Marca como leídas en un solo UPDATE las no leídas del psicólogo con id <= hastaId (null = todas)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notificacion n SET n.leida = true " +
+            "WHERE n.psicologo = :psicologo AND n.leida = false " +
+            "AND (:hastaId IS NULL OR n.id <= :hastaId)")
+    int marcarLeidasPsicologo(@Param("psicologo") Psicologo psicologo, @Param("hastaId") Long hastaId);
+
+    // Marca como leídas en un solo UPDATE las no leídas del paciente con id <= hastaId (null = todas)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notificacion n SET n.leida = true " +
+            "WHERE n.paciente = :paciente AND n.leida = false " +
+            "AND (:hastaId IS NULL OR n.id <= :hastaId)")
+    int marcarLeidasPaciente(@Param("paciente") Paciente paciente, @Param("hastaId") Long hastaId);
+
+    // Contadores de no leídas agrupados por psicólogo: [id del psicólogo, conteo]
+    @Query("SELECT n.psicologo.id, COUNT(n) FROM Notificacion n " +
+            "WHERE n.leida = false AND n.psicologo IS NOT NULL GROUP BY n.psicologo.id")
+    List<Object[]> contarNoLeidasPorPsicologo();
+
+    // Contadores de no leídas agrupados por paciente: [id del paciente, conteo]
+    @Query("SELECT n.paciente.id, COUNT(n) FROM Notificacion n " +
+            "WHERE n.leida = false AND n.paciente IS NOT NULL GROUP BY n.paciente.id")
+    List<Object[]> contarNoLeidasPorPaciente();
 }
\ No newline at end of file
@@ -2,23 +2,79 @@ package mx.uam.ayd.proyecto.datos;
 
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface PacienteRepository extends CrudRepository<Paciente, Long> {
+public interface PacienteRepository extends CrudRepository<Paciente, Long>, PagingAndSortingRepository<Paciente, Long> {
 
     Paciente findByCorreo(String correo);
 
     List<Paciente> findByEdadBetween(int edad1, int edad2);
 
+    /**
+     * Busca al paciente por usuario con su psicólogo asignado (inicio de sesión y pantallas del paciente).
+     */
+    @EntityGraph(Paciente.GRAFO_SESION)
     Paciente findByUsuario(String usuario);
 
+    /**
+     * Recupera todos los pacientes para mostrarlos en una lista, con su psicólogo asignado.
+     */
+    @EntityGraph(Paciente.GRAFO_LISTA)
+    List<Paciente> findListaBy();
+
+    /**
+     * Recupera al paciente con su historial clínico y sus baterías, para ver su expediente.
+     */
+    @EntityGraph(Paciente.GRAFO_DETALLE)
+    Optional<Paciente> findDetalleById(Long id);
+
     /**
      * Encuentra todos los pacientes asignados a un psicólogo específico.
      *
      * @param psicologo El psicólogo.
      * @return Una lista de sus pacientes.
      */
+    @EntityGraph(Paciente.GRAFO_LISTA)
     List<Paciente> findByPsicologo(Psicologo psicologo);
-}
\ No newline at end of file
+
+    /**
+     * Recupera una ventana de los pacientes que tienen al menos una batería clínica,
+     * ordenados por id (paginación por llave), con su psicólogo asignado.
+     * La condición se evalúa en la base de datos con EXISTS, sin cargar las baterías.
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos pacientes traer como máximo.
+     * @return la ventana con los pacientes y la posición para continuar.
+     */
+    @EntityGraph(Paciente.GRAFO_LISTA)
+    Window<Paciente> findListaByBateriasClinicasIsNotEmptyOrderByIdAsc(ScrollPosition posicion, Limit limite);
+
+    /**
+     * Recupera una ventana de pacientes ordenados por id, a partir de la posición
+     * indicada (paginación por llave), con su psicólogo asignado.
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos pacientes traer como máximo.
+     * @return la ventana con los pacientes y la posición para continuar.
+     */
+    @EntityGraph(Paciente.GRAFO_LISTA)
+    Window<Paciente> findListaByOrderByIdAsc(ScrollPosition posicion, Limit limite);
+
+    /**
+     * Recupera una ventana de los pacientes de un psicólogo ordenados por id.
+     *
+     * @param psicologo el psicólogo.
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos pacientes traer como máximo.
+     * @return la ventana con los pacientes y la posición para continuar.
+     */
+    @EntityGraph(Paciente.GRAFO_LISTA)
+    Window<Paciente> findByPsicologoOrderByIdAsc(Psicologo psicologo, ScrollPosition posicion, Limit limite);
+}
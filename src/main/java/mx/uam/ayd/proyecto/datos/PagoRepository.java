@@ -0,0 +1,32 @@
+package mx.uam.ayd.proyecto.datos;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import mx.uam.ayd.proyecto.negocio.modelo.Pago;
+
+/**
+ * Repositorio para gestionar operaciones de persistencia sobre la entidad {@link Pago}.
+ *
+ * <p>El registro de pagos sólo crece: se usan {@code save} y {@code saveAll},
+ * nunca actualizaciones ni borrados.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public interface PagoRepository extends CrudRepository<Pago, Long> {
+
+    /**
+     * De las referencias dadas, devuelve las que ya están registradas.
+     * Usa la restricción única sobre la referencia.
+     *
+     * @param referencias las referencias de los movimientos del banco.
+     * @return las que ya tienen un pago.
+     */
+    @Query("SELECT p.referencia FROM Pago p WHERE p.referencia IN :referencias")
+    Set<String> findReferenciasRegistradas(@Param("referencias") Collection<String> referencias);
+}
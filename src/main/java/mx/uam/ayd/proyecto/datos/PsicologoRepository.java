@@ -3,7 +3,11 @@ package mx.uam.ayd.proyecto.datos;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoEspecialidad;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import java.util.List;
 
 /**
@@ -12,12 +16,14 @@ import java.util.List;
  * <p>Proporciona métodos de búsqueda por teléfono, correo electrónico y especialidad,
  * así como consultas sobre psicólogos con pacientes o historiales clínicos asignados.
  * Extiende {@link org.springframework.data.repository.CrudRepository CrudRepository},
- * heredando operaciones CRUD estándar.</p>
+ * heredando operaciones CRUD estándar, y
+ * {@link org.springframework.data.repository.PagingAndSortingRepository PagingAndSortingRepository}
+ * para recorrer el listado por páginas.</p>
  *
  * @author Tech Solutions
  * @version 1.0
  */
-public interface PsicologoRepository extends CrudRepository<Psicologo, Integer> {
+public interface PsicologoRepository extends CrudRepository<Psicologo, Integer>, PagingAndSortingRepository<Psicologo, Integer> {
 
     /**
      * Encuentra un psicólogo por su número de teléfono.
@@ -68,5 +74,12 @@ public interface PsicologoRepository extends CrudRepository<Psicologo, Integer>
 
     Psicologo findByUsuario(String usuario);
 
-    Psicologo findByUsuarioAndContrasena(String usuario, String contrasena);
+    /**
+     * Recupera una ventana de psicólogos ordenados por id, a partir de la posición indicada.
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos psicólogos traer como máximo.
+     * @return la ventana con los psicólogos y la posición para continuar.
+     */
+    Window<Psicologo> findByOrderByIdAsc(ScrollPosition posicion, Limit limite);
 }
@@ -0,0 +1,31 @@
+package mx.uam.ayd.proyecto.datos;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import mx.uam.ayd.proyecto.negocio.modelo.RecordatorioCita;
+
+/**
+ * Repositorio para gestionar operaciones de persistencia sobre la entidad {@link RecordatorioCita}.
+ *
+ * <p>Extiende {@link CrudRepository}, por lo que hereda operaciones CRUD estándar.
+ * La unicidad de cada recordatorio la garantiza la restricción de la tabla.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public interface RecordatorioCitaRepository extends CrudRepository<RecordatorioCita, Long> {
+
+    /**
+     * Borra los recordatorios enviados de una cita, para que se vuelvan a enviar
+     * con su nueva fecha cuando se reagenda.
+     *
+     * @param citaId el id de la cita.
+     * @return el número de recordatorios borrados.
+     */
+    @Modifying
+    @Query("DELETE FROM RecordatorioCita r WHERE r.cita.id = :citaId")
+    int deleteByCitaId(@Param("citaId") int citaId);
+}
@@ -2,24 +2,115 @@ package mx.uam.ayd.proyecto.datos;
 
 import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.negocio.modelo.TendenciaEmocional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
-public interface RegistroEmocionalRepository extends CrudRepository<RegistroEmocional, Long> {
+public interface RegistroEmocionalRepository extends CrudRepository<RegistroEmocional, Long>, PagingAndSortingRepository<RegistroEmocional, Long> {
 
     List<RegistroEmocional> findByFecha(LocalDate fecha);
 
     List<RegistroEmocional> findByPaciente(Paciente paciente);
 
-    List<RegistroEmocional> findByPacienteIn(List<Paciente> pacientes);
+    /**
+     * @return el id más alto guardado, o null si no hay registros.
+     */
+    @Query("SELECT MAX(r.id) FROM RegistroEmocional r")
+    Long findMaxId();
+
+    /**
+     * Toma el siguiente valor de la secuencia de ids; Hibernate aparta los
+     * {@link RegistroEmocional#BLOQUE_IDS} ids que terminan en él.
+     */
+    @Query(value = "SELECT NEXT VALUE FOR " + RegistroEmocional.SECUENCIA_IDS, nativeQuery = true)
+    long siguienteValorSecuencia();
+
+    /**
+     * Hace que la secuencia de ids continúe en el valor indicado.
+     */
+    @Modifying
+    @Query(value = "ALTER SEQUENCE " + RegistroEmocional.SECUENCIA_IDS + " RESTART WITH :valor", nativeQuery = true)
+    void reiniciarSecuencia(@Param("valor") long valor);
+
+    /**
+     * Obtiene, de los pacientes indicados, los que ya tienen registro en una fecha.
+     * Usa el índice de la restricción única (paciente_id, fecha).
+     *
+     * @param pacienteIds los ids de los pacientes.
+     * @param fecha la fecha a verificar.
+     * @return los ids de los pacientes que ya tienen registro ese día.
+     */
+    @Query("SELECT r.paciente.id FROM RegistroEmocional r WHERE r.fecha = :fecha AND r.paciente.id IN :pacienteIds")
+    Set<Long> findPacientesConRegistro(@Param("pacienteIds") Collection<Long> pacienteIds,
+                                       @Param("fecha") LocalDate fecha);
+
+    /**
+     * Recupera una ventana de registros del más reciente al más antiguo, con su paciente.
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos registros traer como máximo.
+     * @return la ventana con los registros y la posición para continuar.
+     */
+    @EntityGraph(RegistroEmocional.GRAFO_CON_PACIENTE)
+    Window<RegistroEmocional> findByOrderByIdDesc(ScrollPosition posicion, Limit limite);
+
+    /**
+     * Recupera una ventana de los registros de los pacientes de un psicólogo, del más
+     * reciente al más antiguo, con su paciente.
+     *
+     * @param psicologo el psicólogo.
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos registros traer como máximo.
+     * @return la ventana con los registros y la posición para continuar.
+     */
+    @EntityGraph(RegistroEmocional.GRAFO_CON_PACIENTE)
+    Window<RegistroEmocional> findByPacientePsicologoOrderByIdDesc(Psicologo psicologo, ScrollPosition posicion, Limit limite);
+
+    /**
+     * Recupera una ventana de los registros de los pacientes de un psicólogo en un
+     * rango de fechas, del más reciente al más antiguo, con su paciente. Se une
+     * con los pacientes del psicólogo y recorre el índice (paciente_id, fecha) de
+     * la restricción única.
+     *
+     * @param psicologo el psicólogo.
+     * @param desde el primer día (inclusivo).
+     * @param hasta el último día (inclusivo).
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para empezar.
+     * @param limite cuántos registros traer como máximo.
+     * @return la ventana con los registros y la posición para continuar.
+     */
+    @EntityGraph(RegistroEmocional.GRAFO_CON_PACIENTE)
+    Window<RegistroEmocional> findByPacientePsicologoAndFechaBetweenOrderByFechaDescIdDesc(Psicologo psicologo,
+            LocalDate desde, LocalDate hasta, ScrollPosition posicion, Limit limite);
 
     /**
-     * Verifica si ya existe un registro para un paciente específico en una fecha específica.
+     * Cuenta, por paciente, semana y emoción, los registros de los pacientes de un
+     * psicólogo en un rango de fechas. Las semanas empiezan en lunes.
      *
-     * @param paciente El paciente a verificar.
-     * @param fecha La fecha a verificar.
-     * @return true si ya existe un registro, false en caso contrario.
+     * @param psicologo el psicólogo.
+     * @param desde el primer día (inclusivo).
+     * @param hasta el día siguiente al último (exclusivo).
+     * @return una fila por paciente, semana y emoción, ordenadas por paciente y semana.
      */
-    boolean existsByPacienteAndFecha(Paciente paciente, LocalDate fecha);
-}
\ No newline at end of file
+    @Query("SELECT new mx.uam.ayd.proyecto.negocio.modelo.TendenciaEmocional(" +
+            "p.id, p.nombre, truncate(r.fecha, week), r.emocion, COUNT(r)) " +
+            "FROM RegistroEmocional r JOIN r.paciente p " +
+            "WHERE p.psicologo = :psicologo AND r.fecha >= :desde AND r.fecha < :hasta " +
+            "GROUP BY p.id, p.nombre, truncate(r.fecha, week), r.emocion " +
+            "ORDER BY p.id, truncate(r.fecha, week), r.emocion")
+    List<TendenciaEmocional> calcularTendencia(@Param("psicologo") Psicologo psicologo,
+                                               @Param("desde") LocalDate desde,
+                                               @Param("hasta") LocalDate hasta);
+}
@@ -0,0 +1,54 @@
+package mx.uam.ayd.proyecto.datos;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import mx.uam.ayd.proyecto.negocio.modelo.ResumenEncuesta;
+import mx.uam.ayd.proyecto.negocio.modelo.TotalesPregunta;
+
+/**
+ * Repositorio de los resúmenes precalculados de la encuesta de satisfacción.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public interface ResumenEncuestaRepository extends CrudRepository<ResumenEncuesta, Long> {
+
+    String TOTALES_POR_PREGUNTA = "SELECT new mx.uam.ayd.proyecto.negocio.modelo.TotalesPregunta(r.pregunta, " +
+            "SUM(r.conteoMalo), SUM(r.conteoRegular), SUM(r.conteoBueno), SUM(r.conteoExcelente), " +
+            "SUM(r.conteoDesconocido), SUM(r.total), SUM(r.suma), SUM(r.sumaCuadrados)) " +
+            "FROM ResumenEncuesta r ";
+
+    /**
+     * Obtiene y bloquea los resúmenes de un mes y un psicólogo, para acumular una encuesta
+     * sin perder las que se guardan al mismo tiempo. Si aún no existen no bloquea nada;
+     * hay que crearlos con {@link mx.uam.ayd.proyecto.negocio.CreadorResumenEncuesta}.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ResumenEncuesta> findByPeriodoAndPsicologoId(int periodo, int psicologoId);
+
+    /**
+     * Suma los resúmenes de todos los meses y psicólogos.
+     *
+     * @return una fila por pregunta con respuestas registradas.
+     */
+    @Query(TOTALES_POR_PREGUNTA + "GROUP BY r.pregunta")
+    List<TotalesPregunta> sumarPorPregunta();
+
+    /**
+     * Suma los resúmenes de un psicólogo.
+     */
+    @Query(TOTALES_POR_PREGUNTA + "WHERE r.psicologoId = :psicologoId GROUP BY r.pregunta")
+    List<TotalesPregunta> sumarPorPreguntaDePsicologo(@Param("psicologoId") int psicologoId);
+
+    /**
+     * Suma los resúmenes de los meses entre {@code desde} y {@code hasta} (aaaamm), ambos inclusive.
+     */
+    @Query(TOTALES_POR_PREGUNTA + "WHERE r.periodo BETWEEN :desde AND :hasta GROUP BY r.pregunta")
+    List<TotalesPregunta> sumarPorPreguntaEntre(@Param("desde") int desde, @Param("hasta") int hasta);
+}
@@ -0,0 +1,27 @@
+package mx.uam.ayd.proyecto.datos;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.CrudRepository;
+
+import jakarta.persistence.LockModeType;
+import mx.uam.ayd.proyecto.negocio.modelo.SaldoPaciente;
+
+/**
+ * Repositorio de los saldos precalculados de los pacientes.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public interface SaldoPacienteRepository extends CrudRepository<SaldoPaciente, Long> {
+
+    /**
+     * Obtiene y bloquea los saldos de varios pacientes, para ajustarlos sin perder
+     * los cambios que se hacen al mismo tiempo. Se bloquean siempre en el mismo
+     * orden para no caer en un bloqueo mutuo.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<SaldoPaciente> findByPacienteIdInOrderByPacienteId(Collection<Long> pacienteIds);
+}
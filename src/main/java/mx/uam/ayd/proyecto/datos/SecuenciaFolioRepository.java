@@ -0,0 +1,27 @@
+package mx.uam.ayd.proyecto.datos;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import mx.uam.ayd.proyecto.negocio.modelo.SecuenciaFolio;
+
+/**
+ * Repositorio para gestionar operaciones de persistencia sobre la entidad {@link SecuenciaFolio}.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public interface SecuenciaFolioRepository extends CrudRepository<SecuenciaFolio, String> {
+
+    /**
+     * Avanza la secuencia en una sola sentencia; la fila queda bloqueada hasta
+     * que termina la transacción.
+     *
+     * @return el número de filas actualizadas: 0 si la secuencia aún no existe.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE SecuenciaFolio s SET s.siguiente = s.siguiente + :cantidad WHERE s.nombre = :nombre")
+    int avanzar(@Param("nombre") String nombre, @Param("cantidad") long cantidad);
+}
@@ -0,0 +1,31 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra el {@link ContadorSentencias} en Hibernate y activa sus estadísticas.
+ *
+ * <p>Toda la instrumentación (esta configuración, {@link MedicionServicios},
+ * {@link MedicionCaches} y {@link ControladorInstrumentacion}) está apagada por
+ * omisión; se enciende con {@code instrumentacion.habilitada=true}, por ejemplo
+ * con {@code --instrumentacion.habilitada=true} al arrancar.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "instrumentacion.habilitada", havingValue = "true")
+public class ConfiguracionInstrumentacion {
+
+    @Bean
+    public HibernatePropertiesCustomizer instrumentacionHibernate(ContadorSentencias contadorSentencias) {
+        return propiedades -> {
+            propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, contadorSentencias);
+            propiedades.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en cada hilo.
+ *
+ * <p>Hibernate llama a {@link #inspect(String)} una vez por sentencia antes de
+ * enviarla a la base de datos, incluidas las inserciones y actualizaciones del
+ * flush. {@link MedicionServicios} toma la diferencia del contador antes y
+ * después de cada llamada a un servicio para atribuirle sus sentencias.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "instrumentacion.habilitada", havingValue = "true")
+public class ContadorSentencias implements StatementInspector {
+
+    private final ThreadLocal<long[]> sentencias = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        sentencias.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Número de sentencias preparadas por el hilo actual desde que arrancó.
+     *
+     * @return el contador acumulado del hilo.
+     */
+    public long sentenciasDelHilo() {
+        return sentencias.get()[0];
+    }
+}
@@ -0,0 +1,78 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Expone lo medido por {@link MedicionServicios} en el servidor web embebido.
+ *
+ * <ul>
+ *   <li>GET /instrumentacion/servicios: resumen por método de servicio.</li>
+ *   <li>GET /instrumentacion/servicios/excedidos: métodos que rebasaron su presupuesto.</li>
+ *   <li>GET /instrumentacion/hibernate: totales globales de Hibernate.</li>
+ *   <li>GET /instrumentacion/caches: aciertos y fallos de cada caché (ver {@link MedicionCaches}).</li>
+ *   <li>DELETE /instrumentacion: reinicia las mediciones.</li>
+ * </ul>
+ *
+ * <p>Los servicios no piden autenticación, así que sólo existen con
+ * {@code instrumentacion.habilitada=true}; no debe activarse en producción.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/instrumentacion")
+@ConditionalOnProperty(name = "instrumentacion.habilitada", havingValue = "true")
+public class ControladorInstrumentacion {
+
+    @Autowired
+    private MedicionServicios medicionServicios;
+
+    @Autowired
+    private MedicionCaches medicionCaches;
+
+    @GetMapping("/servicios")
+    public List<ResumenMetodo> servicios() {
+        return medicionServicios.resumen();
+    }
+
+    @GetMapping("/servicios/excedidos")
+    public List<ResumenMetodo> excedidos() {
+        return medicionServicios.excedidos();
+    }
+
+    @GetMapping("/hibernate")
+    public Map<String, Object> hibernate() {
+        Statistics estadisticas = medicionServicios.estadisticasHibernate();
+        Map<String, Object> totales = new LinkedHashMap<>();
+        totales.put("sentenciasPreparadas", estadisticas.getPrepareStatementCount());
+        totales.put("consultasEjecutadas", estadisticas.getQueryExecutionCount());
+        totales.put("consultaMasLenta", estadisticas.getQueryExecutionMaxTimeQueryString());
+        totales.put("consultaMasLentaMs", estadisticas.getQueryExecutionMaxTime());
+        totales.put("entidadesCargadas", estadisticas.getEntityLoadCount());
+        totales.put("entidadesObtenidas", estadisticas.getEntityFetchCount());
+        totales.put("coleccionesCargadas", estadisticas.getCollectionLoadCount());
+        totales.put("coleccionesObtenidas", estadisticas.getCollectionFetchCount());
+        totales.put("transacciones", estadisticas.getTransactionCount());
+        return totales;
+    }
+
+    @GetMapping("/caches")
+    public List<ResumenCache> caches() {
+        return medicionCaches.resumen();
+    }
+
+    @DeleteMapping
+    public void reiniciar() {
+        medicionServicios.reiniciar();
+    }
+}
@@ -0,0 +1,65 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Reúne las estadísticas de las cachés de Caffeine declaradas en application.yml.
+ *
+ * <p>Las cachés de otro tipo, o con las estadísticas desactivadas, aparecen
+ * con ceros.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "instrumentacion.habilitada", havingValue = "true")
+public class MedicionCaches {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Resume las estadísticas de cada caché.
+     *
+     * @return un resumen por caché, ordenado por nombre.
+     */
+    public List<ResumenCache> resumen() {
+        List<ResumenCache> resumen = new ArrayList<>();
+        for (String nombre : cacheManager.getCacheNames().stream().sorted().toList()) {
+            resumen.add(resumen(cacheManager.getCache(nombre), nombre));
+        }
+        return resumen;
+    }
+
+    /**
+     * Vacía todas las cachés; las estadísticas se conservan.
+     */
+    public void vaciar() {
+        for (String nombre : cacheManager.getCacheNames()) {
+            cacheManager.getCache(nombre).clear();
+        }
+    }
+
+    private static ResumenCache resumen(Cache cache, String nombre) {
+        if (!(cache instanceof CaffeineCache caffeine)) {
+            return new ResumenCache(nombre, 0, 0, 0, 1.0, 0);
+        }
+        CacheStats estadisticas = caffeine.getNativeCache().stats();
+        return new ResumenCache(nombre,
+                caffeine.getNativeCache().estimatedSize(),
+                estadisticas.hitCount(),
+                estadisticas.missCount(),
+                estadisticas.hitRate(),
+                estadisticas.evictionCount());
+    }
+}
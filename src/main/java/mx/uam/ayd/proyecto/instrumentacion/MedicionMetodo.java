@@ -0,0 +1,70 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumulados de las llamadas a un método de servicio.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+class MedicionMetodo {
+
+    private final String metodo;
+    private final int presupuesto;
+
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder sentencias = new LongAdder();
+    private final AtomicLong sentenciasMaximas = new AtomicLong();
+    private final LongAdder entidadesCargadas = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicLong nanosMaximos = new AtomicLong();
+    private final LongAdder excesos = new LongAdder();
+
+    /**
+     * @param metodo el nombre del método como Clase.metodo.
+     * @param presupuesto el máximo de sentencias por llamada, o -1 si no tiene.
+     */
+    MedicionMetodo(String metodo, int presupuesto) {
+        this.metodo = metodo;
+        this.presupuesto = presupuesto;
+    }
+
+    /**
+     * Registra una llamada.
+     *
+     * @return true si la llamada rebasó el presupuesto del método.
+     */
+    boolean registrar(long sentenciasLlamada, long entidadesLlamada, long nanosLlamada) {
+        llamadas.increment();
+        sentencias.add(sentenciasLlamada);
+        sentenciasMaximas.accumulateAndGet(sentenciasLlamada, Math::max);
+        entidadesCargadas.add(entidadesLlamada);
+        nanos.add(nanosLlamada);
+        nanosMaximos.accumulateAndGet(nanosLlamada, Math::max);
+
+        boolean excedido = presupuesto >= 0 && sentenciasLlamada > presupuesto;
+        if (excedido) {
+            excesos.increment();
+        }
+        return excedido;
+    }
+
+    int getPresupuesto() {
+        return presupuesto;
+    }
+
+    ResumenMetodo resumen() {
+        return new ResumenMetodo(
+                metodo,
+                llamadas.sum(),
+                sentencias.sum(),
+                sentenciasMaximas.get(),
+                entidadesCargadas.sum(),
+                nanos.sum() / 1_000_000,
+                nanosMaximos.get() / 1_000_000,
+                presupuesto >= 0 ? presupuesto : null,
+                excesos.sum());
+    }
+}
@@ -0,0 +1,165 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Mide cada llamada pública a los servicios de la capa de negocio: sentencias
+ * SQL, entidades cargadas y tiempo de reloj.
+ *
+ * <p>Las sentencias se cuentan por hilo con {@link ContadorSentencias}, así que
+ * son exactas aunque haya varias llamadas en paralelo. Las entidades cargadas
+ * salen de las {@link Statistics} de Hibernate, que son globales; con llamadas
+ * concurrentes son una aproximación.</p>
+ *
+ * <p>El aspecto envuelve a la transacción del servicio, de modo que también
+ * cuenta las sentencias del flush al confirmar. Los métodos anotados con
+ * {@link PresupuestoSentencias} registran un exceso cada vez que lo rebasan.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "instrumentacion.habilitada", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MedicionServicios {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicionServicios.class);
+
+    @Autowired
+    private ContadorSentencias contadorSentencias;
+
+    @Autowired
+    private ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    private final Map<String, MedicionMetodo> mediciones = new ConcurrentHashMap<>();
+
+    private volatile Statistics estadisticas;
+
+    @Around("within(mx.uam.ayd.proyecto.negocio..*) "
+            + "&& @within(org.springframework.stereotype.Service) "
+            + "&& execution(public * *(..))")
+    public Object medir(ProceedingJoinPoint llamada) throws Throwable {
+        Statistics hibernate = estadisticasHibernate();
+        long sentenciasAntes = contadorSentencias.sentenciasDelHilo();
+        long entidadesAntes = entidadesCargadas(hibernate);
+        long inicio = System.nanoTime();
+        try {
+            return llamada.proceed();
+        } finally {
+            long nanos = System.nanoTime() - inicio;
+            long sentencias = contadorSentencias.sentenciasDelHilo() - sentenciasAntes;
+            long entidades = entidadesCargadas(hibernate) - entidadesAntes;
+
+            Method metodo = ((MethodSignature) llamada.getSignature()).getMethod();
+            String nombre = nombre(metodo);
+            MedicionMetodo medicion = mediciones.computeIfAbsent(nombre, clave -> {
+                PresupuestoSentencias presupuesto = metodo.getAnnotation(PresupuestoSentencias.class);
+                return new MedicionMetodo(clave, presupuesto != null ? presupuesto.value() : -1);
+            });
+            if (medicion.registrar(sentencias, entidades, nanos)) {
+                log.warn(nombre + " emitió " + sentencias + " sentencias; su presupuesto es "
+                        + medicion.getPresupuesto());
+            }
+        }
+    }
+
+    /**
+     * Lo medido para todos los métodos, del que más sentencias emitió al que menos.
+     *
+     * @return una lista con un resumen por método invocado.
+     */
+    public List<ResumenMetodo> resumen() {
+        return mediciones.values().stream()
+                .map(MedicionMetodo::resumen)
+                .sorted(Comparator.comparingLong(ResumenMetodo::sentencias).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lo medido para un método.
+     *
+     * @param metodo el método como Clase.metodo(TipoParametro, ...),
+     *               por ejemplo "ServicioPaciente.recuperarTodosLosPacientes()".
+     * @return el resumen, o vacío si el método no se ha invocado.
+     */
+    public Optional<ResumenMetodo> resumen(String metodo) {
+        return Optional.ofNullable(mediciones.get(metodo)).map(MedicionMetodo::resumen);
+    }
+
+    /**
+     * Los métodos que rebasaron su presupuesto de sentencias al menos una vez.
+     *
+     * @return una lista vacía si todos respetaron su presupuesto.
+     */
+    public List<ResumenMetodo> excedidos() {
+        return resumen().stream()
+                .filter(resumen -> resumen.excesos() > 0)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Descarta lo medido hasta ahora, junto con las estadísticas de Hibernate.
+     */
+    public void reiniciar() {
+        mediciones.clear();
+        estadisticasHibernate().clear();
+    }
+
+    /**
+     * Las estadísticas globales de Hibernate.
+     *
+     * @return las estadísticas de la fábrica de sesiones.
+     */
+    public Statistics estadisticasHibernate() {
+        Statistics actuales = estadisticas;
+        if (actuales == null) {
+            actuales = entityManagerFactory.getObject().unwrap(SessionFactory.class).getStatistics();
+            estadisticas = actuales;
+        }
+        return actuales;
+    }
+
+    private static long entidadesCargadas(Statistics hibernate) {
+        return hibernate.getEntityLoadCount() + hibernate.getCollectionLoadCount();
+    }
+
+    private static String nombre(Method metodo) {
+        StringBuilder nombre = new StringBuilder()
+                .append(metodo.getDeclaringClass().getSimpleName())
+                .append('.')
+                .append(metodo.getName())
+                .append('(');
+        Class<?>[] parametros = metodo.getParameterTypes();
+        for (int i = 0; i < parametros.length; i++) {
+            if (i > 0) {
+                nombre.append(", ");
+            }
+            nombre.append(parametros[i].getSimpleName());
+        }
+        return nombre.append(')').toString();
+    }
+}
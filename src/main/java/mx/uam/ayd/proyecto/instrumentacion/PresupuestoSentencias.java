@@ -0,0 +1,29 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Número máximo de sentencias SQL que puede emitir un método de servicio,
+ * sin importar cuántos registros haya en la base de datos.
+ *
+ * <p>{@link MedicionServicios} registra cada llamada que lo rebasa; las pruebas
+ * de integración fallan si algún método terminó con excesos, lo que detecta
+ * consultas N+1 antes de que lleguen a producción.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PresupuestoSentencias {
+
+    /**
+     * @return el número máximo de sentencias por llamada.
+     */
+    int value();
+}
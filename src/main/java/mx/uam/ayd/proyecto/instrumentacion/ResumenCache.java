@@ -0,0 +1,23 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+/**
+ * Los aciertos y fallos de una caché desde que arrancó la aplicación.
+ *
+ * @param cache el nombre de la caché.
+ * @param entradas cuántas entradas tiene ahora, aproximadamente.
+ * @param aciertos cuántas consultas se resolvieron con la caché.
+ * @param fallos cuántas consultas tuvieron que ir a la base de datos.
+ * @param tasaAciertos aciertos entre consultas, de 0 a 1; 1 si no ha habido consultas.
+ * @param desalojos cuántas entradas se sacaron por tamaño o por vencimiento.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public record ResumenCache(
+        String cache,
+        long entradas,
+        long aciertos,
+        long fallos,
+        double tasaAciertos,
+        long desalojos) {
+}
@@ -0,0 +1,32 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+/**
+ * Lo medido para un método de servicio desde el último reinicio.
+ *
+ * <p>Las sentencias y entidades de un método incluyen las de los servicios que
+ * invoca. Las entidades cargadas no cuentan las filas de proyecciones.</p>
+ *
+ * @param metodo el método como Clase.metodo.
+ * @param llamadas cuántas veces se invocó.
+ * @param sentencias total de sentencias SQL emitidas.
+ * @param sentenciasMaximas el mayor número de sentencias en una sola llamada.
+ * @param entidadesCargadas total de entidades y colecciones que Hibernate cargó.
+ * @param tiempoTotalMs tiempo total de reloj en milisegundos.
+ * @param tiempoMaximoMs la llamada más lenta en milisegundos.
+ * @param presupuesto el máximo de sentencias por llamada declarado, o null.
+ * @param excesos cuántas llamadas rebasaron el presupuesto.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public record ResumenMetodo(
+        String metodo,
+        long llamadas,
+        long sentencias,
+        long sentenciasMaximas,
+        long entidadesCargadas,
+        long tiempoTotalMs,
+        long tiempoMaximoMs,
+        Integer presupuesto,
+        long excesos) {
+}
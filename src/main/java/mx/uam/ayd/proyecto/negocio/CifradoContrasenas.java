@@ -0,0 +1,106 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cifra y verifica contraseñas con BCrypt.
+ *
+ * <p>El costo (propiedad {@code autenticacion.bcrypt.costo}, por omisión 10)
+ * duplica el tiempo de cada verificación por cada unidad que sube. Al arrancar
+ * se mide una verificación y se avisa en el log si rebasa
+ * {@code autenticacion.presupuesto-ms}, para bajar el costo en equipos lentos.</p>
+ *
+ * <p>Las contraseñas guardadas antes de cifrar se reconocen porque no tienen
+ * el formato de BCrypt; se comparan en tiempo constante y
+ * {@link #requiereCifrarDeNuevo(String)} indica que hay que cifrarlas en el
+ * siguiente inicio de sesión exitoso. Lo mismo para las cifradas con un costo
+ * menor al configurado.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class CifradoContrasenas {
+
+    private static final Logger log = LoggerFactory.getLogger(CifradoContrasenas.class);
+
+    private static final Pattern FORMATO_BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    private final BCryptPasswordEncoder codificador;
+
+    // Se compara contra ella cuando el usuario no existe, para que tarde lo mismo
+    private final String cifradoFicticio;
+
+    @Autowired
+    public CifradoContrasenas(@Value("${autenticacion.bcrypt.costo:10}") int costo,
+            @Value("${autenticacion.presupuesto-ms:250}") long presupuestoMs) {
+        this.codificador = new BCryptPasswordEncoder(costo);
+
+        long inicio = System.nanoTime();
+        this.cifradoFicticio = codificador.encode("contrasena-ficticia");
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        if (duracionMs > presupuestoMs) {
+            log.warn("Cifrar una contraseña con costo {} tomó {} ms, más que el presupuesto de {} ms; "
+                    + "conviene bajar autenticacion.bcrypt.costo", costo, duracionMs, presupuestoMs);
+        }
+    }
+
+    /**
+     * Cifra una contraseña para guardarla.
+     *
+     * @param contrasena la contraseña en claro.
+     * @return el cifrado en formato BCrypt, de 60 caracteres.
+     * @throws IllegalArgumentException si la contraseña es nula o vacía.
+     */
+    public String cifrar(String contrasena) {
+        if (contrasena == null || contrasena.isEmpty()) {
+            throw new IllegalArgumentException("La contraseña no puede ser nula");
+        }
+        return codificador.encode(contrasena);
+    }
+
+    /**
+     * Verifica una contraseña contra la guardada.
+     *
+     * @param contrasena la contraseña que se escribió.
+     * @param guardada el cifrado guardado, o la contraseña en claro si es anterior al cifrado;
+     *        null si el usuario no existe.
+     * @return true si coinciden; false si alguna es null.
+     */
+    public boolean coincide(String contrasena, String guardada) {
+        if (contrasena == null || guardada == null) {
+            // Misma espera que con un usuario existente
+            codificador.matches(contrasena != null ? contrasena : "", cifradoFicticio);
+            return false;
+        }
+        if (estaCifrada(guardada)) {
+            return codificador.matches(contrasena, guardada);
+        }
+        return MessageDigest.isEqual(contrasena.getBytes(StandardCharsets.UTF_8),
+                guardada.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Indica si una contraseña guardada debe cifrarse de nuevo: está en claro o
+     * se cifró con un costo menor al configurado.
+     *
+     * @param guardada la contraseña guardada.
+     * @return true si hay que volver a cifrarla.
+     */
+    public boolean requiereCifrarDeNuevo(String guardada) {
+        return guardada != null && (!estaCifrada(guardada) || codificador.upgradeEncoding(guardada));
+    }
+
+    private static boolean estaCifrada(String guardada) {
+        return FORMATO_BCRYPT.matcher(guardada).matches();
+    }
+}
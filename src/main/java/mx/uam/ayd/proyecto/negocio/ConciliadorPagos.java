@@ -0,0 +1,142 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import mx.uam.ayd.proyecto.negocio.modelo.MovimientoBancario;
+import mx.uam.ayd.proyecto.negocio.modelo.ResultadoConciliacion;
+
+/**
+ * Importa los archivos de liquidación del banco y concilia sus pagos contra las citas.
+ *
+ * <p>El archivo es CSV en UTF-8, un pago por renglón:
+ * {@code referencia,lineaCaptura,importe,fecha}, con la fecha como
+ * {@code aaaa-mm-dd}. Puede empezar con un renglón de encabezado.</p>
+ *
+ * <p>El archivo se lee en flujo con un búfer grande y se aplica en lotes de
+ * {@link #LOTE} renglones, cada uno en su propia transacción mediante
+ * {@link ServicioPago#aplicarLote}; la memoria no depende del tamaño del archivo.
+ * Si la importación se interrumpe, los lotes ya aplicados quedan firmes y volver
+ * a importar el archivo no duplica pagos.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class ConciliadorPagos {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliadorPagos.class);
+
+    /**
+     * Renglones por lote y por transacción.
+     */
+    public static final int LOTE = 2000;
+
+    private static final int TAMANO_BUFER = 1 << 16;
+    private static final String ENCABEZADO = "referencia,";
+
+    @Autowired
+    private ServicioPago servicioPago;
+
+    /**
+     * Concilia un archivo de liquidación.
+     *
+     * @param archivo el archivo del banco.
+     * @param alAvanzar recibe cuántos renglones se han aplicado.
+     * @return el resumen de la conciliación.
+     * @throws IOException si no se puede leer el archivo.
+     */
+    public ResultadoConciliacion conciliar(Path archivo, LongConsumer alAvanzar) throws IOException {
+        try (Reader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            ResultadoConciliacion resultado = conciliar(entrada, alAvanzar);
+            log.info("Conciliación de " + archivo.getFileName() + ": " + resultado);
+            return resultado;
+        }
+    }
+
+    /**
+     * Concilia los renglones de un archivo de liquidación ya abierto, que no se cierra.
+     *
+     * @param entrada el contenido del archivo.
+     * @param alAvanzar recibe cuántos renglones se han aplicado.
+     * @return el resumen de la conciliación.
+     * @throws IOException si no se puede leer la entrada.
+     */
+    public ResultadoConciliacion conciliar(Reader entrada, LongConsumer alAvanzar) throws IOException {
+        BufferedReader lector = new BufferedReader(entrada, TAMANO_BUFER);
+        ResultadoConciliacion resultado = ResultadoConciliacion.VACIO;
+        List<MovimientoBancario> lote = new ArrayList<>(LOTE);
+        long invalidos = 0;
+        long leidos = 0;
+
+        String renglon = lector.readLine();
+        if (renglon != null && renglon.startsWith(ENCABEZADO)) {
+            renglon = lector.readLine();
+        }
+        for (; renglon != null; renglon = lector.readLine()) {
+            if (renglon.isBlank()) {
+                continue;
+            }
+            leidos++;
+            MovimientoBancario movimiento = leer(renglon);
+            if (movimiento == null) {
+                invalidos++;
+                continue;
+            }
+            lote.add(movimiento);
+            if (lote.size() == LOTE) {
+                resultado = resultado.sumar(servicioPago.aplicarLote(lote));
+                lote.clear();
+                alAvanzar.accept(leidos);
+            }
+        }
+        if (!lote.isEmpty()) {
+            resultado = resultado.sumar(servicioPago.aplicarLote(lote));
+        }
+        alAvanzar.accept(leidos);
+
+        return resultado.sumar(new ResultadoConciliacion(invalidos, 0, 0, 0, 0, 0, 0, invalidos));
+    }
+
+    /**
+     * Interpreta un renglón del archivo.
+     *
+     * @return el movimiento, o null si el renglón está mal formado.
+     */
+    static MovimientoBancario leer(String renglon) {
+        // Se separa a mano: es el ciclo más caliente de la importación
+        int primera = renglon.indexOf(',');
+        int segunda = primera < 0 ? -1 : renglon.indexOf(',', primera + 1);
+        int tercera = segunda < 0 ? -1 : renglon.indexOf(',', segunda + 1);
+        if (tercera < 0 || renglon.indexOf(',', tercera + 1) >= 0) {
+            return null;
+        }
+
+        String referencia = renglon.substring(0, primera).trim();
+        String lineaCaptura = renglon.substring(primera + 1, segunda).trim();
+        if (referencia.isEmpty() || lineaCaptura.isEmpty()) {
+            return null;
+        }
+        try {
+            double importe = Double.parseDouble(renglon.substring(segunda + 1, tercera).trim());
+            LocalDate fecha = LocalDate.parse(renglon.substring(tercera + 1).trim());
+            return new MovimientoBancario(referencia, lineaCaptura, importe, fecha);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+}
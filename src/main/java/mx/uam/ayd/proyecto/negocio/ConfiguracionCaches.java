@@ -0,0 +1,46 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa las cachés de las consultas que se repiten en casi cada pantalla.
+ *
+ * <p>Las cachés son de Caffeine (desalojo W-TinyLFU) y se configuran en
+ * {@code spring.cache} de application.yml: un máximo de entradas por caché, un
+ * tiempo de vida desde que se escribe la entrada y registro de aciertos y
+ * fallos, que se consultan en {@code GET /instrumentacion/caches}.</p>
+ *
+ * <p>Los servicios que modifican lo que se guarda en una caché la invalidan
+ * con {@code @CacheEvict}. Los resultados nulos no se guardan, así que un
+ * registro nuevo no tiene que invalidar nada. Los cambios hechos directamente
+ * en la base de datos se ven al vencer el tiempo de vida.</p>
+ *
+ * <p>Las entidades guardadas están desligadas de la sesión de Hibernate: sólo
+ * traen lo que carga la consulta original. Los psicólogos y el aviso se
+ * comparten entre quienes los piden; de los pacientes, que las pantallas
+ * modifican, se guarda una copia y cada llamada recibe otra (ver
+ * {@link ServicioPaciente#obtenerPacientePorUsuario(String)}).</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Configuration
+@EnableCaching
+public class ConfiguracionCaches {
+
+    /**
+     * Pacientes por nombre de usuario, con su psicólogo y su historial clínico.
+     */
+    public static final String PACIENTES_POR_USUARIO = "pacientesPorUsuario";
+
+    /**
+     * Psicólogos por id.
+     */
+    public static final String PSICOLOGOS_POR_ID = "psicologosPorId";
+
+    /**
+     * El aviso más reciente; una sola entrada.
+     */
+    public static final String ULTIMO_AVISO = "ultimoAviso";
+}
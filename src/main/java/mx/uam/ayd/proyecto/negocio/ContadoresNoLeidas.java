@@ -0,0 +1,154 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Contadores en memoria de notificaciones no leídas por destinatario, con oyentes
+ * que reciben el nuevo valor cada vez que cambia.
+ *
+ * <p>Un contador se carga de la base de datos la primera vez que se consulta y
+ * después sólo se ajusta con los cambios que hace {@link ServicioNotificacion}.
+ * Cada cambio se anuncia con {@link #iniciarCambio} antes de escribir en la base
+ * de datos y se cierra con {@link #terminarCambio} cuando termina su transacción.
+ * Una carga que se cruzó con un cambio no se guarda (su conteo puede o no incluirlo),
+ * así ningún cambio se cuenta dos veces ni se pierde.</p>
+ *
+ * @param <K> el tipo del id del destinatario.
+ */
+class ContadoresNoLeidas<K> {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadoresNoLeidas.class);
+
+    private final Map<K, Estado> estados = new ConcurrentHashMap<>();
+    private final Map<K, List<LongConsumer>> oyentes = new ConcurrentHashMap<>();
+
+    /**
+     * Estado del contador de un destinatario; se protege sincronizando sobre él.
+     */
+    private static final class Estado {
+        private boolean cargado;
+        private long valor;
+        // Cambios empezados que aún no terminan su transacción
+        private int enCurso;
+        // Aumenta con cada cambio terminado, para detectar los que ocurrieron durante una carga
+        private long version;
+    }
+
+    /**
+     * Devuelve el contador del destinatario, cargándolo con la función dada si aún no existe.
+     * La carga se hace fuera de cualquier candado.
+     */
+    long obtener(K destinatario, ToLongFunction<K> cargar) {
+        if (destinatario == null) {
+            // Destinatario sin guardar: no hay nada que cachear
+            return cargar.applyAsLong(null);
+        }
+        Estado estado = estado(destinatario);
+        long versionAntes;
+        boolean sinCambios;
+        synchronized (estado) {
+            if (estado.cargado) {
+                return estado.valor;
+            }
+            versionAntes = estado.version;
+            sinCambios = estado.enCurso == 0;
+        }
+        long cargado = cargar.applyAsLong(destinatario);
+        synchronized (estado) {
+            if (estado.cargado) {
+                return estado.valor;
+            }
+            if (sinCambios && estado.enCurso == 0 && estado.version == versionAntes) {
+                estado.valor = cargado;
+                estado.cargado = true;
+            }
+            // Si hubo cambios durante la carga se devuelve sin guardar; la siguiente consulta vuelve a cargar
+            return cargado;
+        }
+    }
+
+    /**
+     * Fija el valor del contador (al precargar desde la base de datos).
+     */
+    void fijar(K destinatario, long valor) {
+        Estado estado = estado(destinatario);
+        synchronized (estado) {
+            estado.valor = valor;
+            estado.cargado = true;
+        }
+    }
+
+    /**
+     * Anuncia un cambio en las notificaciones del destinatario, antes de escribirlo.
+     * Debe ir seguido siempre de {@link #terminarCambio}.
+     */
+    void iniciarCambio(K destinatario) {
+        if (destinatario == null) {
+            return;
+        }
+        Estado estado = estado(destinatario);
+        synchronized (estado) {
+            estado.enCurso++;
+        }
+    }
+
+    /**
+     * Cierra un cambio anunciado: suma (o resta) al contador del destinatario y avisa
+     * a sus oyentes. Con delta 0 (transacción revertida) sólo cierra el cambio.
+     * Si el contador no se ha cargado no suma nada: se cargará completo al consultarlo.
+     */
+    void terminarCambio(K destinatario, long delta) {
+        if (destinatario == null) {
+            return;
+        }
+        Estado estado = estado(destinatario);
+        long nuevo;
+        synchronized (estado) {
+            estado.enCurso--;
+            estado.version++;
+            if (!estado.cargado || delta == 0) {
+                return;
+            }
+            estado.valor = Math.max(0, estado.valor + delta);
+            nuevo = estado.valor;
+        }
+        avisar(destinatario, nuevo);
+    }
+
+    private Estado estado(K destinatario) {
+        return estados.computeIfAbsent(destinatario, id -> new Estado());
+    }
+
+    void agregarOyente(K destinatario, LongConsumer oyente) {
+        if (destinatario == null) {
+            return;
+        }
+        oyentes.computeIfAbsent(destinatario, id -> new CopyOnWriteArrayList<>()).add(oyente);
+    }
+
+    void quitarOyente(K destinatario, LongConsumer oyente) {
+        List<LongConsumer> lista = destinatario == null ? null : oyentes.get(destinatario);
+        if (lista != null) {
+            lista.remove(oyente);
+        }
+    }
+
+    private void avisar(K destinatario, long valor) {
+        for (LongConsumer oyente : oyentes.getOrDefault(destinatario, List.of())) {
+            try {
+                oyente.accept(valor);
+            } catch (RuntimeException e) {
+                // Un oyente con error no debe impedir que se avise a los demás
+                log.error("Error al avisar cambio de notificaciones no leídas", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import mx.uam.ayd.proyecto.datos.ResumenEncuestaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.ReporteCalificaciones;
+import mx.uam.ayd.proyecto.negocio.modelo.ResumenEncuesta;
+
+/**
+ * Crea las filas vacías del resumen de encuestas de un mes y un psicólogo.
+ *
+ * <p>Las filas se crean en su propia transacción para que, si dos encuestas del
+ * mismo mes y psicólogo llegan al mismo tiempo, sólo falle la creación repetida
+ * y no la encuesta que se está guardando. Lo usa {@link ServicioReporteEncuesta}.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class CreadorResumenEncuesta {
+
+    @Autowired
+    private ResumenEncuestaRepository resumenEncuestaRepository;
+
+    /**
+     * Crea una fila sin respuestas por cada pregunta de opción múltiple.
+     *
+     * @param periodo el mes en formato aaaamm.
+     * @param psicologoId el psicólogo, o {@link ResumenEncuesta#SIN_PSICOLOGO}.
+     * @throws org.springframework.dao.DataIntegrityViolationException si otra
+     *         transacción ya creó las filas; en ese caso basta con volver a leerlas.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void crearFilas(int periodo, int psicologoId) {
+        List<ResumenEncuesta> filas = new ArrayList<>(ReporteCalificaciones.PREGUNTAS);
+        for (int pregunta = 1; pregunta <= ReporteCalificaciones.PREGUNTAS; pregunta++) {
+            filas.add(new ResumenEncuesta(periodo, psicologoId, pregunta));
+        }
+        resumenEncuestaRepository.saveAll(filas);
+    }
+}
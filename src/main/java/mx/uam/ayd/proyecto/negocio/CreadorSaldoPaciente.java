@@ -0,0 +1,44 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.util.Collection;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import mx.uam.ayd.proyecto.negocio.modelo.SaldoPaciente;
+
+/**
+ * Crea el {@link SaldoPaciente} de los pacientes que aún no tienen uno.
+ *
+ * <p>Los saldos se crean vacíos y en su propia transacción, para que quien los
+ * necesita pueda bloquearlos y calcularlos como cualquier saldo que no está al
+ * día. Si dos agendas o pagos del mismo paciente llegan al mismo tiempo, sólo
+ * falla la creación repetida y no la operación. Lo usa {@link ServicioSaldoPaciente}.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class CreadorSaldoPaciente {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Crea un saldo vacío, sin fecha de cálculo, por cada paciente.
+     *
+     * @param pacienteIds los pacientes sin saldo.
+     * @throws org.springframework.dao.DataIntegrityViolationException si otra
+     *         transacción ya creó alguno; en ese caso no se crea ninguno.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void crear(Collection<Long> pacienteIds) {
+        for (Long pacienteId : pacienteIds) {
+            // persist inserta siempre; save haría merge y sobrescribiría un saldo creado por otra transacción
+            entityManager.persist(new SaldoPaciente(pacienteId));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
+
+/**
+ * Punto de entrada para guardar registros emocionales, con escritura diferida
+ * opcional para las ráfagas de inicio del día en quioscos o móviles.
+ *
+ * <p>Por omisión cada registro se guarda al momento con
+ * {@link ServicioRegistroemocional#guardarRegistro}. Con la propiedad
+ * {@code registroEmocional.escritura-diferida=true} los registros se validan y
+ * se encolan, y un único hilo los guarda cada
+ * {@code registroEmocional.intervalo-ms} milisegundos (por omisión 500) en
+ * lotes de {@link #LOTE}, con una transacción y una inserción por lote.</p>
+ *
+ * <p>Un paciente con un registro todavía en la cola no puede encolar otro ese
+ * día. Si ya tenía uno guardado, el registro encolado se descarta al escribir
+ * el lote. Si la cola se llena, el registro se guarda al momento. Si un lote
+ * falla por otra causa (por ejemplo, la base de datos no responde), se conserva
+ * y es lo primero que se escribe en la siguiente ejecución. Al cerrar la
+ * aplicación se escribe lo pendiente.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class EscritorRegistrosEmocionales {
+
+    private static final Logger log = LoggerFactory.getLogger(EscritorRegistrosEmocionales.class);
+
+    /**
+     * Registros por transacción; coincide con {@code hibernate.jdbc.batch_size}.
+     */
+    static final int LOTE = 100;
+
+    private final ServicioRegistroemocional servicioRegistroemocional;
+    private final boolean diferida;
+    private final long intervaloMs;
+
+    private final BlockingQueue<RegistroEmocional> cola = new ArrayBlockingQueue<>(LOTE * 50);
+    // Paciente y día de los registros en la cola, para rechazar los repetidos al encolar
+    private final Set<Pendiente> pendientes = ConcurrentHashMap.newKeySet();
+    // Lote en curso; si falla su escritura se queda aquí para reintentarlo antes que la cola
+    private final List<RegistroEmocional> lote = new ArrayList<>(LOTE);
+
+    private ScheduledExecutorService ejecutor;
+
+    @Autowired
+    public EscritorRegistrosEmocionales(ServicioRegistroemocional servicioRegistroemocional,
+            @Value("${registroEmocional.escritura-diferida:false}") boolean diferida,
+            @Value("${registroEmocional.intervalo-ms:500}") long intervaloMs) {
+        this.servicioRegistroemocional = servicioRegistroemocional;
+        this.diferida = diferida;
+        this.intervaloMs = intervaloMs;
+    }
+
+    @PostConstruct
+    public void inicia() {
+        if (!diferida) {
+            return;
+        }
+        ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "registros-emocionales");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        ejecutor.scheduleWithFixedDelay(this::escribirPendientes, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detiene() {
+        if (ejecutor != null) {
+            ejecutor.shutdown();
+            try {
+                ejecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        escribirPendientes();
+    }
+
+    /**
+     * Guarda el registro de hoy del paciente, al momento o en la cola.
+     *
+     * @return el registro; con escritura diferida aún no tiene id.
+     * @throws IllegalArgumentException si faltan datos o el paciente ya hizo su registro hoy.
+     */
+    public RegistroEmocional guardar(String emocion, String nota, Paciente paciente) {
+        if (!diferida) {
+            return servicioRegistroemocional.guardarRegistro(emocion, nota, paciente);
+        }
+
+        RegistroEmocional registro = servicioRegistroemocional.nuevoRegistro(emocion, nota, paciente);
+        Pendiente pendiente = new Pendiente(paciente.getId(), registro.getFecha());
+        if (!pendientes.add(pendiente)) {
+            throw new IllegalArgumentException(ServicioRegistroemocional.YA_REGISTRADO);
+        }
+        if (!cola.offer(registro)) {
+            pendientes.remove(pendiente);
+            return servicioRegistroemocional.guardarRegistro(emocion, nota, paciente);
+        }
+        return registro;
+    }
+
+    /**
+     * Escribe todo lo que hay en la cola, en lotes.
+     *
+     * @return el número de registros guardados.
+     */
+    public synchronized int escribirPendientes() {
+        int guardados = 0;
+        try {
+            while (!lote.isEmpty() || cola.drainTo(lote, LOTE) > 0) {
+                guardados += escribir(lote);
+                for (RegistroEmocional registro : lote) {
+                    pendientes.remove(new Pendiente(registro.getPaciente().getId(), registro.getFecha()));
+                }
+                lote.clear();
+            }
+        } catch (Exception e) {
+            // Una excepción no debe cancelar las siguientes ejecuciones; el lote se reintenta en la siguiente
+            for (RegistroEmocional registro : lote) {
+                registro.setId(null);
+            }
+            log.error("Error al escribir " + lote.size() + " registros emocionales pendientes; se reintentarán", e);
+        }
+        return guardados;
+    }
+
+    private int escribir(List<RegistroEmocional> lote) {
+        try {
+            return servicioRegistroemocional.guardarLote(lote).size();
+        } catch (DataIntegrityViolationException e) {
+            // Otro proceso guardó el registro de algún paciente del lote; se reintenta de uno en uno
+            int guardados = 0;
+            for (RegistroEmocional registro : lote) {
+                try {
+                    registro.setId(null);
+                    guardados += servicioRegistroemocional.guardarLote(List.of(registro)).size();
+                } catch (DataIntegrityViolationException error) {
+                    if (ServicioRegistroemocional.esRegistroRepetido(error)) {
+                        log.debug("Registro emocional repetido del paciente " + registro.getPaciente().getId());
+                    } else {
+                        log.error("No se pudo guardar el registro emocional del paciente "
+                                + registro.getPaciente().getId(), error);
+                    }
+                }
+            }
+            return guardados;
+        }
+    }
+
+    /**
+     * Paciente y día de un registro en la cola.
+     */
+    private record Pendiente(Long pacienteId, LocalDate fecha) {
+    }
+}
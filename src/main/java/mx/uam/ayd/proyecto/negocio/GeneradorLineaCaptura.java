@@ -0,0 +1,156 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Genera las líneas de captura de los pagos.
+ *
+ * <p>Cada línea tiene 10 dígitos: un folio consecutivo de 9 dígitos y un dígito
+ * verificador de Luhn, que detecta cualquier dígito mal capturado y casi todas
+ * las transposiciones. Los folios se apartan de la base de datos en bloques (por
+ * omisión de 1000, propiedad {@code lineaCaptura.bloque}) por medio de
+ * {@link ServicioSecuenciaFolio}, así que varias instancias de la aplicación
+ * nunca emiten la misma línea.</p>
+ *
+ * <p>Dentro de un bloque los folios se toman con un incremento atómico, sin
+ * bloqueos; sólo el hilo que agota el bloque va a la base de datos. Si dos hilos
+ * lo agotan a la vez, ambos apartan uno nuevo y el que pierde lo descarta: los
+ * folios son únicos, no necesariamente contiguos.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class GeneradorLineaCaptura {
+
+    /**
+     * Nombre de la secuencia en la base de datos.
+     */
+    static final String SECUENCIA = "lineaCaptura";
+
+    /**
+     * El mayor folio que cabe en 9 dígitos.
+     */
+    static final long FOLIO_MAXIMO = 999_999_999L;
+
+    private static final int DIGITOS_FOLIO = 9;
+
+    private final ServicioSecuenciaFolio servicioSecuenciaFolio;
+    private final long tamanoBloque;
+
+    // Al inicio no hay bloque apartado; el primer folio que se pide aparta uno
+    private final AtomicReference<Bloque> bloque = new AtomicReference<>(new Bloque(0, 0));
+
+    @Autowired
+    public GeneradorLineaCaptura(ServicioSecuenciaFolio servicioSecuenciaFolio,
+            @Value("${lineaCaptura.bloque:1000}") long tamanoBloque) {
+        if (tamanoBloque <= 0) {
+            throw new IllegalArgumentException("El tamaño del bloque debe ser positivo");
+        }
+        this.servicioSecuenciaFolio = servicioSecuenciaFolio;
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    /**
+     * Emite una nueva línea de captura.
+     *
+     * @return 10 dígitos, distintos en cada llamada y en cada instancia.
+     * @throws IllegalStateException si ya se emitieron todos los folios.
+     */
+    public String siguiente() {
+        while (true) {
+            Bloque actual = bloque.get();
+            long folio = actual.tomar();
+            if (folio >= 0) {
+                return lineaCaptura(folio);
+            }
+            bloque.compareAndSet(actual, apartarBloque());
+        }
+    }
+
+    private Bloque apartarBloque() {
+        long inicio;
+        try {
+            inicio = servicioSecuenciaFolio.apartarBloque(SECUENCIA, tamanoBloque, 1);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia creó la secuencia al mismo tiempo; ahora ya existe
+            inicio = servicioSecuenciaFolio.apartarBloque(SECUENCIA, tamanoBloque, 1);
+        }
+        if (inicio > FOLIO_MAXIMO) {
+            throw new IllegalStateException("Se agotaron los folios de líneas de captura");
+        }
+        return new Bloque(inicio, Math.min(inicio + tamanoBloque, FOLIO_MAXIMO + 1));
+    }
+
+    /**
+     * Forma la línea de captura de un folio.
+     *
+     * @param folio un folio entre 0 y {@link #FOLIO_MAXIMO}.
+     * @return el folio con ceros a la izquierda seguido de su dígito verificador.
+     */
+    static String lineaCaptura(long folio) {
+        String digitos = String.format("%0" + DIGITOS_FOLIO + "d", folio);
+        return digitos + digitoVerificador(digitos);
+    }
+
+    /**
+     * Indica si una línea de captura está bien formada y su dígito verificador es correcto.
+     *
+     * @param linea la línea capturada; puede ser null.
+     * @return true si tiene 10 dígitos y pasa la verificación de Luhn.
+     */
+    public static boolean esValida(String linea) {
+        if (linea == null || linea.length() != DIGITOS_FOLIO + 1 || !linea.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        return digitoVerificador(linea.substring(0, DIGITOS_FOLIO)) == linea.charAt(DIGITOS_FOLIO) - '0';
+    }
+
+    /**
+     * Calcula el dígito de Luhn que se agrega a la derecha de los dígitos indicados.
+     */
+    static int digitoVerificador(String digitos) {
+        int suma = 0;
+        boolean duplicar = true;
+        for (int i = digitos.length() - 1; i >= 0; i--) {
+            int digito = digitos.charAt(i) - '0';
+            if (duplicar) {
+                digito *= 2;
+                if (digito > 9) {
+                    digito -= 9;
+                }
+            }
+            suma += digito;
+            duplicar = !duplicar;
+        }
+        return (10 - suma % 10) % 10;
+    }
+
+    /**
+     * Folios apartados del {@code siguiente} al {@code fin - 1}.
+     */
+    private static final class Bloque {
+
+        private final AtomicLong siguiente;
+        private final long fin;
+
+        Bloque(long inicio, long fin) {
+            this.siguiente = new AtomicLong(inicio);
+            this.fin = fin;
+        }
+
+        /**
+         * @return el siguiente folio libre, o -1 si el bloque se agotó.
+         */
+        long tomar() {
+            long folio = siguiente.getAndIncrement();
+            return folio < fin ? folio : -1;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaAgendada;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+
+/**
+ * Índice en memoria de los horarios ocupados de cada psicólogo.
+ *
+ * <p>Cada psicólogo tiene su propia agenda ordenada por hora de inicio, de modo que
+ * detectar un traslape cuesta O(log n) sobre las citas de ese psicólogo y no sobre
+ * las de todo el centro. La reservación y la verificación se hacen bajo el candado
+ * de la agenda del psicólogo, así que dos pacientes que piden el mismo horario al
+ * mismo tiempo no pueden obtenerlo ambos.</p>
+ *
+ * <p>El índice se reconstruye desde la tabla de citas al arrancar y lo mantiene
+ * {@link ServicioCita} al crear, cancelar y reagendar.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class IndiceAgendaCitas {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceAgendaCitas.class);
+
+    /**
+     * Duración de una cita; todas las citas ocupan un bloque de una hora.
+     */
+    public static final Duration DURACION_CITA = Duration.ofHours(1);
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    // Agenda por id de psicólogo: hora de inicio -> número de citas activas en ese horario
+    private final Map<Integer, TreeMap<LocalDateTime, Integer>> agendas = new ConcurrentHashMap<>();
+
+    /**
+     * Reconstruye el índice con las citas activas a partir del día de hoy.
+     */
+    @PostConstruct
+    public void reconstruir() {
+        List<CitaAgendada> citas = citaRepository.findAgendadasDesde(
+                LocalDate.now().atStartOfDay(), TipoConfirmacionCita.CANCELADA);
+
+        agendas.clear();
+        for (CitaAgendada cita : citas) {
+            agenda(cita.psicologoId()).merge(cita.fechaCita(), 1, Integer::sum);
+        }
+        log.info("Índice de agenda reconstruido con " + citas.size() + " citas activas");
+    }
+
+    /**
+     * Indica si el horario se traslapa con alguna cita activa del psicólogo.
+     *
+     * @param psicologoId el id del psicólogo.
+     * @param inicio la hora de inicio del horario a consultar.
+     * @return true si el horario está ocupado.
+     */
+    public boolean estaOcupado(int psicologoId, LocalDateTime inicio) {
+        TreeMap<LocalDateTime, Integer> agenda = agendas.get(psicologoId);
+        if (agenda == null) {
+            return false;
+        }
+        synchronized (agenda) {
+            return hayTraslape(agenda, inicio);
+        }
+    }
+
+    /**
+     * Reserva el horario para el psicólogo si está libre.
+     *
+     * <p>Si la reservación ocurre dentro de una transacción y ésta se revierte,
+     * el horario se libera automáticamente.</p>
+     *
+     * @param psicologoId el id del psicólogo.
+     * @param inicio la hora de inicio de la cita.
+     * @return true si se reservó, false si el horario ya estaba ocupado.
+     */
+    public boolean reservar(int psicologoId, LocalDateTime inicio) {
+        TreeMap<LocalDateTime, Integer> agenda = agenda(psicologoId);
+        synchronized (agenda) {
+            if (hayTraslape(agenda, inicio)) {
+                return false;
+            }
+            agenda.put(inicio, 1);
+        }
+        liberarSiSeRevierte(psicologoId, inicio);
+        return true;
+    }
+
+    /**
+     * Libera el horario de una cita que se canceló o se movió.
+     *
+     * <p>Dentro de una transacción el horario se libera hasta que ésta se confirma,
+     * para que una cancelación revertida no deje el horario disponible.</p>
+     *
+     * @param psicologoId el id del psicólogo.
+     * @param inicio la hora de inicio de la cita.
+     */
+    public void liberar(int psicologoId, LocalDateTime inicio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    quitar(psicologoId, inicio);
+                }
+            });
+        } else {
+            quitar(psicologoId, inicio);
+        }
+    }
+
+    private void quitar(int psicologoId, LocalDateTime inicio) {
+        TreeMap<LocalDateTime, Integer> agenda = agendas.get(psicologoId);
+        if (agenda == null) {
+            return;
+        }
+        synchronized (agenda) {
+            agenda.computeIfPresent(inicio, (hora, cuenta) -> cuenta > 1 ? cuenta - 1 : null);
+        }
+    }
+
+    private TreeMap<LocalDateTime, Integer> agenda(int psicologoId) {
+        return agendas.computeIfAbsent(psicologoId, id -> new TreeMap<>());
+    }
+
+    /**
+     * Revisa la cita anterior y la siguiente a la hora de inicio; con citas de
+     * duración fija son las únicas que pueden traslaparse.
+     */
+    private boolean hayTraslape(TreeMap<LocalDateTime, Integer> agenda, LocalDateTime inicio) {
+        LocalDateTime anterior = agenda.floorKey(inicio);
+        if (anterior != null && anterior.plus(DURACION_CITA).isAfter(inicio)) {
+            return true;
+        }
+        LocalDateTime siguiente = agenda.ceilingKey(inicio);
+        return siguiente != null && siguiente.isBefore(inicio.plus(DURACION_CITA));
+    }
+
+    private void liberarSiSeRevierte(int psicologoId, LocalDateTime inicio) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    quitar(psicologoId, inicio);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cuenta en memoria los inicios de sesión fallidos por usuario y bloquea los
+ * que acumulan demasiados, sin escribir en la base de datos por cada fallo.
+ *
+ * <p>Si un usuario falla {@code autenticacion.intentos.maximo} veces (5 por
+ * omisión) dentro de {@code autenticacion.intentos.ventana} (15 minutos) queda
+ * bloqueado durante {@code autenticacion.intentos.bloqueo} (5 minutos). Un
+ * inicio de sesión exitoso borra sus fallos.</p>
+ *
+ * <p>Los contadores se reparten en {@link #FRANJAS} franjas según la llave,
+ * cada una con su propio candado, para que los intentos de usuarios distintos
+ * no compitan entre sí. Cada franja guarda a lo más {@link #LLAVES_POR_FRANJA}
+ * llaves; al llenarse se descartan las vencidas y, si no basta, la más antigua.
+ * Los contadores se pierden al reiniciar la aplicación.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class LimitadorIntentos {
+
+    /**
+     * Número de franjas; potencia de dos.
+     */
+    static final int FRANJAS = 16;
+
+    /**
+     * Llaves que guarda cada franja como máximo.
+     */
+    static final int LLAVES_POR_FRANJA = 1024;
+
+    private final int maximoFallos;
+    private final Duration ventana;
+    private final Duration bloqueo;
+    private final Clock reloj;
+    private final Franja[] franjas = new Franja[FRANJAS];
+
+    @Autowired
+    public LimitadorIntentos(@Value("${autenticacion.intentos.maximo:5}") int maximoFallos,
+            @Value("${autenticacion.intentos.ventana:15m}") Duration ventana,
+            @Value("${autenticacion.intentos.bloqueo:5m}") Duration bloqueo) {
+        this(maximoFallos, ventana, bloqueo, Clock.systemUTC());
+    }
+
+    LimitadorIntentos(int maximoFallos, Duration ventana, Duration bloqueo, Clock reloj) {
+        this.maximoFallos = maximoFallos;
+        this.ventana = ventana;
+        this.bloqueo = bloqueo;
+        this.reloj = reloj;
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja();
+        }
+    }
+
+    /**
+     * Indica cuánto falta para que la llave pueda volver a intentar.
+     *
+     * @param llave el usuario, junto con su rol.
+     * @return el tiempo restante de bloqueo, o {@link Duration#ZERO} si puede intentar.
+     */
+    public Duration tiempoBloqueado(String llave) {
+        Franja franja = franja(llave);
+        Instant ahora = reloj.instant();
+        synchronized (franja) {
+            Fallos fallos = franja.fallos.get(llave);
+            if (fallos == null || fallos.bloqueadoHasta == null || !ahora.isBefore(fallos.bloqueadoHasta)) {
+                return Duration.ZERO;
+            }
+            return Duration.between(ahora, fallos.bloqueadoHasta);
+        }
+    }
+
+    /**
+     * Cuenta un intento fallido; al llegar al máximo bloquea la llave.
+     *
+     * @param llave el usuario, junto con su rol.
+     */
+    public void registrarFallo(String llave) {
+        Franja franja = franja(llave);
+        Instant ahora = reloj.instant();
+        synchronized (franja) {
+            Fallos fallos = franja.fallos.get(llave);
+            if (fallos == null || fallos.vencido(ahora)) {
+                if (fallos == null && franja.fallos.size() >= LLAVES_POR_FRANJA) {
+                    franja.liberarEspacio(ahora);
+                }
+                fallos = new Fallos(ahora);
+                franja.fallos.put(llave, fallos);
+            }
+            fallos.cuenta++;
+            if (fallos.cuenta >= maximoFallos) {
+                fallos.bloqueadoHasta = ahora.plus(bloqueo);
+            }
+        }
+    }
+
+    /**
+     * Borra los fallos de la llave tras un intento exitoso.
+     *
+     * @param llave el usuario, junto con su rol.
+     */
+    public void registrarExito(String llave) {
+        Franja franja = franja(llave);
+        synchronized (franja) {
+            franja.fallos.remove(llave);
+        }
+    }
+
+    private Franja franja(String llave) {
+        int hash = llave.hashCode();
+        return franjas[(hash ^ (hash >>> 16)) & (FRANJAS - 1)];
+    }
+
+    /**
+     * Los contadores de las llaves que caen en una franja, en orden de su primer fallo.
+     */
+    private static final class Franja {
+
+        private final Map<String, Fallos> fallos = new LinkedHashMap<>();
+
+        void liberarEspacio(Instant ahora) {
+            fallos.values().removeIf(contador -> contador.vencido(ahora));
+            Iterator<String> antiguas = fallos.keySet().iterator();
+            if (fallos.size() >= LLAVES_POR_FRANJA && antiguas.hasNext()) {
+                antiguas.next();
+                antiguas.remove();
+            }
+        }
+    }
+
+    /**
+     * Los fallos de una llave desde el primero de su ventana.
+     */
+    private final class Fallos {
+
+        private final Instant inicio;
+        private int cuenta;
+        private Instant bloqueadoHasta;
+
+        Fallos(Instant inicio) {
+            this.inicio = inicio;
+        }
+
+        boolean vencido(Instant ahora) {
+            if (bloqueadoHasta != null) {
+                return !ahora.isBefore(bloqueadoHasta);
+            }
+            return !ahora.isBefore(inicio.plus(ventana));
+        }
+    }
+}
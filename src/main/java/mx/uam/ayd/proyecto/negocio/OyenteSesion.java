@@ -0,0 +1,32 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import mx.uam.ayd.proyecto.negocio.modelo.Sesion;
+
+/**
+ * Recibe los avisos de {@link ServicioSesion} cuando se abre o se cierra una sesión.
+ *
+ * <p>Los avisos llegan en el hilo que abrió o cerró la sesión, que para las
+ * sesiones vencidas es el hilo del temporizador del servicio; quien actualice
+ * la interfaz debe pasar al hilo de JavaFX.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public interface OyenteSesion {
+
+    /**
+     * Por qué se cerró una sesión.
+     */
+    enum Motivo {
+        /** El usuario salió o el cliente la cerró. */
+        CERRADA,
+        /** Pasó el tiempo de inactividad sin usarse. */
+        INACTIVIDAD
+    }
+
+    default void sesionAbierta(Sesion sesion) {
+    }
+
+    default void sesionCerrada(Sesion sesion, Motivo motivo) {
+    }
+}
@@ -0,0 +1,113 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfStamper;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+
+/**
+ * Plantilla PDF de una página cuyos campos se escriben en coordenadas fijas.
+ *
+ * <p>El archivo se lee del classpath una sola vez y se conserva en memoria, así
+ * que llenar la plantilla no toca el disco. Cada documento se escribe
+ * directamente en el {@link OutputStream} que se indique, que no se cierra;
+ * puede ser un archivo o la respuesta de una petición HTTP.</p>
+ *
+ * <p>Se obtienen con {@link ServicioDocumentosPDF#plantilla}, que las conserva
+ * y comparte la fuente entre plantillas.</p>
+ *
+ * <p>Es segura para usarse desde varios hilos a la vez.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public class PlantillaPDF {
+
+    /**
+     * Posición de un campo en la página, en puntos desde la esquina inferior izquierda.
+     *
+     * @param x la coordenada horizontal.
+     * @param y la coordenada vertical.
+     */
+    public record Posicion(float x, float y) {
+    }
+
+    private final String recurso;
+    private final byte[] contenido;
+    private final BaseFont fuente;
+    private final float tamanoFuente;
+    private final Map<String, Posicion> campos;
+
+    /**
+     * Carga la plantilla.
+     *
+     * @param recurso la ruta de la plantilla en el classpath, por ejemplo "/Plantilla_Cita.pdf".
+     * @param fuente la fuente de todos los campos.
+     * @param tamanoFuente el tamaño de letra de todos los campos.
+     * @param campos el nombre de cada campo y dónde se escribe.
+     * @throws IllegalStateException si la plantilla no existe o no se puede leer.
+     */
+    public PlantillaPDF(String recurso, BaseFont fuente, float tamanoFuente, Map<String, Posicion> campos) {
+        this.recurso = recurso;
+        this.fuente = fuente;
+        this.tamanoFuente = tamanoFuente;
+        this.campos = new LinkedHashMap<>(campos);
+        try (InputStream entrada = PlantillaPDF.class.getResourceAsStream(recurso)) {
+            if (entrada == null) {
+                throw new IllegalStateException("No se encontró la plantilla " + recurso);
+            }
+            this.contenido = entrada.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo cargar la plantilla " + recurso, e);
+        }
+    }
+
+    /**
+     * Escribe una copia de la plantilla con los valores en sus campos.
+     *
+     * @param valores el texto de cada campo; los campos sin valor o con null quedan vacíos.
+     * @param salida donde se escribe el PDF; no se cierra.
+     * @throws IOException si no se puede escribir en la salida.
+     * @throws IllegalArgumentException si algún valor no corresponde a un campo de la plantilla.
+     */
+    public void llenar(Map<String, String> valores, OutputStream salida) throws IOException {
+        for (String campo : valores.keySet()) {
+            if (!campos.containsKey(campo)) {
+                throw new IllegalArgumentException("La plantilla " + recurso + " no tiene el campo " + campo);
+            }
+        }
+
+        // Lectura parcial: los objetos de la plantilla se leen conforme el stamper los copia
+        PdfReader reader = new PdfReader(new RandomAccessFileOrArray(contenido), null);
+        try {
+            // En modo de adición la plantilla se copia tal cual y sólo se agregan los campos,
+            // en lugar de volver a serializar todos sus objetos
+            PdfStamper stamper = new PdfStamper(reader, salida, '\0', true);
+            stamper.getWriter().setCloseStream(false);
+
+            PdfContentByte canvas = stamper.getOverContent(1);
+            canvas.setFontAndSize(fuente, tamanoFuente);
+            for (Map.Entry<String, Posicion> campo : campos.entrySet()) {
+                String texto = valores.get(campo.getKey());
+                canvas.beginText();
+                canvas.setTextMatrix(campo.getValue().x(), campo.getValue().y());
+                canvas.showText(texto != null ? texto : "");
+                canvas.endText();
+            }
+
+            stamper.close();
+        } catch (DocumentException e) {
+            throw new IOException("No se pudo llenar la plantilla " + recurso, e);
+        } finally {
+            reader.close();
+        }
+    }
+}
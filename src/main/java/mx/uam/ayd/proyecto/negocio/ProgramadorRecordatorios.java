@@ -0,0 +1,101 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+
+/**
+ * Programador en segundo plano que envía los recordatorios de citas próximas.
+ *
+ * <p>Un único hilo revisa periódicamente (por omisión cada 15 minutos, propiedad
+ * {@code recordatorios.intervalo-minutos}) las citas que entran en la ventana de
+ * 48 horas. Así el inicio de sesión del paciente ya no hace ningún trabajo de
+ * recordatorios.</p>
+ *
+ * <p>La primera revisión ocurre cuando la aplicación terminó de arrancar. Con
+ * {@code recordatorios.habilitados=false}, como en las pruebas, no se programa
+ * ninguna revisión y sólo se ejecutan las que se piden con
+ * {@link #revisarCitasProximas()}.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class ProgramadorRecordatorios {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgramadorRecordatorios.class);
+
+    @Autowired
+    private ServicioRecordatorio servicioRecordatorio;
+
+    @Value("${recordatorios.intervalo-minutos:15}")
+    private long intervaloMinutos;
+
+    @Value("${recordatorios.habilitados:true}")
+    private boolean habilitados;
+
+    private ScheduledExecutorService ejecutor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicia() {
+        if (!habilitados) {
+            log.info("Recordatorios de citas deshabilitados");
+            return;
+        }
+        ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "recordatorios-citas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        ejecutor.scheduleWithFixedDelay(this::revisarCitasProximas, 0, intervaloMinutos, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void detiene() {
+        if (ejecutor != null) {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Envía los recordatorios pendientes de las citas en las próximas 48 horas.
+     *
+     * @return el número de recordatorios enviados en esta revisión.
+     */
+    public int revisarCitasProximas() {
+        int enviados = 0;
+        try {
+            List<Cita> citas = servicioRecordatorio.buscarCitasPorRecordar(LocalDateTime.now());
+            for (Cita cita : citas) {
+                try {
+                    servicioRecordatorio.enviarRecordatorio(cita);
+                    enviados++;
+                } catch (DataIntegrityViolationException e) {
+                    // Otro proceso ya envió este recordatorio
+                    log.debug("Recordatorio ya enviado para la cita " + cita.getId());
+                }
+            }
+        } catch (Exception e) {
+            // Una excepción no debe cancelar las siguientes ejecuciones
+            log.error("Error al revisar citas próximas", e);
+        }
+        if (enviados > 0) {
+            log.info("Recordatorios de citas enviados: " + enviados);
+        }
+        return enviados;
+    }
+}
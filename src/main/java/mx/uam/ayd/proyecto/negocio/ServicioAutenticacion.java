@@ -0,0 +1,150 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import mx.uam.ayd.proyecto.datos.PacienteRepository;
+import mx.uam.ayd.proyecto.datos.PsicologoRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+
+/**
+ * Servicio que verifica las credenciales de inicio de sesión de los tres roles.
+ *
+ * <p>Las contraseñas se comparan con {@link CifradoContrasenas}: nunca forman
+ * parte de una consulta y un usuario inexistente tarda lo mismo que una
+ * contraseña incorrecta. Las contraseñas que aún están en claro, o cifradas
+ * con un costo menor al actual, se cifran de nuevo al iniciar sesión con éxito.</p>
+ *
+ * <p>Los fallos se cuentan por rol y usuario en {@link LimitadorIntentos}; un
+ * usuario bloqueado recibe {@link IllegalStateException} sin que se verifique
+ * su contraseña.</p>
+ *
+ * <p>Las credenciales del administrador se leen de
+ * {@code autenticacion.admin.usuario} y {@code autenticacion.admin.contrasena}
+ * (cifrada con BCrypt).</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Service
+public class ServicioAutenticacion {
+
+    private static final Logger log = LoggerFactory.getLogger(ServicioAutenticacion.class);
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private PsicologoRepository psicologoRepository;
+
+    @Autowired
+    private ServicioPaciente servicioPaciente;
+
+    @Autowired
+    private ServicioPsicologo servicioPsicologo;
+
+    @Autowired
+    private CifradoContrasenas cifradoContrasenas;
+
+    @Autowired
+    private LimitadorIntentos limitadorIntentos;
+
+    @Value("${autenticacion.admin.usuario:admin}")
+    private String usuarioAdministrador;
+
+    @Value("${autenticacion.admin.contrasena:}")
+    private String contrasenaAdministrador;
+
+    /**
+     * Verifica las credenciales de un paciente.
+     *
+     * @param usuario el nombre de usuario.
+     * @param contrasena la contraseña escrita.
+     * @return el paciente con su psicólogo asignado, o null si las credenciales no son válidas.
+     * @throws IllegalStateException si el usuario está bloqueado por demasiados intentos fallidos.
+     */
+    public Paciente autenticarPaciente(String usuario, String contrasena) {
+        String llave = llave("paciente", usuario);
+        verificarBloqueo(llave);
+
+        Paciente paciente = pacienteRepository.findByUsuario(usuario);
+        String guardada = paciente != null ? paciente.getContrasena() : null;
+        if (!verificar(llave, contrasena, guardada)) {
+            return null;
+        }
+        if (cifradoContrasenas.requiereCifrarDeNuevo(guardada)) {
+            log.info("Cifrando de nuevo la contraseña del paciente " + usuario);
+            servicioPaciente.actualizarContrasena(paciente, contrasena);
+        }
+        return paciente;
+    }
+
+    /**
+     * Verifica las credenciales de un psicólogo.
+     *
+     * @param usuario el nombre de usuario.
+     * @param contrasena la contraseña escrita.
+     * @return el psicólogo, o null si las credenciales no son válidas.
+     * @throws IllegalStateException si el usuario está bloqueado por demasiados intentos fallidos.
+     */
+    public Psicologo autenticarPsicologo(String usuario, String contrasena) {
+        String llave = llave("psicologo", usuario);
+        verificarBloqueo(llave);
+
+        Psicologo psicologo = psicologoRepository.findByUsuario(usuario);
+        String guardada = psicologo != null ? psicologo.getContrasena() : null;
+        if (!verificar(llave, contrasena, guardada)) {
+            return null;
+        }
+        if (cifradoContrasenas.requiereCifrarDeNuevo(guardada)) {
+            log.info("Cifrando de nuevo la contraseña del psicólogo " + usuario);
+            servicioPsicologo.actualizarContrasena(psicologo, contrasena);
+        }
+        return psicologo;
+    }
+
+    /**
+     * Verifica las credenciales del administrador.
+     *
+     * @param usuario el nombre de usuario.
+     * @param contrasena la contraseña escrita.
+     * @return true si las credenciales son válidas.
+     * @throws IllegalStateException si el usuario está bloqueado por demasiados intentos fallidos.
+     */
+    public boolean autenticarAdministrador(String usuario, String contrasena) {
+        String llave = llave("administrador", usuario);
+        verificarBloqueo(llave);
+
+        boolean esAdministrador = usuarioAdministrador.equals(usuario) && !contrasenaAdministrador.isEmpty();
+        return verificar(llave, contrasena, esAdministrador ? contrasenaAdministrador : null);
+    }
+
+    private boolean verificar(String llave, String contrasena, String guardada) {
+        if (cifradoContrasenas.coincide(contrasena, guardada)) {
+            limitadorIntentos.registrarExito(llave);
+            return true;
+        }
+        limitadorIntentos.registrarFallo(llave);
+        return false;
+    }
+
+    private void verificarBloqueo(String llave) {
+        Duration restante = limitadorIntentos.tiempoBloqueado(llave);
+        if (!restante.isZero()) {
+            long minutos = Math.max(1, (restante.toSeconds() + 59) / 60);
+            throw new IllegalStateException("Demasiados intentos fallidos. Intente de nuevo en "
+                    + minutos + (minutos == 1 ? " minuto." : " minutos."));
+        }
+    }
+
+    private static String llave(String rol, String usuario) {
+        return rol + ":" + (usuario != null ? usuario.trim().toLowerCase(Locale.ROOT) : "");
+    }
+}
@@ -1,16 +1,22 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.ArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 // Asumimos que existen estas clases
 import mx.uam.ayd.proyecto.datos.AvisoRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
+import mx.uam.ayd.proyecto.negocio.eventos.AvisoPublicado;
+import mx.uam.ayd.proyecto.negocio.eventos.PublicadorEventos;
 import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
 
 /**
@@ -28,10 +34,18 @@ import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
 public class ServicioAviso {
 
     private static final Logger log = LoggerFactory.getLogger(ServicioAviso.class);
+
+    /**
+     * Número de avisos por página en el historial de avisos.
+     */
+    public static final int TAMANO_PAGINA_AVISOS = 50;
     
     @Autowired
     private AvisoRepository avisoRepository;
 
+    @Autowired
+    private PublicadorEventos publicadorEventos;
+
     /**
      * Guarda un nuevo aviso en el sistema.
      *
@@ -42,9 +56,12 @@ public class ServicioAviso {
      * </p>
      *
      * @param contenido el texto del aviso a publicar.
+     * <p>Publica {@link AvisoPublicado} para que las pantallas abiertas lo muestren.</p>
+     *
      * @return el aviso guardado.
      * @throws IllegalArgumentException si el contenido es inválido.
      */
+    @CacheEvict(cacheNames = ConfiguracionCaches.ULTIMO_AVISO, allEntries = true)
     public Aviso guardarAviso(String contenido) {
         if(contenido == null || contenido.trim().isEmpty()) {
             throw new IllegalArgumentException("El contenido del aviso no puede ser nulo o vacío");
@@ -58,30 +75,33 @@ public class ServicioAviso {
         aviso.setFecha(LocalDate.now()); // Asignamos la fecha actual
 
         avisoRepository.save(aviso);
+        publicadorEventos.publicar(new AvisoPublicado(aviso));
 
         return aviso;
     }
 
     /**
      * Obtiene el aviso más reciente publicado.
-     * * <p>Este método requiere que AvisoRepository tenga un método como:
-     * <code>public Aviso findTopByOrderByFechaDesc();</code></p>
+     *
+     * <p>Se consulta en cada pantalla de inicio, así que se guarda en la caché
+     * {@link ConfiguracionCaches#ULTIMO_AVISO} hasta que se publique otro aviso.</p>
      *
      * @return el último aviso publicado, o null si no hay ninguno.
      */
+    @PresupuestoSentencias(1)
+    @Cacheable(cacheNames = ConfiguracionCaches.ULTIMO_AVISO, unless = "#result == null")
     public Aviso obtenerUltimoAviso() {
-        
         return avisoRepository.findTopByOrderByIdDesc();
     }
     
     /**
-     * Lista todos los avisos registrados.
+     * Lista una página de avisos, del más reciente al más antiguo.
      *
-     * @return una lista con todos los avisos; si no existen registros, la lista estará vacía.
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de avisos y la posición para pedir la siguiente.
      */
-    public List<Aviso> listarAvisos() {
-        List<Aviso> avisos = new ArrayList<>();
-        avisoRepository.findAll().forEach(avisos::add);
-        return avisos;
+    @PresupuestoSentencias(1)
+    public Window<Aviso> listarAvisos(ScrollPosition posicion) {
+        return avisoRepository.findByOrderByIdDesc(posicion, Limit.of(TAMANO_PAGINA_AVISOS));
     }
 }
\ No newline at end of file
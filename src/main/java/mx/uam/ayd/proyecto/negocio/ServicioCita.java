@@ -1,9 +1,15 @@
 package mx.uam.ayd.proyecto.negocio;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -11,7 +17,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import mx.uam.ayd.proyecto.datos.PacienteRepository;
 import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.RecordatorioCitaRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
+import mx.uam.ayd.proyecto.negocio.eventos.CitaCreada;
+import mx.uam.ayd.proyecto.negocio.eventos.CitaReagendada;
+import mx.uam.ayd.proyecto.negocio.eventos.PublicadorEventos;
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaAgendada;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
@@ -35,6 +47,18 @@ public class ServicioCita {
     @Autowired
     private ServicioLineaCaptura servicioLineaCaptura; // de hu-16
 
+    @Autowired
+    private IndiceAgendaCitas indiceAgendaCitas;
+
+    @Autowired
+    private RecordatorioCitaRepository recordatorioCitaRepository;
+
+    @Autowired
+    private ServicioSaldoPaciente servicioSaldoPaciente;
+
+    @Autowired
+    private PublicadorEventos publicadorEventos;
+
     /**
      * Crea una cita nueva y le adjunta la info de pago.
      * (Lógica de 'crearCita' de hu-16 fusionada con la de HEAD)
@@ -43,9 +67,12 @@ public class ServicioCita {
     public Cita crearCita(Paciente paciente, LocalDateTime fechaCita, String motivo) {
 
         Psicologo psicologo = paciente.getPsicologo();
+        if (psicologo == null) {
+            throw new IllegalArgumentException("El paciente no tiene un psicólogo asignado");
+        }
 
-        Cita existente = citaRepository.findByFechaCita(fechaCita);
-        if (existente != null) {
+        // El horario se aparta en el índice antes de guardar; si la transacción se revierte se libera
+        if (!indiceAgendaCitas.reservar(psicologo.getId(), fechaCita)) {
             throw new IllegalArgumentException("Ya existe una cita agendada en esta fecha y hora");
         }
 
@@ -62,15 +89,126 @@ public class ServicioCita {
         cita.setFechaVencimiento(fechaCita.toLocalDate());
 
         citaRepository.save(cita);
+        servicioSaldoPaciente.registrarCargo(cita);
+        publicadorEventos.publicar(new CitaCreada(cita.getId(), paciente.getId(), paciente.getUsuario(),
+                psicologo.getId(), fechaCita));
         return cita;
     }
 
+    /**
+     * Calcula los horarios libres de uno o varios psicólogos en un rango de días.
+     *
+     * <p>Las citas del rango se leen en una sola consulta y cada día se representa
+     * como un mapa de bits de 24 horas: se parte del horario de atención del centro
+     * y se apagan las horas ocupadas. Las horas que ya pasaron no se ofrecen.</p>
+     *
+     * @param psicologos los psicólogos a consultar.
+     * @param desde el primer día del rango (inclusivo).
+     * @param hasta el último día del rango (inclusivo).
+     * @return por id de psicólogo, los días con al menos un horario libre y sus horas libres, en orden.
+     * @throws IllegalArgumentException si faltan parámetros o el rango es inválido.
+     */
+    public Map<Integer, Map<LocalDate, List<LocalTime>>> obtenerHorariosDisponibles(
+            List<Psicologo> psicologos, LocalDate desde, LocalDate hasta) {
+        if (psicologos == null || desde == null || hasta == null) {
+            throw new IllegalArgumentException("Los psicólogos y el rango de fechas son obligatorios");
+        }
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha final no puede ser anterior a la inicial");
+        }
+
+        Map<Integer, Map<LocalDate, List<LocalTime>>> disponibles = new HashMap<>();
+        if (psicologos.isEmpty()) {
+            return disponibles;
+        }
+
+        int dias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+        Map<Integer, int[]> ocupados = new HashMap<>();
+        for (Psicologo psicologo : psicologos) {
+            ocupados.put(psicologo.getId(), new int[dias]);
+        }
+
+        List<CitaAgendada> citas = citaRepository.findAgendadasEntre(
+                new ArrayList<>(ocupados.keySet()),
+                desde.atStartOfDay(),
+                hasta.plusDays(1).atStartOfDay(),
+                TipoConfirmacionCita.CANCELADA);
+
+        for (CitaAgendada cita : citas) {
+            int[] dia = ocupados.get(cita.psicologoId());
+            int indice = (int) ChronoUnit.DAYS.between(desde, cita.fechaCita().toLocalDate());
+            int hora = cita.fechaCita().getHour();
+            dia[indice] |= 1 << hora;
+            // Una cita que no empieza en punto también ocupa la hora siguiente
+            if (cita.fechaCita().getMinute() > 0 && hora < 23) {
+                dia[indice] |= 1 << (hora + 1);
+            }
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Map.Entry<Integer, int[]> entrada : ocupados.entrySet()) {
+            Map<LocalDate, List<LocalTime>> porDia = new TreeMap<>();
+            for (int i = 0; i < dias; i++) {
+                LocalDate fecha = desde.plusDays(i);
+                int libres = horarioAtencion(fecha.getDayOfWeek()) & ~entrada.getValue()[i];
+                if (fecha.equals(ahora.toLocalDate())) {
+                    libres &= -1 << (ahora.getHour() + 1);
+                } else if (fecha.isBefore(ahora.toLocalDate())) {
+                    libres = 0;
+                }
+
+                if (libres != 0) {
+                    List<LocalTime> horas = new ArrayList<>(Integer.bitCount(libres));
+                    for (int h = Integer.numberOfTrailingZeros(libres); h < 24; h++) {
+                        if ((libres & (1 << h)) != 0) {
+                            horas.add(LocalTime.of(h, 0));
+                        }
+                    }
+                    porDia.put(fecha, horas);
+                }
+            }
+            disponibles.put(entrada.getKey(), porDia);
+        }
+        return disponibles;
+    }
+
+    /**
+     * Calcula los horarios libres de los psicólogos para las próximas semanas, a partir de hoy.
+     *
+     * @param psicologos los psicólogos a consultar.
+     * @param semanas el número de semanas a consultar; debe ser mayor a cero.
+     * @return por id de psicólogo, los días con horarios libres y sus horas libres.
+     */
+    public Map<Integer, Map<LocalDate, List<LocalTime>>> obtenerHorariosDisponibles(
+            List<Psicologo> psicologos, int semanas) {
+        if (semanas <= 0) {
+            throw new IllegalArgumentException("El número de semanas debe ser mayor a cero");
+        }
+        LocalDate hoy = LocalDate.now();
+        return obtenerHorariosDisponibles(psicologos, hoy, hoy.plusWeeks(semanas).minusDays(1));
+    }
+
+    /**
+     * Horario de atención del centro como mapa de bits por hora del día:
+     * lunes a viernes de 8 a 17 h, sábados de 9 a 14 h y domingos cerrado.
+     */
+    private static int horarioAtencion(DayOfWeek dia) {
+        if (dia == DayOfWeek.SUNDAY) {
+            return 0;
+        }
+        int inicio = (dia == DayOfWeek.SATURDAY) ? 9 : 8;
+        int fin = (dia == DayOfWeek.SATURDAY) ? 14 : 17;
+        return (-1 << inicio) & ~(-1 << (fin + 1));
+    }
+
     // --- MÉTODOS DE LA RAMA HEAD ---
 
     /**
-     * Lista todas las citas activas del paciente.
+     * Lista todas las citas activas del paciente, con el psicólogo de cada una
+     * (plan {@link Cita#GRAFO_CON_PSICOLOGO}).
      */
     @Transactional
+    @PresupuestoSentencias(2)
     public List<Cita> listarCitas(String nombreUsuarioActivo) {
         Paciente paciente = pacienteRepository.findByUsuario(nombreUsuarioActivo);
         return citaRepository.findByPacienteAndEstadoCitaNot(paciente, TipoConfirmacionCita.CANCELADA);
@@ -86,15 +224,25 @@ public class ServicioCita {
             throw new IllegalArgumentException("La cita con id " + idCita + " no existe.");
         }
 
+        boolean estabaActiva = cita.getEstadoCita() != TipoConfirmacionCita.CANCELADA;
         cita.setEstadoCita(TipoConfirmacionCita.CANCELADA);
         citaRepository.save(cita);
+
+        if (estabaActiva && cita.getPsicologo() != null) {
+            indiceAgendaCitas.liberar(cita.getPsicologo().getId(), cita.getFechaCita());
+        }
+        // Una cita pagada sigue contando como pagada aunque se cancele
+        if (estabaActiva && cita.getFechaPago() == null) {
+            servicioSaldoPaciente.registrarCancelacion(cita);
+        }
         return cita;
     }
 
     /**
-     * Obtiene citas por psicólogo.
+     * Obtiene citas por psicólogo, con su paciente (plan {@link Cita#GRAFO_CON_PACIENTE}).
      */
     @Transactional
+    @PresupuestoSentencias(1)
     public List<Cita> obtenerCitasPorPsicologo(Psicologo psicologo) {
         if (psicologo == null) {
             throw new IllegalArgumentException("El psicólogo no puede ser nulo");
@@ -103,7 +251,7 @@ public class ServicioCita {
     }
 
     /**
-     * Reagenda una cita y notifica al psicólogo.
+     * Reagenda una cita, notifica al psicólogo y publica {@link CitaReagendada}.
      */
     @Transactional
     public void reagendarCita(int idCita, LocalDate nuevaFecha, String nuevaHora, Psicologo nuevoPsicologo) {
@@ -116,10 +264,31 @@ public class ServicioCita {
         int hora = Integer.parseInt(nuevaHora.split(":")[0]);
         LocalDateTime nuevaFechaHora = nuevaFecha.atTime(hora, 0);
 
+        Psicologo psicologoAnterior = cita.getPsicologo();
+        LocalDateTime fechaAnterior = cita.getFechaCita();
+        boolean mismoHorario = psicologoAnterior != null
+                && psicologoAnterior.getId() == nuevoPsicologo.getId()
+                && nuevaFechaHora.equals(fechaAnterior);
+
+        // Una cita cancelada no ocupa horario en la agenda
+        if (!mismoHorario && cita.getEstadoCita() != TipoConfirmacionCita.CANCELADA) {
+            if (!indiceAgendaCitas.reservar(nuevoPsicologo.getId(), nuevaFechaHora)) {
+                throw new IllegalArgumentException("Ya existe una cita agendada en esta fecha y hora");
+            }
+            if (psicologoAnterior != null) {
+                indiceAgendaCitas.liberar(psicologoAnterior.getId(), fechaAnterior);
+            }
+        }
+
         cita.setFechaCita(nuevaFechaHora);
         cita.setPsicologo(nuevoPsicologo);
         citaRepository.save(cita);
 
+        // El recordatorio enviado era para la fecha anterior; se vuelve a enviar para la nueva
+        if (!nuevaFechaHora.equals(fechaAnterior)) {
+            recordatorioCitaRepository.deleteByCitaId(cita.getId());
+        }
+
         String nombrePaciente = (cita.getPaciente() != null)
                 ? cita.getPaciente().getNombre()
                 : "el paciente";
@@ -128,77 +297,55 @@ public class ServicioCita {
                 nombrePaciente, nuevaFechaHora.toString());
 
         servicioNotificacion.crearNotificacion(nuevoPsicologo, mensaje);
+
+        Paciente paciente = cita.getPaciente();
+        publicadorEventos.publicar(new CitaReagendada(cita.getId(),
+                paciente != null ? paciente.getId() : null,
+                paciente != null ? paciente.getUsuario() : null,
+                psicologoAnterior != null ? psicologoAnterior.getId() : null,
+                fechaAnterior, nuevoPsicologo.getId(), nuevaFechaHora));
     }
 
     // --- MÉTODOS DE LA RAMA hu-16-historial-de-pagos ---
 
-    @Transactional
+    /**
+     * Busca la próxima cita pendiente del paciente, con su paciente y psicólogo cargados
+     * (plan {@link Cita#GRAFO_COMPLETA}) para generar la línea de captura.
+     */
+    @PresupuestoSentencias(1)
     public Cita buscarCitaPendienteMasReciente(Paciente paciente) {
-        Cita cita = citaRepository.findTopByPacienteAndEstadoCitaOrderByFechaCitaAsc(paciente, TipoConfirmacionCita.PENDIENTE);
-
-        // Arregla LazyInitializationException
-        if (cita != null) {
-            if (cita.getPaciente() != null) {
-                cita.getPaciente().getNombre();
-            }
-            if (cita.getPsicologo() != null) {
-                cita.getPsicologo().getNombre();
-            }
-        }
-
-        return cita;
-    }
-
-    @Transactional
-    public List<Cita> listarCitasPorPaciente(Paciente paciente) {
-        List<Cita> citas = citaRepository.findByPaciente(paciente);
-
-        // Arregla LazyInitializationException
-        for (Cita cita : citas) {
-            if (cita.getPaciente() != null) cita.getPaciente().getNombre();
-            if (cita.getPsicologo() != null) cita.getPsicologo().getNombre();
-        }
-        return citas;
+        return citaRepository.findTopByPacienteAndEstadoCitaOrderByFechaCitaAsc(paciente, TipoConfirmacionCita.PENDIENTE);
     }
 
     /**
-     * Obtiene una cita por su ID.
+     * Obtiene una cita por su ID, con su paciente y psicólogo (plan {@link Cita#GRAFO_COMPLETA}).
      */
+    @PresupuestoSentencias(1)
     public Cita obtenerCitaPorId(int id) {
-        return citaRepository.findById(id).orElse(null);
+        return citaRepository.findCompletaById(id).orElse(null);
     }
     /**
-     * HU-03: Verifica citas próximas (48 horas) y crea notificaciones si es necesario.
+     * Obtiene las citas no canceladas de un psicólogo entre dos días, con su paciente
+     * y psicólogo, para exportar sus comprobantes.
+     *
+     * @param psicologo el psicólogo.
+     * @param desde el primer día (inclusivo).
+     * @param hasta el último día (inclusivo).
+     * @return las citas ordenadas por fecha.
+     * @throws IllegalArgumentException si falta algún parámetro o el rango está invertido.
      */
-    public void verificarCitasProximas(Paciente paciente) {
-        List<Cita> citasFuturas = obtenerCitasFuturas(paciente); 
-
-        LocalDateTime ahora = LocalDateTime.now();
-
-        for (Cita cita : citasFuturas) {
-            // Combinar fecha y hora de la cita para calcular diferencia precisa
-            LocalDateTime fechaHoraCita = LocalDateTime.of(cita.getFecha(), cita.getHora());
-
-            // Calcular horas restantes
-            long horasRestantes = ChronoUnit.HOURS.between(ahora, fechaHoraCita);
-
-            // Criterio de aceptación: Cuando falten 48 horas 
-            if (horasRestantes >= 0 && horasRestantes <= 48) {
-                
-                String mensaje = "Recordatorio: Tienes una cita el " + cita.getFecha() + " a las " + cita.getHora();
-
-                // Evitar duplicados (spam cada vez que entra)
-                // Verificamos si ya existe una notificación con ese mismo mensaje hoy
-                boolean yaNotificado = servicioNotificacion.obtenerTodasPorPaciente(paciente).stream()
-                        .anyMatch(n -> n.getMensaje().equals(mensaje));
-
-                if (!yaNotificado) {
-                    servicioNotificacion.crearNotificacionPaciente(paciente, mensaje);
-                }
-            }
+    @PresupuestoSentencias(1)
+    public List<Cita> obtenerCitasParaExportar(Psicologo psicologo, LocalDate desde, LocalDate hasta) {
+        if (psicologo == null) {
+            throw new IllegalArgumentException("El psicólogo no puede ser nulo");
         }
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El rango de fechas no es válido");
+        }
+        return citaRepository.findCompletasEntre(psicologo, desde.atStartOfDay(),
+                hasta.plusDays(1).atStartOfDay(), TipoConfirmacionCita.CANCELADA);
     }
-    
+
     // Método para obtener citas futuras de un paciente
     public List<Cita> obtenerCitasFuturas(Paciente paciente) {
         // Busca citas después de "ahora" que NO estén "CANCELADA"
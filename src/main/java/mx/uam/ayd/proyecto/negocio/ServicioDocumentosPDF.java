@@ -0,0 +1,113 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfWriter;
+
+import mx.uam.ayd.proyecto.negocio.PlantillaPDF.Posicion;
+
+/**
+ * Punto único para generar documentos PDF: los comprobantes de cita (sobre una
+ * plantilla) y los comprobantes de pago (página en blanco con texto).
+ *
+ * <p>Todo se genera con OpenPDF. Las fuentes y las plantillas se crean una sola
+ * vez y se comparten entre documentos e hilos.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Service
+public class ServicioDocumentosPDF {
+
+    /**
+     * Un texto en una posición de la página.
+     *
+     * @param fuente el nombre de una fuente estándar, por ejemplo {@link BaseFont#HELVETICA}.
+     * @param tamano el tamaño de letra.
+     * @param x la coordenada horizontal, en puntos desde la izquierda.
+     * @param y la coordenada vertical, en puntos desde abajo.
+     * @param contenido el texto; null se escribe vacío.
+     */
+    public record Texto(String fuente, float tamano, float x, float y, String contenido) {
+    }
+
+    // Una plantilla se comparte sólo si se pide con el mismo recurso, tamaño de letra y campos
+    private record LlavePlantilla(String recurso, float tamanoFuente, Map<String, Posicion> campos) {
+    }
+
+    private final Map<String, BaseFont> fuentes = new ConcurrentHashMap<>();
+    private final Map<LlavePlantilla, PlantillaPDF> plantillas = new ConcurrentHashMap<>();
+
+    /**
+     * Obtiene una fuente estándar con codificación CP1252 sin incrustar.
+     *
+     * @param nombre el nombre de la fuente, por ejemplo {@link BaseFont#HELVETICA_BOLD}.
+     * @return la fuente, la misma instancia en cada llamada.
+     * @throws IllegalStateException si la fuente no existe.
+     */
+    public BaseFont fuente(String nombre) {
+        return fuentes.computeIfAbsent(nombre, clave -> {
+            try {
+                return BaseFont.createFont(clave, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
+            } catch (DocumentException | IOException e) {
+                throw new IllegalStateException("No se pudo crear la fuente " + clave, e);
+            }
+        });
+    }
+
+    /**
+     * Obtiene una plantilla del classpath; se carga la primera vez que se pide.
+     *
+     * @param recurso la ruta de la plantilla en el classpath, por ejemplo "/Plantilla_Cita.pdf".
+     * @param tamanoFuente el tamaño de letra de los campos, en Helvetica.
+     * @param campos el nombre de cada campo y dónde se escribe.
+     * @return la plantilla, la misma instancia para el mismo recurso, tamaño y campos.
+     * @throws IllegalStateException si la plantilla no existe o no se puede leer.
+     */
+    public PlantillaPDF plantilla(String recurso, float tamanoFuente, Map<String, Posicion> campos) {
+        return plantillas.computeIfAbsent(new LlavePlantilla(recurso, tamanoFuente, Map.copyOf(campos)),
+                clave -> new PlantillaPDF(recurso, fuente(BaseFont.HELVETICA), tamanoFuente, campos));
+    }
+
+    /**
+     * Escribe un documento de una página tamaño carta con los textos indicados.
+     *
+     * @param textos lo que se escribe y dónde.
+     * @param salida donde se escribe el PDF; no se cierra.
+     * @throws IOException si no se puede escribir en la salida.
+     */
+    public void escribirPagina(List<Texto> textos, OutputStream salida) throws IOException {
+        Document documento = new Document(PageSize.LETTER);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(documento, salida);
+            writer.setCloseStream(false);
+            documento.open();
+
+            PdfContentByte canvas = writer.getDirectContent();
+            for (Texto texto : textos) {
+                canvas.beginText();
+                canvas.setFontAndSize(fuente(texto.fuente()), texto.tamano());
+                canvas.setTextMatrix(texto.x(), texto.y());
+                canvas.showText(texto.contenido() != null ? texto.contenido() : "");
+                canvas.endText();
+            }
+        } catch (DocumentException e) {
+            throw new IOException("No se pudo generar el documento", e);
+        } finally {
+            if (documento.isOpen()) {
+                documento.close();
+            }
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.EncuestaSatisfaccionRepository;
+import mx.uam.ayd.proyecto.negocio.eventos.EncuestaHabilitada;
+import mx.uam.ayd.proyecto.negocio.eventos.PublicadorEventos;
 import mx.uam.ayd.proyecto.negocio.modelo.EncuestaSatisfaccion;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente; // 1. IMPORTACIÓN NECESARIA
-import mx.uam.ayd.proyecto.presentacion.pacientePrincipal.ControlPaciente; 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+
 import java.time.LocalDateTime;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Optional; // Necesario para buscar
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -21,39 +28,27 @@ public class ServicioEncuestaSatisfaccion {
 
     @Autowired
     private EncuestaSatisfaccionRepository encuestaSatisfaccionRepository;
-    private static boolean encuestaHabilitada = false;
-    
-    // ... (Métodos registrar/desregistrar/habilitar/deshabilitar existentes)
-
-    // NUEVO: Referencia al controlador del paciente activo (listener)
-    private ControlPaciente pacienteListener = null; 
+    @Autowired
+    private ServicioReporteEncuesta servicioReporteEncuesta;
+    @Autowired
+    private PublicadorEventos publicadorEventos;
+    // Lo cambia el administrador y lo leen los pacientes desde otros hilos
+    private volatile boolean encuestaHabilitada = false;
 
-    /**
-     * Registra el controlador del paciente que necesita escuchar el estado.
-     */
-    public void registrarPacienteListener(ControlPaciente controlPaciente) {
-        this.pacienteListener = controlPaciente;
-    }
-    
-    /**
-     * Elimina el registro del controlador (al cerrar sesión).
-     */
-    public void desregistrarPacienteListener() {
-        this.pacienteListener = null;
-    }
+    // Un bit por id de paciente que ya respondió; se carga al arrancar y se actualiza al guardar
+    private final BitSet pacientesQueRespondieron = new BitSet();
+    private volatile boolean respuestasCargadas = false;
 
     /**
      * Habilita la encuesta de satisfacción. Llamado por el administrador.
      */
-    public void habilitarEncuesta() {
+    public synchronized void habilitarEncuesta() {
         if (!encuestaHabilitada) { // Solo si no estaba habilitada
             encuestaHabilitada = true;
             System.out.println("ServicioEncuestaSatisfaccion: Encuesta habilitada globalmente.");
             
-            // NUEVO: Notificar al paciente activo para actualizar su botón
-            if (pacienteListener != null) {
-                pacienteListener.actualizarEstadoEncuesta();
-            }
+            // Los pacientes con sesión abierta actualizan su botón al recibir el evento
+            publicadorEventos.publicar(new EncuestaHabilitada());
         }
     }
 
@@ -74,24 +69,40 @@ public class ServicioEncuestaSatisfaccion {
         return encuestaHabilitada;
     }
 
+    /**
+     * Carga los ids de los pacientes que ya respondieron la encuesta.
+     */
+    @PostConstruct
+    public void cargarPacientesQueRespondieron() {
+        List<Long> ids = encuestaSatisfaccionRepository.findIdsPacientesQueRespondieron();
+        synchronized (pacientesQueRespondieron) {
+            pacientesQueRespondieron.clear();
+            for (Long id : ids) {
+                marcarRespondio(id);
+            }
+        }
+        respuestasCargadas = true;
+    }
+
     // 2. MÉTODO AGREGADO: Criterio Restricción de responder nuevamente
     /**
      * Verifica si un paciente ya ha respondido la encuesta.
-     * Este método permite que la prueba unitaria lo simule (@Spy).
+     * Se consulta en memoria, sin ir a la base de datos, porque se llama desde el hilo de JavaFX;
+     * sólo si los datos aún no se cargaron se usa la consulta por índice.
      * @param paciente El paciente a verificar.
      * @return true si ya existe una encuesta para este paciente.
      */
     public boolean yaRespondio(Paciente paciente) {
-        // En un escenario real, DEBERÍAS usar un método del repositorio 
-        // optimizado (ej: encuestaSatisfaccionRepository.existsByPaciente(paciente)).
-        
-        // Aquí usamos la implementación menos eficiente para no modificar el Repository:
-        Optional<EncuestaSatisfaccion> encuestaExistente = StreamSupport.stream(encuestaSatisfaccionRepository.findAll().spliterator(), false)
-            // Asumiendo que getPaciente() existe en EncuestaSatisfaccion para comparar
-            .filter(e -> e.getPaciente() != null && e.getPaciente().equals(paciente)) 
-            .findFirst();
-
-        return encuestaExistente.isPresent();
+        if (paciente == null || paciente.getId() == null) {
+            return false;
+        }
+        long id = paciente.getId();
+        if (respuestasCargadas && id <= Integer.MAX_VALUE) {
+            synchronized (pacientesQueRespondieron) {
+                return pacientesQueRespondieron.get((int) id);
+            }
+        }
+        return encuestaSatisfaccionRepository.existsByPacienteId(id);
     }
 
 
@@ -100,8 +111,10 @@ public class ServicioEncuestaSatisfaccion {
      * Criterio: Al responder la encuesta de satisfacción.
      * @param encuesta La entidad EncuestaSatisfaccion con todas las respuestas recopiladas.
      * @return La entidad guardada con su ID generado por la BD.
+     * La encuesta se acumula en la tabla de resúmenes dentro de la misma transacción.
      * @throws IllegalStateException Si faltan preguntas obligatorias (para el test de error).
      */
+    @Transactional
     public EncuestaSatisfaccion guardarEncuesta(EncuestaSatisfaccion encuesta) throws IllegalStateException {        
         
         // 3. LÓGICA AGREGADA: Criterio Faltan preguntas obligatorias (1-7)
@@ -113,7 +126,39 @@ public class ServicioEncuestaSatisfaccion {
         if (encuesta.getFechaHora() == null) {
             encuesta.setFechaHora(LocalDateTime.now());
         }
-        return encuestaSatisfaccionRepository.save(encuesta);
+        EncuestaSatisfaccion guardada = encuestaSatisfaccionRepository.save(encuesta);
+        servicioReporteEncuesta.acumularEncuesta(guardada);
+        if (guardada.getPaciente() != null && guardada.getPaciente().getId() != null) {
+            registrarRespuesta(guardada.getPaciente().getId());
+        }
+        return guardada;
+    }
+
+    /**
+     * Marca al paciente como que ya respondió cuando se confirma la transacción
+     * (o de inmediato si no hay una), para no marcarlo si el guardado se revierte.
+     */
+    private void registrarRespuesta(Long pacienteId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    marcarRespondio(pacienteId);
+                }
+            });
+        } else {
+            marcarRespondio(pacienteId);
+        }
+    }
+
+    private void marcarRespondio(Long pacienteId) {
+        if (pacienteId == null || pacienteId > Integer.MAX_VALUE) {
+            // Ids fuera del rango del bitmap se resuelven con la consulta por índice
+            return;
+        }
+        synchronized (pacientesQueRespondieron) {
+            pacientesQueRespondieron.set(pacienteId.intValue());
+        }
     }
     
     // 4. LÓGICA AGREGADA: Auxiliar de validación
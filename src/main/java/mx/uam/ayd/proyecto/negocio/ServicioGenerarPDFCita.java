@@ -1,16 +1,33 @@
 package mx.uam.ayd.proyecto.negocio;
 
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.lowagie.text.pdf.BaseFont;
-import com.lowagie.text.pdf.PdfContentByte;
-import com.lowagie.text.pdf.PdfReader;
-import com.lowagie.text.pdf.PdfStamper;
-
+import jakarta.annotation.PreDestroy;
+import mx.uam.ayd.proyecto.negocio.PlantillaPDF.Posicion;
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
@@ -19,51 +36,159 @@ import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 public class ServicioGenerarPDFCita {
 
     /**
-     * Genera un PDF de una cita usando una plantilla PDF.
+     * Dónde se escribe cada dato en Plantilla_Cita.pdf.
+     */
+    static final Map<String, Posicion> CAMPOS_CITA = Map.of(
+            "paciente.nombre", new Posicion(134, 643),
+            "paciente.telefono", new Posicion(135, 608),
+            "paciente.correo", new Posicion(190, 574),
+            "psicologo.nombre", new Posicion(135, 503),
+            "psicologo.telefono", new Posicion(136, 468),
+            "cita.fecha", new Posicion(122, 399),
+            "cita.hora", new Posicion(227, 399),
+            "cita.motivo", new Posicion(175, 365));
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter FORMATO_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+
+    /**
+     * Hilos que generan comprobantes en paralelo al exportar varias citas.
+     */
+    static final int HILOS_EXPORTACION = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Cuántos comprobantes se generan por adelantado mientras se escriben los
+     * anteriores; limita la memoria sin importar cuántas citas se exporten.
+     */
+    static final int DOCUMENTOS_EN_CURSO = HILOS_EXPORTACION * 2;
+
+    // Se lee una sola vez del classpath; llenar la plantilla ya no toca el disco
+    private final PlantillaPDF plantilla;
+
+    private final AtomicInteger hilosCreados = new AtomicInteger();
+    private final ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS_EXPORTACION, tarea -> {
+        Thread hilo = new Thread(tarea, "exportar-citas-" + hilosCreados.incrementAndGet());
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    @Autowired
+    public ServicioGenerarPDFCita(ServicioDocumentosPDF servicioDocumentosPDF) {
+        this.plantilla = servicioDocumentosPDF.plantilla("/Plantilla_Cita.pdf", 12, CAMPOS_CITA);
+    }
+
+    @PreDestroy
+    public void detiene() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Genera el PDF de una cita en un archivo.
+     *
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    public void generarCitaPDF(Paciente paciente, Psicologo psicologo, Cita cita, String rutaSalida) throws IOException {
+        try (OutputStream salida = new BufferedOutputStream(Files.newOutputStream(Path.of(rutaSalida)))) {
+            generarCitaPDF(paciente, psicologo, cita, salida);
+        }
+    }
+
+    /**
+     * Genera el PDF de una cita usando la plantilla y lo escribe en la salida indicada,
+     * que no se cierra.
+     *
+     * @throws IOException si no se puede escribir en la salida.
+     */
+    public void generarCitaPDF(Paciente paciente, Psicologo psicologo, Cita cita, OutputStream salida) throws IOException {
+        LocalDateTime fechaCita = cita.getFechaCita();
+
+        Map<String, String> valores = new HashMap<>();
+        //Datos del paciente
+        valores.put("paciente.nombre", paciente.getNombre());
+        valores.put("paciente.telefono", paciente.getTelefono());
+        valores.put("paciente.correo", paciente.getCorreo());
+        //Datos del psicólogo
+        valores.put("psicologo.nombre", psicologo.getNombre());
+        valores.put("psicologo.telefono", psicologo.getTelefono());
+        //Datos de la cita
+        valores.put("cita.fecha", fechaCita.format(FORMATO_FECHA));
+        valores.put("cita.hora", fechaCita.format(FORMATO_HORA));
+        valores.put("cita.motivo", cita.getMotivo());
+
+        plantilla.llenar(valores, salida);
+    }
+
+    /**
+     * Genera los comprobantes de varias citas en paralelo y los escribe, en el
+     * orden de la lista, como entradas de un ZIP en la salida indicada, que no se cierra.
+     *
+     * <p>Sólo se mantienen en memoria {@link #DOCUMENTOS_EN_CURSO} comprobantes a
+     * la vez. Si se interrumpe el hilo que llama se cancelan los pendientes y el
+     * ZIP queda incompleto.</p>
+     *
+     * @param citas las citas, con su paciente y psicólogo cargados.
+     * @param salida donde se escribe el ZIP.
+     * @param alAvanzar recibe cuántos comprobantes se han escrito.
+     * @return el número de comprobantes escritos.
+     * @throws IOException si falla la generación de algún comprobante o la escritura.
+     * @throws InterruptedException si se interrumpe la exportación.
      */
-    public void generarCitaPDF(Paciente paciente, Psicologo psicologo, Cita cita, String rutaSalida) {
+    public int exportarCitasZip(List<Cita> citas, OutputStream salida, IntConsumer alAvanzar)
+            throws IOException, InterruptedException {
+        Deque<Pendiente> enCurso = new ArrayDeque<>();
+        Iterator<Cita> porGenerar = citas.iterator();
+        int escritos = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(salida);
         try {
-            LocalDateTime fechaCita = cita.getFechaCita();
-            String fecha = fechaCita.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-            String hora = fechaCita.format(DateTimeFormatter.ofPattern("HH:mm"));
-
-            String plantilla = "src\\main\\resources\\Plantilla_Cita.pdf";
-
-            PdfReader reader = new PdfReader(plantilla);
-            PdfStamper stamper = new PdfStamper(reader, new FileOutputStream(rutaSalida));
-
-            PdfContentByte canvas = stamper.getOverContent(1);
-            BaseFont fuente = BaseFont.createFont(BaseFont.HELVETICA, BaseFont.CP1252, BaseFont.NOT_EMBEDDED);
-            canvas.setFontAndSize(fuente, 12);
-            //Datos del paciente
-            escribir(canvas, 134, 643, paciente.getNombre());
-            escribir(canvas, 135, 608, paciente.getTelefono());
-            escribir(canvas, 190, 574, paciente.getCorreo());
-            //Datos del psicólogo
-            escribir(canvas, 135, 503, psicologo.getNombre());
-            escribir(canvas, 136, 468, psicologo.getTelefono());
-            //Datos de la cita
-            escribir(canvas, 122, 399, fecha);
-            escribir(canvas, 227, 399, hora);
-            escribir(canvas, 175, 365, cita.getMotivo());
-
-            stamper.close();
-            reader.close();
-
-            System.out.println("PDF generado en: " + rutaSalida);
-
-        } catch (Exception e) {
-            e.printStackTrace();
+            while (porGenerar.hasNext() || !enCurso.isEmpty()) {
+                while (enCurso.size() < DOCUMENTOS_EN_CURSO && porGenerar.hasNext()) {
+                    Cita cita = porGenerar.next();
+                    enCurso.add(new Pendiente(cita, ejecutor.submit(() -> generarCitaPDF(cita))));
+                }
+
+                Pendiente siguiente = enCurso.poll();
+                byte[] pdf = obtener(siguiente.pdf());
+                zip.putNextEntry(new ZipEntry(nombreArchivo(siguiente.cita())));
+                zip.write(pdf);
+                zip.closeEntry();
+                alAvanzar.accept(++escritos);
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            for (Pendiente pendiente : enCurso) {
+                pendiente.pdf().cancel(true);
+            }
         }
+        return escritos;
+    }
+
+    private byte[] generarCitaPDF(Cita cita) throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream(64 * 1024);
+        generarCitaPDF(cita.getPaciente(), cita.getPsicologo(), cita, pdf);
+        return pdf.toByteArray();
+    }
+
+    private static byte[] obtener(Future<byte[]> pdf) throws IOException, InterruptedException {
+        try {
+            return pdf.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException causa) {
+                throw causa;
+            }
+            throw new IOException("No se pudo generar el comprobante", e.getCause());
+        }
+    }
+
+    private static String nombreArchivo(Cita cita) {
+        return "Cita_" + cita.getId() + "_" + cita.getFechaCita().format(FORMATO_ARCHIVO) + ".pdf";
     }
 
     /**
-     * Escribe texto en el PDF en las coordenadas especificadas.
+     * Una cita cuyo comprobante se está generando.
      */
-    private void escribir(PdfContentByte canvas, float x, float y, String texto) {
-        canvas.beginText();
-        canvas.setTextMatrix(x, y);
-        canvas.showText(texto != null ? texto : "");
-        canvas.endText();
+    private record Pendiente(Cita cita, Future<byte[]> pdf) {
     }
 }
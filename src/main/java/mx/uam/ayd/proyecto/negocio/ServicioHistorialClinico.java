@@ -4,6 +4,7 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -75,6 +76,8 @@ public class ServicioHistorialClinico {
      * @throws IllegalArgumentException si alguna validación falla.
      */
     @Transactional
+    // Los pacientes en caché traen su historial clínico
+    @CacheEvict(cacheNames = ConfiguracionCaches.PACIENTES_POR_USUARIO, allEntries = true)
     public HistorialClinico guardarHistorialClinico(
             String nombre, 
             String correo, 
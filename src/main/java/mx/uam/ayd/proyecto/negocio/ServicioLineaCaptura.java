@@ -1,28 +1,44 @@
 package mx.uam.ayd.proyecto.negocio;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.awt.Desktop;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.Random;
+import java.util.List;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import com.lowagie.text.pdf.BaseFont;
+
+import mx.uam.ayd.proyecto.negocio.ServicioDocumentosPDF.Texto;
 
 @Service
 public class ServicioLineaCaptura {
 
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final ServicioDocumentosPDF servicioDocumentosPDF;
+    private final GeneradorLineaCaptura generadorLineaCaptura;
+    private final ServicioPago servicioPago;
+
+    @Autowired
+    public ServicioLineaCaptura(ServicioDocumentosPDF servicioDocumentosPDF, GeneradorLineaCaptura generadorLineaCaptura,
+            ServicioPago servicioPago) {
+        this.servicioDocumentosPDF = servicioDocumentosPDF;
+        this.generadorLineaCaptura = generadorLineaCaptura;
+        this.servicioPago = servicioPago;
+    }
+
+    /**
+     * Emite una línea de captura única de 10 dígitos, con dígito verificador.
+     */
     public String generarLineaCaptura() {
-        Random random = new Random();
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 10; i++) {
-            sb.append(random.nextInt(10));
-        }
-        return sb.toString();
+        return generadorLineaCaptura.siguiente();
     }
 
     public double asignarPrecioCita() {
@@ -31,63 +47,47 @@ public class ServicioLineaCaptura {
 
     public String fechaActual() {
         LocalDate fecha = LocalDate.now();
-        return fecha.format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        return fecha.format(FORMATO_FECHA);
     }
 
     /** Genera PDF en la ruta elegida */
     public File generarPDFPersonalizado(String ruta, String nombre, double total, String linea, String fecha) throws Exception {
-
-        PDDocument document = new PDDocument();
-        PDPage page = new PDPage();
-        document.addPage(page);
-
-        PDPageContentStream contenido = new PDPageContentStream(document, page);
-
-        // Título
-        contenido.setFont(PDType1Font.HELVETICA_BOLD, 16);
-        contenido.beginText();
-        contenido.newLineAtOffset(100, 700);
-        contenido.showText("Comprobante de Pago");
-        contenido.endText();
-
-        contenido.setFont(PDType1Font.HELVETICA, 12);
-
-        contenido.beginText();
-        contenido.newLineAtOffset(100, 650);
-        contenido.showText("Comprobante para: " + nombre);
-        contenido.endText();
-
-        contenido.beginText();
-        contenido.newLineAtOffset(100, 620);
-        contenido.showText("Total: $" + total);
-        contenido.endText();
-
-        contenido.beginText();
-        contenido.newLineAtOffset(100, 590);
-        contenido.showText("Línea de captura: " + linea);
-        contenido.endText();
-
-        contenido.beginText();
-        contenido.newLineAtOffset(100, 560);
-        contenido.showText("Fecha: " + fecha);
-        contenido.endText();
-
-        contenido.close();
-
         File file = new File(ruta);
-        document.save(file);
-        document.close();
-
+        try (OutputStream salida = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+            generarComprobantePago(nombre, total, linea, fecha, salida);
+        }
         return file;
     }
 
+    /**
+     * Escribe el comprobante de pago en la salida indicada, que no se cierra.
+     *
+     * @throws IOException si no se puede escribir en la salida.
+     */
+    public void generarComprobantePago(String nombre, double total, String linea, String fecha, OutputStream salida) throws IOException {
+        servicioDocumentosPDF.escribirPagina(List.of(
+                // Título
+                new Texto(BaseFont.HELVETICA_BOLD, 16, 100, 700, "Comprobante de Pago"),
+                new Texto(BaseFont.HELVETICA, 12, 100, 650, "Comprobante para: " + nombre),
+                new Texto(BaseFont.HELVETICA, 12, 100, 620, "Total: $" + total),
+                new Texto(BaseFont.HELVETICA, 12, 100, 590, "Línea de captura: " + linea),
+                new Texto(BaseFont.HELVETICA, 12, 100, 560, "Fecha: " + fecha)), salida);
+    }
+
     public void abrirPDF(File file) throws Exception {
         if (Desktop.isDesktopSupported()) {
             Desktop.getDesktop().open(file);
         }
     }
+
+    /**
+     * Registra en el registro de pagos un pago recibido con la línea de captura;
+     * si el total coincide con el monto de la cita, la marca como pagada.
+     *
+     * @param fecha el día del pago, con el formato de {@link #fechaActual()}.
+     */
     public void registrarPago(String nombre, double total, String linea, String fecha) {
-        // Método stub
+        servicioPago.registrarPago(linea, total, LocalDate.parse(fecha, FORMATO_FECHA));
     }
 
 }
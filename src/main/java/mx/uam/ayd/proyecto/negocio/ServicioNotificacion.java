@@ -1,14 +1,23 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.NotificacionRepository;
+import mx.uam.ayd.proyecto.negocio.eventos.NotificacionCreada;
+import mx.uam.ayd.proyecto.negocio.eventos.PublicadorEventos;
 import mx.uam.ayd.proyecto.negocio.modelo.Notificacion;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
 
 @Service
 public class ServicioNotificacion {
@@ -16,9 +25,33 @@ public class ServicioNotificacion {
     @Autowired
     private NotificacionRepository notificacionRepository;
 
+    @Autowired
+    private PublicadorEventos publicadorEventos;
+
+    // Contadores de no leídas para la burbuja roja; se mantienen al crear y al marcar como leídas
+    private final ContadoresNoLeidas<Integer> noLeidasPsicologo = new ContadoresNoLeidas<>();
+    private final ContadoresNoLeidas<Long> noLeidasPaciente = new ContadoresNoLeidas<>();
+
+    /**
+     * Precarga los contadores de no leídas de todos los destinatarios con dos consultas agrupadas.
+     */
+    @PostConstruct
+    public void precargarContadores() {
+        for (Object[] fila : notificacionRepository.contarNoLeidasPorPsicologo()) {
+            noLeidasPsicologo.fijar((Integer) fila[0], (Long) fila[1]);
+        }
+        for (Object[] fila : notificacionRepository.contarNoLeidasPorPaciente()) {
+            noLeidasPaciente.fijar((Long) fila[0], (Long) fila[1]);
+        }
+    }
+
     public void crearNotificacion(Psicologo psicologo, String mensaje) {
         Notificacion n = new Notificacion(psicologo, mensaje, LocalDateTime.now());
-        notificacionRepository.save(n);
+        cambiar(noLeidasPsicologo, psicologo.getId(), 1, () -> {
+            notificacionRepository.save(n);
+            return 1;
+        });
+        publicadorEventos.publicar(new NotificacionCreada(n.getId(), psicologo.getId(), null, mensaje));
     }
 
     /** Para la burbuja roja */
@@ -31,16 +64,46 @@ public class ServicioNotificacion {
         return notificacionRepository.findByPsicologoOrderByFechaDesc(psicologo);
     }
 
+    /**
+     * Cuenta las no leídas del psicólogo desde el contador en memoria;
+     * sólo consulta la base de datos la primera vez.
+     */
     public long contarNoLeidas(Psicologo psicologo) {
-        return notificacionRepository.countByPsicologoAndLeidaFalse(psicologo);
+        return noLeidasPsicologo.obtener(psicologo.getId(),
+                id -> notificacionRepository.countByPsicologoAndLeidaFalse(psicologo));
     }
 
-    public void marcarTodasComoLeidas(Psicologo psicologo) {
-        var noLeidas = obtenerNoLeidas(psicologo);
-        noLeidas.forEach(n -> {
-            n.setLeida(true);
-            notificacionRepository.save(n);
-        });
+    /**
+     * Registra un oyente que recibe el número de no leídas del psicólogo cada vez que cambia.
+     * El oyente puede ser llamado desde un hilo distinto al de JavaFX.
+     */
+    public void registrarOyente(Psicologo psicologo, LongConsumer oyente) {
+        noLeidasPsicologo.agregarOyente(psicologo.getId(), oyente);
+    }
+
+    public void desregistrarOyente(Psicologo psicologo, LongConsumer oyente) {
+        noLeidasPsicologo.quitarOyente(psicologo.getId(), oyente);
+    }
+
+    /**
+     * Marca todas las notificaciones pendientes del psicólogo como leídas.
+     * @return el número de notificaciones marcadas
+     */
+    @Transactional
+    public int marcarTodasComoLeidas(Psicologo psicologo) {
+        return marcarTodasComoLeidas(psicologo, null);
+    }
+
+    /**
+     * Marca como leídas las notificaciones pendientes del psicólogo hasta la última
+     * que se le mostró; las que llegan mientras las está leyendo siguen sin leer.
+     * @param hastaId id de la notificación más reciente mostrada, o null para marcar todas
+     * @return el número de notificaciones marcadas
+     */
+    @Transactional
+    public int marcarTodasComoLeidas(Psicologo psicologo, Long hastaId) {
+        return cambiar(noLeidasPsicologo, psicologo.getId(), -1,
+                () -> notificacionRepository.marcarLeidasPsicologo(psicologo, hastaId));
     }
 
     /**
@@ -49,7 +112,11 @@ public class ServicioNotificacion {
      */
     public void crearNotificacionPaciente(Paciente paciente, String mensaje) {
         Notificacion n = new Notificacion(paciente, mensaje, LocalDateTime.now());
-        notificacionRepository.save(n);
+        cambiar(noLeidasPaciente, paciente.getId(), 1, () -> {
+            notificacionRepository.save(n);
+            return 1;
+        });
+        publicadorEventos.publicar(new NotificacionCreada(n.getId(), null, paciente.getId(), mensaje));
     }
     
     /**
@@ -58,7 +125,20 @@ public class ServicioNotificacion {
      * Requerimiento: 
      */
     public long contarNoLeidasPaciente(Paciente p) {
-        return notificacionRepository.countByPacienteAndLeidaFalse(p);
+        return noLeidasPaciente.obtener(p.getId(),
+                id -> notificacionRepository.countByPacienteAndLeidaFalse(p));
+    }
+
+    /**
+     * Registra un oyente que recibe el número de no leídas del paciente cada vez que cambia.
+     * El oyente puede ser llamado desde un hilo distinto al de JavaFX.
+     */
+    public void registrarOyentePaciente(Paciente p, LongConsumer oyente) {
+        noLeidasPaciente.agregarOyente(p.getId(), oyente);
+    }
+
+    public void desregistrarOyentePaciente(Paciente p, LongConsumer oyente) {
+        noLeidasPaciente.quitarOyente(p.getId(), oyente);
     }
 
     /**
@@ -73,11 +153,64 @@ public class ServicioNotificacion {
      * Marca todas las notificaciones pendientes del paciente como leídas.
      * Requerimiento: "la burbuja roja deberá de dejar de aparecer" 
      */
-    public void marcarTodasComoLeidasPaciente(Paciente p) {
-        List<Notificacion> noLeidas = notificacionRepository.findByPacienteAndLeidaFalseOrderByFechaDesc(p);
-        noLeidas.forEach(n -> {
-            n.setLeida(true);
-            notificacionRepository.save(n);
-        });
+    @Transactional
+    public int marcarTodasComoLeidasPaciente(Paciente p) {
+        return marcarTodasComoLeidasPaciente(p, null);
+    }
+
+    /**
+     * Marca como leídas las notificaciones pendientes del paciente hasta la última
+     * que se le mostró; las que llegan mientras las está leyendo siguen sin leer.
+     * @param hastaId id de la notificación más reciente mostrada, o null para marcar todas
+     * @return el número de notificaciones marcadas
+     */
+    @Transactional
+    public int marcarTodasComoLeidasPaciente(Paciente p, Long hastaId) {
+        return cambiar(noLeidasPaciente, p.getId(), -1,
+                () -> notificacionRepository.marcarLeidasPaciente(p, hastaId));
+    }
+
+    /**
+     * Obtiene el id más reciente de una lista de notificaciones mostradas, para usarlo
+     * como límite al marcarlas como leídas. Si la lista está vacía devuelve 0 (no marca nada).
+     */
+    public long idMasReciente(List<Notificacion> notificaciones) {
+        long max = 0;
+        for (Notificacion n : notificaciones) {
+            if (n.getId() != null && n.getId() > max) {
+                max = n.getId();
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Escribe un cambio en las notificaciones del destinatario y ajusta su contador
+     * cuando termina la transacción actual (o de inmediato si no hay una), para que
+     * los contadores no cuenten notificaciones que se revirtieron.
+     * @param signo 1 si la escritura crea no leídas, -1 si las marca como leídas
+     * @param escritura escribe el cambio y devuelve cuántas notificaciones afectó
+     * @return el número de notificaciones afectadas
+     */
+    private <K> int cambiar(ContadoresNoLeidas<K> contadores, K destinatario, int signo, IntSupplier escritura) {
+        contadores.iniciarCambio(destinatario);
+        int afectadas;
+        try {
+            afectadas = escritura.getAsInt();
+        } catch (RuntimeException e) {
+            contadores.terminarCambio(destinatario, 0);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    contadores.terminarCambio(destinatario, estado == STATUS_COMMITTED ? signo * afectadas : 0);
+                }
+            });
+        } else {
+            contadores.terminarCambio(destinatario, signo * afectadas);
+        }
+        return afectadas;
     }
 }
@@ -1,13 +1,19 @@
 package mx.uam.ayd.proyecto.negocio;
 
-import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import jakarta.transaction.Transactional;
 import mx.uam.ayd.proyecto.datos.PacienteRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 
@@ -22,9 +28,20 @@ public class ServicioPaciente {
 
     private static final Logger log = LoggerFactory.getLogger(ServicioPaciente.class);
 
+    /**
+     * Número de pacientes por página en los listados.
+     */
+    public static final int TAMANO_PAGINA_PACIENTES = 50;
+
     @Autowired
     private PacienteRepository pacienteRepository;
 
+    @Autowired
+    private CifradoContrasenas cifradoContrasenas;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     /**
      * Registra un nuevo paciente en el sistema.
      */
@@ -61,7 +78,7 @@ public class ServicioPaciente {
         paciente.setTelefono(telefono);
         paciente.setEdad(edad);
         paciente.setUsuario(usuario);
-        paciente.setContrasena(contrasena);
+        paciente.setContrasena(cifradoContrasenas.cifrar(contrasena));
 
         pacienteRepository.save(paciente);
 
@@ -69,25 +86,68 @@ public class ServicioPaciente {
     }
 
     /**
-     * Recupera todos los pacientes registrados en el sistema.
+     * Recupera todos los pacientes registrados en el sistema. Para tablas
+     * que pueden crecer, usar {@link #recuperarPacientes(ScrollPosition)}.
      */
+    @PresupuestoSentencias(1)
     public List<Paciente> recuperarTodosLosPacientes() {
-        List<Paciente> pacientes = new ArrayList<>();
-        pacienteRepository.findAll().forEach(pacientes::add);
-        return pacientes;
+        return pacienteRepository.findListaBy();
+    }
+
+    /**
+     * Recupera una página de pacientes ordenados por id, con su psicólogo asignado.
+     *
+     * <p>La página se busca por llave (id mayor al último mostrado), así que el
+     * costo es el mismo para la primera página que para la última.</p>
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de pacientes y la posición para pedir la siguiente.
+     */
+    @PresupuestoSentencias(1)
+    public Window<Paciente> recuperarPacientes(ScrollPosition posicion) {
+        return pacienteRepository.findListaByOrderByIdAsc(posicion, Limit.of(TAMANO_PAGINA_PACIENTES));
+    }
+
+    /**
+     * Recupera al paciente con su historial clínico y sus baterías clínicas
+     * (plan {@link Paciente#GRAFO_DETALLE}), para mostrar su expediente.
+     *
+     * @param paciente el paciente seleccionado en una lista.
+     * @return el paciente con su expediente cargado, o null si ya no existe.
+     */
+    @PresupuestoSentencias(1)
+    public Paciente obtenerDetallePaciente(Paciente paciente) {
+        if (paciente == null || paciente.getId() == null) {
+            return null;
+        }
+        return pacienteRepository.findDetalleById(paciente.getId()).orElse(null);
     }
 
     /**
      * Recupera solo los pacientes asignados a un psicólogo específico.
      */
+    @PresupuestoSentencias(1)
     public List<Paciente> recuperarPacientesPorPsicologo(Psicologo psicologo) {
         return pacienteRepository.findByPsicologo(psicologo);
     }
 
     /**
-     * Asigna un psicólogo a un paciente existente.
+     * Recupera una página de los pacientes asignados a un psicólogo, ordenados por id.
+     *
+     * @param psicologo el psicólogo.
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de pacientes y la posición para pedir la siguiente.
+     */
+    @PresupuestoSentencias(1)
+    public Window<Paciente> recuperarPacientesPorPsicologo(Psicologo psicologo, ScrollPosition posicion) {
+        return pacienteRepository.findByPsicologoOrderByIdAsc(psicologo, posicion, Limit.of(TAMANO_PAGINA_PACIENTES));
+    }
+
+    /**
+     * Asigna un psicólogo a un paciente existente e invalida la caché de pacientes.
      */
     @Transactional
+    @CacheEvict(cacheNames = ConfiguracionCaches.PACIENTES_POR_USUARIO, allEntries = true)
     public void asignarPsicologo(Paciente paciente, Psicologo psicologo) {
         paciente.setPsicologo(psicologo);
         pacienteRepository.save(paciente);
@@ -98,26 +158,89 @@ public class ServicioPaciente {
     }
 
     /**
-     * Obtiene un paciente por su nombre de usuario.
+     * Obtiene un paciente por su nombre de usuario, con su psicólogo asignado.
+     *
+     * <p>El resultado se guarda en la caché {@link ConfiguracionCaches#PACIENTES_POR_USUARIO},
+     * así que las llamadas siguientes no consultan la base de datos hasta que se
+     * modifique algún paciente o venza la entrada. La caché guarda una copia y
+     * cada llamada recibe otra, así que cambiar el paciente devuelto no afecta a
+     * las demás sesiones; el psicólogo y el historial clínico sí se comparten y
+     * no deben modificarse. Para editar al paciente, usar
+     * {@link #obtenerPacienteParaEditar(String)}.</p>
+     *
+     * @param usuario el nombre de usuario.
+     * @return el paciente, o null si no existe.
      */
+    @PresupuestoSentencias(1)
     public Paciente obtenerPacientePorUsuario(String usuario) {
+        Cache cache = cacheManager.getCache(ConfiguracionCaches.PACIENTES_POR_USUARIO);
+        Paciente guardado = cache.get(usuario, Paciente.class);
+        if (guardado == null) {
+            Paciente paciente = pacienteRepository.findByUsuario(usuario);
+            if (paciente == null) {
+                return null;
+            }
+            guardado = copia(paciente);
+            cache.put(usuario, guardado);
+        }
+        return copia(guardado);
+    }
+
+    /**
+     * Obtiene un paciente por su nombre de usuario directamente de la base de
+     * datos, sin la caché, para las pantallas que lo modifican y lo guardan con
+     * {@link #actualizarPaciente(Paciente)}.
+     *
+     * @param usuario el nombre de usuario.
+     * @return el paciente, o null si no existe.
+     */
+    @PresupuestoSentencias(1)
+    public Paciente obtenerPacienteParaEditar(String usuario) {
         return pacienteRepository.findByUsuario(usuario);
     }
 
     /**
-     * Actualiza solo la contraseña del paciente.
+     * Cifra la nueva contraseña del paciente y la guarda.
+     *
+     * @param paciente el paciente.
+     * @param nuevaContrasena la contraseña en claro.
+     * @throws IllegalArgumentException si la contraseña es nula o vacía.
      */
+    @CacheEvict(cacheNames = ConfiguracionCaches.PACIENTES_POR_USUARIO, allEntries = true)
     public void actualizarContrasena(Paciente paciente, String nuevaContrasena) {
-        paciente.setContrasena(nuevaContrasena);
+        paciente.setContrasena(cifradoContrasenas.cifrar(nuevaContrasena));
         pacienteRepository.save(paciente);
     }
 
     /**
      * Guarda cualquier cambio hecho al objeto paciente (Nombre, Edad, Teléfono, etc.).
      * Este método es esencial para el módulo de actualización de información.
+     *
+     * <p>Invalida toda la caché de pacientes al guardar: el usuario puede haber
+     * cambiado, así que no se conoce la llave anterior.</p>
      */
     @Transactional
+    @CacheEvict(cacheNames = ConfiguracionCaches.PACIENTES_POR_USUARIO, allEntries = true)
     public void actualizarPaciente(Paciente paciente) {
         pacienteRepository.save(paciente);
     }
+
+    // Copia de los datos y las referencias; las relaciones no cargadas siguen sin cargarse
+    private static Paciente copia(Paciente paciente) {
+        Paciente copia = new Paciente();
+        copia.setId(paciente.getId());
+        copia.setNombre(paciente.getNombre());
+        copia.setTelefono(paciente.getTelefono());
+        copia.setCorreo(paciente.getCorreo());
+        copia.setEdad(paciente.getEdad());
+        copia.setUsuario(paciente.getUsuario());
+        copia.setContrasena(paciente.getContrasena());
+        copia.setFechaUltimaActualizacion(paciente.getFechaUltimaActualizacion());
+        copia.setPsicologo(paciente.getPsicologo());
+        copia.setHistorialClinico(paciente.getHistorialClinico());
+        copia.setBateriasClinicas(paciente.getBateriasClinicas());
+        copia.setCitas(paciente.getCitas());
+        copia.setRegistrosEmocionales(paciente.getRegistrosEmocionales());
+        return copia;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,236 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.PagoRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaPorPagar;
+import mx.uam.ayd.proyecto.negocio.modelo.MovimientoBancario;
+import mx.uam.ayd.proyecto.negocio.modelo.OrdenHistorialPagos;
+import mx.uam.ayd.proyecto.negocio.modelo.OrigenPago;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Pago;
+import mx.uam.ayd.proyecto.negocio.modelo.PagoHistorial;
+import mx.uam.ayd.proyecto.negocio.modelo.ResultadoConciliacion;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+
+/**
+ * Servicio que registra los pagos recibidos y marca como pagadas las citas
+ * correspondientes (HU-16).
+ *
+ * <p>Los pagos se aplican por lotes: con una consulta se buscan todas las citas
+ * del lote por su línea de captura, el cruce se hace con un mapa en memoria, las
+ * citas se marcan con una actualización por día de pago y los pagos se insertan
+ * en lotes. Así el número de sentencias depende del número de lotes, no del de
+ * pagos. Lo usa {@link ConciliadorPagos} para los archivos del banco.</p>
+ *
+ * <p>Un pago concilia su cita si el importe coincide con el monto al centavo y la
+ * cita no estaba pagada ni cancelada. Los demás se registran igualmente para
+ * aclararlos; un pago de una cita cancelada no la marca como pagada, porque lo que
+ * corresponde es devolverlo. Al conciliar se ajusta el
+ * {@link ServicioSaldoPaciente saldo} de cada paciente.</p>
+ *
+ * <p>También entrega el historial de pagos del paciente por páginas.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Service
+public class ServicioPago {
+
+    /**
+     * Número de citas por página en el historial de pagos.
+     */
+    public static final int TAMANO_PAGINA_HISTORIAL = 50;
+
+    private static final double TOLERANCIA_IMPORTE = 0.005;
+
+    private static final Sort RECIENTES = Sort.by(Sort.Order.desc("fechaCita"), Sort.Order.desc("id"));
+    private static final Sort ANTIGUAS = Sort.by(Sort.Order.asc("fechaCita"), Sort.Order.asc("id"));
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private ServicioSaldoPaciente servicioSaldoPaciente;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Lista una página del historial de pagos del paciente. Cada página es una
+     * consulta sobre el índice (paciente_id, fecha_cita) que proyecta sólo las
+     * columnas que se muestran.
+     *
+     * @param paciente el paciente.
+     * @param orden el orden de las citas.
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página y la posición para pedir la siguiente.
+     */
+    @PresupuestoSentencias(1)
+    public Window<PagoHistorial> listarHistorialPagos(Paciente paciente, OrdenHistorialPagos orden, ScrollPosition posicion) {
+        Sort sort = orden == OrdenHistorialPagos.ANTIGUAS ? ANTIGUAS : RECIENTES;
+        return citaRepository.findHistorialByPaciente(paciente, posicion, sort, Limit.of(TAMANO_PAGINA_HISTORIAL));
+    }
+
+    /**
+     * Registra un pago capturado a mano.
+     *
+     * @param lineaCaptura la línea de captura con la que se pagó.
+     * @param importe el importe recibido.
+     * @param fechaPago el día en que se pagó.
+     * @return el resumen; {@code conciliados} es 1 si la cita quedó pagada.
+     * @throws IllegalArgumentException si falta la línea de captura o la fecha.
+     */
+    @Transactional
+    public ResultadoConciliacion registrarPago(String lineaCaptura, double importe, LocalDate fechaPago) {
+        if (lineaCaptura == null || lineaCaptura.isBlank() || fechaPago == null) {
+            throw new IllegalArgumentException("La línea de captura y la fecha de pago son obligatorias");
+        }
+        return aplicar(List.of(new MovimientoBancario(null, lineaCaptura.trim(), importe, fechaPago)), OrigenPago.MANUAL);
+    }
+
+    /**
+     * Aplica un lote de movimientos del banco en una sola transacción. Los
+     * movimientos cuya referencia ya está registrada se ignoran.
+     *
+     * <p>Un lote completo con pagos de un mismo día emite unas 30 sentencias: las
+     * dos consultas, la actualización, las inserciones en lotes de 100 con sus
+     * valores de secuencia y el ajuste de los saldos de los pacientes.</p>
+     *
+     * @param movimientos los movimientos del lote, con referencia.
+     * @return el resumen del lote.
+     */
+    @Transactional
+    @PresupuestoSentencias(40)
+    public ResultadoConciliacion aplicarLote(List<MovimientoBancario> movimientos) {
+        if (movimientos.isEmpty()) {
+            return ResultadoConciliacion.VACIO;
+        }
+
+        Set<String> referencias = new HashSet<>();
+        for (MovimientoBancario movimiento : movimientos) {
+            referencias.add(movimiento.referencia());
+        }
+        Set<String> registradas = pagoRepository.findReferenciasRegistradas(referencias);
+
+        // Se descartan los ya registrados y los repetidos dentro del mismo lote
+        List<MovimientoBancario> nuevos = new ArrayList<>(movimientos.size());
+        Set<String> vistas = new HashSet<>(registradas);
+        for (MovimientoBancario movimiento : movimientos) {
+            if (vistas.add(movimiento.referencia())) {
+                nuevos.add(movimiento);
+            }
+        }
+
+        int duplicados = movimientos.size() - nuevos.size();
+        return aplicar(nuevos, OrigenPago.CONCILIACION)
+                .sumar(new ResultadoConciliacion(duplicados, 0, 0, 0, 0, 0, duplicados, 0));
+    }
+
+    private ResultadoConciliacion aplicar(List<MovimientoBancario> movimientos, OrigenPago origen) {
+        if (movimientos.isEmpty()) {
+            return ResultadoConciliacion.VACIO;
+        }
+
+        // Índice en memoria de las citas del lote, por línea de captura
+        Set<String> lineas = new HashSet<>();
+        for (MovimientoBancario movimiento : movimientos) {
+            lineas.add(movimiento.lineaCaptura());
+        }
+        Map<String, CitaPorPagar> citas = new HashMap<>();
+        for (CitaPorPagar cita : citaRepository.findPorPagar(lineas)) {
+            citas.put(cita.lineaCaptura(), cita);
+        }
+
+        long conciliados = 0;
+        long sinCita = 0;
+        long importeDistinto = 0;
+        long yaPagados = 0;
+        long cancelados = 0;
+        Map<LocalDate, List<Integer>> porPagarPorDia = new HashMap<>();
+        Set<Integer> pagadasEnLote = new HashSet<>();
+        List<CitaPorPagar> pagadas = new ArrayList<>();
+        Integer[] citaDePago = new Integer[movimientos.size()];
+
+        for (int i = 0; i < movimientos.size(); i++) {
+            MovimientoBancario movimiento = movimientos.get(i);
+            CitaPorPagar cita = citas.get(movimiento.lineaCaptura());
+            if (cita == null) {
+                sinCita++;
+                continue;
+            }
+            citaDePago[i] = cita.citaId();
+            if (cita.fechaPago() != null || pagadasEnLote.contains(cita.citaId())) {
+                yaPagados++;
+            } else if (cita.estadoCita() == TipoConfirmacionCita.CANCELADA) {
+                cancelados++;
+            } else if (cita.monto() == null || Math.abs(cita.monto() - movimiento.importe()) > TOLERANCIA_IMPORTE) {
+                importeDistinto++;
+            } else {
+                pagadasEnLote.add(cita.citaId());
+                pagadas.add(cita);
+                porPagarPorDia.computeIfAbsent(movimiento.fechaPago(), dia -> new ArrayList<>()).add(cita.citaId());
+                conciliados++;
+            }
+        }
+
+        // Una actualización por día de pago; un archivo del banco suele traer uno o dos días.
+        // Las citas están bloqueadas desde findPorPagar, así que se marcan todas las elegidas
+        for (Map.Entry<LocalDate, List<Integer>> dia : porPagarPorDia.entrySet()) {
+            int marcadas = citaRepository.marcarPagadas(dia.getValue(), dia.getKey());
+            if (marcadas != dia.getValue().size()) {
+                // Se revierte el lote completo para no abonar saldos de citas que no se marcaron
+                throw new IllegalStateException("Se esperaba marcar " + dia.getValue().size()
+                        + " citas como pagadas y se marcaron " + marcadas);
+            }
+        }
+        if (!pagadas.isEmpty()) {
+            servicioSaldoPaciente.registrarPagos(pagadas);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Pago> pagos = new ArrayList<>(movimientos.size());
+        for (int i = 0; i < movimientos.size(); i++) {
+            MovimientoBancario movimiento = movimientos.get(i);
+            Pago pago = new Pago();
+            pago.setReferencia(movimiento.referencia());
+            pago.setLineaCaptura(movimiento.lineaCaptura());
+            pago.setImporte(movimiento.importe());
+            pago.setFechaPago(movimiento.fechaPago());
+            pago.setOrigen(origen);
+            pago.setFechaRegistro(ahora);
+            if (citaDePago[i] != null) {
+                // Sólo se necesita la llave foránea; no se carga la cita
+                pago.setCita(entityManager.getReference(Cita.class, citaDePago[i]));
+            }
+            pagos.add(pago);
+        }
+        pagoRepository.saveAll(pagos);
+
+        return new ResultadoConciliacion(movimientos.size(), conciliados, sinCita, importeDistinto, yaPagados,
+                cancelados, 0, 0);
+    }
+}
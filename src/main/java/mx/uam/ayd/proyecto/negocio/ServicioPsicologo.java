@@ -1,17 +1,26 @@
 package mx.uam.ayd.proyecto.negocio;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
+import mx.uam.ayd.proyecto.datos.BateriaClinicaRepository;
 import mx.uam.ayd.proyecto.datos.PacienteRepository;
 import mx.uam.ayd.proyecto.datos.PsicologoRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
+import mx.uam.ayd.proyecto.negocio.modelo.CuestionarioAplicado;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.PacienteConCuestionarios;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoEspecialidad;
 
@@ -21,8 +30,8 @@ import mx.uam.ayd.proyecto.negocio.modelo.TipoEspecialidad;
  * <p>Permite registrar nuevos psicólogos, listar los existentes, obtener
  * pacientes con cuestionarios y recomendar psicólogos según la edad del paciente.</p>
  *
- * <p>Utiliza {@link PacienteRepository} y {@link PsicologoRepository} como
- * capa de acceso a datos.</p>
+ * <p>Utiliza {@link PacienteRepository}, {@link PsicologoRepository} y
+ * {@link BateriaClinicaRepository} como capa de acceso a datos.</p>
  *
  * @author Tech Solutions
  * @version 1.0
@@ -31,6 +40,16 @@ import mx.uam.ayd.proyecto.negocio.modelo.TipoEspecialidad;
 public class ServicioPsicologo {
 
     private static final Logger log = LoggerFactory.getLogger(ServicioPsicologo.class);
+
+    /**
+     * Número de pacientes por página en la consulta de pacientes con cuestionarios.
+     */
+    public static final int TAMANO_PAGINA_PACIENTES = 50;
+
+    /**
+     * Número de psicólogos por página en el listado de psicólogos.
+     */
+    public static final int TAMANO_PAGINA_PSICOLOGOS = 50;
     
     @Autowired
     private PacienteRepository pacienteRepository;
@@ -38,18 +57,39 @@ public class ServicioPsicologo {
     @Autowired
     private PsicologoRepository psicologoRepository;
 
+    @Autowired
+    private BateriaClinicaRepository bateriaClinicaRepository;
+
+    @Autowired
+    private CifradoContrasenas cifradoContrasenas;
+
     /**
-     * Recupera todos los pacientes y los filtra, devolviendo
-     * únicamente aquellos que tienen al menos una batería clínica asociada.
-     * @return Lista de pacientes con cuestionarios.
+     * Recupera una página de pacientes con al menos una batería clínica, ordenados
+     * por id, junto con la calificación más reciente de cada tipo de batería.
+     *
+     * <p>El filtro se resuelve en la base de datos y las baterías se leen como
+     * proyección sólo para los pacientes de la página, así que el costo no depende
+     * del número de pacientes del centro. La página se busca por llave, así que
+     * cuesta lo mismo la primera que la última.</p>
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de pacientes con cuestionarios y la posición para pedir la siguiente.
      */
-    public List<Paciente> obtenerPacientesConCuestionarios() {
-        List<Paciente> todosLosPacientes = new ArrayList<>();
-        pacienteRepository.findAll().forEach(todosLosPacientes::add);
+    @PresupuestoSentencias(2)
+    public Window<PacienteConCuestionarios> obtenerPacientesConCuestionarios(ScrollPosition posicion) {
+        Window<Paciente> pacientes = pacienteRepository.findListaByBateriasClinicasIsNotEmptyOrderByIdAsc(
+                posicion, Limit.of(TAMANO_PAGINA_PACIENTES));
+        if (pacientes.isEmpty()) {
+            return pacientes.map(paciente -> new PacienteConCuestionarios(paciente, List.of()));
+        }
+
+        List<Long> ids = pacientes.stream().map(Paciente::getId).toList();
+        Map<Long, List<CuestionarioAplicado>> cuestionarios = bateriaClinicaRepository
+                .findUltimosCuestionarios(ids).stream()
+                .collect(Collectors.groupingBy(CuestionarioAplicado::pacienteId));
 
-        return todosLosPacientes.stream()
-                .filter(paciente -> paciente.getBateriasClinicas() != null && !paciente.getBateriasClinicas().isEmpty())
-                .collect(Collectors.toList());
+        return pacientes.map(paciente -> new PacienteConCuestionarios(
+                paciente, cuestionarios.getOrDefault(paciente.getId(), List.of())));
     }
 
     /**
@@ -57,7 +97,7 @@ public class ServicioPsicologo {
      *
      * <p>Validaciones aplicadas:
      * <ul>
-     *   <li>Nombre, correo y teléfono no nulos ni vacíos.</li>
+     *   <li>Nombre, correo, teléfono y contraseña no nulos ni vacíos.</li>
      *   <li>No debe existir otro psicólogo con el mismo correo.</li>
      *   <li>No debe existir otro psicólogo con el mismo teléfono.</li>
      * </ul>
@@ -83,6 +123,10 @@ public class ServicioPsicologo {
             throw new IllegalArgumentException("El telefono no puede ser nulo o vacio");
         }
 
+        if (contrasena == null || contrasena.trim().isEmpty()) {
+            throw new IllegalArgumentException("La contraseña no puede ser nula");
+        }
+
         // Regla de negocio, no podemos tener dos psicologos con el mismo correo
         Psicologo psicologo = psicologoRepository.findByCorreo(correo);
         if (psicologo != null){
@@ -111,7 +155,7 @@ public class ServicioPsicologo {
         psicologo.setTelefono(telefono);
         psicologo.setEspecialidad(especialidad);
         psicologo.setUsuario(usuario);
-        psicologo.setContrasena(contrasena);
+        psicologo.setContrasena(cifradoContrasenas.cifrar(contrasena));
 
         psicologoRepository.save(psicologo);
 
@@ -119,14 +163,42 @@ public class ServicioPsicologo {
     }
 
     /**
-     * Lista todos los psicólogos registrados.
+     * Lista una página de los psicólogos registrados, ordenados por id.
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de psicólogos y la posición para pedir la siguiente.
+     */
+    @PresupuestoSentencias(1)
+    public Window<Psicologo> listarPsicologos(ScrollPosition posicion) {
+        return psicologoRepository.findByOrderByIdAsc(posicion, Limit.of(TAMANO_PAGINA_PSICOLOGOS));
+    }
+
+    /**
+     * Obtiene un psicólogo por su id.
      *
-     * @return una lista con todos los psicólogos; si no existen registros, la lista estará vacía.
+     * <p>El resultado se guarda en la caché {@link ConfiguracionCaches#PSICOLOGOS_POR_ID},
+     * que invalida {@link #actualizarContrasena(Psicologo, String)}.</p>
+     *
+     * @param id el id del psicólogo.
+     * @return el psicólogo, o null si no existe.
      */
-    public List<Psicologo> listarPsicologos() {
-        List<Psicologo> psicologos = new ArrayList<>();
-        psicologoRepository.findAll().forEach(psicologos::add);
-        return psicologos;
+    @PresupuestoSentencias(1)
+    @Cacheable(cacheNames = ConfiguracionCaches.PSICOLOGOS_POR_ID, unless = "#result == null")
+    public Psicologo obtenerPsicologoPorId(int id) {
+        return psicologoRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Cifra la nueva contraseña del psicólogo y la guarda.
+     *
+     * @param psicologo el psicólogo.
+     * @param nuevaContrasena la contraseña en claro.
+     * @throws IllegalArgumentException si la contraseña es nula o vacía.
+     */
+    @CacheEvict(cacheNames = ConfiguracionCaches.PSICOLOGOS_POR_ID, key = "#psicologo.id")
+    public void actualizarContrasena(Psicologo psicologo, String nuevaContrasena) {
+        psicologo.setContrasena(cifradoContrasenas.cifrar(nuevaContrasena));
+        psicologoRepository.save(psicologo);
     }
 
     //Obtiene los psicologos por especialidad acorde a la edad del paciente
@@ -0,0 +1,80 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.RecordatorioCitaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.RecordatorioCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoRecordatorio;
+
+/**
+ * Servicio que gestiona los recordatorios de citas próximas (HU-03).
+ *
+ * <p>Localiza con una sola consulta las citas de todos los pacientes que entran en la
+ * ventana de 48 horas y que aún no tienen recordatorio, y envía cada uno en su propia
+ * transacción. Lo invoca periódicamente {@link ProgramadorRecordatorios}.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Service
+public class ServicioRecordatorio {
+
+    /**
+     * Horas de anticipación con las que se avisa al paciente.
+     */
+    public static final long HORAS_ANTICIPACION = 48;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private RecordatorioCitaRepository recordatorioCitaRepository;
+
+    @Autowired
+    private ServicioNotificacion servicioNotificacion;
+
+    /**
+     * Busca las citas activas que ocurren en las próximas 48 horas y que todavía
+     * no tienen recordatorio enviado.
+     *
+     * @param ahora el momento de referencia.
+     * @return las citas por recordar, con su paciente cargado.
+     */
+    public List<Cita> buscarCitasPorRecordar(LocalDateTime ahora) {
+        return citaRepository.findSinRecordatorioEntre(
+                ahora,
+                ahora.plusHours(HORAS_ANTICIPACION),
+                TipoConfirmacionCita.CANCELADA,
+                TipoRecordatorio.CITA_48_HORAS);
+    }
+
+    /**
+     * Registra el recordatorio de la cita y crea la notificación para el paciente.
+     *
+     * <p>Si otro proceso ya registró el mismo recordatorio, la restricción única
+     * hace fallar la confirmación con una
+     * {@link org.springframework.dao.DataIntegrityViolationException} y la notificación
+     * se revierte junto con él, así que nunca se duplica.</p>
+     *
+     * @param cita la cita a recordar; debe tener paciente.
+     */
+    @Transactional
+    public void enviarRecordatorio(Cita cita) {
+        RecordatorioCita recordatorio = new RecordatorioCita();
+        recordatorio.setCita(cita);
+        recordatorio.setTipoRecordatorio(TipoRecordatorio.CITA_48_HORAS);
+        recordatorio.setFechaEnvio(LocalDateTime.now());
+        recordatorioCitaRepository.save(recordatorio);
+
+        String mensaje = "Recordatorio: Tienes una cita el " + cita.getFecha() + " a las " + cita.getHora();
+        servicioNotificacion.crearNotificacionPaciente(cita.getPaciente(), mensaje);
+    }
+}
@@ -1,36 +1,106 @@
 package mx.uam.ayd.proyecto.negocio;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import mx.uam.ayd.proyecto.datos.PacienteRepository;
 import mx.uam.ayd.proyecto.datos.RegistroEmocionalRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
+import mx.uam.ayd.proyecto.negocio.modelo.TendenciaEmocional;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class ServicioRegistroemocional {
 
     private static final Logger log = LoggerFactory.getLogger(ServicioRegistroemocional.class);
 
+    /**
+     * Número de registros por página en los listados de registros emocionales.
+     */
+    public static final int TAMANO_PAGINA_REGISTROS = 50;
+
+    static final String YA_REGISTRADO = "Ya se realizó un registro emocional para este paciente el día de hoy.";
+
     @Autowired
     private RegistroEmocionalRepository registroEmocionalRepository;
 
-    @Autowired
-    private PacienteRepository pacienteRepository;
+    /**
+     * Al arrancar, mueve la secuencia de ids después del id más alto guardado.
+     *
+     * <p>Las bases anteriores a la secuencia ya tienen registros con ids
+     * generados por la tabla, y {@code ddl-auto: update} crea la secuencia desde 1;
+     * sin este ajuste las primeras inserciones repetirían esos ids. Se hace antes
+     * de mostrar la interfaz, cuando Hibernate aún no ha apartado ids.</p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void alinearSecuenciaIds() {
+        Long maximo = registroEmocionalRepository.findMaxId();
+        if (maximo == null) {
+            return;
+        }
+        // El valor v de la secuencia aparta los ids v - BLOQUE_IDS + 1 a v
+        long siguiente = registroEmocionalRepository.siguienteValorSecuencia();
+        if (siguiente - RegistroEmocional.BLOQUE_IDS < maximo) {
+            long reinicio = maximo + RegistroEmocional.BLOQUE_IDS + 1;
+            registroEmocionalRepository.reiniciarSecuencia(reinicio);
+            log.warn("Secuencia " + RegistroEmocional.SECUENCIA_IDS + " alineada: continúa en " + reinicio);
+        }
+    }
 
     /**
      * Guarda un nuevo registro emocional VINCULADO a un paciente.
+     *
+     * <p>Se inserta directamente; si el paciente ya tiene registro hoy, la
+     * restricción única de la base lo rechaza, también cuando llegan dos al
+     * mismo tiempo.</p>
+     *
+     * @throws IllegalArgumentException si faltan datos o ya hay un registro del paciente hoy.
      */
     public RegistroEmocional guardarRegistro(String emocion, String nota, Paciente paciente) {
+        RegistroEmocional registro = nuevoRegistro(emocion, nota, paciente);
+
+        log.info("Guardando nuevo registro emocional para el paciente: " + paciente.getNombre());
+
+        try {
+            registroEmocionalRepository.save(registro);
+        } catch (DataIntegrityViolationException e) {
+            if (esRegistroRepetido(e)) {
+                throw new IllegalArgumentException(YA_REGISTRADO, e);
+            }
+            throw e;
+        }
+        return registro;
+    }
+
+    /**
+     * Valida los datos y crea, sin guardarlo, el registro de hoy del paciente.
+     *
+     * @throws IllegalArgumentException si falta la emoción o el paciente.
+     */
+    public RegistroEmocional nuevoRegistro(String emocion, String nota, Paciente paciente) {
         if (emocion == null || emocion.trim().isEmpty()) {
             throw new IllegalArgumentException("La emoción no puede estar vacía");
         }
@@ -39,32 +109,80 @@ public class ServicioRegistroemocional {
             throw new IllegalArgumentException("El paciente no puede ser nulo");
         }
 
-        LocalDate fechaHoy = LocalDate.now();
-        boolean yaExisteRegistroHoy = registroEmocionalRepository.existsByPacienteAndFecha(paciente, fechaHoy);
-
-        if (yaExisteRegistroHoy) {
-            throw new IllegalArgumentException("Ya se realizó un registro emocional para este paciente el día de hoy.");
-        }
-
-        log.info("Guardando nuevo registro emocional para el paciente: " + paciente.getNombre());
-
         RegistroEmocional registro = new RegistroEmocional();
-        registro.setFecha(fechaHoy);
+        registro.setFecha(LocalDate.now());
         registro.setEmocion(emocion);
         registro.setNota(nota);
         registro.setPaciente(paciente);
-
-        registroEmocionalRepository.save(registro);
         return registro;
     }
 
     /**
-     * Obtiene TODOS los registros emocionales (para el Admin).
+     * Guarda varios registros en una transacción. Los de pacientes que ya
+     * tienen registro ese día se descartan.
+     *
+     * <p>Cuesta una consulta por fecha distinta en el lote (normalmente una), el
+     * valor de la secuencia y las inserciones en lotes de 100.</p>
+     *
+     * @param registros los registros, de pacientes guardados y a lo más uno por paciente y día.
+     * @return los registros que se guardaron.
+     * @throws DataIntegrityViolationException si otro proceso guardó al mismo tiempo
+     *         el registro de alguno de los pacientes; no se guarda ninguno.
+     */
+    @Transactional
+    @PresupuestoSentencias(4)
+    public List<RegistroEmocional> guardarLote(List<RegistroEmocional> registros) {
+        Map<LocalDate, List<RegistroEmocional>> porFecha = new HashMap<>();
+        for (RegistroEmocional registro : registros) {
+            porFecha.computeIfAbsent(registro.getFecha(), fecha -> new ArrayList<>()).add(registro);
+        }
+
+        List<RegistroEmocional> nuevos = new ArrayList<>(registros.size());
+        for (Map.Entry<LocalDate, List<RegistroEmocional>> fecha : porFecha.entrySet()) {
+            Set<Long> pacienteIds = new HashSet<>();
+            for (RegistroEmocional registro : fecha.getValue()) {
+                pacienteIds.add(registro.getPaciente().getId());
+            }
+            Set<Long> conRegistro = registroEmocionalRepository.findPacientesConRegistro(pacienteIds, fecha.getKey());
+            for (RegistroEmocional registro : fecha.getValue()) {
+                if (!conRegistro.contains(registro.getPaciente().getId())) {
+                    nuevos.add(registro);
+                }
+            }
+        }
+
+        if (nuevos.size() < registros.size()) {
+            log.info("Se descartaron " + (registros.size() - nuevos.size()) + " registros emocionales repetidos");
+        }
+        registroEmocionalRepository.saveAll(nuevos);
+        return nuevos;
+    }
+
+    /**
+     * Indica si la excepción la causó la restricción de un registro por paciente y día.
+     */
+    static boolean esRegistroRepetido(DataIntegrityViolationException e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConstraintViolationException violacion) {
+                String restriccion = violacion.getConstraintName();
+                // Algunas bases agregan el esquema o un sufijo al nombre de la restricción
+                return restriccion != null
+                        && restriccion.toLowerCase().contains(RegistroEmocional.UK_PACIENTE_FECHA);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene una página de TODOS los registros emocionales (para el Admin),
+     * del más reciente al más antiguo.
+     *
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de registros y la posición para pedir la siguiente.
      */
-    public List<RegistroEmocional> listarRegistros() {
-        List<RegistroEmocional> registros = new ArrayList<>();
-        registroEmocionalRepository.findAll().forEach(registros::add);
-        return registros;
+    @PresupuestoSentencias(1)
+    public Window<RegistroEmocional> listarRegistros(ScrollPosition posicion) {
+        return registroEmocionalRepository.findByOrderByIdDesc(posicion, Limit.of(TAMANO_PAGINA_REGISTROS));
     }
 
     /**
@@ -75,20 +193,71 @@ public class ServicioRegistroemocional {
     }
 
     /**
-     * Obtiene los registros emocionales de todos los pacientes
-     * asignados a un psicólogo específico.
+     * Obtiene una página de los registros emocionales de todos los pacientes
+     * asignados a un psicólogo específico, del más reciente al más antiguo.
+     *
+     * @param psicologo el psicólogo.
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de registros; vacía si el psicólogo es nulo.
      */
-    public List<RegistroEmocional> listarRegistrosPorPsicologo(Psicologo psicologo) {
+    @PresupuestoSentencias(1)
+    public Window<RegistroEmocional> listarRegistrosPorPsicologo(Psicologo psicologo, ScrollPosition posicion) {
         if (psicologo == null) {
-            return Collections.emptyList();
+            return Window.from(Collections.emptyList(), indice -> posicion);
         }
+        return registroEmocionalRepository.findByPacientePsicologoOrderByIdDesc(
+                psicologo, posicion, Limit.of(TAMANO_PAGINA_REGISTROS));
+    }
 
-        List<Paciente> pacientesDelPsicologo = pacienteRepository.findByPsicologo(psicologo);
+    /**
+     * Obtiene una página de los registros emocionales de los pacientes de un
+     * psicólogo en un rango de fechas, del más reciente al más antiguo.
+     *
+     * @param psicologo el psicólogo.
+     * @param desde el primer día (inclusivo).
+     * @param hasta el último día (inclusivo).
+     * @param posicion dónde continuar; {@code ScrollPosition.keyset()} para la primera página.
+     * @return la página de registros; vacía si el psicólogo es nulo.
+     * @throws IllegalArgumentException si falta alguna fecha o el rango es inválido.
+     */
+    @PresupuestoSentencias(1)
+    public Window<RegistroEmocional> listarRegistrosPorPsicologo(Psicologo psicologo, LocalDate desde,
+            LocalDate hasta, ScrollPosition posicion) {
+        validarRango(desde, hasta);
+        if (psicologo == null) {
+            return Window.from(Collections.emptyList(), indice -> posicion);
+        }
+        return registroEmocionalRepository.findByPacientePsicologoAndFechaBetweenOrderByFechaDescIdDesc(
+                psicologo, desde, hasta, posicion, Limit.of(TAMANO_PAGINA_REGISTROS));
+    }
 
-        if (pacientesDelPsicologo == null || pacientesDelPsicologo.isEmpty()) {
+    /**
+     * Obtiene cuántas veces registró cada paciente de un psicólogo cada emoción,
+     * por semana. El rango se extiende al lunes de la primera semana para que
+     * todas las semanas estén completas.
+     *
+     * @param psicologo el psicólogo.
+     * @param desde el primer día (inclusivo).
+     * @param hasta el último día (inclusivo).
+     * @return los conteos por paciente, semana y emoción; vacío si el psicólogo es nulo.
+     * @throws IllegalArgumentException si falta alguna fecha o el rango es inválido.
+     */
+    @PresupuestoSentencias(1)
+    public List<TendenciaEmocional> obtenerTendencia(Psicologo psicologo, LocalDate desde, LocalDate hasta) {
+        validarRango(desde, hasta);
+        if (psicologo == null) {
             return Collections.emptyList();
         }
+        return registroEmocionalRepository.calcularTendencia(psicologo,
+                desde.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), hasta.plusDays(1));
+    }
 
-        return registroEmocionalRepository.findByPacienteIn(pacientesDelPsicologo);
+    private static void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Las fechas del rango son obligatorias");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
     }
-}
\ No newline at end of file
+}
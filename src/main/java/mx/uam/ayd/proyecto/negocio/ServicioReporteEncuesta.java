@@ -1,100 +1,249 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.EncuestaSatisfaccionRepository;
+import mx.uam.ayd.proyecto.datos.ResumenEncuestaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.CalificacionesEncuesta;
 import mx.uam.ayd.proyecto.negocio.modelo.EncuestaSatisfaccion;
+import mx.uam.ayd.proyecto.negocio.modelo.ReporteCalificaciones;
+import mx.uam.ayd.proyecto.negocio.modelo.ResumenEncuesta;
+import mx.uam.ayd.proyecto.negocio.modelo.TotalesPregunta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.ToIntFunction;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 @Service 
 public class ServicioReporteEncuesta { 
 
+    private static final Logger log = LoggerFactory.getLogger(ServicioReporteEncuesta.class);
+
+    /**
+     * Número de respuestas abiertas que se cargan por página.
+     */
+    public static final int TAMANO_PAGINA_COMENTARIOS = 50;
+
     @Autowired
     private EncuestaSatisfaccionRepository encuestaSatisfaccionRepository;
 
-    // 1. Mapa estático para eliminar el bloque switch (de la refactorización anterior)
-    private static final Map<String, ToIntFunction<EncuestaSatisfaccion>> GETTER_MAP = Map.of(
-        "Pregunta 1", EncuestaSatisfaccion::getQ1Empatia,
-        "Pregunta 2", EncuestaSatisfaccion::getQ2Confianza,
-        "Pregunta 3", EncuestaSatisfaccion::getQ3Respeto,
-        "Pregunta 4", EncuestaSatisfaccion::getQ4Confidencialidad,
-        "Pregunta 5", EncuestaSatisfaccion::getQ5Herramientas,
-        "Pregunta 6", EncuestaSatisfaccion::getQ6Satisfaccion,
-        "Pregunta 7", EncuestaSatisfaccion::getQ7Recomendacion
-    );
-    
-    // 2. NUEVO: Mapa de traducción de número (clave) a etiqueta (valor)
-    private static final Map<Integer, String> ETIQUETA_MAP = Map.of(
-        1, "Malo",
-        2, "Regular",
-        3, "Bueno",
-        4, "Excelente"
-    );
+    @Autowired
+    private ResumenEncuestaRepository resumenEncuestaRepository;
+
+    @Autowired
+    private CreadorResumenEncuesta creadorResumenEncuesta;
+
+    // Llave de una fila de la tabla de resúmenes
+    private record Clave(int periodo, int psicologoId, int pregunta) {
+    }
+
+    /**
+     * Llena la tabla de resúmenes al arrancar si está vacía pero ya hay encuestas,
+     * como ocurre con una base de datos anterior a la tabla.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void inicializarResumen() {
+        if (resumenEncuestaRepository.count() == 0 && encuestaSatisfaccionRepository.count() > 0) {
+            reconstruirResumen();
+        }
+    }
 
     /**
-     * Obtiene todas las encuestas registradas.
+     * Obtiene los histogramas, promedios y varianzas de las preguntas 1 a 7 de todas las encuestas.
+     * La base de datos suma la tabla de resúmenes y devuelve una fila por pregunta,
+     * así que el costo no depende del número de encuestas.
+     *
+     * @return el reporte con los conteos de todas las preguntas de opción múltiple.
      */
-    private List<EncuestaSatisfaccion> obtenerTodasLasEncuestas() {
-        return StreamSupport.stream(encuestaSatisfaccionRepository.findAll().spliterator(), false)
-                .collect(Collectors.toList());
+    public ReporteCalificaciones generarReporte() {
+        return sumarTotales(resumenEncuestaRepository.sumarPorPregunta());
+    }
+
+    /**
+     * Obtiene el reporte de las encuestas de los pacientes de un psicólogo.
+     */
+    public ReporteCalificaciones generarReporte(int psicologoId) {
+        return sumarTotales(resumenEncuestaRepository.sumarPorPreguntaDePsicologo(psicologoId));
+    }
+
+    /**
+     * Obtiene el reporte de las encuestas respondidas entre dos meses, ambos inclusive.
+     */
+    public ReporteCalificaciones generarReporte(YearMonth desde, YearMonth hasta) {
+        return sumarTotales(resumenEncuestaRepository.sumarPorPreguntaEntre(
+                ResumenEncuesta.periodo(desde), ResumenEncuesta.periodo(hasta)));
+    }
+
+    /**
+     * Acumula una encuesta recién guardada en la tabla de resúmenes.
+     * Las filas del mes y psicólogo se bloquean para no perder encuestas guardadas al mismo tiempo.
+     * Si aún no existen se crean antes, en su propia transacción, para que haya algo que bloquear.
+     *
+     * @param encuesta la encuesta guardada.
+     */
+    @Transactional
+    public void acumularEncuesta(EncuestaSatisfaccion encuesta) {
+        int periodo = ResumenEncuesta.periodo(encuesta.getFechaHora());
+        int psicologoId = psicologoId(encuesta);
+
+        List<ResumenEncuesta> existentes = resumenEncuestaRepository.findByPeriodoAndPsicologoId(periodo, psicologoId);
+        if (existentes.isEmpty()) {
+            try {
+                creadorResumenEncuesta.crearFilas(periodo, psicologoId);
+            } catch (DataIntegrityViolationException e) {
+                // Otra encuesta del mismo mes y psicólogo las creó al mismo tiempo
+                log.debug("Resumen " + periodo + "/" + psicologoId + " creado por otra transacción");
+            }
+            existentes = resumenEncuestaRepository.findByPeriodoAndPsicologoId(periodo, psicologoId);
+        }
+
+        ResumenEncuesta[] resumenes = new ResumenEncuesta[ReporteCalificaciones.PREGUNTAS];
+        for (ResumenEncuesta resumen : existentes) {
+            resumenes[resumen.getPregunta() - 1] = resumen;
+        }
+
+        int[] valores = {
+            encuesta.getQ1Empatia(), encuesta.getQ2Confianza(), encuesta.getQ3Respeto(),
+            encuesta.getQ4Confidencialidad(), encuesta.getQ5Herramientas(),
+            encuesta.getQ6Satisfaccion(), encuesta.getQ7Recomendacion()
+        };
+        for (int i = 0; i < resumenes.length; i++) {
+            if (resumenes[i] == null) {
+                resumenes[i] = new ResumenEncuesta(periodo, psicologoId, i + 1);
+            }
+            resumenes[i].agregar(valores[i]);
+        }
+        resumenEncuestaRepository.saveAll(List.of(resumenes));
+    }
+
+    /**
+     * Recalcula la tabla de resúmenes a partir de las encuestas guardadas.
+     * Sirve para comprobar que los acumulados no se han desviado de los datos reales.
+     *
+     * @return el número de filas del resumen que no coincidían y se corrigieron.
+     */
+    @Transactional
+    public int reconstruirResumen() {
+        Map<Clave, ResumenEncuesta> recalculados = new HashMap<>();
+        try (Stream<CalificacionesEncuesta> calificaciones = encuestaSatisfaccionRepository.streamCalificaciones()) {
+            calificaciones.forEach(c -> {
+                int periodo = ResumenEncuesta.periodo(c.fechaHora());
+                int psicologoId = c.psicologoId() != null ? c.psicologoId() : ResumenEncuesta.SIN_PSICOLOGO;
+                for (int pregunta = 1; pregunta <= ReporteCalificaciones.PREGUNTAS; pregunta++) {
+                    recalculados.computeIfAbsent(new Clave(periodo, psicologoId, pregunta),
+                            k -> new ResumenEncuesta(k.periodo(), k.psicologoId(), k.pregunta()))
+                            .agregar(c.valor(pregunta));
+                }
+            });
+        }
+
+        int diferencias = 0;
+        List<ResumenEncuesta> sobrantes = new ArrayList<>();
+        List<ResumenEncuesta> porGuardar = new ArrayList<>();
+        for (ResumenEncuesta actual : resumenEncuestaRepository.findAll()) {
+            ResumenEncuesta correcto = recalculados.remove(
+                    new Clave(actual.getPeriodo(), actual.getPsicologoId(), actual.getPregunta()));
+            if (correcto == null) {
+                sobrantes.add(actual);
+                diferencias++;
+            } else if (!actual.mismosAcumulados(correcto)) {
+                actual.copiarAcumulados(correcto);
+                porGuardar.add(actual);
+                diferencias++;
+            }
+        }
+        // Lo que queda no existía en la tabla
+        diferencias += recalculados.size();
+        porGuardar.addAll(recalculados.values());
+
+        resumenEncuestaRepository.deleteAll(sobrantes);
+        resumenEncuestaRepository.saveAll(porGuardar);
+
+        if (diferencias > 0) {
+            log.warn("Resumen de encuestas reconstruido: se corrigieron " + diferencias + " filas");
+        }
+        return diferencias;
     }
 
     /**
      * Calcula el conteo de respuestas para una pregunta específica,
      * devolviendo el resultado mapeado a etiquetas textuales.
+     * Para mostrar varias preguntas conviene usar {@link #generarReporte()} una sola vez.
      * @param preguntaId El identificador de la pregunta (e.g., "Pregunta 3").
      * @return Un mapa donde la clave es la etiqueta (String: Malo, Regular, etc.) y el valor es la frecuencia (Long).
      */
-    public Map<String, Long> obtenerConteoRespuestas(String preguntaId) { // CAMBIAMOS Map<Integer, Long> a Map<String, Long>
-        
-        List<EncuestaSatisfaccion> encuestas = obtenerTodasLasEncuestas();
-        ToIntFunction<EncuestaSatisfaccion> getter = GETTER_MAP.get(preguntaId);
-        
-        if (getter == null) {
+    public Map<String, Long> obtenerConteoRespuestas(String preguntaId) {
+        if (!ReporteCalificaciones.esPreguntaCerrada(preguntaId)) {
             return Map.of();
         }
+        return obtenerConteoRespuestas(generarReporte(), preguntaId);
+    }
 
-        // Paso 1: Agrupamos y contamos por el número (1, 2, 3, 4)
-        Map<Integer, Long> conteoNumerico = encuestas.stream()
-            .filter(e -> getter.applyAsInt(e) > 0) 
-            .collect(Collectors.groupingBy(
-                getter::applyAsInt, 
-                Collectors.counting()
-            ));
-
-        // Paso 2: Transformamos las claves numéricas a etiquetas textuales (String)
-        return conteoNumerico.entrySet().stream()
-            .collect(Collectors.toMap(
-                entry -> ETIQUETA_MAP.getOrDefault(entry.getKey(), "Desconocido"), // Transforma 1 -> Malo, 4 -> Excelente
-                Map.Entry::getValue // Mantiene el conteo
-            ));
+    /**
+     * Obtiene el conteo de una pregunta a partir de un reporte ya calculado, sin consultar la base de datos.
+     * @param reporte El reporte generado con {@link #generarReporte()}.
+     * @param preguntaId El identificador de la pregunta (e.g., "Pregunta 3").
+     * @return El conteo por etiqueta, o un mapa vacío si la pregunta no es de opción múltiple.
+     */
+    public Map<String, Long> obtenerConteoRespuestas(ReporteCalificaciones reporte, String preguntaId) {
+        if (!ReporteCalificaciones.esPreguntaCerrada(preguntaId)) {
+            return Map.of();
+        }
+        return reporte.conteo(ReporteCalificaciones.numeroPregunta(preguntaId));
     }
-    
+
     /**
-     * Obtiene una lista de los textos de sugerencias (Q8) o comentarios (Q9).
+     * Obtiene la primera página de sugerencias (Q8) o comentarios (Q9).
      * @param preguntaId El identificador de la pregunta ("Pregunta 8" o "Pregunta 9").
      * @return Una lista de Strings con el contenido de las respuestas abiertas.
      */
     public List<String> obtenerRespuestasAbiertas(String preguntaId) {
-        
-        List<EncuestaSatisfaccion> encuestas = obtenerTodasLasEncuestas();
-        
+        return obtenerRespuestasAbiertas(preguntaId, 0).getContent();
+    }
+
+    /**
+     * Obtiene una página de sugerencias (Q8) o comentarios (Q9), de la más reciente a la más antigua.
+     * Las respuestas vacías o con sólo espacios se omiten.
+     * @param preguntaId El identificador de la pregunta ("Pregunta 8" o "Pregunta 9").
+     * @param pagina El número de página, empezando en 0.
+     * @return La página de respuestas; {@link Slice#hasNext()} indica si hay más.
+     */
+    public Slice<String> obtenerRespuestasAbiertas(String preguntaId, int pagina) {
+        PageRequest peticion = PageRequest.of(pagina, TAMANO_PAGINA_COMENTARIOS);
+
         if ("Pregunta 8".equals(preguntaId)) {
-            return encuestas.stream()
-                    .map(EncuestaSatisfaccion::getQ8Mejora)
-                    .filter(s -> s != null && !s.trim().isEmpty())
-                    .collect(Collectors.toList());
+            return encuestaSatisfaccionRepository.findSugerenciasMejora(peticion);
         } else if ("Pregunta 9".equals(preguntaId)) {
-            return encuestas.stream()
-                    .map(EncuestaSatisfaccion::getQ9Comentarios)
-                    .filter(s -> s != null && !s.trim().isEmpty())
-                    .collect(Collectors.toList());
+            return encuestaSatisfaccionRepository.findComentarios(peticion);
+        }
+        return new SliceImpl<>(List.of(), peticion, false);
+    }
+
+    private static ReporteCalificaciones sumarTotales(List<TotalesPregunta> totales) {
+        ReporteCalificaciones reporte = new ReporteCalificaciones();
+        for (TotalesPregunta totalesPregunta : totales) {
+            reporte.agregar(totalesPregunta);
+        }
+        return reporte;
+    }
+
+    private static int psicologoId(EncuestaSatisfaccion encuesta) {
+        if (encuesta.getPaciente() == null || encuesta.getPaciente().getPsicologo() == null) {
+            return ResumenEncuesta.SIN_PSICOLOGO;
         }
-        return List.of(); 
+        return encuesta.getPaciente().getPsicologo().getId();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,204 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.SaldoPacienteRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaPorPagar;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.SaldoPaciente;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TotalesPago;
+
+/**
+ * Servicio que mantiene el {@link SaldoPaciente} de cada paciente: lo pagado, lo
+ * pendiente y lo vencido (HU-16).
+ *
+ * <p>El saldo se ajusta en la misma transacción en que se agenda, se cancela o se
+ * paga una cita, así que consultarlo es leer una fila. Las filas de los pacientes
+ * se bloquean para no perder cambios hechos al mismo tiempo.</p>
+ *
+ * <p>Si el saldo no existe o se calculó otro día, en lugar de ajustarlo se
+ * recalcula con una consulta agregada sobre las citas del paciente; el cálculo ya
+ * incluye el cambio de la transacción en curso. Los saldos que no existen los crea
+ * antes {@link CreadorSaldoPaciente}, para que también se puedan bloquear.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Service
+public class ServicioSaldoPaciente {
+
+    @Autowired
+    private SaldoPacienteRepository saldoPacienteRepository;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private CreadorSaldoPaciente creadorSaldoPaciente;
+
+    /**
+     * Obtiene el saldo del paciente. Si está al día cuesta una consulta por llave
+     * primaria; si no, se recalcula y se guarda. La primera vez también se crea,
+     * en su propia transacción, y se vuelve a leer bloqueado.
+     *
+     * @param paciente el paciente.
+     * @return el saldo, en ceros si el paciente no tiene citas.
+     * @throws IllegalArgumentException si el paciente es nulo o no está guardado.
+     */
+    @Transactional
+    @PresupuestoSentencias(6)
+    public SaldoPaciente obtenerSaldo(Paciente paciente) {
+        if (paciente == null || paciente.getId() == null) {
+            throw new IllegalArgumentException("El paciente no puede ser nulo");
+        }
+        LocalDate hoy = LocalDate.now();
+        SaldoPaciente saldo = saldoPacienteRepository.findById(paciente.getId()).orElse(null);
+        if (saldo != null && saldo.vigente(hoy)) {
+            return saldo;
+        }
+        bloquearVigentes(Set.of(paciente.getId()), hoy);
+        return saldoPacienteRepository.findById(paciente.getId()).orElseThrow();
+    }
+
+    /**
+     * Suma al saldo del paciente una cita recién agendada.
+     *
+     * @param cita la cita, ya guardada.
+     */
+    @Transactional
+    public void registrarCargo(Cita cita) {
+        Long pacienteId = pacienteId(cita);
+        if (pacienteId == null) {
+            return;
+        }
+        SaldoPaciente saldo = bloquearVigentes(Set.of(pacienteId), LocalDate.now()).get(pacienteId);
+        if (saldo != null) {
+            saldo.agregarCargo(cita.getFechaVencimiento(), cita.getMonto());
+        }
+    }
+
+    /**
+     * Quita del saldo del paciente una cita que se canceló sin haberse pagado.
+     *
+     * @param cita la cita, ya cancelada.
+     */
+    @Transactional
+    public void registrarCancelacion(Cita cita) {
+        Long pacienteId = pacienteId(cita);
+        if (pacienteId == null) {
+            return;
+        }
+        SaldoPaciente saldo = bloquearVigentes(Set.of(pacienteId), LocalDate.now()).get(pacienteId);
+        if (saldo != null) {
+            saldo.quitarCargo(cita.getFechaVencimiento(), cita.getMonto());
+        }
+    }
+
+    /**
+     * Pasa a pagadas, en los saldos de sus pacientes, las citas que se acaban de
+     * marcar como pagadas. Cuesta una consulta para todo el lote, más el
+     * recálculo de los saldos que no estén al día.
+     *
+     * @param citas las citas pagadas, como estaban antes del pago.
+     */
+    @Transactional
+    public void registrarPagos(List<CitaPorPagar> citas) {
+        Set<Long> pacienteIds = new HashSet<>();
+        for (CitaPorPagar cita : citas) {
+            if (cita.pacienteId() != null) {
+                pacienteIds.add(cita.pacienteId());
+            }
+        }
+        if (pacienteIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, SaldoPaciente> saldos = bloquearVigentes(pacienteIds, LocalDate.now());
+        for (CitaPorPagar cita : citas) {
+            SaldoPaciente saldo = saldos.get(cita.pacienteId());
+            if (saldo != null) {
+                saldo.registrarPago(cita.fechaVencimiento(), cita.monto(),
+                        cita.estadoCita() != TipoConfirmacionCita.CANCELADA);
+            }
+        }
+    }
+
+    /**
+     * Bloquea los saldos de los pacientes y recalcula los que no están al día.
+     * Los que no existen se crean vacíos antes de bloquearlos.
+     *
+     * @return los saldos que ya estaban al día y se deben ajustar; los
+     *         recalculados no se incluyen porque ya reflejan la transacción en curso.
+     */
+    private Map<Long, SaldoPaciente> bloquearVigentes(Collection<Long> pacienteIds, LocalDate hoy) {
+        List<SaldoPaciente> saldos = saldoPacienteRepository.findByPacienteIdInOrderByPacienteId(pacienteIds);
+        if (saldos.size() < pacienteIds.size()) {
+            Set<Long> sinSaldo = new HashSet<>(pacienteIds);
+            for (SaldoPaciente saldo : saldos) {
+                sinSaldo.remove(saldo.getPacienteId());
+            }
+            crearSaldos(sinSaldo);
+            // Ya existen todos, así que ahora sí quedan bloqueados
+            saldos = saldoPacienteRepository.findByPacienteIdInOrderByPacienteId(pacienteIds);
+        }
+
+        Map<Long, SaldoPaciente> vigentes = new HashMap<>();
+        Map<Long, SaldoPaciente> porRecalcular = new HashMap<>();
+        for (SaldoPaciente saldo : saldos) {
+            (saldo.vigente(hoy) ? vigentes : porRecalcular).put(saldo.getPacienteId(), saldo);
+        }
+
+        Set<Long> faltantes = new HashSet<>(pacienteIds);
+        faltantes.removeAll(vigentes.keySet());
+        if (faltantes.isEmpty()) {
+            return vigentes;
+        }
+
+        Map<Long, TotalesPago> totales = new HashMap<>();
+        for (TotalesPago total : citaRepository.calcularTotalesPago(faltantes, hoy, TipoConfirmacionCita.CANCELADA)) {
+            totales.put(total.pacienteId(), total);
+        }
+        for (Long pacienteId : faltantes) {
+            TotalesPago total = totales.getOrDefault(pacienteId, new TotalesPago(pacienteId, 0, 0, 0, 0, 0, 0));
+            SaldoPaciente saldo = porRecalcular.get(pacienteId);
+            if (saldo != null) {
+                saldo.fijar(total, hoy);
+            }
+        }
+        return vigentes;
+    }
+
+    private void crearSaldos(Set<Long> pacienteIds) {
+        try {
+            creadorSaldoPaciente.crear(pacienteIds);
+        } catch (DataIntegrityViolationException e) {
+            if (pacienteIds.size() == 1) {
+                // Otra transacción lo creó al mismo tiempo
+                return;
+            }
+            // Otra transacción creó alguno y se revirtieron todos; se crean uno por uno
+            for (Long pacienteId : pacienteIds) {
+                crearSaldos(Set.of(pacienteId));
+            }
+        }
+    }
+
+    private static Long pacienteId(Cita cita) {
+        return cita.getPaciente() != null ? cita.getPaciente().getId() : null;
+    }
+}
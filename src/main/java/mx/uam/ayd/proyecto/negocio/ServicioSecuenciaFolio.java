@@ -0,0 +1,62 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import mx.uam.ayd.proyecto.datos.SecuenciaFolioRepository;
+import mx.uam.ayd.proyecto.instrumentacion.PresupuestoSentencias;
+import mx.uam.ayd.proyecto.negocio.modelo.SecuenciaFolio;
+
+/**
+ * Servicio que aparta bloques de folios de una secuencia guardada en la base de datos.
+ *
+ * <p>Cada bloque se aparta en su propia transacción, que sólo dura lo que tarda
+ * en avanzar la secuencia. Así la fila se libera de inmediato y el bloque queda
+ * apartado aunque se revierta la operación que lo pidió. Lo usa
+ * {@link GeneradorLineaCaptura}.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Service
+public class ServicioSecuenciaFolio {
+
+    @Autowired
+    private SecuenciaFolioRepository secuenciaFolioRepository;
+
+    /**
+     * Aparta los siguientes folios de una secuencia; si no existe se crea.
+     *
+     * <p>Si dos instancias crean la misma secuencia al mismo tiempo, una de ellas
+     * recibe una {@link org.springframework.dao.DataIntegrityViolationException}
+     * y puede volver a intentarlo.</p>
+     *
+     * @param nombre el nombre de la secuencia.
+     * @param cantidad cuántos folios se apartan.
+     * @param primero el primer folio si la secuencia aún no existe.
+     * @return el primer folio del bloque; el bloque llega hasta {@code primero + cantidad - 1}.
+     * @throws IllegalArgumentException si la cantidad no es positiva.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @PresupuestoSentencias(3)
+    public long apartarBloque(String nombre, long cantidad, long primero) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad de folios debe ser positiva");
+        }
+
+        // La actualización bloquea la fila, así que ninguna otra instancia lee el mismo valor
+        if (secuenciaFolioRepository.avanzar(nombre, cantidad) == 0) {
+            SecuenciaFolio secuencia = new SecuenciaFolio();
+            secuencia.setNombre(nombre);
+            secuencia.setSiguiente(primero + cantidad);
+            secuenciaFolioRepository.save(secuencia);
+            return primero;
+        }
+
+        SecuenciaFolio secuencia = secuenciaFolioRepository.findById(nombre)
+                .orElseThrow(() -> new IllegalStateException("No existe la secuencia " + nombre));
+        return secuencia.getSiguiente() - cantidad;
+    }
+}
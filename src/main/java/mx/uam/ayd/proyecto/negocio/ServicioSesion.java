@@ -1,25 +1,264 @@
 package mx.uam.ayd.proyecto.negocio;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import mx.uam.ayd.proyecto.negocio.modelo.RolSesion;
+import mx.uam.ayd.proyecto.negocio.modelo.Sesion;
+
 /**
- * Servicio para gestionar la sesión del usuario.
- * Permite almacenar y recuperar el usuario actualmente activo.
- * 
+ * Registro de las sesiones abiertas en esta instancia de la aplicación.
+ *
+ * <p>Cada cliente (la ventana de escritorio o un cliente del servidor web
+ * embebido) abre su propia {@link Sesion} y guarda su id, así que una sola
+ * instancia atiende a varios usuarios a la vez.</p>
+ *
+ * <p>Las sesiones que no se usan durante {@code sesion.inactividad} (30 minutos
+ * por omisión) se cierran solas. Para no recorrer todas las sesiones en cada
+ * revisión se usa una rueda de tiempo de {@link #RANURAS} ranuras: cada sesión
+ * está en la ranura de su vencimiento y en cada paso del temporizador sólo se
+ * revisa una ranura. Usar una sesión sólo actualiza su último acceso; si al
+ * revisar su ranura aún no vence, se mueve a la de su nuevo vencimiento.</p>
+ *
+ * <p>Los {@link OyenteSesion} registrados reciben cada apertura y cierre; un
+ * oyente que falla no impide avisar a los demás.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
  */
-
 @Component
 public class ServicioSesion {
-    private String usuarioActual;
 
-    public void setUsuarioActual(String usuario) {
-        this.usuarioActual = usuario;
+    private static final Logger log = LoggerFactory.getLogger(ServicioSesion.class);
+
+    /**
+     * Número de ranuras de la rueda de tiempo.
+     */
+    static final int RANURAS = 64;
+
+    private final Duration inactividad;
+    private final long pasoMs;
+    private final Clock reloj;
+
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final List<Set<String>> rueda = new ArrayList<>(RANURAS);
+    private final List<OyenteSesion> oyentes = new CopyOnWriteArrayList<>();
+
+    // Último paso revisado; sólo lo avanza el temporizador
+    private long pasoRevisado;
+
+    private ScheduledExecutorService temporizador;
+
+    @Autowired
+    public ServicioSesion(@Value("${sesion.inactividad:30m}") Duration inactividad) {
+        this(inactividad, Clock.systemUTC());
+    }
+
+    ServicioSesion(Duration inactividad, Clock reloj) {
+        this.inactividad = inactividad;
+        // Una vuelta de la rueda cubre el tiempo de inactividad
+        this.pasoMs = Math.max(1000, inactividad.toMillis() / RANURAS);
+        this.reloj = reloj;
+        for (int i = 0; i < RANURAS; i++) {
+            rueda.add(ConcurrentHashMap.newKeySet());
+        }
+        this.pasoRevisado = paso(reloj.instant());
+    }
+
+    @PostConstruct
+    public void inicia() {
+        temporizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "sesiones-inactividad");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        temporizador.scheduleAtFixedRate(this::revisarVencidas, pasoMs, pasoMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detiene() {
+        if (temporizador != null) {
+            temporizador.shutdownNow();
+        }
+    }
+
+    /**
+     * Abre una sesión que vence tras el tiempo de inactividad configurado.
+     *
+     * @param usuario el nombre de usuario ya autenticado.
+     * @param rol el rol con el que entró.
+     * @return la sesión nueva.
+     */
+    public Sesion abrir(String usuario, RolSesion rol) {
+        return abrir(usuario, rol, inactividad);
+    }
+
+    /**
+     * Abre una sesión.
+     *
+     * @param usuario el nombre de usuario ya autenticado.
+     * @param rol el rol con el que entró.
+     * @param inactividad cuánto puede pasar sin usarse antes de cerrarse; null para
+     *        que dure hasta que se cierre, como la de la ventana de escritorio.
+     * @return la sesión nueva.
+     * @throws IllegalArgumentException si falta el usuario o el rol.
+     */
+    public Sesion abrir(String usuario, RolSesion rol, Duration inactividad) {
+        if (usuario == null || usuario.trim().isEmpty() || rol == null) {
+            throw new IllegalArgumentException("La sesión requiere usuario y rol");
+        }
+        Sesion sesion = new Sesion(UUID.randomUUID().toString(), usuario, rol, reloj.instant(), inactividad);
+        sesiones.put(sesion.getId(), sesion);
+        programar(sesion);
+        log.info("Sesión abierta para " + usuario + " (" + rol + "); sesiones abiertas: " + sesiones.size());
+
+        for (OyenteSesion oyente : oyentes) {
+            try {
+                oyente.sesionAbierta(sesion);
+            } catch (RuntimeException e) {
+                log.warn("Falló un oyente al abrir la sesión de " + usuario, e);
+            }
+        }
+        return sesion;
+    }
+
+    /**
+     * Obtiene una sesión abierta y registra que se acaba de usar.
+     *
+     * @param id el id de la sesión.
+     * @return la sesión, o vacío si no existe, ya se cerró o venció.
+     */
+    public Optional<Sesion> obtener(String id) {
+        Sesion sesion = id != null ? sesiones.get(id) : null;
+        if (sesion == null) {
+            return Optional.empty();
+        }
+        Instant ahora = reloj.instant();
+        if (sesion.vencida(ahora)) {
+            // Venció pero el temporizador aún no llega a su ranura
+            cerrar(sesion, OyenteSesion.Motivo.INACTIVIDAD);
+            return Optional.empty();
+        }
+        sesion.registrarAcceso(ahora);
+        return Optional.of(sesion);
+    }
+
+    /**
+     * Cierra una sesión; no hace nada si ya estaba cerrada.
+     *
+     * @param id el id de la sesión.
+     */
+    public void cerrar(String id) {
+        Sesion sesion = id != null ? sesiones.get(id) : null;
+        if (sesion != null) {
+            cerrar(sesion, OyenteSesion.Motivo.CERRADA);
+        }
+    }
+
+    /**
+     * Obtiene las sesiones abiertas, en ningún orden en particular.
+     *
+     * @return una copia de las sesiones abiertas.
+     */
+    public List<Sesion> sesionesAbiertas() {
+        return List.copyOf(sesiones.values());
+    }
+
+    public void agregarOyente(OyenteSesion oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void quitarOyente(OyenteSesion oyente) {
+        oyentes.remove(oyente);
+    }
+
+    /**
+     * Revisa las ranuras de la rueda desde la última revisión hasta ahora y
+     * cierra las sesiones vencidas. La invoca el temporizador.
+     */
+    void revisarVencidas() {
+        try {
+            Instant ahora = reloj.instant();
+            long pasoActual = paso(ahora);
+            // Tras una pausa larga basta con una vuelta completa
+            long desde = Math.max(pasoRevisado + 1, pasoActual - RANURAS + 1);
+            for (long paso = desde; paso <= pasoActual; paso++) {
+                revisarRanura((int) (paso % RANURAS), ahora);
+            }
+            pasoRevisado = pasoActual;
+        } catch (RuntimeException e) {
+            // Si la excepción sale, el temporizador deja de ejecutarse
+            log.error("Falló la revisión de sesiones vencidas", e);
+        }
+    }
+
+    private void revisarRanura(int ranura, Instant ahora) {
+        Set<String> ids = rueda.get(ranura);
+        for (String id : ids) {
+            Sesion sesion = sesiones.get(id);
+            if (sesion == null) {
+                ids.remove(id);
+            } else if (sesion.vencida(ahora)) {
+                cerrar(sesion, OyenteSesion.Motivo.INACTIVIDAD);
+            } else if (ranura(sesion) != ranura) {
+                // Se usó desde que se programó: va a la ranura de su nuevo vencimiento
+                ids.remove(id);
+                programar(sesion);
+            }
+            // Si vence en esta ranura pero en otra vuelta, se queda
+        }
+    }
+
+    private void programar(Sesion sesion) {
+        if (sesion.getVencimiento() != null) {
+            rueda.get(ranura(sesion)).add(sesion.getId());
+        }
+    }
+
+    private void cerrar(Sesion sesion, OyenteSesion.Motivo motivo) {
+        if (!sesiones.remove(sesion.getId(), sesion)) {
+            return;
+        }
+        if (sesion.getVencimiento() != null) {
+            rueda.get(ranura(sesion)).remove(sesion.getId());
+        }
+        log.info("Sesión de " + sesion.getUsuario() + " cerrada (" + motivo + "); sesiones abiertas: " + sesiones.size());
+
+        for (OyenteSesion oyente : oyentes) {
+            try {
+                oyente.sesionCerrada(sesion, motivo);
+            } catch (RuntimeException e) {
+                log.warn("Falló un oyente al cerrar la sesión de " + sesion.getUsuario(), e);
+            }
+        }
     }
 
-    public String getUsuarioActual() {
-        return usuarioActual;
+    private int ranura(Sesion sesion) {
+        // El paso siguiente al del vencimiento, para que al revisarla ya haya vencido
+        return (int) ((paso(sesion.getVencimiento()) + 1) % RANURAS);
     }
 
-    public void limpiarSesion() {
-        usuarioActual = null;
+    private long paso(Instant instante) {
+        return instante.toEpochMilli() / pasoMs;
     }
 }
@@ -0,0 +1,14 @@
+package mx.uam.ayd.proyecto.negocio.eventos;
+
+import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
+
+/**
+ * Se publica cuando el administrador publica un aviso nuevo.
+ *
+ * @param aviso el aviso guardado, con su id y fecha.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public record AvisoPublicado(Aviso aviso) {
+}
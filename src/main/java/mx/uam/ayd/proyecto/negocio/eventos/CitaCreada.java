@@ -0,0 +1,19 @@
+package mx.uam.ayd.proyecto.negocio.eventos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Se publica cuando un paciente agenda una cita nueva.
+ *
+ * @param citaId el id de la cita.
+ * @param pacienteId el id del paciente.
+ * @param usuarioPaciente el nombre de usuario del paciente.
+ * @param psicologoId el id del psicólogo que atenderá la cita.
+ * @param fechaCita la fecha y hora de la cita.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public record CitaCreada(int citaId, Long pacienteId, String usuarioPaciente, int psicologoId,
+        LocalDateTime fechaCita) {
+}
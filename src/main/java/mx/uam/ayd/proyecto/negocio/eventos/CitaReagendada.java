@@ -0,0 +1,21 @@
+package mx.uam.ayd.proyecto.negocio.eventos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Se publica cuando una cita cambia de fecha, de hora o de psicólogo.
+ *
+ * @param citaId el id de la cita.
+ * @param pacienteId el id del paciente, o null si la cita no tiene.
+ * @param usuarioPaciente el nombre de usuario del paciente, o null si la cita no tiene.
+ * @param psicologoAnteriorId el id del psicólogo que tenía la cita, o null si no tenía.
+ * @param fechaAnterior la fecha y hora que tenía la cita.
+ * @param psicologoId el id del psicólogo que la atenderá ahora.
+ * @param fechaCita la nueva fecha y hora.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public record CitaReagendada(int citaId, Long pacienteId, String usuarioPaciente, Integer psicologoAnteriorId,
+        LocalDateTime fechaAnterior, int psicologoId, LocalDateTime fechaCita) {
+}
@@ -0,0 +1,10 @@
+package mx.uam.ayd.proyecto.negocio.eventos;
+
+/**
+ * Se publica cuando el administrador habilita la encuesta de satisfacción.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public record EncuestaHabilitada() {
+}
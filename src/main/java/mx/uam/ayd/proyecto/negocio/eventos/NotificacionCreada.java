@@ -0,0 +1,15 @@
+package mx.uam.ayd.proyecto.negocio.eventos;
+
+/**
+ * Se publica cuando se crea una notificación para un psicólogo o un paciente.
+ *
+ * @param notificacionId el id de la notificación.
+ * @param psicologoId el id del psicólogo destinatario, o null si es para un paciente.
+ * @param pacienteId el id del paciente destinatario, o null si es para un psicólogo.
+ * @param mensaje el texto de la notificación.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public record NotificacionCreada(Long notificacionId, Integer psicologoId, Long pacienteId, String mensaje) {
+}
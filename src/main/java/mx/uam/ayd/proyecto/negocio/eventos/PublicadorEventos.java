@@ -0,0 +1,106 @@
+package mx.uam.ayd.proyecto.negocio.eventos;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Publica los eventos de negocio ({@link CitaCreada}, {@link AvisoPublicado},
+ * etc.) para que las pantallas se actualicen sin que los servicios dependan de
+ * los controladores.
+ *
+ * <p>Los eventos se entregan como eventos de Spring: quien quiera recibirlos
+ * declara un método con {@code @EventListener} y el tipo del evento. La entrega
+ * ocurre en un único hilo, {@code eventos-negocio}, así que el servicio que
+ * publica no espera a los oyentes y los eventos llegan en el orden en que se
+ * publicaron. Si se publica dentro de una transacción, el evento se entrega
+ * hasta que se confirma y se descarta si se revierte.</p>
+ *
+ * <p>Los oyentes deben ser breves: los de la interfaz sólo revisan si el evento
+ * les interesa y pasan el trabajo a JavaFX con {@code Platform.runLater}. Si un
+ * oyente lanza una excepción, Spring no entrega ese evento a los oyentes que
+ * faltaban; el error se registra y los siguientes eventos se entregan normalmente.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class PublicadorEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(PublicadorEventos.class);
+
+    private final ApplicationEventPublisher publicador;
+
+    private ExecutorService ejecutor;
+
+    @Autowired
+    public PublicadorEventos(ApplicationEventPublisher publicador) {
+        this.publicador = publicador;
+    }
+
+    @PostConstruct
+    public void inicia() {
+        ejecutor = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "eventos-negocio");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    public void detiene() {
+        if (ejecutor != null) {
+            ejecutor.shutdown();
+        }
+    }
+
+    /**
+     * Publica un evento al confirmarse la transacción actual, o de inmediato si no hay una.
+     *
+     * @param evento el evento a publicar.
+     * @throws IllegalArgumentException si el evento es nulo.
+     */
+    public void publicar(Object evento) {
+        if (evento == null) {
+            throw new IllegalArgumentException("El evento no puede ser nulo");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    encolar(evento);
+                }
+            });
+        } else {
+            encolar(evento);
+        }
+    }
+
+    private void encolar(Object evento) {
+        try {
+            ejecutor.execute(() -> entregar(evento));
+        } catch (RejectedExecutionException e) {
+            // La aplicación se está cerrando
+            log.warn("Se descartó el evento " + evento + " porque la aplicación se está cerrando");
+        }
+    }
+
+    private void entregar(Object evento) {
+        try {
+            publicador.publishEvent(evento);
+        } catch (RuntimeException e) {
+            log.error("Falló un oyente del evento " + evento, e);
+        }
+    }
+}
@@ -18,6 +18,10 @@ import java.util.Date;
  * @version 1.0
  */
 @Entity
+@Table(indexes = {
+        // Filtro de pacientes con cuestionarios y última batería de cada tipo
+        @Index(name = "idx_bateria_paciente_tipo", columnList = "paciente_id, tipoDeBateria")
+})
 @Data
 public class BateriaClinica {
 
@@ -0,0 +1,33 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de las respuestas de opción múltiple (Q1–Q7) de una {@link EncuestaSatisfaccion},
+ * sin las respuestas abiertas de 500 caracteres.
+ *
+ * @param fechaHora cuándo se respondió la encuesta.
+ * @param psicologoId el psicólogo del paciente, o null si no tiene asignado.
+ */
+public record CalificacionesEncuesta(LocalDateTime fechaHora, Integer psicologoId,
+        int q1, int q2, int q3, int q4, int q5, int q6, int q7) {
+
+    /**
+     * Devuelve la calificación de la pregunta indicada.
+     *
+     * @param pregunta el número de pregunta, de 1 a 7.
+     * @return la calificación registrada (0 si no se respondió).
+     */
+    public int valor(int pregunta) {
+        return switch (pregunta) {
+            case 1 -> q1;
+            case 2 -> q2;
+            case 3 -> q3;
+            case 4 -> q4;
+            case 5 -> q5;
+            case 6 -> q6;
+            case 7 -> q7;
+            default -> throw new IllegalArgumentException("Pregunta fuera de rango: " + pregunta);
+        };
+    }
+}
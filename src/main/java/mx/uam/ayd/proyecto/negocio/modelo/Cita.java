@@ -2,14 +2,42 @@ package mx.uam.ayd.proyecto.negocio.modelo;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
+@Table(indexes = {
+        // Búsqueda de horarios ocupados por psicólogo (ver IndiceAgendaCitas)
+        @Index(name = "idx_cita_psicologo_fecha_estado", columnList = "psicologo_id, fechaCita, estadoCita"),
+        // Conciliación de pagos (ver ServicioPago)
+        @Index(name = "idx_cita_linea_captura", columnList = "lineaCaptura"),
+        // Historial de pagos del paciente (ver PagoHistorial)
+        @Index(name = "idx_cita_paciente_fecha", columnList = "paciente_id, fechaCita")
+})
+// El historial clínico del paciente es el lado inverso de un uno a uno y no
+// puede quedar como proxy: si no se une aquí, Hibernate lo busca en otra consulta
+@NamedEntityGraph(name = Cita.GRAFO_COMPLETA, attributeNodes = {
+        @NamedAttributeNode(value = "paciente", subgraph = "paciente"),
+        @NamedAttributeNode("psicologo")
+}, subgraphs = @NamedSubgraph(name = "paciente", attributeNodes = @NamedAttributeNode("historialClinico")))
+@NamedEntityGraph(name = Cita.GRAFO_CON_PSICOLOGO, attributeNodes = {
+        @NamedAttributeNode("psicologo")
+})
+@NamedEntityGraph(name = Cita.GRAFO_CON_PACIENTE, attributeNodes = {
+        @NamedAttributeNode(value = "paciente", subgraph = "paciente")
+}, subgraphs = @NamedSubgraph(name = "paciente", attributeNodes = @NamedAttributeNode("historialClinico")))
 @Data
 public class Cita {
 
+    // Paciente y psicólogo, para generar el PDF o la línea de captura
+    public static final String GRAFO_COMPLETA = "Cita.completa";
+    // Listado de citas del paciente, que muestra el nombre del psicólogo
+    public static final String GRAFO_CON_PSICOLOGO = "Cita.conPsicologo";
+    // Agenda del psicólogo, que muestra el nombre del paciente
+    public static final String GRAFO_CON_PACIENTE = "Cita.conPaciente";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
@@ -33,16 +61,20 @@ public class Cita {
 
     private String lineaCaptura;
     private LocalDate fechaVencimiento;
+    // Día en que se recibió el pago; null mientras no se pague (ver ServicioPago)
+    private LocalDate fechaPago;
 
 
     // Relación con Paciente
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "paciente_id")
+    @EqualsAndHashCode.Exclude
     private Paciente paciente;
 
     // Relación con Psicologo
-    @ManyToOne(fetch = FetchType.EAGER) // Se mantiene EAGER por compatibilidad
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "psicologo_id")
+    @EqualsAndHashCode.Exclude
     private Psicologo psicologo;
 
     @Override
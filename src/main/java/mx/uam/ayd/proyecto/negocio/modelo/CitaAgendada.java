@@ -0,0 +1,14 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección ligera de una {@link Cita} activa: sólo lo necesario para ubicarla
+ * en la agenda de su psicólogo, sin cargar al paciente ni al psicólogo.
+ *
+ * @param citaId el id de la cita.
+ * @param psicologoId el id del psicólogo que la atiende.
+ * @param fechaCita la fecha y hora de inicio de la cita.
+ */
+public record CitaAgendada(int citaId, int psicologoId, LocalDateTime fechaCita) {
+}
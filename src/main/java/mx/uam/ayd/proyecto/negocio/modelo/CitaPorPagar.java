@@ -0,0 +1,19 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección ligera de una {@link Cita} para conciliar pagos: sólo su línea de
+ * captura, el monto que se debe, su vencimiento y si ya se pagó.
+ *
+ * @param citaId el id de la cita.
+ * @param pacienteId el id del paciente, para ajustar su saldo.
+ * @param lineaCaptura la línea de captura de la cita.
+ * @param monto el monto por pagar; puede ser null en citas antiguas.
+ * @param estadoCita el estado de la cita; una cancelada no cuenta como pendiente en el saldo.
+ * @param fechaVencimiento el último día para pagar.
+ * @param fechaPago el día en que se pagó, o null si aún no se paga.
+ */
+public record CitaPorPagar(int citaId, Long pacienteId, String lineaCaptura, Double monto,
+        TipoConfirmacionCita estadoCita, LocalDate fechaVencimiento, LocalDate fechaPago) {
+}
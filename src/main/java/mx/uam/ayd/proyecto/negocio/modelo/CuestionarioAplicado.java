@@ -0,0 +1,15 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.util.Date;
+
+/**
+ * Proyección ligera de una {@link BateriaClinica}: el tipo y la calificación
+ * más reciente, sin respuestas ni comentarios.
+ *
+ * @param pacienteId el id del paciente al que se aplicó.
+ * @param tipo el tipo de batería.
+ * @param calificacion la calificación obtenida.
+ * @param fechaAplicacion la fecha en que se aplicó; puede ser null en registros antiguos.
+ */
+public record CuestionarioAplicado(Long pacienteId, TipoBateria tipo, int calificacion, Date fechaAplicacion) {
+}
@@ -8,6 +8,8 @@ import jakarta.persistence.Column;
 import jakarta.persistence.ManyToOne; 
 import jakarta.persistence.JoinColumn; 
 import jakarta.persistence.FetchType; 
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
 
@@ -16,6 +18,7 @@ import java.time.LocalDateTime;
  * Esta clase es una Entidad JPA para la persistencia en la base de datos.
  */
 @Entity
+@Table(indexes = @Index(name = "idx_encuesta_paciente", columnList = "paciente_id"))
 public class EncuestaSatisfaccion {
 
     @Id
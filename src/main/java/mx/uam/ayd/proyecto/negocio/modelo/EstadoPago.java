@@ -0,0 +1,42 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Enumeración que representa la situación de pago de una cita.
+ *
+ * <ul>
+ *   <li>{@link #PAGADA} — Se recibió su pago.</li>
+ *   <li>{@link #PENDIENTE} — Aún no se paga y no ha vencido.</li>
+ *   <li>{@link #VENCIDA} — No se pagó antes de su fecha de vencimiento.</li>
+ *   <li>{@link #CANCELADA} — Se canceló sin pagarse; ya no se cobra.</li>
+ * </ul>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public enum EstadoPago {
+    PAGADA("Pagada"),
+    PENDIENTE("Pendiente"),
+    VENCIDA("Vencida"),
+    CANCELADA("Cancelada");
+
+    private final String descripcion;
+
+    /**
+     * Constructor de la enumeración.
+     *
+     * @param descripcion descripción legible del estado de pago.
+     */
+    EstadoPago(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Devuelve la descripción legible del estado de pago.
+     *
+     * @return una cadena con la descripción del estado.
+     */
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
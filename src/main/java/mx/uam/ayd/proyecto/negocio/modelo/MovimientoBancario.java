@@ -0,0 +1,14 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.time.LocalDate;
+
+/**
+ * Un renglón del archivo de liquidación del banco: un pago recibido.
+ *
+ * @param referencia la referencia única del movimiento en el banco.
+ * @param lineaCaptura la línea de captura con la que se pagó.
+ * @param importe el importe pagado.
+ * @param fechaPago el día en que se pagó.
+ */
+public record MovimientoBancario(String referencia, String lineaCaptura, double importe, LocalDate fechaPago) {
+}
@@ -0,0 +1,38 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Enumeración con los órdenes en que se puede mostrar el historial de pagos.
+ *
+ * <ul>
+ *   <li>{@link #RECIENTES} — De la cita más reciente a la más antigua.</li>
+ *   <li>{@link #ANTIGUAS} — De la cita más antigua a la más reciente.</li>
+ * </ul>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public enum OrdenHistorialPagos {
+    RECIENTES("Más recientes primero"),
+    ANTIGUAS("Más antiguas primero");
+
+    private final String descripcion;
+
+    /**
+     * Constructor de la enumeración.
+     *
+     * @param descripcion descripción legible del orden.
+     */
+    OrdenHistorialPagos(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Devuelve la descripción legible del orden.
+     *
+     * @return una cadena con la descripción del orden.
+     */
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
@@ -0,0 +1,38 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Enumeración que indica cómo llegó un pago al registro de pagos.
+ *
+ * <ul>
+ *   <li>{@link #MANUAL} — Lo capturó alguien del centro.</li>
+ *   <li>{@link #CONCILIACION} — Venía en un archivo de liquidación del banco.</li>
+ * </ul>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public enum OrigenPago {
+    MANUAL("Captura manual"),
+    CONCILIACION("Conciliación bancaria");
+
+    private final String descripcion;
+
+    /**
+     * Constructor de la enumeración.
+     *
+     * @param descripcion descripción legible del origen del pago.
+     */
+    OrigenPago(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Devuelve la descripción legible del origen del pago.
+     *
+     * @return una cadena con la descripción del origen.
+     */
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
@@ -2,14 +2,48 @@ package mx.uam.ayd.proyecto.negocio.modelo;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime; // Importante
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Entidad que representa a un paciente del centro.
+ *
+ * <p>Todas las relaciones son perezosas; cada caso de uso pide lo que necesita con uno de
+ * los planes de carga declarados abajo (ver {@code PacienteRepository}). Las relaciones se
+ * excluyen de equals, hashCode y toString para que comparar o imprimir un paciente fuera de
+ * una transacción no intente cargarlas.</p>
+ *
+ * <p>El historial clínico es el lado inverso de un uno a uno y Hibernate no puede dejarlo
+ * perezoso: si no viene en la consulta, lo busca con una consulta por paciente. Por eso
+ * todos los planes lo incluyen con un join.</p>
+ */
 @Entity
+@NamedEntityGraph(name = Paciente.GRAFO_SESION, attributeNodes = {
+        @NamedAttributeNode("psicologo"),
+        @NamedAttributeNode("historialClinico")
+})
+@NamedEntityGraph(name = Paciente.GRAFO_LISTA, attributeNodes = {
+        @NamedAttributeNode("psicologo"),
+        @NamedAttributeNode("historialClinico")
+})
+@NamedEntityGraph(name = Paciente.GRAFO_DETALLE, attributeNodes = {
+        @NamedAttributeNode("psicologo"),
+        @NamedAttributeNode("historialClinico"),
+        @NamedAttributeNode("bateriasClinicas")
+})
 @Data
 public class Paciente {
 
+    // Inicio de sesión y pantallas del paciente: sólo su psicólogo asignado
+    public static final String GRAFO_SESION = "Paciente.sesion";
+    // Listas de pacientes
+    public static final String GRAFO_LISTA = "Paciente.lista";
+    // Detalle del expediente: historial clínico y baterías
+    public static final String GRAFO_DETALLE = "Paciente.detalle";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -24,20 +58,30 @@ public class Paciente {
     // NUEVO CAMPO para la regla de negocio de 72 horas
     private LocalDateTime fechaUltimaActualizacion;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "psicologo_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Psicologo psicologo;
 
-    @OneToOne(mappedBy = "paciente", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToOne(mappedBy = "paciente", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private HistorialClinico historialClinico;
 
-    @OneToMany(mappedBy = "paciente", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "paciente", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<BateriaClinica> bateriasClinicas;
 
-    @OneToMany(mappedBy = "paciente", fetch = FetchType.EAGER, cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "paciente", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Cita> citas;
 
     @OneToMany(mappedBy = "paciente", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<RegistroEmocional> registrosEmocionales;
 
     public Paciente(){
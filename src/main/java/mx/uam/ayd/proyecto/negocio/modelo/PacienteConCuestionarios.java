@@ -0,0 +1,13 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.util.List;
+
+/**
+ * Un paciente con al menos una batería clínica, junto con la calificación
+ * más reciente de cada tipo de batería que ha contestado.
+ *
+ * @param paciente el paciente, con los datos de la lista ({@link Paciente#GRAFO_LISTA}).
+ * @param cuestionarios una entrada por tipo de batería contestado, ordenadas por tipo.
+ */
+public record PacienteConCuestionarios(Paciente paciente, List<CuestionarioAplicado> cuestionarios) {
+}
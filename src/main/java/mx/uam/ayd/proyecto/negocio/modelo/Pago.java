@@ -0,0 +1,63 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Entidad del registro de pagos: cada dinero recibido con una línea de captura.
+ *
+ * <p>El registro sólo crece. Un pago nunca se modifica ni se borra; una
+ * corrección se registra como otro pago. Los pagos cuya línea no corresponde a
+ * ninguna cita también se registran, sin cita, para poder aclararlos.</p>
+ *
+ * <p>La restricción única sobre la referencia del banco impide registrar dos
+ * veces el mismo movimiento aunque se importe dos veces el mismo archivo.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Entity
+@Immutable
+@Table(indexes = {
+        @Index(name = "idx_pago_linea_captura", columnList = "lineaCaptura")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_pago_referencia", columnNames = "referencia")
+})
+@Data
+public class Pago {
+
+    // Con una secuencia Hibernate puede insertar los pagos de una conciliación en lotes;
+    // con IDENTITY tendría que insertarlos de uno en uno para conocer cada id
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pago_seq")
+    @SequenceGenerator(name = "pago_seq", allocationSize = 100)
+    private Long id;
+
+    // La referencia del movimiento en el banco; null en los pagos capturados a mano
+    private String referencia;
+
+    @Column(nullable = false)
+    private String lineaCaptura;
+
+    private double importe;
+
+    private LocalDate fechaPago;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrigenPago origen;
+
+    private LocalDateTime fechaRegistro;
+
+    // La cita que paga; null si la línea de captura no corresponde a ninguna
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cita_id")
+    @EqualsAndHashCode.Exclude
+    private Cita cita;
+}
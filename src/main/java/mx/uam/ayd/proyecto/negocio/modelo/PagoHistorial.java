@@ -0,0 +1,39 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de una {@link Cita} para el historial de pagos del paciente: sólo
+ * lo que muestra la pantalla, sin cargar la cita, el paciente ni el psicólogo.
+ *
+ * @param id el id de la cita.
+ * @param fechaCita la fecha y hora de la cita.
+ * @param monto el monto por pagar; puede ser null en citas antiguas.
+ * @param lineaCaptura la línea de captura con la que se paga.
+ * @param estadoCita el estado de la cita.
+ * @param fechaVencimiento el último día para pagar.
+ * @param fechaPago el día en que se pagó, o null si aún no se paga.
+ */
+public record PagoHistorial(int id, LocalDateTime fechaCita, Double monto, String lineaCaptura,
+        TipoConfirmacionCita estadoCita, LocalDate fechaVencimiento, LocalDate fechaPago) {
+
+    /**
+     * Calcula la situación de pago de la cita en un día dado.
+     *
+     * @param hoy el día de referencia.
+     * @return el estado de pago.
+     */
+    public EstadoPago estadoPago(LocalDate hoy) {
+        if (fechaPago != null) {
+            return EstadoPago.PAGADA;
+        }
+        if (estadoCita == TipoConfirmacionCita.CANCELADA) {
+            return EstadoPago.CANCELADA;
+        }
+        if (fechaVencimiento != null && fechaVencimiento.isBefore(hoy)) {
+            return EstadoPago.VENCIDA;
+        }
+        return EstadoPago.PENDIENTE;
+    }
+}
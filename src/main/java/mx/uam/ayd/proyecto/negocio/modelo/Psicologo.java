@@ -2,6 +2,8 @@ package mx.uam.ayd.proyecto.negocio.modelo;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.util.List;
 
 /**
@@ -33,6 +35,8 @@ public class Psicologo {
     private String contrasena;
 
     @OneToMany(mappedBy = "psicologo", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Paciente> pacientes;
 
     // Relación
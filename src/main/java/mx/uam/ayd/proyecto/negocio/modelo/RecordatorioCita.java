@@ -0,0 +1,37 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que registra que ya se envió un recordatorio de cierto tipo para una cita.
+ *
+ * <p>La restricción única (cita_id, tipoRecordatorio) garantiza que cada recordatorio
+ * se envíe una sola vez, aunque el programador corra varias veces o haya varias
+ * instancias de la aplicación revisando las mismas citas.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_recordatorio_cita_tipo", columnNames = {"cita_id", "tipoRecordatorio"})
+})
+@Data
+public class RecordatorioCita {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "cita_id", nullable = false)
+    private Cita cita;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoRecordatorio tipoRecordatorio;
+
+    private LocalDateTime fechaEnvio;
+}
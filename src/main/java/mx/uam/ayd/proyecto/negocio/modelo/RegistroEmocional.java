@@ -5,11 +5,33 @@ import lombok.Data;
 import java.time.LocalDate;
 
 @Entity
+// Un registro por paciente y día; la base lo garantiza aunque lleguen dos al mismo tiempo
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = RegistroEmocional.UK_PACIENTE_FECHA, columnNames = {"paciente_id", "fecha"})
+})
+// El historial clínico es el lado inverso de un uno a uno del paciente y no puede
+// quedar como proxy; se une aquí para no consultarlo por cada registro
+@NamedEntityGraph(name = RegistroEmocional.GRAFO_CON_PACIENTE, attributeNodes = {
+        @NamedAttributeNode(value = "paciente", subgraph = "paciente")
+}, subgraphs = @NamedSubgraph(name = "paciente", attributeNodes = @NamedAttributeNode("historialClinico")))
 @Data
 public class RegistroEmocional {
 
+    // Listados de registros que muestran el nombre del paciente
+    public static final String GRAFO_CON_PACIENTE = "RegistroEmocional.conPaciente";
+
+    public static final String UK_PACIENTE_FECHA = "uk_registro_emocional_paciente_fecha";
+
+    public static final String SECUENCIA_IDS = "registro_emocional_seq";
+
+    // Ids que Hibernate aparta con cada valor de la secuencia
+    public static final int BLOQUE_IDS = 100;
+
+    // Por secuencia para que EscritorRegistrosEmocionales inserte en lotes; las bases
+    // anteriores ya tienen ids, así que al arrancar se alinea la secuencia (ver ServicioRegistroemocional)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SECUENCIA_IDS)
+    @SequenceGenerator(name = SECUENCIA_IDS, allocationSize = BLOQUE_IDS)
     private Long id;
 
     private LocalDate fecha;
@@ -0,0 +1,138 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Histogramas de las siete preguntas de opción múltiple de la encuesta de satisfacción,
+ * con lo necesario para calcular el promedio y la varianza de cada una.
+ *
+ * <p>Cada pregunta usa un arreglo fijo de contadores (Malo, Regular, Bueno, Excelente y
+ * un último para valores desconocidos), así que el reporte ocupa lo mismo sin importar
+ * cuántas encuestas se sumen.</p>
+ */
+public class ReporteCalificaciones {
+
+    public static final int PREGUNTAS = 7;
+
+    private static final String[] ETIQUETAS = {"Malo", "Regular", "Bueno", "Excelente", "Desconocido"};
+    private static final int DESCONOCIDO = ETIQUETAS.length - 1;
+
+    private final long[][] conteos = new long[PREGUNTAS][ETIQUETAS.length];
+    private final long[] totales = new long[PREGUNTAS];
+    private final long[] sumas = new long[PREGUNTAS];
+    private final long[] sumasCuadrados = new long[PREGUNTAS];
+
+    /**
+     * Suma las siete calificaciones de una encuesta.
+     */
+    public void agregar(CalificacionesEncuesta calificaciones) {
+        for (int pregunta = 1; pregunta <= PREGUNTAS; pregunta++) {
+            agregar(pregunta, calificaciones.valor(pregunta), 1);
+        }
+    }
+
+    /**
+     * Suma la cantidad dada de respuestas con el valor indicado.
+     * Las respuestas con valor 0 o negativo son preguntas sin contestar y se ignoran.
+     *
+     * @param pregunta el número de pregunta, de 1 a 7.
+     * @param valor la calificación (1 = Malo ... 4 = Excelente).
+     * @param cantidad cuántas respuestas sumar.
+     */
+    public void agregar(int pregunta, int valor, long cantidad) {
+        if (valor <= 0) {
+            return;
+        }
+        int i = pregunta - 1;
+        int indice = valor <= DESCONOCIDO ? valor - 1 : DESCONOCIDO;
+        conteos[i][indice] += cantidad;
+        totales[i] += cantidad;
+        sumas[i] += valor * cantidad;
+        sumasCuadrados[i] += (long) valor * valor * cantidad;
+    }
+
+    /**
+     * Suma los totales de una pregunta calculados a partir de la tabla de resúmenes.
+     */
+    public void agregar(TotalesPregunta totalesPregunta) {
+        int i = totalesPregunta.pregunta() - 1;
+        conteos[i][0] += totalesPregunta.conteoMalo();
+        conteos[i][1] += totalesPregunta.conteoRegular();
+        conteos[i][2] += totalesPregunta.conteoBueno();
+        conteos[i][3] += totalesPregunta.conteoExcelente();
+        conteos[i][DESCONOCIDO] += totalesPregunta.conteoDesconocido();
+        totales[i] += totalesPregunta.total();
+        sumas[i] += totalesPregunta.suma();
+        sumasCuadrados[i] += totalesPregunta.sumaCuadrados();
+    }
+
+    /**
+     * Devuelve el conteo de la pregunta por etiqueta, en orden de Malo a Excelente,
+     * omitiendo las etiquetas sin respuestas.
+     *
+     * @param pregunta el número de pregunta, de 1 a 7.
+     * @return un mapa etiqueta -> número de respuestas.
+     */
+    public Map<String, Long> conteo(int pregunta) {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        long[] fila = conteos[pregunta - 1];
+        for (int i = 0; i < fila.length; i++) {
+            if (fila[i] > 0) {
+                resultado.put(ETIQUETAS[i], fila[i]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return el número de respuestas de la pregunta.
+     */
+    public long total(int pregunta) {
+        return totales[pregunta - 1];
+    }
+
+    /**
+     * @return la calificación promedio de la pregunta, o 0 si no tiene respuestas.
+     */
+    public double promedio(int pregunta) {
+        long n = totales[pregunta - 1];
+        return n == 0 ? 0 : (double) sumas[pregunta - 1] / n;
+    }
+
+    /**
+     * @return la varianza poblacional de las calificaciones de la pregunta, o 0 si no tiene respuestas.
+     */
+    public double varianza(int pregunta) {
+        long n = totales[pregunta - 1];
+        if (n == 0) {
+            return 0;
+        }
+        double promedio = promedio(pregunta);
+        return Math.max(0, (double) sumasCuadrados[pregunta - 1] / n - promedio * promedio);
+    }
+
+    /**
+     * Traduce un identificador "Pregunta N" a N.
+     *
+     * @return el número de pregunta, o 0 si el identificador no tiene ese formato.
+     */
+    public static int numeroPregunta(String preguntaId) {
+        if (preguntaId == null || !preguntaId.startsWith("Pregunta ")) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(preguntaId.substring("Pregunta ".length()).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Indica si el identificador corresponde a una de las preguntas de opción múltiple.
+     */
+    public static boolean esPreguntaCerrada(String preguntaId) {
+        int pregunta = numeroPregunta(preguntaId);
+        return pregunta >= 1 && pregunta <= PREGUNTAS;
+    }
+}
@@ -0,0 +1,40 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Resumen de una conciliación de pagos contra las citas.
+ *
+ * <p>Todo movimiento válido y no repetido queda en el registro de pagos; sólo
+ * los conciliados marcan su cita como pagada.</p>
+ *
+ * @param movimientos los renglones leídos, sin contar el encabezado.
+ * @param conciliados los pagos que marcaron su cita como pagada.
+ * @param sinCita los pagos cuya línea de captura no corresponde a ninguna cita.
+ * @param importeDistinto los pagos cuyo importe no coincide con el monto de la cita.
+ * @param yaPagados los pagos de citas que ya estaban pagadas.
+ * @param cancelados los pagos de citas canceladas; la cita no se marca como pagada.
+ * @param duplicados los movimientos que ya estaban registrados.
+ * @param invalidos los renglones que no se pudieron leer.
+ */
+public record ResultadoConciliacion(long movimientos, long conciliados, long sinCita, long importeDistinto,
+        long yaPagados, long cancelados, long duplicados, long invalidos) {
+
+    public static final ResultadoConciliacion VACIO = new ResultadoConciliacion(0, 0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * Suma dos resultados, por ejemplo los de dos lotes del mismo archivo.
+     *
+     * @param otro el resultado a sumar.
+     * @return un resultado nuevo con la suma de cada contador.
+     */
+    public ResultadoConciliacion sumar(ResultadoConciliacion otro) {
+        return new ResultadoConciliacion(
+                movimientos + otro.movimientos,
+                conciliados + otro.conciliados,
+                sinCita + otro.sinCita,
+                importeDistinto + otro.importeDistinto,
+                yaPagados + otro.yaPagados,
+                cancelados + otro.cancelados,
+                duplicados + otro.duplicados,
+                invalidos + otro.invalidos);
+    }
+}
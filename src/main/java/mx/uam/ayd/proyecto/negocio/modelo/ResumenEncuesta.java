@@ -0,0 +1,123 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Resumen precalculado de las respuestas a una pregunta de opción múltiple de la encuesta,
+ * para un mes y un psicólogo.
+ *
+ * <p>Guarda el histograma de la pregunta y las sumas necesarias para obtener el promedio y la
+ * varianza sin volver a leer las encuestas. Como las calificaciones son enteros pequeños, las
+ * sumas son exactas y se pueden acumular o combinar entre filas sin perder precisión.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumen_encuesta", columnNames = {"periodo", "psicologoId", "pregunta"})
+})
+@Data
+public class ResumenEncuesta {
+
+    /**
+     * Valor de {@link #psicologoId} para encuestas de pacientes sin psicólogo asignado.
+     */
+    public static final int SIN_PSICOLOGO = 0;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Mes de las encuestas en formato aaaamm (por ejemplo 202610)
+    private int periodo;
+
+    private int psicologoId;
+
+    // Número de pregunta, de 1 a 7
+    private int pregunta;
+
+    private long conteoMalo;
+    private long conteoRegular;
+    private long conteoBueno;
+    private long conteoExcelente;
+    private long conteoDesconocido;
+
+    // Número de respuestas, suma y suma de cuadrados de las calificaciones
+    private long total;
+    private long suma;
+    private long sumaCuadrados;
+
+    public ResumenEncuesta() {
+    }
+
+    public ResumenEncuesta(int periodo, int psicologoId, int pregunta) {
+        this.periodo = periodo;
+        this.psicologoId = psicologoId;
+        this.pregunta = pregunta;
+    }
+
+    /**
+     * Acumula una respuesta. Las respuestas con valor 0 o negativo no se contestaron y se ignoran.
+     *
+     * @param valor la calificación (1 = Malo ... 4 = Excelente).
+     */
+    public void agregar(int valor) {
+        if (valor <= 0) {
+            return;
+        }
+        switch (valor) {
+            case 1 -> conteoMalo++;
+            case 2 -> conteoRegular++;
+            case 3 -> conteoBueno++;
+            case 4 -> conteoExcelente++;
+            default -> conteoDesconocido++;
+        }
+        total++;
+        suma += valor;
+        sumaCuadrados += (long) valor * valor;
+    }
+
+    /**
+     * Reemplaza los acumulados de este resumen por los de otro (al reconstruir la tabla).
+     */
+    public void copiarAcumulados(ResumenEncuesta otro) {
+        conteoMalo = otro.conteoMalo;
+        conteoRegular = otro.conteoRegular;
+        conteoBueno = otro.conteoBueno;
+        conteoExcelente = otro.conteoExcelente;
+        conteoDesconocido = otro.conteoDesconocido;
+        total = otro.total;
+        suma = otro.suma;
+        sumaCuadrados = otro.sumaCuadrados;
+    }
+
+    /**
+     * Indica si este resumen tiene los mismos acumulados que otro, sin importar su id.
+     */
+    public boolean mismosAcumulados(ResumenEncuesta otro) {
+        return conteoMalo == otro.conteoMalo
+                && conteoRegular == otro.conteoRegular
+                && conteoBueno == otro.conteoBueno
+                && conteoExcelente == otro.conteoExcelente
+                && conteoDesconocido == otro.conteoDesconocido
+                && total == otro.total
+                && suma == otro.suma
+                && sumaCuadrados == otro.sumaCuadrados;
+    }
+
+    /**
+     * Devuelve el periodo aaaamm al que pertenece una fecha.
+     */
+    public static int periodo(LocalDateTime fecha) {
+        return periodo(YearMonth.from(fecha));
+    }
+
+    public static int periodo(YearMonth mes) {
+        return mes.getYear() * 100 + mes.getMonthValue();
+    }
+}
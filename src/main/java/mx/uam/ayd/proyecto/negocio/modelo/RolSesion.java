@@ -0,0 +1,34 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Enumeración que representa el rol con el que se abrió una sesión.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public enum RolSesion {
+    PACIENTE("Paciente"),
+    PSICOLOGO("Psicólogo"),
+    ADMINISTRADOR("Administrador");
+
+    private final String descripcion;
+
+    /**
+     * Constructor de la enumeración.
+     *
+     * @param descripcion descripción legible del rol, la misma que se elige al iniciar sesión.
+     */
+    RolSesion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Devuelve la descripción legible del rol.
+     *
+     * @return una cadena con la descripción del rol.
+     */
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
@@ -0,0 +1,102 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Totales precalculados de los pagos de un paciente: lo pagado, lo pendiente y
+ * lo vencido, en número de citas y en monto.
+ *
+ * <p>Se ajustan con cada cita que se agenda, se cancela o se paga, sin volver a
+ * leer las citas. Lo vencido depende del día: el saldo guarda el día en que se
+ * calculó y, la primera vez que se usa en un día posterior, se recalcula desde
+ * las citas. Eso también corrige cualquier desviación.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Entity
+@Data
+public class SaldoPaciente {
+
+    @Id
+    private Long pacienteId;
+
+    private long citasPagadas;
+    private double montoPagado;
+
+    private long citasPendientes;
+    private double montoPendiente;
+
+    private long citasVencidas;
+    private double montoVencido;
+
+    // Día en que se calcularon los totales; las citas sin pagar que vencen antes cuentan como vencidas
+    private LocalDate fechaCalculo;
+
+    public SaldoPaciente() {
+    }
+
+    public SaldoPaciente(Long pacienteId) {
+        this.pacienteId = pacienteId;
+    }
+
+    /**
+     * Indica si los totales se calcularon en el día dado; si no, hay que recalcularlos.
+     */
+    public boolean vigente(LocalDate hoy) {
+        return hoy.equals(fechaCalculo);
+    }
+
+    /**
+     * Reemplaza los totales por los calculados desde las citas.
+     */
+    public void fijar(TotalesPago totales, LocalDate hoy) {
+        citasPagadas = totales.citasPagadas();
+        montoPagado = totales.montoPagado();
+        citasPendientes = totales.citasPendientes();
+        montoPendiente = totales.montoPendiente();
+        citasVencidas = totales.citasVencidas();
+        montoVencido = totales.montoVencido();
+        fechaCalculo = hoy;
+    }
+
+    /**
+     * Suma una cita por pagar.
+     */
+    public void agregarCargo(LocalDate fechaVencimiento, Double monto) {
+        ajustarPorPagar(fechaVencimiento, 1, monto != null ? monto : 0);
+    }
+
+    /**
+     * Quita una cita por pagar, por ejemplo al cancelarla.
+     */
+    public void quitarCargo(LocalDate fechaVencimiento, Double monto) {
+        ajustarPorPagar(fechaVencimiento, -1, monto != null ? -monto : 0);
+    }
+
+    /**
+     * Suma una cita pagada; si estaba por pagar, la quita de lo pendiente o vencido.
+     *
+     * @param porPagar false si la cita estaba cancelada y no contaba como deuda.
+     */
+    public void registrarPago(LocalDate fechaVencimiento, Double monto, boolean porPagar) {
+        if (porPagar) {
+            quitarCargo(fechaVencimiento, monto);
+        }
+        citasPagadas++;
+        montoPagado += monto != null ? monto : 0;
+    }
+
+    private void ajustarPorPagar(LocalDate fechaVencimiento, int citas, double monto) {
+        if (fechaVencimiento != null && fechaVencimiento.isBefore(fechaCalculo)) {
+            citasVencidas += citas;
+            montoVencido += monto;
+        } else {
+            citasPendientes += citas;
+            montoPendiente += monto;
+        }
+    }
+}
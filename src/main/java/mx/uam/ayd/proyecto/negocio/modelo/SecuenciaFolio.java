@@ -0,0 +1,25 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+/**
+ * Entidad con el siguiente valor libre de una secuencia de folios.
+ *
+ * <p>Cada instancia de la aplicación aparta bloques de la secuencia avanzando
+ * {@code siguiente}; como la actualización bloquea la fila, dos instancias
+ * nunca reciben el mismo bloque.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Entity
+@Data
+public class SecuenciaFolio {
+
+    @Id
+    private String nombre;
+
+    private long siguiente;
+}
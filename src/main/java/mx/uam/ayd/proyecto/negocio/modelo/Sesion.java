@@ -0,0 +1,120 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Una sesión abierta en el registro de {@code ServicioSesion}: quién entró,
+ * con qué rol y cuándo la usó por última vez, más los datos que cada cliente
+ * quiera asociarle.
+ *
+ * <p>Cada cliente (la ventana de escritorio o un cliente del servidor web)
+ * guarda el id de su sesión; el id es aleatorio y no se puede adivinar.
+ * La sesión se puede usar desde varios hilos a la vez.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public class Sesion {
+
+    private final String id;
+    private final String usuario;
+    private final RolSesion rol;
+    private final Instant inicio;
+    private final Duration inactividad;
+    private volatile Instant ultimoAcceso;
+    private final Map<String, Object> atributos = new ConcurrentHashMap<>();
+
+    /**
+     * Crea la sesión.
+     *
+     * @param id el identificador de la sesión.
+     * @param usuario el nombre de usuario.
+     * @param rol el rol con el que entró.
+     * @param inicio cuándo se abrió.
+     * @param inactividad cuánto puede pasar sin usarse antes de vencer; null si no vence.
+     */
+    public Sesion(String id, String usuario, RolSesion rol, Instant inicio, Duration inactividad) {
+        this.id = id;
+        this.usuario = usuario;
+        this.rol = rol;
+        this.inicio = inicio;
+        this.inactividad = inactividad;
+        this.ultimoAcceso = inicio;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public RolSesion getRol() {
+        return rol;
+    }
+
+    public Instant getInicio() {
+        return inicio;
+    }
+
+    public Instant getUltimoAcceso() {
+        return ultimoAcceso;
+    }
+
+    /**
+     * Registra que la sesión se acaba de usar.
+     *
+     * @param ahora el momento del acceso.
+     */
+    public void registrarAcceso(Instant ahora) {
+        ultimoAcceso = ahora;
+    }
+
+    /**
+     * Indica cuándo vence la sesión si no se vuelve a usar.
+     *
+     * @return el vencimiento, o null si no vence.
+     */
+    public Instant getVencimiento() {
+        return inactividad != null ? ultimoAcceso.plus(inactividad) : null;
+    }
+
+    /**
+     * Indica si la sesión ya venció por inactividad.
+     *
+     * @param ahora el momento actual.
+     * @return true si venció.
+     */
+    public boolean vencida(Instant ahora) {
+        Instant vencimiento = getVencimiento();
+        return vencimiento != null && !ahora.isBefore(vencimiento);
+    }
+
+    /**
+     * Asocia un dato a la sesión, o lo quita si el valor es null.
+     *
+     * @param nombre el nombre del dato.
+     * @param valor el valor.
+     */
+    public void setAtributo(String nombre, Object valor) {
+        if (valor == null) {
+            atributos.remove(nombre);
+        } else {
+            atributos.put(nombre, valor);
+        }
+    }
+
+    /**
+     * Obtiene un dato asociado a la sesión.
+     *
+     * @param nombre el nombre del dato.
+     * @return el valor, o null si no hay.
+     */
+    public Object getAtributo(String nombre) {
+        return atributos.get(nombre);
+    }
+}
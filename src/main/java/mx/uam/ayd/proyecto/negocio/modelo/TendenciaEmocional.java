@@ -0,0 +1,18 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+import java.time.LocalDate;
+
+/**
+ * Cuántas veces registró un paciente una emoción en una semana. La base de
+ * datos agrupa los registros, así que graficar meses de datos no requiere
+ * leer cada registro.
+ *
+ * @param pacienteId el id del paciente.
+ * @param nombrePaciente el nombre del paciente.
+ * @param semana el lunes de la semana.
+ * @param emocion la emoción registrada.
+ * @param registros cuántos días de esa semana se registró la emoción.
+ */
+public record TendenciaEmocional(Long pacienteId, String nombrePaciente, LocalDate semana, String emocion,
+        long registros) {
+}
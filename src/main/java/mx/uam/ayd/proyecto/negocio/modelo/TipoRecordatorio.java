@@ -0,0 +1,37 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Enumeración que representa los tipos de recordatorio que se envían
+ * a un paciente antes de su cita.
+ *
+ * <ul>
+ *   <li>{@link #CITA_48_HORAS} — La cita es dentro de las próximas 48 horas.</li>
+ * </ul>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public enum TipoRecordatorio {
+    CITA_48_HORAS("Cita en 48 horas");
+
+    private final String descripcion;
+
+    /**
+     * Constructor de la enumeración.
+     *
+     * @param descripcion descripción legible del tipo de recordatorio.
+     */
+    TipoRecordatorio(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    /**
+     * Devuelve la descripción legible del tipo de recordatorio.
+     *
+     * @return una cadena con la descripción del tipo de recordatorio.
+     */
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
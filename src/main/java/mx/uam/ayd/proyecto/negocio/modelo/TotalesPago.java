@@ -0,0 +1,17 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Totales de pago de un paciente calculados a partir de sus citas, para
+ * inicializar o corregir su {@link SaldoPaciente}.
+ *
+ * @param pacienteId el id del paciente.
+ * @param citasPagadas las citas con pago recibido.
+ * @param montoPagado la suma de sus montos.
+ * @param citasPendientes las citas activas sin pagar que aún no vencen.
+ * @param montoPendiente la suma de sus montos.
+ * @param citasVencidas las citas activas sin pagar cuyo vencimiento ya pasó.
+ * @param montoVencido la suma de sus montos.
+ */
+public record TotalesPago(Long pacienteId, long citasPagadas, double montoPagado, long citasPendientes,
+        double montoPendiente, long citasVencidas, double montoVencido) {
+}
@@ -0,0 +1,18 @@
+package mx.uam.ayd.proyecto.negocio.modelo;
+
+/**
+ * Suma de los {@link ResumenEncuesta} de una pregunta, calculada por la base de datos.
+ *
+ * @param pregunta el número de pregunta, de 1 a 7.
+ * @param conteoMalo respuestas con calificación Malo.
+ * @param conteoRegular respuestas con calificación Regular.
+ * @param conteoBueno respuestas con calificación Bueno.
+ * @param conteoExcelente respuestas con calificación Excelente.
+ * @param conteoDesconocido respuestas con un valor fuera de la escala.
+ * @param total el número de respuestas.
+ * @param suma la suma de las calificaciones.
+ * @param sumaCuadrados la suma de sus cuadrados.
+ */
+public record TotalesPregunta(int pregunta, long conteoMalo, long conteoRegular, long conteoBueno,
+        long conteoExcelente, long conteoDesconocido, long total, long suma, long sumaCuadrados) {
+}
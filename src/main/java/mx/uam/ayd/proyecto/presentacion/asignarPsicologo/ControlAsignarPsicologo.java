@@ -4,6 +4,7 @@ import mx.uam.ayd.proyecto.negocio.ServicioPaciente;
 import mx.uam.ayd.proyecto.negocio.ServicioPsicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 
 import org.springframework.stereotype.Component;
 
@@ -41,6 +42,9 @@ public class ControlAsignarPsicologo {
     private final ServicioPsicologo servicioPsicologo;
     private final ServicioPaciente servicioPaciente;
 
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
     /**
      * Constructor con inyección de dependencias.
      *
@@ -71,9 +75,10 @@ public class ControlAsignarPsicologo {
      * @param paciente El paciente al que se le asignará un psicólogo
      */
     public void inicia(Paciente paciente) {
-        
-        List<Psicologo> psicologos = servicioPsicologo.obtenerPsicologosPorEdadPaciente(paciente);
-        ventanaAsignarPsicologo.muestra(paciente, psicologos);
+        ejecutorTareas.ejecutar(() -> servicioPsicologo.obtenerPsicologosPorEdadPaciente(paciente),
+                (List<Psicologo> psicologos) -> ventanaAsignarPsicologo.muestra(paciente, psicologos),
+                error -> ventanaAsignarPsicologo.muestraDialogoConMensaje(
+                        "Error al obtener los psicólogos: " + error.getMessage()));
     }
 
     /**
@@ -84,13 +89,13 @@ public class ControlAsignarPsicologo {
      */
     public void asignarPsicologo(Paciente paciente, Psicologo psicologo) {
 
-        try {
-			servicioPaciente.asignarPsicologo(paciente, psicologo);
+        ejecutorTareas.ejecutar(() -> {
+            servicioPaciente.asignarPsicologo(paciente, psicologo);
+            return psicologo;
+        }, asignado -> {
 			ventanaAsignarPsicologo.muestraDialogoConMensaje("Psicólogo asignado exitosamente");	
             termina(); //Solo termina la ventana si se ha guardado el HC
-        } catch(Exception ex) {
-			ventanaAsignarPsicologo.muestraDialogoConMensaje("Error al asignar el psicólogo: "+ex.getMessage());
-		}   
+        }, ex -> ventanaAsignarPsicologo.muestraDialogoConMensaje("Error al asignar el psicólogo: "+ex.getMessage()));
     }
 
     /**
@@ -1,10 +1,11 @@
 package mx.uam.ayd.proyecto.presentacion.crearCita;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -28,11 +29,13 @@ public class ControlCrearCita {
 
     String nombreUsuarioActivo;
 
+    private Psicologo psicologoAsignado;
+
     public void inicia(String nombreUsuarioActivo) {
         this.nombreUsuarioActivo = nombreUsuarioActivo;
 
         Paciente pacienteActivo = servicioPaciente.obtenerPacientePorUsuario(nombreUsuarioActivo);
-        Psicologo psicologoAsignado = pacienteActivo.getPsicologo();
+        psicologoAsignado = pacienteActivo.getPsicologo();
 
         ventanaCrearCita.setControlCrearCita(this);
         ventanaCrearCita.muestra();
@@ -45,29 +48,19 @@ public class ControlCrearCita {
     }
 
     public void onFechaSeleccionada(LocalDate fecha) {
-        if (fecha == null) {
+        if (fecha == null || psicologoAsignado == null) {
             ventanaCrearCita.setHorarios(new ArrayList<>());
             return;
         }
 
-        DayOfWeek dow = fecha.getDayOfWeek();
-        int inicio;
-        int fin;
-
-        if (dow == DayOfWeek.SATURDAY) {
-            inicio = 9;
-            fin = 14;
-        } else if (dow == DayOfWeek.SUNDAY) {
-            ventanaCrearCita.setHorarios(new ArrayList<>());
-            return;
-        } else {
-            inicio = 8;
-            fin = 17;
-        }
+        // Una sola consulta devuelve las horas libres del psicólogo para ese día
+        Map<LocalDate, List<LocalTime>> disponibles = servicioCita
+                .obtenerHorariosDisponibles(List.of(psicologoAsignado), fecha, fecha)
+                .getOrDefault(psicologoAsignado.getId(), Map.of());
 
         List<String> horarios = new ArrayList<>();
-        for (int h = inicio; h <= fin; h++) {
-            horarios.add(String.format("%02d:00", h));
+        for (LocalTime hora : disponibles.getOrDefault(fecha, List.of())) {
+            horarios.add(String.format("%02d:00", hora.getHour()));
         }
 
         ventanaCrearCita.setHorarios(horarios);
@@ -2,12 +2,15 @@ package mx.uam.ayd.proyecto.presentacion.listaAvisos;
 
 import jakarta.annotation.PostConstruct;
 import mx.uam.ayd.proyecto.negocio.ServicioAviso;
+import mx.uam.ayd.proyecto.negocio.eventos.AvisoPublicado;
 import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
+import javafx.application.Platform;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 /**
  * Controlador para la funcionalidad de listar todos los avisos existentes.
  *
@@ -16,8 +19,9 @@ import java.util.List;
  *
  * <p>Sus responsabilidades principales incluyen:</p>
  * <ul>
- * <li>Solicitar al servicio la lista completa de avisos.</li>
+ * <li>Solicitar al servicio los avisos, una página a la vez.</li>
  * <li>Pasar la lista de avisos a la ventana para que los muestre.</li>
+ * <li>Agregar al inicio de la lista los avisos que se publiquen mientras está abierta.</li>
  * <li>Mostrar y cerrar la ventana de la lista.</li>
  * </ul>
  */
@@ -30,6 +34,12 @@ public class ControlListaAvisos {
     @Autowired
     private ServicioAviso servicioAviso;
 
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
+    // La lista que se muestra; null si la ventana está cerrada
+    private volatile ListaPaginada<Aviso> avisos;
+
     /**
      * Inicializa la conexión entre esta clase de control y la ventana asociada.
      * Este método se ejecuta automáticamente después de la construcción del bean.
@@ -41,15 +51,30 @@ public class ControlListaAvisos {
 
     /**
      * Inicia el flujo de listar avisos.
-     * <p>Recupera todos los avisos del servicio y se los pasa a la ventana
-     * para que los muestre.</p>
+     * <p>Recupera la primera página de avisos del servicio y se la pasa a la
+     * ventana para que la muestre; el resto se pide al desplazarse.</p>
      */
     public void inicia() {
-        // 1. Pedimos los datos al servicio de negocio
-        List<Aviso> avisos = servicioAviso.listarAvisos();
+        // 1. Pedimos la primera página al servicio de negocio
+        ListaPaginada<Aviso> lista = new ListaPaginada<>(ejecutorTareas, servicioAviso::listarAvisos);
+        lista.cargarPrimeraPagina();
+        avisos = lista;
 
         // 2. Pasamos los datos a la ventana para que los "pinte"
-        ventanaListaAvisos.muestra(avisos);
+        ventanaListaAvisos.muestra(lista);
+        // La ventana es modal: al regresar de muestra ya se cerró
+        avisos = null;
+    }
+
+    /**
+     * Agrega a la lista abierta el aviso recién publicado, sin volver a pedir la primera página.
+     */
+    @EventListener
+    public void avisoPublicado(AvisoPublicado evento) {
+        ListaPaginada<Aviso> lista = avisos;
+        if (lista != null) {
+            Platform.runLater(() -> lista.agregarAlInicio(evento.aviso()));
+        }
     }
 
     /**
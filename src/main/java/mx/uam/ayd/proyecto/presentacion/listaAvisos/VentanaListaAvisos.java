@@ -1,7 +1,5 @@
 package mx.uam.ayd.proyecto.presentacion.listaAvisos;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -9,14 +7,15 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Ventana que muestra un historial de todos los avisos publicados.
@@ -42,7 +41,7 @@ public class VentanaListaAvisos {
 
     // Componentes FXML
     @FXML
-    private ListView<String> listViewAvisos;
+    private ListView<Aviso> listViewAvisos;
 
     @FXML
     private Button btnCerrar;
@@ -63,7 +62,7 @@ public class VentanaListaAvisos {
      * y crea el escenario.
      * </p>
      */
-    public void muestra(List<Aviso> avisos) {
+    public void muestra(ListaPaginada<Aviso> avisos) {
         try {
             if (stage == null) {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ventanaListaAvisos.fxml"));
@@ -117,48 +116,23 @@ public class VentanaListaAvisos {
 
     /**
      * Recibe la lista de avisos desde el controlador y la formatea
-     * para mostrarla en el ListView.
+     * para mostrarla en el ListView. Las páginas siguientes se cargan
+     * conforme el usuario se desplaza.
      *
-     * @param avisos La lista de entidades {@link Aviso} a mostrar.
+     * @param avisos La lista paginada de entidades {@link Aviso} a mostrar.
      */
-    public void llenaLista(List<Aviso> avisos) {
+    public void llenaLista(ListaPaginada<Aviso> avisos) {
         if (listViewAvisos == null) {
             System.err.println("ListView no inicializado. Esto no debería pasar si se llama desde muestra()");
             return;
         }
 
-        listViewAvisos.getItems().clear();
+        listViewAvisos.setPlaceholder(new Label("No hay avisos registrados."));
 
-        ObservableList<String> items = FXCollections.observableArrayList();
-
-        if (avisos.isEmpty()) {
-            items.add("No hay avisos registrados.");
-        } else {
-            for (Aviso aviso : avisos) {
-                String textoFormateado = String.format("%s: %s",
-                        aviso.getFecha().toString(),
-                        aviso.getContenido());
-                items.add(textoFormateado);
-            }
-        }
-        
-        listViewAvisos.setItems(items);
-        
-        // Opcional: Habilitar el ajuste de texto en las celdas del ListView
-        // Esto es un poco más avanzado, pero útil si los avisos son largos.
-        listViewAvisos.setCellFactory(param -> new javafx.scene.control.ListCell<String>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                    setGraphic(null);
-                } else {
-                    setText(item);
-                    setWrapText(true); // Habilita el ajuste de línea
-                }
-            }
-        });
+        // Las celdas ajustan el texto, útil si los avisos son largos
+        avisos.enlazar(listViewAvisos, aviso -> String.format("%s: %s",
+                aviso.getFecha().toString(),
+                aviso.getContenido()));
     }
 
     /**
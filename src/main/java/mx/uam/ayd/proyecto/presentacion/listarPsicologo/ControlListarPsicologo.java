@@ -3,9 +3,10 @@ package mx.uam.ayd.proyecto.presentacion.listarPsicologo;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import java.util.List;
 import mx.uam.ayd.proyecto.negocio.ServicioPsicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 
 /**
  * Controlador para la funcionalidad de listar psicólogos.
@@ -15,7 +16,7 @@ import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
  * Sus responsabilidades principales incluyen:
  * <ul>
  *   <li>Inicializar la conexión con la ventana correspondiente.</li>
- *   <li>Solicitar al servicio de negocio la lista de psicólogos registrados.</li>
+ *   <li>Solicitar al servicio de negocio los psicólogos registrados, una página a la vez.</li>
  *   <li>Enviar los datos obtenidos a la vista para su visualización.</li>
  *   <li>Cerrar la ventana cuando sea requerido.</li>
  * </ul>
@@ -33,6 +34,9 @@ public class ControlListarPsicologo {
     @Autowired
     private ServicioPsicologo servicioPsicologo;
 
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
     /**
      * Constructor con inyección de dependencias.
      *
@@ -54,11 +58,12 @@ public class ControlListarPsicologo {
 
     /**
      * Inicia el flujo de listado de psicólogos.
-     * <p>Recupera la lista de psicólogos desde el servicio de negocio y
+     * <p>Recupera la primera página de psicólogos desde el servicio de negocio y
      * la envía a la vista para su visualización.</p>
      */
     public void inicia(){
-        List<Psicologo> psicologos = servicioPsicologo.listarPsicologos();
+        ListaPaginada<Psicologo> psicologos = new ListaPaginada<>(ejecutorTareas, servicioPsicologo::listarPsicologos);
+        psicologos.cargarPrimeraPagina();
         ventanaListarPsicologo.muestra(psicologos);
     }
 
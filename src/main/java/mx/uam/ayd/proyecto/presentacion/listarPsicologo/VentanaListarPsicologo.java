@@ -2,8 +2,6 @@ package mx.uam.ayd.proyecto.presentacion.listarPsicologo;
 
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -13,7 +11,7 @@ import javafx.scene.control.TableView;
 import javafx.stage.Stage;
 import org.springframework.stereotype.Component;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
-import java.util.List;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
 
 /**
  * Ventana para listar los psicólogos registrados en el sistema.
@@ -64,12 +62,13 @@ public class VentanaListarPsicologo {
      * Muestra la ventana de listado de psicólogos.
      * <p>
      * Si la ventana no ha sido creada aún, carga el archivo FXML, configura la escena y crea el escenario.
-     * Luego, carga la lista de psicólogos proporcionada en la tabla.
+     * Luego, enlaza la lista paginada de psicólogos a la tabla, que pide más
+     * páginas conforme el usuario se desplaza.
      * </p>
      *
-     * @param psicologos lista de psicólogos a mostrar en la tabla
+     * @param psicologos lista paginada de psicólogos a mostrar en la tabla
      */
-    public void muestra(List<Psicologo> psicologos) {
+    public void muestra(ListaPaginada<Psicologo> psicologos) {
         try {
             if (stage == null) {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ventanaListarPsicologos.fxml"));
@@ -82,8 +81,7 @@ public class VentanaListarPsicologo {
             }
             stage.show();
 
-            ObservableList<Psicologo> datos = FXCollections.observableArrayList(psicologos);
-            tableViewPsicologos.setItems(datos);
+            psicologos.enlazar(tableViewPsicologos);
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("Error al cargar la ventana de listar psicólogos: " + e.getMessage());
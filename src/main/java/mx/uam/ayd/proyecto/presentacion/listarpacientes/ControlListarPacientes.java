@@ -1,15 +1,27 @@
 package mx.uam.ayd.proyecto.presentacion.listarpacientes;
 
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Component;
+
+import javafx.concurrent.Task;
 import mx.uam.ayd.proyecto.negocio.ServicioBateriaClinica;
 import mx.uam.ayd.proyecto.negocio.ServicioPaciente;
+import mx.uam.ayd.proyecto.negocio.ServicioPsicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.BateriaClinica;
 import mx.uam.ayd.proyecto.negocio.modelo.HistorialClinico;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.PacienteConCuestionarios;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo; // IMPORTADO
 import mx.uam.ayd.proyecto.presentacion.asignarPsicologo.ControlAsignarPsicologo; // IMPORTADO
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 
 /**
  * Controlador para la funcionalidad de listar pacientes.
@@ -24,19 +36,36 @@ public class ControlListarPacientes {
     @Autowired
     private ServicioPaciente servicioPaciente;
 
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
     @Autowired
     private ServicioBateriaClinica servicioBateriaClinica;
 
+    @Autowired
+    private ServicioPsicologo servicioPsicologo;
+
     @Autowired
     private ControlAsignarPsicologo controlAsignarPsicologo;
 
+    private Task<Paciente> cargaDetalle;
+
+    // Lista que se muestra y de dónde salen sus páginas cuando no se filtra
+    private ListaPaginada<Paciente> pacientes;
+    private Function<ScrollPosition, Window<Paciente>> fuentePacientes;
+
+    // Últimas calificaciones de los pacientes cargados con el filtro, por id
+    private final Map<Long, String> cuestionarios = new ConcurrentHashMap<>();
+
     /**
      * Inicia la vista de listado de pacientes. (Modo Admin)
      * (Documentación...)
      */
     public void inicia() {
-        List<Paciente> todosLosPacientes = servicioPaciente.recuperarTodosLosPacientes();
-        ventana.muestra(this, todosLosPacientes);
+        fuentePacientes = servicioPaciente::recuperarPacientes;
+        pacientes = new ListaPaginada<>(ejecutorTareas, fuentePacientes);
+        pacientes.cargarPrimeraPagina();
+        ventana.muestra(this, pacientes, true);
     }
 
     /**
@@ -50,8 +79,46 @@ public class ControlListarPacientes {
             ventana.muestraDialogoDeError("Error: No se pudo identificar al psicólogo.");
             return;
         }
-        List<Paciente> pacientesAsignados = servicioPaciente.recuperarPacientesPorPsicologo(psicologo);
-        ventana.muestra(this, pacientesAsignados);
+        fuentePacientes = posicion -> servicioPaciente.recuperarPacientesPorPsicologo(psicologo, posicion);
+        pacientes = new ListaPaginada<>(ejecutorTareas, fuentePacientes);
+        pacientes.cargarPrimeraPagina();
+        // El filtro recorre los pacientes de todo el centro, así que sólo lo tiene el administrador
+        ventana.muestra(this, pacientes, false);
+    }
+
+    /**
+     * Cambia entre la lista completa y sólo los pacientes que han contestado al
+     * menos un cuestionario, con su calificación más reciente de cada uno.
+     * Ambas listas se piden por páginas conforme se desplaza la tabla.
+     *
+     * @param soloConCuestionarios true para mostrar sólo los pacientes con cuestionarios.
+     */
+    public void filtrarConCuestionarios(boolean soloConCuestionarios) {
+        pacientes.cancelar();
+        cuestionarios.clear();
+        pacientes = new ListaPaginada<>(ejecutorTareas,
+                soloConCuestionarios ? this::paginaConCuestionarios : fuentePacientes);
+        pacientes.cargarPrimeraPagina();
+        ventana.mostrarPacientes(pacientes, soloConCuestionarios);
+    }
+
+    /**
+     * @param paciente un paciente de la lista filtrada.
+     * @return sus calificaciones más recientes, por ejemplo "BAI: 12, BDI-II: 20".
+     */
+    public String cuestionariosDe(Paciente paciente) {
+        return cuestionarios.getOrDefault(paciente.getId(), "");
+    }
+
+    // Se ejecuta fuera del hilo de JavaFX; guarda las calificaciones antes de entregar la página
+    private Window<Paciente> paginaConCuestionarios(ScrollPosition posicion) {
+        Window<PacienteConCuestionarios> pagina = servicioPsicologo.obtenerPacientesConCuestionarios(posicion);
+        for (PacienteConCuestionarios fila : pagina) {
+            cuestionarios.put(fila.paciente().getId(), fila.cuestionarios().stream()
+                    .map(c -> c.tipo() + ": " + c.calificacion())
+                    .collect(Collectors.joining(", ")));
+        }
+        return pagina.map(PacienteConCuestionarios::paciente);
     }
 
     /**
@@ -62,14 +129,21 @@ public class ControlListarPacientes {
         ventana.limpiarDetallesDeBateria();
         ventana.limpiarHistorialEnPestana();
 
-        if (paciente != null) {
-            ventana.mostrarBaterias(paciente.getBateriasClinicas());
-
-            HistorialClinico historial = paciente.getHistorialClinico();
-            if (historial != null) {
-                ventana.mostrarHistorialEnPestana(historial);
-            }
+        // La lista sólo trae los datos básicos; el expediente se carga al seleccionar.
+        // Si el usuario cambia de paciente antes de que llegue, se descarta.
+        if (cargaDetalle != null) {
+            cargaDetalle.cancel();
         }
+        cargaDetalle = ejecutorTareas.ejecutar(() -> servicioPaciente.obtenerDetallePaciente(paciente), detalle -> {
+            if (detalle != null) {
+                ventana.mostrarBaterias(detalle.getBateriasClinicas());
+
+                HistorialClinico historial = detalle.getHistorialClinico();
+                if (historial != null) {
+                    ventana.mostrarHistorialEnPestana(historial);
+                }
+            }
+        }, error -> ventana.muestraDialogoDeError("No se pudo cargar el expediente: " + error.getMessage()));
     }
 
     /**
@@ -97,12 +171,9 @@ public class ControlListarPacientes {
      */
     public void guardarComentarios(BateriaClinica bateria, String comentarios) {
         if (bateria != null) {
-            try {
-                servicioBateriaClinica.guardarComentarios(bateria, comentarios);
-                ventana.muestraDialogoDeInformacion("Comentarios guardados con éxito.");
-            } catch (Exception e) {
-                ventana.muestraDialogoDeError("Error al guardar: " + e.getMessage());
-            }
+            ejecutorTareas.ejecutar(() -> servicioBateriaClinica.guardarComentarios(bateria, comentarios),
+                    guardada -> ventana.muestraDialogoDeInformacion("Comentarios guardados con éxito."),
+                    error -> ventana.muestraDialogoDeError("Error al guardar: " + error.getMessage()));
         } else {
             ventana.muestraDialogoDeError("No hay una batería seleccionada para guardar comentarios.");
         }
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Component;
 import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -14,6 +15,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TableColumn;
@@ -26,6 +28,7 @@ import javafx.stage.Stage;
 import mx.uam.ayd.proyecto.negocio.modelo.BateriaClinica;
 import mx.uam.ayd.proyecto.negocio.modelo.HistorialClinico;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
 
 /**
  * Ventana de interfaz gráfica para listar pacientes y gestionar la visualización de sus datos clínicos.
@@ -40,6 +43,8 @@ public class VentanaListarPacientes {
     @FXML private TableColumn<Paciente, String> columnaNombre;
     @FXML private TableColumn<Paciente, String> columnaCorreo;
     @FXML private TableColumn<Paciente, String> columnaTelefono;
+    @FXML private TableColumn<Paciente, String> columnaCuestionarios;
+    @FXML private CheckBox chkSoloConCuestionarios;
     @FXML private ListView<String> listaBaterias;
     @FXML private Label puntajeObtenidoLabel;
     @FXML private TextArea comentariosTextArea;
@@ -68,12 +73,13 @@ public class VentanaListarPacientes {
     /**
      * Muestra la ventana de listado de pacientes.
      * (Documentación...)
+     * @param filtroDisponible si se ofrece el filtro de pacientes con cuestionarios.
      */
-    public void muestra(ControlListarPacientes control, List<Paciente> pacientes) {
+    public void muestra(ControlListarPacientes control, ListaPaginada<Paciente> pacientes, boolean filtroDisponible) {
         this.control = control;
 
         if (!Platform.isFxApplicationThread()) {
-            Platform.runLater(() -> muestra(control, pacientes));
+            Platform.runLater(() -> muestra(control, pacientes, filtroDisponible));
             return;
         }
 
@@ -86,8 +92,15 @@ public class VentanaListarPacientes {
             columnaNombre.setCellValueFactory(new PropertyValueFactory<>("nombre"));
             columnaCorreo.setCellValueFactory(new PropertyValueFactory<>("correo"));
             columnaTelefono.setCellValueFactory(new PropertyValueFactory<>("telefono"));
+            columnaCuestionarios.setCellValueFactory(
+                    celda -> new SimpleStringProperty(control.cuestionariosDe(celda.getValue())));
 
-            tablaPacientes.setItems(FXCollections.observableArrayList(pacientes));
+            mostrarPacientes(pacientes, false);
+
+            chkSoloConCuestionarios.setVisible(filtroDisponible);
+            chkSoloConCuestionarios.setManaged(filtroDisponible);
+            chkSoloConCuestionarios.selectedProperty().addListener(
+                    (observable, oldValue, newValue) -> control.filtrarConCuestionarios(newValue));
 
             // Listener para la selección de una batería en la lista
             listaBaterias.getSelectionModel().selectedItemProperty().addListener(
@@ -128,6 +141,17 @@ public class VentanaListarPacientes {
         }
     }
 
+    /**
+     * Muestra una nueva lista de pacientes en la tabla.
+     *
+     * @param pacientes la lista; la tabla pide la siguiente página al acercarse al final.
+     * @param conCuestionarios si se muestra la columna con las calificaciones de los cuestionarios.
+     */
+    public void mostrarPacientes(ListaPaginada<Paciente> pacientes, boolean conCuestionarios) {
+        pacientes.enlazar(tablaPacientes);
+        columnaCuestionarios.setVisible(conCuestionarios);
+    }
+
     /**
      * Muestra los detalles de un historial clínico
      * (Documentación...)
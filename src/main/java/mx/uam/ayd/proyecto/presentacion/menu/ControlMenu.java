@@ -3,10 +3,14 @@ package mx.uam.ayd.proyecto.presentacion.menu;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+
 import jakarta.annotation.PostConstruct;
 import javafx.application.Platform;
+import mx.uam.ayd.proyecto.negocio.ConciliadorPagos;
 import mx.uam.ayd.proyecto.negocio.ServicioAviso;
 import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
+import mx.uam.ayd.proyecto.negocio.modelo.ResultadoConciliacion;
 import mx.uam.ayd.proyecto.presentacion.agregarPaciente.ControlAgregarPaciente;
 import mx.uam.ayd.proyecto.presentacion.agregarPsicologo.ControlAgregarPsicologo;
 import mx.uam.ayd.proyecto.presentacion.listarPsicologo.ControlListarPsicologo;
@@ -17,6 +21,7 @@ import mx.uam.ayd.proyecto.presentacion.registrarNotas.ControlRegistrarNotas;
 import mx.uam.ayd.proyecto.presentacion.principal.ControlPrincipalCentro;
 import mx.uam.ayd.proyecto.negocio.ServicioEncuestaSatisfaccion;
 import mx.uam.ayd.proyecto.presentacion.reporteEncuesta.ControlReporteEncuesta;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 
 /**
  * Controlador principal del menú de la aplicación.
@@ -53,6 +58,8 @@ public class ControlMenu {
     private final ControlRegistrarNotas controlRegistrarNotas;
     private final ServicioEncuestaSatisfaccion servicioEncuestaSatisfaccion;
     private final ControlReporteEncuesta controlReporteEncuesta;
+    private final ConciliadorPagos conciliadorPagos;
+    private final EjecutorTareas ejecutorTareas;
     /**
      * Constructor que inyecta todas las dependencias necesarias para gestionar las opciones del menú.
      * 
@@ -63,6 +70,8 @@ public class ControlMenu {
      * @param controlAgregarPaciente controlador para la funcionalidad de agregar pacientes
      * @param controlPublicarAviso controlador para la funcionalidad de publicar avisos
      * @param servicioAviso servicio de negocio para manejar avisos
+     * @param conciliadorPagos importa el archivo de pagos del banco
+     * @param ejecutorTareas ejecuta la conciliación fuera del hilo de JavaFX
      */
     @Autowired
     public ControlMenu(
@@ -76,7 +85,9 @@ public class ControlMenu {
             ControlListaAvisos controlListaAvisos,
             ControlRegistrarNotas controlRegistrarNotas,
             ServicioEncuestaSatisfaccion servicioEncuestaSatisfaccion,
-            ControlReporteEncuesta controlReporteEncuesta
+            ControlReporteEncuesta controlReporteEncuesta,
+            ConciliadorPagos conciliadorPagos,
+            EjecutorTareas ejecutorTareas
         ) {
         this.ventana = ventana;
         this.controlListarPacientes = controlListarPacientes;
@@ -89,6 +100,8 @@ public class ControlMenu {
         this.controlRegistrarNotas = controlRegistrarNotas;
         this.servicioEncuestaSatisfaccion = servicioEncuestaSatisfaccion;
         this.controlReporteEncuesta = controlReporteEncuesta;
+        this.conciliadorPagos = conciliadorPagos;
+        this.ejecutorTareas = ejecutorTareas;
     }
     
     /**
@@ -176,6 +189,35 @@ public class ControlMenu {
         controlReporteEncuesta.inicia();
     }
 
+    /**
+     * Pide el archivo de liquidación del banco y lo concilia en segundo plano,
+     * mostrando cuántos renglones se han aplicado.
+     */
+    public void conciliarPagos() {
+        File archivo = ventana.eligeArchivoConciliacion();
+        if (archivo == null) {
+            return; // usuario canceló
+        }
+
+        ventana.muestraConciliacion(ejecutorTareas.ejecutarConAvance(avance -> {
+            avance.mensaje("Leyendo " + archivo.getName());
+            return conciliadorPagos.conciliar(archivo.toPath(),
+                    aplicados -> avance.mensaje(aplicados + " renglones aplicados"));
+        }, resultado -> ventana.muestraMensaje(textoConciliacion(resultado)),
+                error -> ventana.muestraError("No se pudo conciliar el archivo: " + error.getMessage())));
+    }
+
+    private static String textoConciliacion(ResultadoConciliacion resultado) {
+        return "Movimientos leídos: " + resultado.movimientos()
+                + "\nCitas pagadas: " + resultado.conciliados()
+                + "\nSin cita: " + resultado.sinCita()
+                + "\nImporte distinto: " + resultado.importeDistinto()
+                + "\nCitas ya pagadas: " + resultado.yaPagados()
+                + "\nCitas canceladas: " + resultado.cancelados()
+                + "\nYa registrados: " + resultado.duplicados()
+                + "\nRenglones inválidos: " + resultado.invalidos();
+    }
+
     /**
      * Finaliza la ejecución de la aplicación.
      */
@@ -1,13 +1,20 @@
 package mx.uam.ayd.proyecto.presentacion.menu;
 
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextArea;
 import javafx.scene.Scene;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.springframework.stereotype.Component;
+import java.io.File;
 import java.io.IOException;
 
 /**
@@ -20,6 +27,7 @@ import java.io.IOException;
  *   <li>Listar pacientes</li>
  *   <li>Agregar psicólogos</li>
  *   <li>Listar psicólogos</li>
+ *   <li>Conciliar el archivo de pagos del banco</li>
  *   <li>Salir de la aplicación</li>
  * </ul>
  * 
@@ -45,6 +53,10 @@ public class VentanaMenu {
     @FXML
     private TextArea avisoDisplayArea;
 
+    @FXML private Button botonConciliar;
+    @FXML private ProgressBar barraConciliacion;
+    @FXML private Label etiquetaConciliacion;
+
     /**
      * Constructor vacío requerido por Spring y JavaFX.
      */
@@ -72,7 +84,7 @@ public class VentanaMenu {
             
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ventana_Menu.fxml"));
             loader.setController(this);
-            Scene scene = new Scene(loader.load(), 700, 500);
+            Scene scene = new Scene(loader.load(), 700, 610);
             stage.setScene(scene);
             stage.setOnCloseRequest(e -> handleSalir());
             initialized = true;
@@ -200,6 +212,47 @@ public class VentanaMenu {
         }
     }
 
+    /**
+     * Pide el archivo de liquidación del banco que se va a conciliar.
+     *
+     * @return el archivo elegido, o null si el usuario canceló.
+     */
+    public File eligeArchivoConciliacion() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Conciliar pagos del banco");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Archivo CSV (*.csv)", "*.csv"));
+        return fileChooser.showOpenDialog(stage);
+    }
+
+    /**
+     * Muestra el avance de la conciliación mientras se ejecuta.
+     *
+     * @param tarea la conciliación en segundo plano
+     */
+    public void muestraConciliacion(Task<?> tarea) {
+        barraConciliacion.progressProperty().bind(tarea.progressProperty());
+        barraConciliacion.visibleProperty().bind(tarea.runningProperty());
+        etiquetaConciliacion.textProperty().bind(tarea.messageProperty());
+        etiquetaConciliacion.visibleProperty().bind(tarea.runningProperty());
+        botonConciliar.disableProperty().bind(tarea.runningProperty());
+    }
+
+    public void muestraMensaje(String mensaje) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Conciliación de pagos");
+        alert.setHeaderText(null);
+        alert.setContentText(mensaje);
+        alert.showAndWait();
+    }
+
+    public void muestraError(String mensaje) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(mensaje);
+        alert.showAndWait();
+    }
+
     @FXML
     private void handleRegistrarNotas(ActionEvent event) {
         if (control != null) {
@@ -229,6 +282,17 @@ public class VentanaMenu {
         }
     }
 
+    /**
+     * Acción del botón "Conciliar pagos".
+     * Llama al controlador para importar el archivo de pagos del banco.
+     */
+    @FXML
+    private void handleConciliarPagos() {
+        if (control != null) {
+            control.conciliarPagos();
+        }
+    }
+
     /**
      * Acción del botón "Salir".
      * Llama al controlador para cerrar la aplicación.
@@ -1,14 +1,30 @@
 package mx.uam.ayd.proyecto.presentacion.mostrarCitasPsic;
 
 import mx.uam.ayd.proyecto.negocio.ServicioCita; 
+import mx.uam.ayd.proyecto.negocio.ServicioGenerarPDFCita;
+import mx.uam.ayd.proyecto.negocio.eventos.CitaCreada;
+import mx.uam.ayd.proyecto.negocio.eventos.CitaReagendada;
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.presentacion.psicologoPrincipal.ControlPsicologo;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
 /**
  * Controlador para la ventana que muestra el horario de citas.
  * Se encarga de obtener las citas y pasarlas a la ventana.
@@ -22,8 +38,22 @@ public class ControlMostrarCitasPsic {
     @Autowired
     private ServicioCita servicioCita; 
 
+    @Autowired
+    private ServicioGenerarPDFCita servicioGenerarPDFCita;
+
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
     private ControlPsicologo controlPsicologo; 
 
+    // Se lee desde el hilo de eventos
+    private volatile Psicologo psicologo;
+
+    // Las citas que se muestran; sólo se usa en el hilo de JavaFX
+    private List<Cita> citas;
+
+    private Task<Integer> exportacion;
+
     /**
      * Inicia el flujo de mostrar el horario.
      *
@@ -31,10 +61,59 @@ public class ControlMostrarCitasPsic {
      */
   public void inicia(ControlPsicologo controlPsicologo, Psicologo psicologo) {
         this.controlPsicologo = controlPsicologo;
+        this.psicologo = psicologo;
 
-        List<Cita> citasDelPsicologo = servicioCita.obtenerCitasPorPsicologo(psicologo);
         ventana.setControlador(this);
-        ventana.muestra(citasDelPsicologo);
+        ejecutorTareas.ejecutar(() -> servicioCita.obtenerCitasPorPsicologo(psicologo),
+                (List<Cita> citasDelPsicologo) -> {
+                    citas = new ArrayList<>(citasDelPsicologo);
+                    ventana.muestra(citas);
+                },
+                error -> ventana.muestraError("No se pudieron cargar las citas: " + error.getMessage()));
+    }
+
+    /**
+     * Agrega al horario abierto la cita que agendó un paciente del psicólogo.
+     */
+    @EventListener
+    public void citaCreada(CitaCreada evento) {
+        actualizarCita(evento.citaId(), evento.psicologoId(), null);
+    }
+
+    /**
+     * Mueve en el horario abierto la cita que se reagendó, ya sea que llegue
+     * a este psicólogo o que salga de su horario.
+     */
+    @EventListener
+    public void citaReagendada(CitaReagendada evento) {
+        actualizarCita(evento.citaId(), evento.psicologoId(), evento.psicologoAnteriorId());
+    }
+
+    /**
+     * Pide sólo la cita que cambió y vuelve a pintar el horario con las citas
+     * ya cargadas, sin consultar las demás.
+     */
+    private void actualizarCita(int idCita, int psicologoId, Integer psicologoAnteriorId) {
+        Psicologo actual = psicologo;
+        if (actual == null || (actual.getId() != psicologoId
+                && (psicologoAnteriorId == null || actual.getId() != psicologoAnteriorId))) {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (citas == null || !ventana.estaVisible()) {
+                return;
+            }
+            ejecutorTareas.ejecutar(() -> servicioCita.obtenerCitaPorId(idCita), cita -> {
+                if (citas == null) {
+                    return;
+                }
+                citas.removeIf(c -> c.getId() == idCita);
+                if (cita != null && cita.getPsicologo() != null && cita.getPsicologo().getId() == actual.getId()) {
+                    citas.add(cita);
+                }
+                ventana.actualizaHorario(citas);
+            }, error -> ventana.muestraError("No se pudo actualizar el horario: " + error.getMessage()));
+        });
     }
 
     /**
@@ -48,6 +127,53 @@ public class ControlMostrarCitasPsic {
         // controlRegistrarNotas.inicia(cita); 
     }
 
+    /**
+     * Exporta en un ZIP los comprobantes de las citas de la semana que se muestra.
+     * Las citas se piden y los PDF se generan en segundo plano, con avance y cancelación.
+     */
+    public void exportarComprobantesSemana() {
+        LocalDate lunes = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate domingo = lunes.plusDays(6);
+
+        File archivo = ventana.eligeArchivoExportacion("Citas_" + lunes + ".zip");
+        if (archivo == null) {
+            return; // usuario canceló
+        }
+
+        exportacion = ejecutorTareas.ejecutarConAvance(avance -> {
+            avance.mensaje("Buscando citas");
+            List<Cita> citas = servicioCita.obtenerCitasParaExportar(psicologo, lunes, domingo);
+            try (OutputStream salida = Files.newOutputStream(archivo.toPath())) {
+                return servicioGenerarPDFCita.exportarCitasZip(citas, salida, escritos -> {
+                    avance.actualizar(escritos, citas.size());
+                    avance.mensaje(escritos + " de " + citas.size());
+                });
+            } catch (Exception e) {
+                // Cancelada o con error de escritura: no dejar un ZIP incompleto
+                try {
+                    Files.deleteIfExists(archivo.toPath());
+                } catch (IOException borrado) {
+                    e.addSuppressed(borrado);
+                }
+                throw e;
+            }
+        }, exportados -> ventana.muestraMensaje(exportados == 0
+                ? "No hay citas esta semana."
+                : "Se exportaron " + exportados + " comprobantes."),
+                error -> ventana.muestraError("No se pudieron exportar los comprobantes: " + error.getMessage()));
+
+        ventana.muestraExportacion(exportacion);
+    }
+
+    /**
+     * Cancela la exportación en curso, si la hay.
+     */
+    public void cancelarExportacion() {
+        if (exportacion != null) {
+            exportacion.cancel();
+        }
+    }
+
     /**
      * Regresa a la ventana principal del psicólogo.
      */
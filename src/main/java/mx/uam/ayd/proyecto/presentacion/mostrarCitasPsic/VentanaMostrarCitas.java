@@ -1,16 +1,22 @@
 package mx.uam.ayd.proyecto.presentacion.mostrarCitasPsic; // <-- CAMBIO AQUÍ
 
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.GridPane;
 import javafx.scene.text.TextAlignment;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
 import java.io.IOException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -39,6 +45,11 @@ public class VentanaMostrarCitas {
     @FXML private Label labelSabado;
     @FXML private Label labelDomingo;
 
+    @FXML private Button botonExportar;
+    @FXML private ProgressBar barraExportacion;
+    @FXML private Label etiquetaExportacion;
+    @FXML private Button botonCancelarExportacion;
+
     /**
      * Inicializa la interfaz de usuario
      */
@@ -94,6 +105,26 @@ public class VentanaMostrarCitas {
         stage.show();
     }
 
+    /**
+     * Vuelve a pintar el horario con las citas dadas, sin volver a mostrar la ventana.
+     *
+     * @param citas La lista de citas a mostrar.
+     */
+    public void actualizaHorario(List<Cita> citas) {
+        if (estaVisible()) {
+            poblarHorario(citas);
+        }
+    }
+
+    /**
+     * Indica si la ventana se está mostrando.
+     *
+     * @return true si la ventana está abierta.
+     */
+    public boolean estaVisible() {
+        return stage != null && stage.isShowing();
+    }
+
     /**
      * Recorre la lista de citas y las añade al GridPane.
      */
@@ -182,6 +213,64 @@ public class VentanaMostrarCitas {
     }
 
 
+    /**
+     * Pide dónde guardar el ZIP con los comprobantes.
+     *
+     * @param nombreSugerido el nombre inicial del archivo
+     * @return el archivo elegido, o null si el usuario canceló
+     */
+    public File eligeArchivoExportacion(String nombreSugerido) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Exportar comprobantes de citas");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Archivo ZIP (*.zip)", "*.zip"));
+        fileChooser.setInitialFileName(nombreSugerido);
+        return fileChooser.showSaveDialog(stage);
+    }
+
+    /**
+     * Muestra el avance de la exportación mientras se ejecuta y permite cancelarla.
+     *
+     * @param tarea la exportación en segundo plano
+     */
+    public void muestraExportacion(Task<?> tarea) {
+        barraExportacion.progressProperty().bind(tarea.progressProperty());
+        barraExportacion.visibleProperty().bind(tarea.runningProperty());
+        etiquetaExportacion.textProperty().bind(tarea.messageProperty());
+        etiquetaExportacion.visibleProperty().bind(tarea.runningProperty());
+        botonCancelarExportacion.visibleProperty().bind(tarea.runningProperty());
+        botonExportar.disableProperty().bind(tarea.runningProperty());
+    }
+
+    public void muestraMensaje(String mensaje) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Exportación de comprobantes");
+        alert.setHeaderText(null);
+        alert.setContentText(mensaje);
+        alert.showAndWait();
+    }
+
+    public void muestraError(String mensaje) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(mensaje);
+        alert.showAndWait();
+    }
+
+    @FXML
+    private void handleExportar() {
+        if (controlador != null) {
+            controlador.exportarComprobantesSemana();
+        }
+    }
+
+    @FXML
+    private void handleCancelarExportacion() {
+        if (controlador != null) {
+            controlador.cancelarExportacion();
+        }
+    }
+
     @FXML
     private void handleVolver() {
         if (controlador != null) {
@@ -1,6 +1,7 @@
 package mx.uam.ayd.proyecto.presentacion.pacientePrincipal.ActualizarInformacion;
 
 import javafx.scene.control.Alert;
+import mx.uam.ayd.proyecto.negocio.CifradoContrasenas;
 import mx.uam.ayd.proyecto.negocio.ServicioPaciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.presentacion.pacientePrincipal.ControlPaciente;
@@ -22,6 +23,9 @@ public class ControlActualizarInformacion {
     @Autowired
     private ServicioPaciente servicioPaciente;
 
+    @Autowired
+    private CifradoContrasenas cifradoContrasenas;
+
     private ControlPaciente controlPaciente;
     private Paciente pacienteActual;
 
@@ -32,8 +36,8 @@ public class ControlActualizarInformacion {
      */
     public void inicia(Paciente paciente, ControlPaciente controlPaciente) {
         this.controlPaciente = controlPaciente;
-        // Recargar paciente de la BD para asegurar datos frescos
-        this.pacienteActual = servicioPaciente.obtenerPacientePorUsuario(paciente.getUsuario());
+        // Sin la caché: este objeto se modifica antes de guardarlo
+        this.pacienteActual = servicioPaciente.obtenerPacienteParaEditar(paciente.getUsuario());
 
         if (pacienteActual != null) {
             ventana.setControlador(this);
@@ -81,7 +85,7 @@ public class ControlActualizarInformacion {
             return;
         }
 
-        if (!pacienteActual.getContrasena().equals(passActual)) {
+        if (!cifradoContrasenas.coincide(passActual, pacienteActual.getContrasena())) {
             ventana.muestraMensaje("Error", "La contraseña actual es incorrecta.", Alert.AlertType.ERROR);
             return;
         }
@@ -100,6 +104,7 @@ public class ControlActualizarInformacion {
         }
 
         // 5. Guardar
+        String usuarioAnterior = pacienteActual.getUsuario();
         try {
             int edad = Integer.parseInt(edadStr);
 
@@ -109,7 +114,7 @@ public class ControlActualizarInformacion {
             pacienteActual.setCorreo(correo);
 
             if (cambiarPass) {
-                pacienteActual.setContrasena(passNueva);
+                pacienteActual.setContrasena(cifradoContrasenas.cifrar(passNueva));
             }
 
             pacienteActual.setFechaUltimaActualizacion(LocalDateTime.now());
@@ -130,6 +135,11 @@ public class ControlActualizarInformacion {
         } catch (NumberFormatException e) {
             ventana.muestraMensaje("Error", "La edad debe ser un número válido.", Alert.AlertType.ERROR);
         } catch (Exception e) {
+            // Descartar los cambios que no se guardaron
+            Paciente guardado = servicioPaciente.obtenerPacienteParaEditar(usuarioAnterior);
+            if (guardado != null) {
+                pacienteActual = guardado;
+            }
             ventana.muestraMensaje("Error del Sistema", "Fallo en la actualización: " + e.getMessage(), Alert.AlertType.ERROR);
         }
     }
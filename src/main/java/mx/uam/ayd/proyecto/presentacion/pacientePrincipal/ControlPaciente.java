@@ -5,11 +5,12 @@ import mx.uam.ayd.proyecto.presentacion.pacientePrincipal.reagendarCita.ControlR
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import mx.uam.ayd.proyecto.negocio.ServicioAviso;
 import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.function.LongConsumer;
 
 import mx.uam.ayd.proyecto.negocio.ServicioCita;
 import mx.uam.ayd.proyecto.negocio.ServicioNotificacion;
@@ -17,6 +18,8 @@ import mx.uam.ayd.proyecto.negocio.modelo.Cita;
 import mx.uam.ayd.proyecto.negocio.modelo.Notificacion;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.ServicioEncuestaSatisfaccion;
+import mx.uam.ayd.proyecto.negocio.eventos.AvisoPublicado;
+import mx.uam.ayd.proyecto.negocio.eventos.EncuestaHabilitada;
 
 import mx.uam.ayd.proyecto.presentacion.pacientePrincipal.RegistroEmocinal.ControlRegistroEmocinal;
 import mx.uam.ayd.proyecto.presentacion.pacientePrincipal.lineaCaptura.ControlLineaCaptura;
@@ -66,15 +69,19 @@ public class ControlPaciente {
 
     private ControlPrincipalCentro controlPrincipal;
 
-    private Paciente pacienteSesion;
+    // Se lee desde el hilo de eventos
+    private volatile Paciente pacienteSesion;
+
+    // Recibe los cambios del contador de no leídas; el servicio puede avisar desde otro hilo
+    private final LongConsumer oyenteNoLeidas = noLeidas ->
+            Platform.runLater(() -> ventana.setNotificacionActiva(noLeidas > 0));
 
     public void inicia(Paciente paciente, ControlPrincipalCentro controlPrincipal) {
         this.pacienteSesion = paciente;
         this.controlPrincipal = controlPrincipal;
         ventana.setControlador(this);
 
-        // NUEVO: Registrarse en el servicio para recibir notificaciones
-        servicioEncuestaSatisfaccion.registrarPacienteListener(this);
+        servicioNotificacion.registrarOyentePaciente(paciente, oyenteNoLeidas);
 
         ventana.muestra();
         cargarAvisos();
@@ -88,10 +95,7 @@ public class ControlPaciente {
             String textoParaMostrar;
 
             if (ultimoAviso != null) {
-                LocalDate fecha = ultimoAviso.getFecha();
-                String contenido = ultimoAviso.getContenido();
-                String fechaFormateada = "Publicado el: " + fecha.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                textoParaMostrar = fechaFormateada + "\n\n" + contenido;
+                textoParaMostrar = textoAviso(ultimoAviso);
             } else {
                 textoParaMostrar = "No hay avisos nuevos por el momento.";
             }
@@ -102,6 +106,31 @@ public class ControlPaciente {
         }
     }
 
+    private String textoAviso(Aviso aviso) {
+        String fechaFormateada = "Publicado el: " + aviso.getFecha().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        return fechaFormateada + "\n\n" + aviso.getContenido();
+    }
+
+    /**
+     * Muestra el aviso recién publicado sin volver a consultarlo.
+     */
+    @EventListener
+    public void avisoPublicado(AvisoPublicado evento) {
+        if (pacienteSesion != null) {
+            Platform.runLater(() -> ventana.setAvisos(textoAviso(evento.aviso())));
+        }
+    }
+
+    /**
+     * Habilita el botón de la encuesta cuando el administrador la habilita.
+     */
+    @EventListener
+    public void encuestaHabilitada(EncuestaHabilitada evento) {
+        if (pacienteSesion != null) {
+            actualizarEstadoEncuesta();
+        }
+    }
+
     public Paciente getPacienteSesion() {
         return pacienteSesion;
     }
@@ -116,8 +145,9 @@ public class ControlPaciente {
 
         ventana.oculta();
 
-        // NUEVO: Desregistrarse del servicio al salir
-        servicioEncuestaSatisfaccion.desregistrarPacienteListener();
+        if (pacienteSesion != null) {
+            servicioNotificacion.desregistrarOyentePaciente(pacienteSesion, oyenteNoLeidas);
+        }
 
         this.pacienteSesion = null;
         if (controlPrincipal != null) {
@@ -196,13 +226,15 @@ public class ControlPaciente {
      * la interfaz de usuario.
      */
     public void actualizarEstadoEncuesta() {
-        // Como este método es llamado por el Servicio (que no está en el hilo de JavaFX),
+        // Como este método se llama desde el hilo de eventos (que no es el de JavaFX),
         // es crucial asegurar el cambio en la UI usando Platform.runLater
         Platform.runLater(this::verificarEstadoEncuesta);
     }
 
     private void verificarEstadoEncuesta() {
-        boolean estaHabilitada = servicioEncuestaSatisfaccion.isEncuestaHabilitada();
+        // La encuesta sólo se puede contestar una vez
+        boolean estaHabilitada = servicioEncuestaSatisfaccion.isEncuestaHabilitada()
+                && !servicioEncuestaSatisfaccion.yaRespondio(pacienteSesion);
         ventana.setEncuestaHabilitada(estaHabilitada);
         if (estaHabilitada) {
             System.out.println("ControlPaciente: Encuesta de Satisfacción habilitada.");
@@ -215,6 +247,11 @@ public class ControlPaciente {
      */
     public void handleAbrirEncuesta() {
         if (pacienteSesion != null) {
+            if (servicioEncuestaSatisfaccion.yaRespondio(pacienteSesion)) {
+                ventana.setEncuestaHabilitada(false);
+                ventana.muestraAviso("Encuesta de satisfacción", "Ya respondiste la encuesta. ¡Gracias!");
+                return;
+            }
             Runnable onCompletion = () -> {
                 ventana.setEncuestaHabilitada(false);
             };
@@ -231,7 +268,6 @@ public class ControlPaciente {
     public void verificarNotificaciones() {
         if (pacienteSesion != null) {
             try {
-                servicioCita.verificarCitasProximas(pacienteSesion);
                 long cantidadNoLeidas = servicioNotificacion.contarNoLeidasPaciente(pacienteSesion);
 
                 // Si existe una notificación sin leer, sale la burbuja
@@ -254,8 +290,9 @@ public class ControlPaciente {
             // 2. Mostrar la lista en la ventana
             ventana.mostrarPanelNotificaciones(notificaciones);
 
-            // 3. Marcar como leídas y desactivar burbuja
-            servicioNotificacion.marcarTodasComoLeidasPaciente(pacienteSesion);
+            // 3. Marcar como leídas (solo las mostradas) y desactivar burbuja
+            servicioNotificacion.marcarTodasComoLeidasPaciente(pacienteSesion,
+                    servicioNotificacion.idMasReciente(notificaciones));
             ventana.setNotificacionActiva(false);
         }
     }
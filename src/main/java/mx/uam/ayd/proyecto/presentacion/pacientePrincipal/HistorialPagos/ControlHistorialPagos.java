@@ -1,12 +1,15 @@
 package mx.uam.ayd.proyecto.presentacion.pacientePrincipal.HistorialPagos;
 
 import jakarta.annotation.PostConstruct;
-import mx.uam.ayd.proyecto.negocio.ServicioCita;
-import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.ServicioPago;
+import mx.uam.ayd.proyecto.negocio.ServicioSaldoPaciente;
+import mx.uam.ayd.proyecto.negocio.modelo.OrdenHistorialPagos;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.PagoHistorial;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import java.util.List;
 
 @Component
 public class ControlHistorialPagos {
@@ -15,7 +18,16 @@ public class ControlHistorialPagos {
     private VentanaHistorialPagos ventanaHistorialPagos;
 
     @Autowired
-    private ServicioCita servicioCita;
+    private ServicioPago servicioPago;
+
+    @Autowired
+    private ServicioSaldoPaciente servicioSaldoPaciente;
+
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
+    private Paciente paciente;
+    private ListaPaginada<PagoHistorial> pagos;
 
     @PostConstruct
     public void init() {
@@ -23,15 +35,38 @@ public class ControlHistorialPagos {
     }
 
     /**
-     * Inicia el flujo pidiendo las citas del paciente
-     * y mostrándolas en la ventana.
+     * Inicia el flujo pidiendo los totales del paciente y la primera página de
+     * su historial, y mostrándolos en la ventana conforme llegan.
      */
     public void inicia(Paciente paciente) {
-        List<Cita> citas = servicioCita.listarCitasPorPaciente(paciente);
-        ventanaHistorialPagos.muestra(citas);
+        this.paciente = paciente;
+        ejecutorTareas.ejecutar(() -> servicioSaldoPaciente.obtenerSaldo(paciente),
+                ventanaHistorialPagos::muestraSaldo,
+                error -> ventanaHistorialPagos.muestraError("No se pudo cargar el saldo: " + error.getMessage()));
+        ventanaHistorialPagos.muestra(cargaPagos(OrdenHistorialPagos.RECIENTES));
+    }
+
+    /**
+     * Vuelve a pedir el historial en el orden indicado.
+     */
+    public void cambiarOrden(OrdenHistorialPagos orden) {
+        ventanaHistorialPagos.llenaLista(cargaPagos(orden));
+    }
+
+    private ListaPaginada<PagoHistorial> cargaPagos(OrdenHistorialPagos orden) {
+        if (pagos != null) {
+            pagos.cancelar();
+        }
+        pagos = new ListaPaginada<>(ejecutorTareas,
+                posicion -> servicioPago.listarHistorialPagos(paciente, orden, posicion));
+        pagos.cargarPrimeraPagina();
+        return pagos;
     }
 
     public void termina() {
+        if (pagos != null) {
+            pagos.cancelar();
+        }
         ventanaHistorialPagos.setVisible(false);
     }
-}
\ No newline at end of file
+}
@@ -1,22 +1,26 @@
 package mx.uam.ayd.proyecto.presentacion.pacientePrincipal.HistorialPagos;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.OrdenHistorialPagos;
+import mx.uam.ayd.proyecto.negocio.modelo.PagoHistorial;
+import mx.uam.ayd.proyecto.negocio.modelo.SaldoPaciente;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 @Component
 public class VentanaHistorialPagos {
@@ -25,7 +29,19 @@ public class VentanaHistorialPagos {
     private Stage stage;
 
     @FXML
-    private ListView<String> listViewPagos;
+    private ListView<PagoHistorial> listViewPagos;
+
+    @FXML
+    private ComboBox<OrdenHistorialPagos> comboOrden;
+
+    @FXML
+    private Label lblPagado;
+
+    @FXML
+    private Label lblPendiente;
+
+    @FXML
+    private Label lblVencido;
 
     @FXML
     private Button btnCerrar;
@@ -34,7 +50,7 @@ public class VentanaHistorialPagos {
         this.controlHistorialPagos = control;
     }
 
-    public void muestra(List<Cita> citas) {
+    public void muestra(ListaPaginada<PagoHistorial> pagos) {
         try {
             if (stage == null) {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ventanaHistorialPagos.fxml"));
@@ -46,9 +62,19 @@ public class VentanaHistorialPagos {
                 stage.setResizable(false);
                 stage.setScene(new Scene(root));
                 stage.initModality(Modality.APPLICATION_MODAL);
+
+                comboOrden.getItems().setAll(OrdenHistorialPagos.values());
             }
 
-            llenaLista(citas);
+            // Se fija sin avisar al control, que ya pidió el historial en este orden
+            comboOrden.setOnAction(null);
+            comboOrden.setValue(OrdenHistorialPagos.RECIENTES);
+            comboOrden.setOnAction(evento -> controlHistorialPagos.cambiarOrden(comboOrden.getValue()));
+            lblPagado.setText("Pagado: -");
+            lblPendiente.setText("Pendiente: -");
+            lblVencido.setText("Vencido: -");
+
+            llenaLista(pagos);
             stage.showAndWait();
 
         } catch (IOException e) {
@@ -74,48 +100,55 @@ public class VentanaHistorialPagos {
         }
     }
 
-    public void llenaLista(List<Cita> citas) {
-        if (listViewPagos == null) {
-            System.err.println("ListView no inicializado.");
+    /**
+     * Muestra los totales de pago del paciente.
+     */
+    public void muestraSaldo(SaldoPaciente saldo) {
+        if (lblPagado == null) {
             return;
         }
+        lblPagado.setText(String.format("Pagado: $%.2f (%d)", saldo.getMontoPagado(), saldo.getCitasPagadas()));
+        lblPendiente.setText(String.format("Pendiente: $%.2f (%d)", saldo.getMontoPendiente(), saldo.getCitasPendientes()));
+        lblVencido.setText(String.format("Vencido: $%.2f (%d)", saldo.getMontoVencido(), saldo.getCitasVencidas()));
+    }
 
-        listViewPagos.getItems().clear();
-        ObservableList<String> items = FXCollections.observableArrayList();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy 'a las' HH:mm");
-
-        if (citas.isEmpty()) {
-            items.add("No tienes citas ni pagos registrados.");
-        } else {
-            for (Cita cita : citas) {
-
-                String fecha = (cita.getFechaCita() != null) ? cita.getFechaCita().format(formatter) : "Fecha no definida";
-                String monto = String.format("$%.2f", cita.getMonto());
-                String linea = cita.getLineaCaptura();
-                String estado = cita.getEstadoCita().toString();
-
-                String texto = String.format(
-                        "FECHA: %s\nMONTO: %s\nLÍNEA: %s\nESTADO: %s",
-                        fecha, monto, linea, estado
-                );
+    /**
+     * Muestra un mensaje de error.
+     */
+    public void muestraError(String mensaje) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(mensaje);
+        alert.showAndWait();
+    }
 
-                items.add(texto);
-            }
+    /**
+     * Muestra el historial del paciente; las páginas siguientes se cargan
+     * conforme se desplaza la lista.
+     */
+    public void llenaLista(ListaPaginada<PagoHistorial> pagos) {
+        if (listViewPagos == null) {
+            System.err.println("ListView no inicializado.");
+            return;
         }
 
-        listViewPagos.setItems(items);
-
-        listViewPagos.setCellFactory(param -> new javafx.scene.control.ListCell<String>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                } else {
-                    setText(item);
-                    setWrapText(true);
-                }
-            }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy 'a las' HH:mm");
+        DateTimeFormatter formatoDia = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        LocalDate hoy = LocalDate.now();
+
+        listViewPagos.setPlaceholder(new Label("No tienes citas ni pagos registrados."));
+        pagos.enlazar(listViewPagos, pago -> {
+            String fecha = (pago.fechaCita() != null) ? pago.fechaCita().format(formatter) : "Fecha no definida";
+            String monto = String.format("$%.2f", pago.monto());
+            String linea = pago.lineaCaptura();
+            String vence = (pago.fechaVencimiento() != null) ? pago.fechaVencimiento().format(formatoDia) : "-";
+            String estado = pago.estadoPago(hoy).toString();
+
+            return String.format(
+                    "FECHA: %s\nMONTO: %s\nLÍNEA: %s\nVENCE: %s\nESTADO: %s",
+                    fecha, monto, linea, vence, estado
+            );
         });
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,23 @@
 package mx.uam.ayd.proyecto.presentacion.pacientePrincipal.ListarCitas;
 
 import java.io.File;
-import java.util.List;
 import java.awt.Desktop;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.stage.FileChooser;
 import mx.uam.ayd.proyecto.negocio.ServicioCita;
 import mx.uam.ayd.proyecto.negocio.ServicioGenerarPDFCita;
+import mx.uam.ayd.proyecto.negocio.eventos.CitaCreada;
+import mx.uam.ayd.proyecto.negocio.eventos.CitaReagendada;
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 
 @Component
 public class ControlListarCitas {
@@ -26,7 +31,11 @@ public class ControlListarCitas {
     @Autowired
     private ServicioGenerarPDFCita servicioGenerarPDFCita;
 
-    private String nombreUsuarioActivo;
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
+    // Se lee desde el hilo de eventos
+    private volatile String nombreUsuarioActivo;
 
     /**
      * Inicia la ventana de listar citas del paciente
@@ -34,10 +43,48 @@ public class ControlListarCitas {
     public void inicia(String nombreUsuarioActivo) {
         this.nombreUsuarioActivo = nombreUsuarioActivo;
 
-        List<Cita> citas = servicioCita.listarCitas(nombreUsuarioActivo);
-
         ventana.setControlador(this);
-        ventana.muestra(this, citas);
+        ejecutorTareas.ejecutar(() -> servicioCita.listarCitas(nombreUsuarioActivo),
+                citas -> ventana.muestra(this, citas),
+                error -> ventana.muestraError("No se pudieron cargar las citas: " + error.getMessage()));
+    }
+
+    /**
+     * Agrega a la tabla abierta la cita que agendó el paciente.
+     */
+    @EventListener
+    public void citaCreada(CitaCreada evento) {
+        actualizarCita(evento.citaId(), evento.usuarioPaciente());
+    }
+
+    /**
+     * Actualiza en la tabla abierta la cita que se reagendó.
+     */
+    @EventListener
+    public void citaReagendada(CitaReagendada evento) {
+        actualizarCita(evento.citaId(), evento.usuarioPaciente());
+    }
+
+    /**
+     * Pide sólo la cita que cambió y la pone en la tabla, si la ventana está
+     * abierta y la cita es del paciente que la abrió.
+     */
+    private void actualizarCita(int idCita, String usuarioPaciente) {
+        if (nombreUsuarioActivo == null || !nombreUsuarioActivo.equals(usuarioPaciente)) {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (!ventana.estaVisible()) {
+                return;
+            }
+            ejecutorTareas.ejecutar(() -> servicioCita.obtenerCitaPorId(idCita),
+                    cita -> {
+                        if (cita != null) {
+                            ventana.actualizarCita(cita);
+                        }
+                    },
+                    error -> ventana.muestraError("No se pudo actualizar la cita: " + error.getMessage()));
+        });
     }
 
     /**
@@ -61,17 +108,14 @@ public class ControlListarCitas {
             return;
         }
 
-        try {
+        ejecutorTareas.ejecutar(() -> {
             servicioCita.cancelarCita(idCita);
-            ventana.muestraExito("La cita fue cancelada correctamente.");
-
             // Recargar tabla con citas actualizadas
-            List<Cita> citas = servicioCita.listarCitas(nombreUsuarioActivo);
+            return servicioCita.listarCitas(nombreUsuarioActivo);
+        }, citas -> {
+            ventana.muestraExito("La cita fue cancelada correctamente.");
             ventana.cargarCitas(citas);
-
-        } catch (Exception e) {
-            ventana.muestraError("Error al cancelar cita: " + e.getMessage());
-        }
+        }, error -> ventana.muestraError("Error al cancelar cita: " + error.getMessage()));
     }
 
     /**
@@ -110,29 +154,37 @@ public class ControlListarCitas {
             return; // usuario canceló
         }
 
-        // Obtener los datos de la cita seleccionada
-        Cita cita = servicioCita.obtenerCitaPorId(idCita);
-        Paciente paciente = cita.getPaciente();
-        Psicologo psicologo = cita.getPsicologo();
-
-        // Generar
-        servicioGenerarPDFCita.generarCitaPDF(paciente, psicologo, cita, archivo.getAbsolutePath());
-
-        ventana.muestraExito("PDF generado correctamente");
-
-        abrirPDF(archivo);
+        Task<File> tarea = ejecutorTareas.ejecutarConAvance(avance -> {
+            // Obtener los datos de la cita seleccionada
+            avance.mensaje("Obteniendo la cita");
+            avance.actualizar(0, 2);
+            Cita cita = servicioCita.obtenerCitaPorId(idCita);
+            Paciente paciente = cita.getPaciente();
+            Psicologo psicologo = cita.getPsicologo();
+
+            // Generar
+            avance.mensaje("Generando PDF");
+            avance.actualizar(1, 2);
+            servicioGenerarPDFCita.generarCitaPDF(paciente, psicologo, cita, archivo.getAbsolutePath());
+            avance.actualizar(2, 2);
+            return archivo;
+        }, generado -> {
+            ventana.muestraExito("PDF generado correctamente");
+            abrirPDF(generado);
+        }, error -> ventana.muestraError("No se pudo generar el PDF: " + error.getMessage()));
+
+        ventana.muestraProgreso(tarea);
     }
 
     /**
-     * Abre el archivo PDF generado
+     * Abre el archivo PDF generado; el visor se lanza fuera del hilo de JavaFX.
      * @param archivo
      */
     private void abrirPDF(File archivo) {
-        try {
+        ejecutorTareas.ejecutar(() -> {
             Desktop.getDesktop().open(archivo);
-        } catch (Exception e) {
-            ventana.muestraError("No se pudo abrir el PDF");
-        }
+            return archivo;
+        }, abierto -> { }, error -> ventana.muestraError("No se pudo abrir el PDF"));
     }
 
 
@@ -11,16 +11,20 @@ import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.stage.Stage;
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
 
 @Component
 public class VentanaListarCitas {
@@ -37,6 +41,12 @@ public class VentanaListarCitas {
     @FXML
     private TableColumn<Cita, String> columnaFechaYHoraCita;
 
+    @FXML
+    private ProgressIndicator indicadorProgreso;
+
+    @FXML
+    private Label etiquetaProgreso;
+
     private ControlListarCitas controlador;
     private Stage stage;
 
@@ -78,6 +88,30 @@ public class VentanaListarCitas {
         mostrarCitas(citas);
     }
 
+    /**
+     * Agrega una cita a la tabla, o reemplaza la que tenga el mismo id, sin
+     * volver a cargar las demás. Una cita cancelada se quita.
+     *
+     * @param cita la cita nueva o modificada.
+     */
+    public void actualizarCita(Cita cita) {
+        ObservableList<Cita> datos = tablaCitasProximas.getItems();
+        datos.removeIf(c -> c.getId() == cita.getId());
+        if (cita.getEstadoCita() != TipoConfirmacionCita.CANCELADA) {
+            datos.add(cita);
+            FXCollections.sort(datos, Comparator.comparing(Cita::getFechaCita));
+        }
+    }
+
+    /**
+     * Indica si la ventana se está mostrando.
+     *
+     * @return true si la ventana está abierta.
+     */
+    public boolean estaVisible() {
+        return stage != null && stage.isShowing();
+    }
+
     private void mostrarCitas(List<Cita> citas) {
 
         citas.sort(Comparator.comparing(Cita::getFechaCita));
@@ -98,6 +132,18 @@ public class VentanaListarCitas {
         );
     }
 
+    /**
+     * Muestra el progreso y el paso actual de una tarea mientras se ejecuta.
+     *
+     * @param tarea la tarea en segundo plano
+     */
+    public void muestraProgreso(Task<?> tarea) {
+        indicadorProgreso.progressProperty().bind(tarea.progressProperty());
+        indicadorProgreso.visibleProperty().bind(tarea.runningProperty());
+        etiquetaProgreso.textProperty().bind(tarea.messageProperty());
+        etiquetaProgreso.visibleProperty().bind(tarea.runningProperty());
+    }
+
     public Integer getIdCitaSeleccionada() {
         Cita cita = tablaCitasProximas.getSelectionModel().getSelectedItem();
         if (cita == null) {
@@ -4,7 +4,7 @@ import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import mx.uam.ayd.proyecto.negocio.ServicioRegistroemocional;
+import mx.uam.ayd.proyecto.negocio.EscritorRegistrosEmocionales;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 
 @Component
@@ -14,7 +14,7 @@ public class ControlRegistroEmocinal {
     private VentanaRegistroEmocional ventanaRegistroEmocional;
 
     @Autowired
-    private ServicioRegistroemocional servicioRegistroEmocional;
+    private EscritorRegistrosEmocionales escritorRegistrosEmocionales;
 
     private Paciente pacienteActual;
 
@@ -57,7 +57,7 @@ public class ControlRegistroEmocinal {
         }
 
         try {
-            servicioRegistroEmocional.guardarRegistro(emocion, nota, pacienteLogueado);
+            escritorRegistrosEmocionales.guardar(emocion, nota, pacienteLogueado);
 
             ventanaRegistroEmocional.muestraAviso("Éxito", "Registro guardado correctamente.");
             termina();
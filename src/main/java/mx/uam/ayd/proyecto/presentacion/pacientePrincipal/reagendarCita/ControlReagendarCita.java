@@ -8,7 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class ControlReagendarCita {
@@ -45,6 +48,28 @@ public class ControlReagendarCita {
         ventana.cargarCitas(citas);
     }
 
+    /**
+     * Carga en la ventana las horas libres del psicólogo del paciente para la fecha elegida.
+     */
+    public void onFechaSeleccionada(LocalDate fecha) {
+        Paciente paciente = servicioPaciente.obtenerPacientePorUsuario(nombreUsuarioActivo);
+        if (fecha == null || paciente == null || paciente.getPsicologo() == null) {
+            ventana.cargarHoras(new ArrayList<>());
+            return;
+        }
+
+        int psicologoId = paciente.getPsicologo().getId();
+        Map<LocalDate, List<LocalTime>> disponibles = servicioCita
+                .obtenerHorariosDisponibles(List.of(paciente.getPsicologo()), fecha, fecha)
+                .getOrDefault(psicologoId, Map.of());
+
+        List<String> horas = new ArrayList<>();
+        for (LocalTime hora : disponibles.getOrDefault(fecha, List.of())) {
+            horas.add(String.format("%02d:00", hora.getHour()));
+        }
+        ventana.cargarHoras(horas);
+    }
+
     /**
      * Lógica para reagendar la cita.
      */
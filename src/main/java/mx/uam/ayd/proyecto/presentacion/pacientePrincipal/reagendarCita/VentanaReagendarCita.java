@@ -41,7 +41,6 @@ public class VentanaReagendarCita {
 
             configurarDatePicker();   //
             configurarComboBox();
-            cargarHoras();
             configurarListeners();
 
             stage.show();
@@ -72,7 +71,10 @@ public class VentanaReagendarCita {
             if (newVal != null && newVal.isBefore(LocalDate.now())) {
                 mostrarError("No puedes seleccionar una fecha pasada.");
                 dateNuevaFecha.setValue(null);
+                return;
             }
+            // Solo se ofrecen las horas libres del psicólogo para la fecha elegida
+            control.onFechaSeleccionada(newVal);
         });
     }
 
@@ -123,11 +125,9 @@ public class VentanaReagendarCita {
         }
     }
 
-    private void cargarHoras() {
-        comboNuevaHora.getItems().clear();
-        for (int h = 8; h <= 17; h++) {
-            comboNuevaHora.getItems().add(String.format("%02d:00", h));
-        }
+    public void cargarHoras(List<String> horas) {
+        comboNuevaHora.getItems().setAll(horas);
+        comboNuevaHora.setPromptText(horas.isEmpty() ? "No hay horarios disponibles" : "Seleccione un horario");
     }
 
     @FXML
@@ -0,0 +1,189 @@
+package mx.uam.ayd.proyecto.presentacion.paginacion;
+
+import java.util.function.Function;
+
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
+
+/**
+ * Elementos de una tabla o lista que se piden al servicio por páginas,
+ * conforme el usuario se desplaza hacia el final.
+ *
+ * <p>La tabla sólo crea celdas para las filas visibles; cuando se pinta una de
+ * las últimas filas cargadas se pide la siguiente página. Así el tiempo para
+ * mostrar la primera fila y la memoria usada no dependen del tamaño de la
+ * tabla en la base de datos.</p>
+ *
+ * <p>Se usa desde el hilo de JavaFX; las páginas se piden con
+ * {@link EjecutorTareas} y se agregan al llegar, así que la ventana se puede
+ * mostrar antes de que termine la primera consulta. Si una página falla no se
+ * piden más hasta volver a cargar la primera.</p>
+ *
+ * @param <T> el tipo de elemento de la lista.
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public class ListaPaginada<T> {
+
+    /**
+     * Cuántas filas antes del final se pide la siguiente página.
+     */
+    private static final int FILAS_ANTICIPADAS = 10;
+
+    private final EjecutorTareas ejecutor;
+    private final Function<ScrollPosition, Window<T>> fuente;
+    private final ObservableList<T> elementos = FXCollections.observableArrayList();
+
+    private ScrollPosition siguiente = ScrollPosition.keyset();
+    private boolean hayMas = true;
+    private Task<Window<T>> carga;
+    // Distingue la carga vigente de las que se cancelaron pero ya tenían resultado en camino
+    private int pedido;
+
+    /**
+     * @param ejecutor el ejecutor donde se piden las páginas.
+     * @param fuente el método del servicio que devuelve la página que empieza en la posición dada.
+     */
+    public ListaPaginada(EjecutorTareas ejecutor, Function<ScrollPosition, Window<T>> fuente) {
+        this.ejecutor = ejecutor;
+        this.fuente = fuente;
+    }
+
+    /**
+     * Descarta lo cargado y pide la primera página.
+     */
+    public void cargarPrimeraPagina() {
+        cancelar();
+        elementos.clear();
+        siguiente = ScrollPosition.keyset();
+        hayMas = true;
+        cargarSiguientePagina();
+    }
+
+    /**
+     * Pide la siguiente página, si la hay y no se está pidiendo ya; se agrega
+     * a los elementos cuando llega.
+     */
+    public void cargarSiguientePagina() {
+        if (!hayMas || carga != null) {
+            return;
+        }
+        ScrollPosition posicion = siguiente;
+        int este = ++pedido;
+        carga = ejecutor.ejecutar(() -> fuente.apply(posicion), pagina -> {
+            if (este == pedido) {
+                agregar(pagina);
+            }
+        }, error -> {
+            if (este == pedido) {
+                hayMas = false;
+            }
+        });
+    }
+
+    /**
+     * Cancela la página que se esté pidiendo, por ejemplo al cerrar la ventana.
+     */
+    public void cancelar() {
+        pedido++;
+        if (carga != null) {
+            carga.cancel();
+            carga = null;
+        }
+    }
+
+    private void agregar(Window<T> pagina) {
+        carga = null;
+        elementos.addAll(pagina.getContent());
+        hayMas = pagina.hasNext() && !pagina.isEmpty();
+        if (hayMas) {
+            siguiente = pagina.positionAt(pagina.size() - 1);
+        }
+    }
+
+    /**
+     * Agrega un elemento antes de los cargados, por ejemplo uno que se acaba de
+     * publicar. No cambia desde dónde se pide la siguiente página.
+     *
+     * @param elemento el elemento nuevo.
+     */
+    public void agregarAlInicio(T elemento) {
+        if (!elementos.contains(elemento)) {
+            elementos.add(0, elemento);
+        }
+    }
+
+    /**
+     * Avisa que se pintó la fila indicada; si está cerca del final de lo cargado,
+     * pide la siguiente página.
+     *
+     * <p>La página se agrega en un pulso posterior, fuera del ciclo de pintado,
+     * que no admite cambios en los elementos de la tabla.</p>
+     *
+     * @param indice el índice de la fila pintada.
+     */
+    public void filaMostrada(int indice) {
+        if (indice >= elementos.size() - FILAS_ANTICIPADAS) {
+            cargarSiguientePagina();
+        }
+    }
+
+    /**
+     * Muestra los elementos en la tabla y carga más conforme se desplaza.
+     *
+     * @param tabla la tabla; se reemplaza su fábrica de filas.
+     */
+    public void enlazar(TableView<T> tabla) {
+        tabla.setItems(elementos);
+        tabla.setRowFactory(t -> new TableRow<>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                if (!empty) {
+                    filaMostrada(getIndex());
+                }
+            }
+        });
+    }
+
+    /**
+     * Muestra los elementos en la lista, con ajuste de línea, y carga más
+     * conforme se desplaza.
+     *
+     * @param lista la lista; se reemplaza su fábrica de celdas.
+     * @param texto cómo mostrar cada elemento.
+     */
+    public void enlazar(ListView<T> lista, Function<T, String> texto) {
+        lista.setItems(elementos);
+        lista.setCellFactory(l -> new ListCell<>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setText(null);
+                    setGraphic(null);
+                } else {
+                    setText(texto.apply(item));
+                    setWrapText(true);
+                    filaMostrada(getIndex());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return los elementos cargados hasta ahora.
+     */
+    public ObservableList<T> getElementos() {
+        return elementos;
+    }
+}
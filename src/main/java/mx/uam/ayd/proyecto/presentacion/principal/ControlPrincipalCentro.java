@@ -2,14 +2,17 @@ package mx.uam.ayd.proyecto.presentacion.principal;
 
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.negocio.modelo.RolSesion;
+import mx.uam.ayd.proyecto.negocio.modelo.Sesion;
 import mx.uam.ayd.proyecto.presentacion.menu.ControlMenu;
 import mx.uam.ayd.proyecto.presentacion.psicologoPrincipal.ControlPsicologo;
 import mx.uam.ayd.proyecto.presentacion.pacientePrincipal.ControlPaciente;
-import mx.uam.ayd.proyecto.datos.PsicologoRepository;
-import mx.uam.ayd.proyecto.datos.PacienteRepository;
+import mx.uam.ayd.proyecto.negocio.ServicioAutenticacion;
 import mx.uam.ayd.proyecto.negocio.ServicioSesion; // Import de HEAD
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 
 import jakarta.annotation.PostConstruct;
+import javafx.concurrent.Task;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -17,17 +20,20 @@ import org.springframework.stereotype.Component;
 @Component
 public class ControlPrincipalCentro {
 
-    private static final String USER_ADMIN = "admin";
-    private static final String PASS_ADMIN = "admin1234";
-
     private final VentanaPrincipalCentro ventanaLogin;
     private final ControlMenu controlMenuAdmin;
     private final ControlPsicologo controlPsicologo;
     private final ControlPaciente controlPaciente;
 
-    private final PsicologoRepository psicologoRepository;
-    private final PacienteRepository pacienteRepository;
+    private final ServicioAutenticacion servicioAutenticacion;
     private final ServicioSesion servicioSesion; // Campo de HEAD
+    private final EjecutorTareas ejecutorTareas;
+
+    // Sesión de la ventana de escritorio; no vence por inactividad
+    private Sesion sesionActual;
+
+    // Autenticación en curso; sólo se usa desde el hilo de JavaFX
+    private Task<Runnable> autenticacion;
 
     @Autowired
     public ControlPrincipalCentro(
@@ -35,17 +41,17 @@ public class ControlPrincipalCentro {
             ControlMenu controlMenuAdmin,
             ControlPsicologo controlPsicologo,
             ControlPaciente controlPaciente,
-            PsicologoRepository psicologoRepository,
-            PacienteRepository pacienteRepository,
-            ServicioSesion servicioSesion // Parámetro de HEAD
+            ServicioAutenticacion servicioAutenticacion,
+            ServicioSesion servicioSesion, // Parámetro de HEAD
+            EjecutorTareas ejecutorTareas
     ) {
         this.ventanaLogin = ventanaLogin;
         this.controlMenuAdmin = controlMenuAdmin;
         this.controlPsicologo = controlPsicologo;
         this.controlPaciente = controlPaciente;
-        this.pacienteRepository = pacienteRepository;
-        this.psicologoRepository = psicologoRepository;
+        this.servicioAutenticacion = servicioAutenticacion;
         this.servicioSesion = servicioSesion; // Asignación de HEAD
+        this.ejecutorTareas = ejecutorTareas;
     }
 
     @PostConstruct
@@ -59,11 +65,18 @@ public class ControlPrincipalCentro {
 
     // Método de HEAD
     public void regresaAlLogin() {
-        servicioSesion.limpiarSesion();
+        if (sesionActual != null) {
+            servicioSesion.cerrar(sesionActual.getId());
+            sesionActual = null;
+        }
         ventanaLogin.limpiarCampos();
         ventanaLogin.muestra();
     }
 
+    /**
+     * Autentica al usuario en segundo plano, porque verificar la contraseña con
+     * BCrypt tarda, y al terminar abre la sesión y muestra la ventana de su rol.
+     */
     public void autenticar(String rol, String usuario, String contrasena) {
 
         if (usuario == null || usuario.trim().isEmpty() ||
@@ -72,45 +85,72 @@ public class ControlPrincipalCentro {
             ventanaLogin.mostrarError("Por favor ingrese usuario, contraseña y seleccione un rol.");
             return;
         }
+        if (!rol.equals("Psicólogo") && !rol.equals("Administrador") && !rol.equals("Paciente")) {
+            ventanaLogin.mostrarError("Rol seleccionado no válido.");
+            return;
+        }
+        if (autenticacion != null && autenticacion.isRunning()) {
+            return; // ya se está verificando un intento
+        }
 
-        boolean autenticado = false;
+        autenticacion = ejecutorTareas.ejecutar(() -> verificarCredenciales(rol, usuario, contrasena), entrada -> {
+            if (entrada == null) {
+                ventanaLogin.mostrarError("Credenciales incorrectas para el rol seleccionado.");
+            } else {
+                entrada.run();
+            }
+        }, error -> {
+            if (error instanceof IllegalStateException) {
+                // Usuario bloqueado por demasiados intentos fallidos
+                ventanaLogin.mostrarError(error.getMessage());
+            } else {
+                ventanaLogin.mostrarError("No se pudo iniciar sesión: " + error.getMessage());
+            }
+        });
+    }
 
+    /**
+     * Verifica las credenciales; se ejecuta fuera del hilo de JavaFX.
+     *
+     * @return lo que hay que hacer en el hilo de JavaFX para entrar, o null si las credenciales son incorrectas.
+     * @throws IllegalStateException si el usuario está bloqueado por demasiados intentos fallidos.
+     */
+    private Runnable verificarCredenciales(String rol, String usuario, String contrasena) {
         switch (rol) {
-
             case "Psicólogo":
-                Psicologo psicologo = psicologoRepository.findByUsuarioAndContrasena(usuario, contrasena);
-                if (psicologo != null) {
-                    autenticado = true;
-                    servicioSesion.setUsuarioActual(usuario); // Lógica de HEAD
+                Psicologo psicologo = servicioAutenticacion.autenticarPsicologo(usuario, contrasena);
+                return psicologo == null ? null : () -> {
+                    abrirSesion(usuario, RolSesion.PSICOLOGO);
                     mostrarSistemaPrincipalPsicologo(psicologo); // Lógica de hu-16
-                }
-                break;
+                };
 
             case "Administrador":
-                if (USER_ADMIN.equals(usuario) && PASS_ADMIN.equals(contrasena)) {
-                    autenticado = true;
-                    servicioSesion.setUsuarioActual(usuario); // Lógica de HEAD
+                return !servicioAutenticacion.autenticarAdministrador(usuario, contrasena) ? null : () -> {
+                    abrirSesion(usuario, RolSesion.ADMINISTRADOR);
                     mostrarSistemaPrincipalAdministrativo();
-                }
-                break;
+                };
 
             case "Paciente":
-                Paciente paciente = pacienteRepository.findByUsuario(usuario);
-                if (paciente != null && paciente.getContrasena().equals(contrasena)) {
-                    autenticado = true;
-                    servicioSesion.setUsuarioActual(usuario); // Lógica de HEAD
+                Paciente paciente = servicioAutenticacion.autenticarPaciente(usuario, contrasena);
+                return paciente == null ? null : () -> {
+                    abrirSesion(usuario, RolSesion.PACIENTE);
                     mostrarSistemaPrincipalPaciente(paciente); // Lógica de hu-16
-                }
-                break;
+                };
 
             default:
-                ventanaLogin.mostrarError("Rol seleccionado no válido.");
-                return;
+                throw new IllegalArgumentException("Rol seleccionado no válido.");
         }
+    }
+
+    public Sesion getSesionActual() {
+        return sesionActual;
+    }
 
-        if (!autenticado) {
-            ventanaLogin.mostrarError("Credenciales incorrectas para el rol seleccionado.");
+    private void abrirSesion(String usuario, RolSesion rol) {
+        if (sesionActual != null) {
+            servicioSesion.cerrar(sesionActual.getId());
         }
+        sesionActual = servicioSesion.abrir(usuario, rol, null);
     }
 
     public void mostrarSistemaPrincipalPsicologo(Psicologo psicologo) {
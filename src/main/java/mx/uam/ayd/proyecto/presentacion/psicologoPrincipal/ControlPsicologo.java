@@ -21,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.function.LongConsumer;
 
 @Component
 public class ControlPsicologo {
@@ -45,6 +46,11 @@ public class ControlPsicologo {
     // --- Lógica de Sesión de hu-16 (La correcta) ---
     private Psicologo psicologoSesion;
 
+    // Recibe los cambios del contador de no leídas; el servicio puede avisar desde otro hilo
+    private final LongConsumer oyenteNoLeidas = noLeidas ->
+            Platform.runLater(() -> ventana.setBurbujaVisible(noLeidas > 0));
+    private Psicologo psicologoEscuchado;
+
     /**
      * Método 'inicia' fusionado. Usa la firma de hu-16 y añade la lógica de HEAD.
      */
@@ -85,8 +91,24 @@ public class ControlPsicologo {
         if (psicologoACargar == null) {
             return;
         }
-        List<Notificacion> noLeidas = servicioNotificacion.obtenerNoLeidas(psicologoACargar);
-        ventana.setBurbujaVisible(!noLeidas.isEmpty());
+        escucharNotificaciones(psicologoACargar);
+        ventana.setBurbujaVisible(servicioNotificacion.contarNoLeidas(psicologoACargar) > 0);
+    }
+
+    private void escucharNotificaciones(Psicologo psicologo) {
+        if (psicologo == psicologoEscuchado) {
+            return;
+        }
+        dejarDeEscucharNotificaciones();
+        servicioNotificacion.registrarOyente(psicologo, oyenteNoLeidas);
+        psicologoEscuchado = psicologo;
+    }
+
+    private void dejarDeEscucharNotificaciones() {
+        if (psicologoEscuchado != null) {
+            servicioNotificacion.desregistrarOyente(psicologoEscuchado, oyenteNoLeidas);
+            psicologoEscuchado = null;
+        }
     }
 
     public void mostrarNotificaciones() {
@@ -99,8 +121,7 @@ public class ControlPsicologo {
         List<Notificacion> noLeidas = servicioNotificacion.obtenerNoLeidas(psicologoACargar);
         ventana.mostrarListViewNotificaciones(noLeidas);
 
-        servicioNotificacion.marcarTodasComoLeidas(psicologoACargar);
-        cargarIndicadorNotificaciones();
+        servicioNotificacion.marcarTodasComoLeidas(psicologoACargar, servicioNotificacion.idMasReciente(noLeidas));
     }
     // --- Fin Métodos Notificaciones ---
 
@@ -150,6 +171,7 @@ public class ControlPsicologo {
     // --- Método Salir (Fusionado, usando la lógica de hu-16) ---
     public void salir() {
         ventana.oculta();
+        dejarDeEscucharNotificaciones();
         this.psicologoSesion = null; // Limpiar sesión
         this.psicologoActual = null;
         this.psicologoLogueado = null;
@@ -184,8 +206,7 @@ public class ControlPsicologo {
             e.printStackTrace();
         }
 
-        servicioNotificacion.marcarTodasComoLeidas(psic);
-        cargarIndicadorNotificaciones();
+        servicioNotificacion.marcarTodasComoLeidas(psic, servicioNotificacion.idMasReciente(noLeidas));
     }
 
 
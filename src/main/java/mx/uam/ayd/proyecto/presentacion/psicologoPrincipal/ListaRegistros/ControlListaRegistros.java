@@ -1,11 +1,17 @@
 package mx.uam.ayd.proyecto.presentacion.psicologoPrincipal.ListaRegistros;
 
 import jakarta.annotation.PostConstruct;
+import javafx.concurrent.Task;
 import mx.uam.ayd.proyecto.negocio.ServicioRegistroemocional;
 import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.negocio.modelo.TendenciaEmocional;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
 import java.util.List;
 
 @Component
@@ -17,20 +23,61 @@ public class ControlListaRegistros {
     @Autowired
     private ServicioRegistroemocional servicioRegistroemocional;
 
+    @Autowired
+    private EjecutorTareas ejecutorTareas;
+
+    private Psicologo psicologo;
+    private ListaPaginada<RegistroEmocional> registros;
+    private Task<List<TendenciaEmocional>> cargaTendencia;
+
     @PostConstruct
     public void init() {
         ventanaListaRegistros.setControl(this);
     }
 
     /**
-     * Inicia el flujo pidiendo los registros del psicólogo
+     * Inicia el flujo pidiendo los registros del psicólogo y su tendencia
+     * semanal en el periodo por omisión.
      */
     public void inicia(Psicologo psicologo) {
-        List<RegistroEmocional> registros = servicioRegistroemocional.listarRegistrosPorPsicologo(psicologo);
-        ventanaListaRegistros.muestra(registros);
+        this.psicologo = psicologo;
+        ventanaListaRegistros.muestra(carga(VentanaListaRegistros.PERIODO_INICIAL));
+    }
+
+    /**
+     * Vuelve a pedir la lista y la gráfica para otro periodo.
+     */
+    public void cambiarPeriodo(PeriodoRegistros periodo) {
+        ventanaListaRegistros.llenaLista(carga(periodo));
+    }
+
+    private ListaPaginada<RegistroEmocional> carga(PeriodoRegistros periodo) {
+        cancelaCargas();
+        LocalDate hasta = LocalDate.now();
+        LocalDate desde = periodo.desde(hasta);
+
+        // La gráfica recibe los conteos ya agrupados por semana, no los registros
+        cargaTendencia = ejecutorTareas.ejecutar(() -> servicioRegistroemocional.obtenerTendencia(psicologo, desde, hasta),
+                tendencia -> ventanaListaRegistros.muestraTendencia(tendencia, desde, hasta),
+                error -> ventanaListaRegistros.muestraError("No se pudo cargar la tendencia: " + error.getMessage()));
+
+        registros = new ListaPaginada<>(ejecutorTareas,
+                posicion -> servicioRegistroemocional.listarRegistrosPorPsicologo(psicologo, desde, hasta, posicion));
+        registros.cargarPrimeraPagina();
+        return registros;
+    }
+
+    private void cancelaCargas() {
+        if (registros != null) {
+            registros.cancelar();
+        }
+        if (cargaTendencia != null) {
+            cargaTendencia.cancel();
+        }
     }
 
     public void termina() {
+        cancelaCargas();
         ventanaListaRegistros.setVisible(false);
     }
-}
\ No newline at end of file
+}
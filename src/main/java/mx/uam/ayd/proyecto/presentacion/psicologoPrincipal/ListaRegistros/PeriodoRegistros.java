@@ -0,0 +1,36 @@
+package mx.uam.ayd.proyecto.presentacion.psicologoPrincipal.ListaRegistros;
+
+import java.time.LocalDate;
+
+/**
+ * Periodos que se pueden consultar en la lista y la gráfica de registros emocionales.
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public enum PeriodoRegistros {
+    ULTIMO_MES("Último mes", 1),
+    TRES_MESES("Últimos 3 meses", 3),
+    SEIS_MESES("Últimos 6 meses", 6),
+    ULTIMO_ANIO("Último año", 12);
+
+    private final String descripcion;
+    private final int meses;
+
+    PeriodoRegistros(String descripcion, int meses) {
+        this.descripcion = descripcion;
+        this.meses = meses;
+    }
+
+    /**
+     * Devuelve el primer día del periodo que termina en el día indicado.
+     */
+    public LocalDate desde(LocalDate hasta) {
+        return hasta.minusMonths(meses).plusDays(1);
+    }
+
+    @Override
+    public String toString() {
+        return descripcion;
+    }
+}
@@ -1,30 +1,66 @@
 package mx.uam.ayd.proyecto.presentacion.psicologoPrincipal.ListaRegistros;
 
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.StackedBarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
+import mx.uam.ayd.proyecto.negocio.modelo.TendenciaEmocional;
+import mx.uam.ayd.proyecto.presentacion.paginacion.ListaPaginada;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Component
 public class VentanaListaRegistros {
 
+    static final PeriodoRegistros PERIODO_INICIAL = PeriodoRegistros.TRES_MESES;
+
+    private static final DateTimeFormatter FORMATO_SEMANA = DateTimeFormatter.ofPattern("dd/MM/yy");
+
     private ControlListaRegistros controlListaRegistros;
     private Stage stage;
 
+    // Tendencia del periodo mostrado; se filtra por paciente sin volver a consultarla
+    private List<TendenciaEmocional> tendencia = Collections.emptyList();
+    private List<String> semanas = Collections.emptyList();
+
+    @FXML
+    private ListView<RegistroEmocional> listViewRegistros;
+
     @FXML
-    private ListView<String> listViewRegistros;
+    private ComboBox<PeriodoRegistros> comboPeriodo;
+
+    @FXML
+    private ComboBox<OpcionPaciente> comboPaciente;
+
+    @FXML
+    private StackedBarChart<String, Number> graficaTendencia;
+
+    @FXML
+    private CategoryAxis ejeSemanas;
 
     @FXML
     private Button btnCerrar;
@@ -33,7 +69,7 @@ public class VentanaListaRegistros {
         this.controlListaRegistros = control;
     }
 
-    public void muestra(List<RegistroEmocional> registros) {
+    public void muestra(ListaPaginada<RegistroEmocional> registros) {
         try {
             if (stage == null) {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ventanaListaRegistros.fxml"));
@@ -45,8 +81,17 @@ public class VentanaListaRegistros {
                 stage.setResizable(false);
                 stage.setScene(new Scene(root));
                 stage.initModality(Modality.APPLICATION_MODAL);
+
+                comboPeriodo.getItems().setAll(PeriodoRegistros.values());
+                comboPaciente.setOnAction(evento -> dibujaTendencia());
+                graficaTendencia.setAnimated(false);
             }
 
+            // Se fija sin avisar al control, que ya pidió los datos de este periodo
+            comboPeriodo.setOnAction(null);
+            comboPeriodo.setValue(PERIODO_INICIAL);
+            comboPeriodo.setOnAction(evento -> controlListaRegistros.cambiarPeriodo(comboPeriodo.getValue()));
+
             llenaLista(registros);
             stage.showAndWait();
 
@@ -70,52 +115,117 @@ public class VentanaListaRegistros {
         }
     }
 
-    public void llenaLista(List<RegistroEmocional> registros) {
-        if (listViewRegistros == null) {
-            System.err.println("ListView no inicializado.");
+    /**
+     * Muestra la tendencia semanal del periodo y llena el filtro con sus pacientes.
+     *
+     * @param tendencia los conteos por paciente, semana y emoción.
+     * @param desde el primer día del periodo.
+     * @param hasta el último día del periodo.
+     */
+    public void muestraTendencia(List<TendenciaEmocional> tendencia, LocalDate desde, LocalDate hasta) {
+        if (graficaTendencia == null) {
             return;
         }
+        this.tendencia = tendencia;
 
-        listViewRegistros.getItems().clear();
-        ObservableList<String> items = FXCollections.observableArrayList();
-
-        if (registros.isEmpty()) {
-            items.add("No hay registros emocionales.");
-        } else {
-            for (RegistroEmocional registro : registros) {
+        // Todas las semanas del periodo, aunque alguna no tenga registros
+        List<String> semanas = new ArrayList<>();
+        for (LocalDate lunes = desde.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                !lunes.isAfter(hasta); lunes = lunes.plusWeeks(1)) {
+            semanas.add(lunes.format(FORMATO_SEMANA));
+        }
+        this.semanas = semanas;
 
-                String nombrePaciente = "Paciente Desconocido";
+        Map<Long, OpcionPaciente> pacientes = new LinkedHashMap<>();
+        for (TendenciaEmocional fila : tendencia) {
+            pacientes.putIfAbsent(fila.pacienteId(), new OpcionPaciente(fila.pacienteId(), fila.nombrePaciente()));
+        }
+        List<OpcionPaciente> opciones = new ArrayList<>();
+        opciones.add(OpcionPaciente.TODOS);
+        opciones.addAll(pacientes.values());
+
+        // El filtro se reemplaza sin redibujar por cada cambio
+        comboPaciente.setOnAction(null);
+        comboPaciente.getItems().setAll(opciones);
+        comboPaciente.setValue(OpcionPaciente.TODOS);
+        comboPaciente.setOnAction(evento -> dibujaTendencia());
+        dibujaTendencia();
+    }
 
-                if (registro.getPaciente() != null) {
-                    nombrePaciente = registro.getPaciente().getNombre();
-                }
+    private void dibujaTendencia() {
+        OpcionPaciente seleccion = comboPaciente.getValue();
+        Long pacienteId = seleccion != null ? seleccion.pacienteId() : null;
 
-                String texto = String.format("PACIENTE: %s (%s)\nEMOCIÓN: %s",
-                        nombrePaciente,
-                        registro.getFecha().toString(),
-                        registro.getEmocion());
+        // Por emoción, los registros de cada semana; con todos los pacientes se suman
+        Map<String, Map<String, Long>> porEmocion = new TreeMap<>();
+        for (TendenciaEmocional fila : tendencia) {
+            if (pacienteId == null || pacienteId.equals(fila.pacienteId())) {
+                porEmocion.computeIfAbsent(fila.emocion(), emocion -> new LinkedHashMap<>())
+                        .merge(fila.semana().format(FORMATO_SEMANA), fila.registros(), Long::sum);
+            }
+        }
 
-                if (registro.getNota() != null && !registro.getNota().isEmpty()) {
-                    texto += "\nNOTA: " + registro.getNota();
-                }
-                items.add(texto);
+        List<XYChart.Series<String, Number>> series = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Long>> emocion : porEmocion.entrySet()) {
+            XYChart.Series<String, Number> serie = new XYChart.Series<>();
+            serie.setName(emocion.getKey());
+            for (Map.Entry<String, Long> semana : emocion.getValue().entrySet()) {
+                serie.getData().add(new XYChart.Data<>(semana.getKey(), semana.getValue()));
             }
+            series.add(serie);
+        }
+        ejeSemanas.setCategories(FXCollections.observableArrayList(semanas));
+        graficaTendencia.getData().setAll(series);
+    }
+
+    public void llenaLista(ListaPaginada<RegistroEmocional> registros) {
+        if (listViewRegistros == null) {
+            System.err.println("ListView no inicializado.");
+            return;
         }
 
-        listViewRegistros.setItems(items);
-
-        // Habilitar el ajuste de texto
-        listViewRegistros.setCellFactory(param -> new javafx.scene.control.ListCell<String>() {
-            @Override
-            protected void updateItem(String item, boolean empty) {
-                super.updateItem(item, empty);
-                if (empty || item == null) {
-                    setText(null);
-                } else {
-                    setText(item);
-                    setWrapText(true);
-                }
+        listViewRegistros.setPlaceholder(new Label("No hay registros emocionales."));
+        // Las páginas siguientes se cargan al desplazarse; las celdas ajustan el texto
+        registros.enlazar(listViewRegistros, registro -> {
+            String nombrePaciente = "Paciente Desconocido";
+
+            if (registro.getPaciente() != null) {
+                nombrePaciente = registro.getPaciente().getNombre();
             }
+
+            String texto = String.format("PACIENTE: %s (%s)\nEMOCIÓN: %s",
+                    nombrePaciente,
+                    registro.getFecha().toString(),
+                    registro.getEmocion());
+
+            if (registro.getNota() != null && !registro.getNota().isEmpty()) {
+                texto += "\nNOTA: " + registro.getNota();
+            }
+            return texto;
         });
     }
-}
\ No newline at end of file
+
+    /**
+     * Muestra un mensaje de error.
+     */
+    public void muestraError(String mensaje) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error");
+        alert.setHeaderText(null);
+        alert.setContentText(mensaje);
+        alert.showAndWait();
+    }
+
+    /**
+     * Un paciente en el filtro de la gráfica; {@link #TODOS} suma a todos.
+     */
+    private record OpcionPaciente(Long pacienteId, String nombre) {
+
+        static final OpcionPaciente TODOS = new OpcionPaciente(null, "Todos los pacientes");
+
+        @Override
+        public String toString() {
+            return nombre != null ? nombre : "Paciente " + pacienteId;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package mx.uam.ayd.proyecto.presentacion.reporteEncuesta;
 
 import mx.uam.ayd.proyecto.negocio.ServicioReporteEncuesta; 
+import mx.uam.ayd.proyecto.negocio.modelo.ReporteCalificaciones;
+import mx.uam.ayd.proyecto.presentacion.tareas.EjecutorTareas;
+import javafx.concurrent.Task;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
-import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Controlador de Lógica de Negocio para el Reporte de Encuesta.
@@ -16,8 +20,21 @@ public class ControlReporteEncuesta {
     @Autowired
     private ServicioReporteEncuesta servicioReporteEncuesta; 
     @Autowired
+    private EjecutorTareas ejecutorTareas;
+    @Autowired
     @Lazy 
     private VentanaReporteEncuesta ventana; 
+
+    // Histogramas de Q1–Q7 calculados al abrir la ventana; cambiar de pregunta no vuelve a consultar
+    private ReporteCalificaciones reporte;
+
+    // Pregunta abierta mostrada y su última página cargada
+    private String preguntaAbierta;
+    private Slice<String> paginaComentarios;
+
+    // Consultas en curso; se cancelan si el usuario pide otra cosa o cierra la ventana
+    private Task<ReporteCalificaciones> cargaReporte;
+    private Task<Slice<String>> cargaComentarios;
     
     /**
      * Punto de entrada para mostrar la ventana (llamado desde ControlMenu).
@@ -28,9 +45,12 @@ public class ControlReporteEncuesta {
     }
     
     /**
-     * Llamado por la vista justo antes de mostrarse para cargar los datos iniciales.
+     * Llamado por la vista justo antes de mostrarse para pedir los datos iniciales.
+     * La ventana se abre de inmediato y se llena cuando llegan.
      */
     public void cargarDatosIniciales() {
+        reporte = null;
+        cargarReporte(null);
         mostrarComentarios("q9Comentarios");
     }
 
@@ -38,25 +58,93 @@ public class ControlReporteEncuesta {
      * Obtiene y muestra los conteos de respuestas para una pregunta de opción múltiple.
      */
     public void mostrarGrafica(String pregunta) {
-        // CORRECCIÓN APLICADA AQUÍ: Se cambia Map<Integer, Long> a Map<String, Long>
-        Map<String, Long> conteos = servicioReporteEncuesta.obtenerConteoRespuestas(pregunta);
-        
-        // La ventana (VentanaReporteEncuesta) debe ser actualizada para recibir Map<String, Long>
-        ventana.actualizarGrafica(pregunta, conteos);
+        if (reporte == null) {
+            cargarReporte(pregunta);
+            return;
+        }
+        Map<String, Long> conteos = servicioReporteEncuesta.obtenerConteoRespuestas(reporte, pregunta);
+        int numero = ReporteCalificaciones.numeroPregunta(pregunta);
+        double promedio = ReporteCalificaciones.esPreguntaCerrada(pregunta) ? reporte.promedio(numero) : 0;
+        double desviacion = ReporteCalificaciones.esPreguntaCerrada(pregunta) ? Math.sqrt(reporte.varianza(numero)) : 0;
+
+        ventana.actualizarGrafica(pregunta, conteos, promedio, desviacion);
+    }
+
+    /**
+     * Pide el reporte en segundo plano y, si se indica, muestra la gráfica de la pregunta al llegar.
+     */
+    private void cargarReporte(String pregunta) {
+        if (cargaReporte != null) {
+            cargaReporte.cancel();
+        }
+        cargaReporte = ejecutorTareas.ejecutar(servicioReporteEncuesta::generarReporte, nuevo -> {
+            reporte = nuevo;
+            if (pregunta != null) {
+                mostrarGrafica(pregunta);
+            }
+        }, error -> ventana.muestraError("No se pudo generar el reporte: " + error.getMessage()));
     }
     
     /**
      * Obtiene y muestra los comentarios de texto para una pregunta abierta.
      */
     public void mostrarComentarios(String pregunta) {
-        List<String> comentarios = servicioReporteEncuesta.obtenerRespuestasAbiertas(pregunta);
-        ventana.actualizarListaComentarios(pregunta, comentarios);
+        preguntaAbierta = pregunta;
+        cargarComentarios(pregunta, 0, pagina -> ventana.actualizarListaComentarios(
+                pregunta, pagina.getContent(), pagina.hasNext()));
+    }
+
+    /**
+     * Carga la siguiente página de la pregunta abierta que se está mostrando.
+     */
+    public void mostrarMasComentarios() {
+        if (paginaComentarios == null || !paginaComentarios.hasNext()
+                || (cargaComentarios != null && cargaComentarios.isRunning())) {
+            return;
+        }
+        cargarComentarios(preguntaAbierta, paginaComentarios.getNumber() + 1,
+                pagina -> ventana.agregarComentarios(pagina.getContent(), pagina.hasNext()));
+    }
+
+    /**
+     * Pide una página de respuestas abiertas; descarta la que se estuviera pidiendo.
+     */
+    private void cargarComentarios(String pregunta, int numeroPagina, Consumer<Slice<String>> mostrar) {
+        if (cargaComentarios != null) {
+            cargaComentarios.cancel();
+        }
+        cargaComentarios = ejecutorTareas.ejecutar(
+                () -> servicioReporteEncuesta.obtenerRespuestasAbiertas(pregunta, numeroPagina), pagina -> {
+                    paginaComentarios = pagina;
+                    mostrar.accept(pagina);
+                }, error -> ventana.muestraError("No se pudieron cargar los comentarios: " + error.getMessage()));
     }
     
+    /**
+     * Recalcula el resumen de la encuesta desde las respuestas guardadas e informa si había diferencias.
+     */
+    public void recalcularResumen() {
+        ejecutorTareas.ejecutar(servicioReporteEncuesta::reconstruirResumen, diferencias -> {
+            reporte = null;
+            cargarReporte(null);
+            ventana.muestraMensaje(diferencias == 0
+                    ? "El resumen coincide con las respuestas guardadas."
+                    : "Se corrigieron " + diferencias + " filas del resumen.");
+        }, error -> ventana.muestraError("No se pudo recalcular el resumen: " + error.getMessage()));
+    }
+
     /**
      * Cierra el flujo del reporte.
      */
     public void terminar() {
+        if (cargaReporte != null) {
+            cargaReporte.cancel();
+        }
+        if (cargaComentarios != null) {
+            cargaComentarios.cancel();
+        }
+        reporte = null;
+        paginaComentarios = null;
         ventana.cerrarVentana();
     }
 }
\ No newline at end of file
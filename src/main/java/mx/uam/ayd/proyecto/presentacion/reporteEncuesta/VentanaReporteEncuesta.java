@@ -36,6 +36,7 @@ public class VentanaReporteEncuesta {
     @FXML private Label tituloGrafica;
     @FXML private BarChart<String, Number> barChartEncuesta;
     @FXML private ListView<String> listaComentarios; 
+    @FXML private Button botonMasComentarios;
     
     // ... (Métodos setControl, muestra, cerrarVentana, handleVolver no modificados) ...
     
@@ -107,6 +108,26 @@ public class VentanaReporteEncuesta {
         }
     }
 
+    /**
+     * Maneja la acción del botón "Ver más" de las respuestas abiertas.
+     */
+    @FXML
+    private void mostrarMasComentarios() {
+        if (control != null) {
+            control.mostrarMasComentarios();
+        }
+    }
+
+    /**
+     * Maneja la acción del botón "Recalcular".
+     */
+    @FXML
+    private void recalcularResumen() {
+        if (control != null) {
+            control.recalcularResumen();
+        }
+    }
+
     /**
      * Maneja la acción del botón "Volver" o "Cerrar".
      */
@@ -121,13 +142,15 @@ public class VentanaReporteEncuesta {
      * Actualiza la interfaz para mostrar la gráfica de barras con los conteos.
      * CORRECCIÓN CRÍTICA: La firma del método ahora acepta Map<String, Long>.
      */
-    public void actualizarGrafica(String pregunta, Map<String, Long> conteos) {
+    public void actualizarGrafica(String pregunta, Map<String, Long> conteos, double promedio, double desviacion) {
         listaComentarios.setVisible(false);
         listaComentarios.setManaged(false);
+        setBotonMasComentariosVisible(false);
         barChartEncuesta.setVisible(true);
         barChartEncuesta.setManaged(true);
 
-        tituloGrafica.setText("Distribución de Respuestas para " + pregunta);
+        tituloGrafica.setText(String.format("Distribución de Respuestas para %s (promedio %.2f, desviación %.2f)",
+                pregunta, promedio, desviacion));
 
         barChartEncuesta.getData().clear();
         
@@ -161,7 +184,7 @@ public class VentanaReporteEncuesta {
     /**
      * Actualiza la interfaz para mostrar la lista de comentarios.
      */
-    public void actualizarListaComentarios(String pregunta, List<String> comentarios) {
+    public void actualizarListaComentarios(String pregunta, List<String> comentarios, boolean hayMas) {
         barChartEncuesta.setVisible(false);
         barChartEncuesta.setManaged(false);
         listaComentarios.setVisible(true);
@@ -171,8 +194,30 @@ public class VentanaReporteEncuesta {
 
         ObservableList<String> items = FXCollections.observableArrayList(comentarios);
         listaComentarios.setItems(items);
+        setBotonMasComentariosVisible(hayMas);
+    }
+
+    /**
+     * Agrega la siguiente página de comentarios al final de la lista.
+     */
+    public void agregarComentarios(List<String> comentarios, boolean hayMas) {
+        listaComentarios.getItems().addAll(comentarios);
+        setBotonMasComentariosVisible(hayMas);
+    }
+
+    private void setBotonMasComentariosVisible(boolean visible) {
+        botonMasComentarios.setVisible(visible);
+        botonMasComentarios.setManaged(visible);
     }
     
+    public void muestraMensaje(String mensaje) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Reporte de Encuesta");
+        alert.setHeaderText(null);
+        alert.setContentText(mensaje);
+        alert.showAndWait();
+    }
+
     public void muestraError(String mensaje) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error de Reporte");
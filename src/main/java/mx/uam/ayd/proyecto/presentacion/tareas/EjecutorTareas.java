@@ -0,0 +1,138 @@
+package mx.uam.ayd.proyecto.presentacion.tareas;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import javafx.concurrent.Task;
+
+/**
+ * Ejecuta las llamadas a los servicios de negocio fuera del hilo de JavaFX.
+ *
+ * <p>Cada trabajo se envuelve en una {@link Task} de JavaFX que corre en un
+ * grupo acotado de hilos (por omisión 4, propiedad
+ * {@code presentacion.tareas.hilos}) con una cola de a lo más
+ * {@code presentacion.tareas.cola} trabajos. El resultado o el error se
+ * entregan en el hilo de JavaFX, así que los callbacks pueden actualizar la
+ * ventana directamente.</p>
+ *
+ * <p>La tarea devuelta permite cancelar el trabajo y enlazar su progreso y
+ * mensaje a la interfaz. Si se cancela no se invoca ningún callback.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@Component
+public class EjecutorTareas {
+
+    private static final Logger log = LoggerFactory.getLogger(EjecutorTareas.class);
+
+    @Value("${presentacion.tareas.hilos:4}")
+    private int hilos;
+
+    @Value("${presentacion.tareas.cola:100}")
+    private int capacidadCola;
+
+    private ThreadPoolExecutor ejecutor;
+
+    @PostConstruct
+    public void inicia() {
+        AtomicInteger contador = new AtomicInteger();
+        ejecutor = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), tarea -> {
+                    Thread hilo = new Thread(tarea, "tareas-interfaz-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        ejecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void detiene() {
+        if (ejecutor != null) {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ejecuta un trabajo en segundo plano.
+     *
+     * @param trabajo lo que se ejecuta fuera del hilo de JavaFX.
+     * @param alTerminar recibe el resultado en el hilo de JavaFX.
+     * @param alFallar recibe la excepción en el hilo de JavaFX.
+     * @param <T> el tipo del resultado.
+     * @return la tarea, para cancelarla o enlazar su estado.
+     */
+    public <T> Task<T> ejecutar(Callable<T> trabajo, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        return ejecutarConAvance(avance -> trabajo.call(), alTerminar, alFallar);
+    }
+
+    /**
+     * Ejecuta en segundo plano un trabajo que informa su avance.
+     *
+     * @param trabajo lo que se ejecuta fuera del hilo de JavaFX.
+     * @param alTerminar recibe el resultado en el hilo de JavaFX.
+     * @param alFallar recibe la excepción en el hilo de JavaFX.
+     * @param <T> el tipo del resultado.
+     * @return la tarea; su progreso y mensaje reflejan lo que informa el trabajo.
+     */
+    public <T> Task<T> ejecutarConAvance(TrabajoConAvance<T> trabajo, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        Task<T> tarea = new TareaConAvance<>(trabajo);
+        // Task dispara estos eventos en el hilo de JavaFX
+        tarea.setOnSucceeded(evento -> alTerminar.accept(tarea.getValue()));
+        tarea.setOnFailed(evento -> {
+            log.warn("Falló una tarea en segundo plano", tarea.getException());
+            alFallar.accept(tarea.getException());
+        });
+        try {
+            ejecutor.execute(tarea);
+        } catch (RejectedExecutionException e) {
+            log.warn("Se rechazó una tarea en segundo plano; la cola está llena");
+            alFallar.accept(e);
+        }
+        return tarea;
+    }
+
+    /**
+     * Adapta un {@link TrabajoConAvance} a los métodos protegidos de {@link Task}.
+     */
+    private static class TareaConAvance<T> extends Task<T> implements TrabajoConAvance.Avance {
+
+        private final TrabajoConAvance<T> trabajo;
+
+        TareaConAvance(TrabajoConAvance<T> trabajo) {
+            this.trabajo = trabajo;
+        }
+
+        @Override
+        protected T call() throws Exception {
+            return trabajo.ejecutar(this);
+        }
+
+        @Override
+        public void actualizar(long hecho, long total) {
+            updateProgress(hecho, total);
+        }
+
+        @Override
+        public void mensaje(String mensaje) {
+            updateMessage(mensaje);
+        }
+
+        @Override
+        public boolean cancelado() {
+            return isCancelled();
+        }
+    }
+}
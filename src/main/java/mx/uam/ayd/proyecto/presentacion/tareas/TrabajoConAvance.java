@@ -0,0 +1,43 @@
+package mx.uam.ayd.proyecto.presentacion.tareas;
+
+/**
+ * Trabajo en segundo plano que informa su avance y revisa si fue cancelado.
+ *
+ * @param <T> el tipo del resultado.
+ * @author Tech Solutions
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface TrabajoConAvance<T> {
+
+    /**
+     * Hace el trabajo fuera del hilo de JavaFX; no debe tocar la interfaz.
+     *
+     * @param avance para informar el avance y consultar la cancelación.
+     * @return el resultado que se entrega en el hilo de JavaFX.
+     * @throws Exception si el trabajo falla.
+     */
+    T ejecutar(Avance avance) throws Exception;
+
+    /**
+     * Canal del trabajo hacia la tarea de JavaFX que lo envuelve.
+     */
+    interface Avance {
+
+        /**
+         * @param hecho las unidades terminadas.
+         * @param total las unidades totales.
+         */
+        void actualizar(long hecho, long total);
+
+        /**
+         * @param mensaje una descripción del paso actual.
+         */
+        void mensaje(String mensaje);
+
+        /**
+         * @return true si la tarea se canceló y el trabajo debe terminar cuanto antes.
+         */
+        boolean cancelado();
+    }
+}
@@ -0,0 +1,455 @@
+package mx.uam.ayd.proyecto.instrumentacion;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import mx.uam.ayd.proyecto.BaseIntegrationTest;
+import mx.uam.ayd.proyecto.datos.AvisoRepository;
+import mx.uam.ayd.proyecto.datos.BateriaClinicaRepository;
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.PacienteRepository;
+import mx.uam.ayd.proyecto.datos.PagoRepository;
+import mx.uam.ayd.proyecto.datos.PsicologoRepository;
+import mx.uam.ayd.proyecto.datos.RegistroEmocionalRepository;
+import mx.uam.ayd.proyecto.datos.SaldoPacienteRepository;
+import mx.uam.ayd.proyecto.negocio.ConciliadorPagos;
+import mx.uam.ayd.proyecto.negocio.ConfiguracionCaches;
+import mx.uam.ayd.proyecto.negocio.ServicioAviso;
+import mx.uam.ayd.proyecto.negocio.ServicioCita;
+import mx.uam.ayd.proyecto.negocio.ServicioPaciente;
+import mx.uam.ayd.proyecto.negocio.ServicioPago;
+import mx.uam.ayd.proyecto.negocio.ServicioPsicologo;
+import mx.uam.ayd.proyecto.negocio.ServicioRegistroemocional;
+import mx.uam.ayd.proyecto.negocio.ServicioSaldoPaciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Aviso;
+import mx.uam.ayd.proyecto.negocio.modelo.BateriaClinica;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.MovimientoBancario;
+import mx.uam.ayd.proyecto.negocio.modelo.OrdenHistorialPagos;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.PacienteConCuestionarios;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
+import mx.uam.ayd.proyecto.negocio.modelo.ResultadoConciliacion;
+import mx.uam.ayd.proyecto.negocio.modelo.SaldoPaciente;
+import mx.uam.ayd.proyecto.negocio.modelo.TendenciaEmocional;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoBateria;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoEspecialidad;
+
+/**
+ * Verifica que los métodos con {@link PresupuestoSentencias} emitan el mismo
+ * número de sentencias sin importar cuántos pacientes haya.
+ */
+class PresupuestoSentenciasTest extends BaseIntegrationTest {
+
+    private static final int PACIENTES = 5;
+
+    @Autowired
+    private MedicionServicios medicionServicios;
+
+    @Autowired
+    private MedicionCaches medicionCaches;
+
+    @Autowired
+    private ServicioPaciente servicioPaciente;
+
+    @Autowired
+    private ServicioCita servicioCita;
+
+    @Autowired
+    private ServicioPsicologo servicioPsicologo;
+
+    @Autowired
+    private ServicioAviso servicioAviso;
+
+    @Autowired
+    private ServicioRegistroemocional servicioRegistroemocional;
+
+    @Autowired
+    private ServicioPago servicioPago;
+
+    @Autowired
+    private ServicioSaldoPaciente servicioSaldoPaciente;
+
+    @Autowired
+    private SaldoPacienteRepository saldoPacienteRepository;
+
+    @Autowired
+    private PsicologoRepository psicologoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private BateriaClinicaRepository bateriaClinicaRepository;
+
+    @Autowired
+    private AvisoRepository avisoRepository;
+
+    @Autowired
+    private RegistroEmocionalRepository registroEmocionalRepository;
+
+    private Psicologo psicologo;
+    private final List<Paciente> pacientes = new ArrayList<>();
+    private final List<Cita> citas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        psicologo = new Psicologo();
+        psicologo.setNombre("Ana");
+        psicologo.setCorreo("ana@presupuesto.com");
+        psicologo.setTelefono("5550000000");
+        psicologo.setEspecialidad(TipoEspecialidad.FAMILIAR);
+        psicologo.setUsuario("ana_presupuesto");
+        psicologo = psicologoRepository.save(psicologo);
+
+        for (int i = 0; i < PACIENTES; i++) {
+            Paciente paciente = new Paciente();
+            paciente.setNombre("Paciente " + i);
+            paciente.setCorreo("paciente" + i + "@presupuesto.com");
+            paciente.setTelefono("555000000" + i);
+            paciente.setEdad(30);
+            paciente.setUsuario("paciente_presupuesto_" + i);
+            paciente.setPsicologo(psicologo);
+            paciente = pacienteRepository.save(paciente);
+            pacientes.add(paciente);
+
+            BateriaClinica bateria = new BateriaClinica();
+            bateria.setPaciente(paciente);
+            bateria.setTipoDeBateria(TipoBateria.BDI_II);
+            bateriaClinicaRepository.save(bateria);
+
+            for (int j = 0; j < 2; j++) {
+                Cita cita = new Cita();
+                cita.setPaciente(paciente);
+                cita.setPsicologo(psicologo);
+                cita.setFechaCita(LocalDateTime.now().plusDays(i + 1).withHour(9 + j));
+                cita.setEstadoCita(TipoConfirmacionCita.PENDIENTE);
+                citas.add(citaRepository.save(cita));
+            }
+        }
+
+        // Los pacientes se vuelven a crear con otro id en cada prueba
+        medicionCaches.vaciar();
+        medicionServicios.reiniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        avisoRepository.deleteAll();
+        registroEmocionalRepository.deleteAll();
+        pagoRepository.deleteAll();
+        saldoPacienteRepository.deleteAll();
+        citaRepository.deleteAll();
+        bateriaClinicaRepository.deleteAll();
+        pacienteRepository.deleteAll();
+        psicologoRepository.deleteAll();
+    }
+
+    @Test
+    void testListasRespetanPresupuesto() {
+        assertEquals(PACIENTES, servicioPaciente.recuperarTodosLosPacientes().size());
+        assertEquals(PACIENTES, servicioPaciente.recuperarPacientesPorPsicologo(psicologo).size());
+        assertEquals(PACIENTES, servicioPaciente.recuperarPacientes(ScrollPosition.keyset()).size());
+        assertEquals(PACIENTES, servicioPaciente.recuperarPacientesPorPsicologo(psicologo, ScrollPosition.keyset()).size());
+        assertEquals(1, servicioPsicologo.listarPsicologos(ScrollPosition.keyset()).size());
+        assertEquals(PACIENTES * 2, servicioCita.obtenerCitasPorPsicologo(psicologo).size());
+
+        for (Paciente paciente : pacientes) {
+            servicioRegistroemocional.guardarRegistro("Tranquilo", null, paciente);
+        }
+        Window<RegistroEmocional> registros =
+                servicioRegistroemocional.listarRegistrosPorPsicologo(psicologo, ScrollPosition.keyset());
+        assertEquals(PACIENTES, registros.size());
+        assertEquals("Paciente " + (PACIENTES - 1), registros.getContent().get(0).getPaciente().getNombre());
+
+        assertEquals(1, medicionServicios.resumen("ServicioPaciente.recuperarTodosLosPacientes()")
+                .orElseThrow().sentenciasMaximas());
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    @Test
+    void testConsultasPorPacienteRespetanPresupuesto() {
+        for (Paciente paciente : pacientes) {
+            Paciente detalle = servicioPaciente.obtenerDetallePaciente(paciente);
+            assertEquals(1, detalle.getBateriasClinicas().size());
+            assertNotNull(servicioPaciente.obtenerPacientePorUsuario(paciente.getUsuario()).getPsicologo().getNombre());
+
+            assertEquals(2, servicioCita.listarCitas(paciente.getUsuario()).size());
+            assertEquals(2, servicioPago.listarHistorialPagos(paciente, OrdenHistorialPagos.RECIENTES,
+                    ScrollPosition.keyset()).size());
+            // La primera consulta del día recalcula el saldo; la segunda sólo lo lee
+            assertEquals(2, servicioSaldoPaciente.obtenerSaldo(paciente).getCitasPendientes());
+            assertEquals(2, servicioSaldoPaciente.obtenerSaldo(paciente).getCitasPendientes());
+            assertNotNull(servicioCita.buscarCitaPendienteMasReciente(paciente).getPsicologo().getNombre());
+        }
+        for (Cita cita : citas) {
+            assertEquals("Ana", servicioCita.obtenerCitaPorId(cita.getId()).getPsicologo().getNombre());
+        }
+        List<Cita> semana = servicioCita.obtenerCitasParaExportar(psicologo,
+                LocalDate.now(), LocalDate.now().plusDays(PACIENTES));
+        assertEquals(citas.size(), semana.size());
+        assertNotNull(semana.get(citas.size() - 1).getPaciente().getNombre());
+
+        ResumenMetodo listarCitas = medicionServicios.resumen("ServicioCita.listarCitas(String)").orElseThrow();
+        assertEquals(PACIENTES, listarCitas.llamadas());
+        ResumenMetodo historial = medicionServicios.resumen(
+                "ServicioPago.listarHistorialPagos(Paciente, OrdenHistorialPagos, ScrollPosition)").orElseThrow();
+        assertEquals(1, historial.sentenciasMaximas());
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    @Test
+    void testRegistrosEmocionalesEnLote() {
+        // La base rechaza el segundo registro del día de un paciente
+        servicioRegistroemocional.guardarRegistro("Tranquilo", null, pacientes.get(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> servicioRegistroemocional.guardarRegistro("Ansioso", null, pacientes.get(0)));
+
+        List<RegistroEmocional> lote = new ArrayList<>();
+        for (Paciente paciente : pacientes) {
+            lote.add(servicioRegistroemocional.nuevoRegistro("Feliz", null, paciente));
+        }
+        medicionServicios.reiniciar();
+
+        assertEquals(PACIENTES - 1, servicioRegistroemocional.guardarLote(lote).size());
+        assertEquals(PACIENTES, registroEmocionalRepository.count());
+
+        // Una consulta y una inserción en lote; los ids salen del bloque de la secuencia
+        // que ya se apartó con el primer registro
+        ResumenMetodo guardarLote = medicionServicios.resumen("ServicioRegistroemocional.guardarLote(List)").orElseThrow();
+        assertEquals(2, guardarLote.sentenciasMaximas());
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    @Test
+    void testTendenciaEmocionalPorSemana() {
+        // Diez días de registros por paciente, desde un lunes
+        LocalDate lunes = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(2);
+        List<RegistroEmocional> registros = new ArrayList<>();
+        for (Paciente paciente : pacientes) {
+            for (int dia = 0; dia < 10; dia++) {
+                RegistroEmocional registro = servicioRegistroemocional.nuevoRegistro(
+                        dia % 2 == 0 ? "Feliz" : "Triste", null, paciente);
+                registro.setFecha(lunes.plusDays(dia));
+                registros.add(registro);
+            }
+        }
+        registroEmocionalRepository.saveAll(registros);
+        medicionServicios.reiniciar();
+
+        List<TendenciaEmocional> tendencia = servicioRegistroemocional.obtenerTendencia(psicologo,
+                lunes.plusDays(2), lunes.plusDays(9));
+
+        // Por paciente: 4 y 3 en la primera semana, completa; 1 y 2 en la segunda
+        assertEquals(PACIENTES * 4, tendencia.size());
+        assertEquals(new TendenciaEmocional(pacientes.get(0).getId(), "Paciente 0", lunes, "Feliz", 4),
+                tendencia.get(0));
+        assertEquals(PACIENTES * 10, tendencia.stream().mapToLong(TendenciaEmocional::registros).sum());
+
+        Window<RegistroEmocional> pagina = servicioRegistroemocional.listarRegistrosPorPsicologo(psicologo,
+                lunes.plusDays(7), lunes.plusDays(9), ScrollPosition.keyset());
+        assertEquals(PACIENTES * 3, pagina.size());
+        assertEquals(lunes.plusDays(9), pagina.getContent().get(0).getFecha());
+        assertNotNull(pagina.getContent().get(0).getPaciente().getNombre());
+
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    @Test
+    void testPacientesConCuestionariosRespetaPresupuesto() {
+        Paciente sinCuestionarios = new Paciente();
+        sinCuestionarios.setNombre("Sin cuestionarios");
+        sinCuestionarios.setCorreo("sin@presupuesto.com");
+        sinCuestionarios.setUsuario("paciente_presupuesto_sin");
+        pacientes.add(pacienteRepository.save(sinCuestionarios));
+
+        BateriaClinica bai = new BateriaClinica();
+        bai.setPaciente(pacientes.get(0));
+        bai.setTipoDeBateria(TipoBateria.BAI);
+        bai.setCalificacion(15);
+        bateriaClinicaRepository.save(bai);
+
+        Window<PacienteConCuestionarios> pagina = servicioPsicologo.obtenerPacientesConCuestionarios(ScrollPosition.keyset());
+
+        assertEquals(PACIENTES, pagina.size());
+        assertFalse(pagina.hasNext());
+        assertEquals(2, pagina.getContent().get(0).cuestionarios().size());
+        assertEquals(15, pagina.getContent().get(0).cuestionarios().get(0).calificacion());
+        assertEquals(1, pagina.getContent().get(1).cuestionarios().size());
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    @Test
+    void testPacientesConCuestionariosRecorreTodasLasPaginas() {
+        int total = ServicioPsicologo.TAMANO_PAGINA_PACIENTES + 7;
+        for (int i = PACIENTES; i < total; i++) {
+            Paciente paciente = new Paciente();
+            paciente.setNombre("Paciente " + i);
+            paciente.setCorreo("paciente" + i + "@presupuesto.com");
+            paciente.setUsuario("paciente_presupuesto_" + i);
+            paciente = pacienteRepository.save(paciente);
+            pacientes.add(paciente);
+
+            BateriaClinica bateria = new BateriaClinica();
+            bateria.setPaciente(paciente);
+            bateria.setTipoDeBateria(TipoBateria.BAI);
+            bateriaClinicaRepository.save(bateria);
+        }
+        medicionServicios.reiniciar();
+
+        List<PacienteConCuestionarios> vistos = new ArrayList<>();
+        Window<PacienteConCuestionarios> pagina = servicioPsicologo.obtenerPacientesConCuestionarios(ScrollPosition.keyset());
+        vistos.addAll(pagina.getContent());
+        while (pagina.hasNext()) {
+            pagina = servicioPsicologo.obtenerPacientesConCuestionarios(pagina.positionAt(pagina.size() - 1));
+            vistos.addAll(pagina.getContent());
+        }
+
+        assertEquals(total, vistos.size());
+        assertEquals("Paciente " + (total - 1), vistos.get(total - 1).paciente().getNombre());
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    @Test
+    void testPaginasPorLlaveCuestanLoMismo() {
+        int total = ServicioAviso.TAMANO_PAGINA_AVISOS * 2 + 7;
+        for (int i = 0; i < total; i++) {
+            servicioAviso.guardarAviso("Aviso " + i);
+        }
+        medicionServicios.reiniciar();
+
+        List<Aviso> vistos = new ArrayList<>();
+        Window<Aviso> pagina = servicioAviso.listarAvisos(ScrollPosition.keyset());
+        vistos.addAll(pagina.getContent());
+        while (pagina.hasNext()) {
+            pagina = servicioAviso.listarAvisos(pagina.positionAt(pagina.size() - 1));
+            vistos.addAll(pagina.getContent());
+        }
+
+        assertEquals(total, vistos.size());
+        assertEquals("Aviso " + (total - 1), vistos.get(0).getContenido());
+        assertEquals("Aviso 0", vistos.get(total - 1).getContenido());
+
+        ResumenMetodo listar = medicionServicios.resumen("ServicioAviso.listarAvisos(ScrollPosition)").orElseThrow();
+        assertEquals(3, listar.llamadas());
+        assertEquals(1, listar.sentenciasMaximas());
+    }
+
+    @Test
+    void testLoteDePagosRespetaPresupuesto() {
+        for (int i = 0; i < citas.size(); i++) {
+            Cita cita = citas.get(i);
+            cita.setLineaCaptura("L" + i);
+            cita.setMonto(100.0);
+            citaRepository.save(cita);
+        }
+        medicionServicios.reiniciar();
+
+        // Un lote completo: las citas del escenario más pagos que no corresponden a ninguna
+        List<MovimientoBancario> lote = new ArrayList<>();
+        for (int i = 0; i < ConciliadorPagos.LOTE; i++) {
+            lote.add(new MovimientoBancario("B" + i, "L" + i, 100.0, LocalDate.now()));
+        }
+        ResultadoConciliacion resultado = servicioPago.aplicarLote(lote);
+        assertEquals(citas.size(), resultado.conciliados());
+        assertEquals(ConciliadorPagos.LOTE - citas.size(), resultado.sinCita());
+        assertEquals(ConciliadorPagos.LOTE, pagoRepository.count());
+
+        // Importar otra vez el mismo lote no duplica pagos
+        assertEquals(ConciliadorPagos.LOTE, servicioPago.aplicarLote(lote).duplicados());
+        assertEquals(ConciliadorPagos.LOTE, pagoRepository.count());
+        assertTrue(citaRepository.findById(citas.get(0).getId()).orElseThrow().getFechaPago() != null);
+        SaldoPaciente saldo = servicioSaldoPaciente.obtenerSaldo(pacientes.get(0));
+        assertEquals(2, saldo.getCitasPagadas());
+        assertEquals(200.0, saldo.getMontoPagado(), 0.001);
+        assertEquals(0, saldo.getCitasPendientes());
+
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    @Test
+    void testCachesEvitanConsultasRepetidas() {
+        Paciente paciente = pacientes.get(0);
+        ResumenCache antes = resumenCache(ConfiguracionCaches.PACIENTES_POR_USUARIO);
+
+        Paciente primero = servicioPaciente.obtenerPacientePorUsuario(paciente.getUsuario());
+        long sentencias = sentenciasPreparadas();
+        Paciente segundo = servicioPaciente.obtenerPacientePorUsuario(paciente.getUsuario());
+        assertNotSame(primero, segundo);
+        assertEquals(primero.getId(), segundo.getId());
+        assertEquals("Ana", servicioPsicologo.obtenerPsicologoPorId(psicologo.getId()).getNombre());
+        servicioPsicologo.obtenerPsicologoPorId(psicologo.getId());
+        assertEquals(sentencias + 1, sentenciasPreparadas());
+
+        ResumenCache despues = resumenCache(ConfiguracionCaches.PACIENTES_POR_USUARIO);
+        assertEquals(antes.aciertos() + 1, despues.aciertos());
+        assertEquals(antes.fallos() + 1, despues.fallos());
+
+        // Cambiar el paciente devuelto no cambia lo que reciben los demás
+        primero.setUsuario("paciente_presupuesto_renombrado");
+        assertEquals(paciente.getUsuario(), servicioPaciente.obtenerPacientePorUsuario(paciente.getUsuario()).getUsuario());
+
+        // Guardar un cambio invalida la caché aunque también cambie el usuario
+        servicioPaciente.actualizarPaciente(primero);
+        assertNull(servicioPaciente.obtenerPacientePorUsuario(paciente.getUsuario()));
+        assertEquals(paciente.getId(),
+                servicioPaciente.obtenerPacientePorUsuario("paciente_presupuesto_renombrado").getId());
+
+        // Publicar un aviso invalida el último aviso
+        assertNull(servicioAviso.obtenerUltimoAviso());
+        servicioAviso.guardarAviso("Primero");
+        assertEquals("Primero", servicioAviso.obtenerUltimoAviso().getContenido());
+        servicioAviso.guardarAviso("Segundo");
+        assertEquals("Segundo", servicioAviso.obtenerUltimoAviso().getContenido());
+        sentencias = sentenciasPreparadas();
+        assertEquals("Segundo", servicioAviso.obtenerUltimoAviso().getContenido());
+        assertEquals(sentencias, sentenciasPreparadas());
+
+        assertEquals(List.of(), medicionServicios.excedidos());
+    }
+
+    private ResumenCache resumenCache(String nombre) {
+        return medicionCaches.resumen().stream()
+                .filter(resumen -> resumen.cache().equals(nombre))
+                .findFirst().orElseThrow();
+    }
+
+    private long sentenciasPreparadas() {
+        return medicionServicios.estadisticasHibernate().getPrepareStatementCount();
+    }
+
+    @Test
+    void testRegistraExcesos() {
+        MedicionMetodo medicion = new MedicionMetodo("Servicio.metodo()", 1);
+
+        assertFalse(medicion.registrar(1, 1, 0));
+        assertTrue(medicion.registrar(3, 3, 0));
+
+        ResumenMetodo resumen = medicion.resumen();
+        assertEquals(2, resumen.llamadas());
+        assertEquals(4, resumen.sentencias());
+        assertEquals(3, resumen.sentenciasMaximas());
+        assertEquals(1, resumen.excesos());
+    }
+}
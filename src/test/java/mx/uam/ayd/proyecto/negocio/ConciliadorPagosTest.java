@@ -0,0 +1,78 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import mx.uam.ayd.proyecto.negocio.modelo.MovimientoBancario;
+import mx.uam.ayd.proyecto.negocio.modelo.ResultadoConciliacion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para la importación de archivos de liquidación del banco.
+ */
+@ExtendWith(MockitoExtension.class)
+public class ConciliadorPagosTest {
+
+    @Mock
+    private ServicioPago servicioPago;
+    @InjectMocks
+    private ConciliadorPagos conciliadorPagos;
+
+    @Test
+    void testLeerRenglon() {
+        assertEquals(new MovimientoBancario("B1", "0000000018", 100.0, LocalDate.of(2025, 5, 2)),
+                ConciliadorPagos.leer("B1, 0000000018 ,100.00,2025-05-02"));
+        assertNull(ConciliadorPagos.leer("B1,0000000018,100.00"));
+        assertNull(ConciliadorPagos.leer("B1,0000000018,100.00,2025-05-02,extra"));
+        assertNull(ConciliadorPagos.leer(",0000000018,100.00,2025-05-02"));
+        assertNull(ConciliadorPagos.leer("B1,0000000018,cien,2025-05-02"));
+        assertNull(ConciliadorPagos.leer("B1,0000000018,100.00,02/05/2025"));
+    }
+
+    /**
+     * Prueba: El archivo se aplica en lotes de tamaño fijo; el encabezado y los
+     * renglones vacíos se saltan y los mal formados se cuentan como inválidos.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testConciliarEnLotes() throws Exception {
+        StringBuilder archivo = new StringBuilder("referencia,lineaCaptura,importe,fecha\n");
+        int renglones = ConciliadorPagos.LOTE * 2 + 5;
+        for (int i = 0; i < renglones; i++) {
+            archivo.append("B").append(i).append(",L").append(i).append(",100.00,2025-05-02\n");
+        }
+        archivo.append("\nrenglon mal formado\n");
+
+        List<Integer> tamanos = new ArrayList<>();
+        when(servicioPago.aplicarLote(any())).thenAnswer(invocacion -> {
+            List<MovimientoBancario> lote = invocacion.getArgument(0);
+            tamanos.add(lote.size());
+            return new ResultadoConciliacion(lote.size(), lote.size(), 0, 0, 0, 0, 0, 0);
+        });
+        List<Long> avance = new ArrayList<>();
+
+        ResultadoConciliacion resultado = conciliadorPagos.conciliar(new StringReader(archivo.toString()), avance::add);
+
+        assertEquals(List.of(ConciliadorPagos.LOTE, ConciliadorPagos.LOTE, 5), tamanos);
+        assertEquals(new ResultadoConciliacion(renglones + 1, renglones, 0, 0, 0, 0, 0, 1), resultado);
+        assertEquals(renglones + 1, avance.get(avance.size() - 1).longValue());
+    }
+
+    @Test
+    void testConciliarArchivoVacio() throws Exception {
+        ResultadoConciliacion resultado = conciliadorPagos.conciliar(new StringReader(""), avance -> { });
+
+        assertEquals(ResultadoConciliacion.VACIO, resultado);
+        verifyNoInteractions(servicioPago);
+    }
+}
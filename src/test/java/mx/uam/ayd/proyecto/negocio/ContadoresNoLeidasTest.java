@@ -0,0 +1,73 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para los contadores de no leídas cuando una carga se cruza
+ * con un cambio que aún no termina.
+ */
+public class ContadoresNoLeidasTest {
+
+    private final ContadoresNoLeidas<Long> contadores = new ContadoresNoLeidas<>();
+
+    /**
+     * El cambio se confirma en la base de datos durante la carga, pero su ajuste
+     * llega después: la carga ya lo incluye y no debe contarse dos veces.
+     */
+    @Test
+    void testCambioConfirmadoDuranteLaCargaNoSeCuentaDosVeces() {
+        AtomicLong enBaseDeDatos = new AtomicLong(2);
+        AtomicInteger cargas = new AtomicInteger();
+
+        contadores.iniciarCambio(1L);
+        long primera = contadores.obtener(1L, id -> {
+            cargas.incrementAndGet();
+            enBaseDeDatos.incrementAndGet();
+            return enBaseDeDatos.get();
+        });
+        contadores.terminarCambio(1L, 1);
+
+        assertEquals(3, primera);
+        assertEquals(3, contadores.obtener(1L, id -> {
+            cargas.incrementAndGet();
+            return enBaseDeDatos.get();
+        }));
+        assertEquals(2, cargas.get(), "La carga que se cruzó con el cambio no se guarda");
+    }
+
+    /**
+     * El cambio termina mientras se carga y la carga no lo vio: no debe perderse.
+     */
+    @Test
+    void testCambioTerminadoDuranteLaCargaNoSePierde() {
+        AtomicLong enBaseDeDatos = new AtomicLong(0);
+
+        long primera = contadores.obtener(2L, id -> {
+            long leido = enBaseDeDatos.get();
+            contadores.iniciarCambio(2L);
+            enBaseDeDatos.incrementAndGet();
+            contadores.terminarCambio(2L, 1);
+            return leido;
+        });
+
+        assertEquals(0, primera);
+        assertEquals(1, contadores.obtener(2L, id -> enBaseDeDatos.get()));
+    }
+
+    @Test
+    void testCambioRevertidoNoAjustaElContador() {
+        contadores.fijar(3L, 4);
+
+        contadores.iniciarCambio(3L);
+        contadores.terminarCambio(3L, 0);
+        contadores.iniciarCambio(3L);
+        contadores.terminarCambio(3L, -2);
+
+        assertEquals(2, contadores.obtener(3L, id -> fail("No debe consultar la base de datos")));
+    }
+}
@@ -0,0 +1,150 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para la escritura diferida de registros emocionales.
+ */
+public class EscritorRegistrosEmocionalesTest {
+
+    private ServicioRegistroemocional servicio;
+
+    @BeforeEach
+    void setUp() {
+        servicio = mock(ServicioRegistroemocional.class);
+        when(servicio.nuevoRegistro(any(), any(), any())).thenAnswer(invocacion -> {
+            RegistroEmocional registro = new RegistroEmocional();
+            registro.setEmocion(invocacion.getArgument(0));
+            registro.setPaciente(invocacion.getArgument(2));
+            registro.setFecha(LocalDate.now());
+            return registro;
+        });
+        when(servicio.guardarLote(any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+    }
+
+    private static Paciente paciente(long id) {
+        Paciente paciente = new Paciente();
+        paciente.setId(id);
+        return paciente;
+    }
+
+    /**
+     * Prueba: Sin escritura diferida cada registro se guarda al momento.
+     */
+    @Test
+    void testSinEscrituraDiferidaGuardaAlMomento() {
+        EscritorRegistrosEmocionales escritor = new EscritorRegistrosEmocionales(servicio, false, 500);
+
+        escritor.guardar("Feliz", null, paciente(1));
+
+        verify(servicio).guardarRegistro(eq("Feliz"), isNull(), any());
+        assertEquals(0, escritor.escribirPendientes());
+        verify(servicio, never()).guardarLote(any());
+    }
+
+    /**
+     * Prueba: Con escritura diferida los registros se guardan en lotes de
+     * {@link EscritorRegistrosEmocionales#LOTE}.
+     */
+    @Test
+    void testEscrituraDiferidaGuardaEnLotes() {
+        EscritorRegistrosEmocionales escritor = new EscritorRegistrosEmocionales(servicio, true, 500);
+        int total = EscritorRegistrosEmocionales.LOTE + 5;
+        for (int i = 0; i < total; i++) {
+            assertNull(escritor.guardar("Feliz", null, paciente(i)).getId());
+        }
+        verify(servicio, never()).guardarRegistro(any(), any(), any());
+
+        assertEquals(total, escritor.escribirPendientes());
+
+        verify(servicio, times(2)).guardarLote(any());
+        assertEquals(0, escritor.escribirPendientes());
+    }
+
+    /**
+     * Prueba: Un paciente no puede encolar dos registros el mismo día, pero sí
+     * uno nuevo una vez escrito el anterior (el servicio decide si se repite).
+     */
+    @Test
+    void testRegistroRepetidoEnLaCola() {
+        EscritorRegistrosEmocionales escritor = new EscritorRegistrosEmocionales(servicio, true, 500);
+        escritor.guardar("Feliz", null, paciente(1));
+
+        Exception excepcion = assertThrows(IllegalArgumentException.class,
+                () -> escritor.guardar("Triste", null, paciente(1)));
+        assertEquals(ServicioRegistroemocional.YA_REGISTRADO, excepcion.getMessage());
+
+        escritor.escribirPendientes();
+        assertDoesNotThrow(() -> escritor.guardar("Triste", null, paciente(1)));
+    }
+
+    /**
+     * Prueba: Si un lote falla por otra causa no se pierde: se conserva, sus
+     * pacientes siguen sin poder encolar otro registro, y se escribe antes que
+     * los que llegaron después.
+     */
+    @Test
+    void testLoteFallidoSeReintentaPrimero() {
+        List<Long> escritos = new ArrayList<>();
+        boolean[] falla = {true};
+        when(servicio.guardarLote(any())).thenAnswer(invocacion -> {
+            if (falla[0]) {
+                throw new IllegalStateException("Sin conexión");
+            }
+            List<RegistroEmocional> lote = invocacion.getArgument(0);
+            lote.forEach(registro -> escritos.add(registro.getPaciente().getId()));
+            return lote;
+        });
+        EscritorRegistrosEmocionales escritor = new EscritorRegistrosEmocionales(servicio, true, 500);
+        escritor.guardar("Feliz", null, paciente(1));
+        escritor.guardar("Feliz", null, paciente(2));
+
+        assertEquals(0, escritor.escribirPendientes());
+        assertThrows(IllegalArgumentException.class, () -> escritor.guardar("Triste", null, paciente(1)));
+
+        escritor.guardar("Feliz", null, paciente(3));
+        falla[0] = false;
+        assertEquals(3, escritor.escribirPendientes());
+        assertEquals(List.of(1L, 2L, 3L), escritos);
+        assertDoesNotThrow(() -> escritor.guardar("Triste", null, paciente(1)));
+    }
+
+    /**
+     * Prueba: Si otro proceso guardó el registro de un paciente del lote, los
+     * demás se guardan de uno en uno y sólo se pierde el repetido.
+     */
+    @Test
+    void testLoteConRepetidoSeReintentaDeUnoEnUno() {
+        List<Integer> tamanos = new ArrayList<>();
+        when(servicio.guardarLote(any())).thenAnswer(invocacion -> {
+            List<RegistroEmocional> lote = invocacion.getArgument(0);
+            tamanos.add(lote.size());
+            if (lote.size() > 1 || lote.get(0).getPaciente().getId() == 2L) {
+                throw new DataIntegrityViolationException("repetido", new ConstraintViolationException(
+                        "repetido", new SQLException(), RegistroEmocional.UK_PACIENTE_FECHA));
+            }
+            return lote;
+        });
+        EscritorRegistrosEmocionales escritor = new EscritorRegistrosEmocionales(servicio, true, 500);
+        for (int i = 1; i <= 3; i++) {
+            escritor.guardar("Feliz", null, paciente(i));
+        }
+
+        assertEquals(2, escritor.escribirPendientes());
+        assertEquals(List.of(3, 1, 1, 1), tamanos);
+    }
+}
@@ -0,0 +1,133 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class GeneradorLineaCapturaTest {
+
+    /**
+     * Un generador cuya secuencia vive en memoria, para pruebas de otros servicios.
+     */
+    static GeneradorLineaCaptura enMemoria() {
+        ServicioSecuenciaFolio secuencia = mock(ServicioSecuenciaFolio.class);
+        AtomicLong siguiente = new AtomicLong(1);
+        when(secuencia.apartarBloque(anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocacion -> siguiente.getAndAdd(invocacion.getArgument(1)));
+        return new GeneradorLineaCaptura(secuencia, 1000);
+    }
+
+    @Test
+    void testDigitoVerificador() {
+        // Ejemplo clásico del algoritmo de Luhn: 7992739871 lleva el dígito 3
+        assertEquals(3, GeneradorLineaCaptura.digitoVerificador("7992739871"));
+
+        assertEquals("0000000018", GeneradorLineaCaptura.lineaCaptura(1));
+        assertTrue(GeneradorLineaCaptura.esValida("0000000018"));
+        // Un dígito mal capturado o dos dígitos vecinos invertidos se detectan
+        assertFalse(GeneradorLineaCaptura.esValida("0000000019"));
+        assertFalse(GeneradorLineaCaptura.esValida("0000000108"));
+        assertFalse(GeneradorLineaCaptura.esValida("000000018"));
+        assertFalse(GeneradorLineaCaptura.esValida("00000000a8"));
+        assertFalse(GeneradorLineaCaptura.esValida(null));
+    }
+
+    @Test
+    void testApartaUnBloquePorCadaTamanoDeBloque() {
+
+        // Dado un generador con bloques de 10 folios
+        ServicioSecuenciaFolio secuencia = mock(ServicioSecuenciaFolio.class);
+        when(secuencia.apartarBloque(GeneradorLineaCaptura.SECUENCIA, 10, 1)).thenReturn(1L, 501L);
+        GeneradorLineaCaptura generador = new GeneradorLineaCaptura(secuencia, 10);
+
+        // Cuando se emiten 11 líneas
+        List<String> lineas = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            lineas.add(generador.siguiente());
+        }
+
+        // Entonces sólo se va a la base de datos al agotar cada bloque
+        verify(secuencia, times(2)).apartarBloque(GeneradorLineaCaptura.SECUENCIA, 10, 1);
+        assertEquals(GeneradorLineaCaptura.lineaCaptura(1), lineas.get(0));
+        assertEquals(GeneradorLineaCaptura.lineaCaptura(10), lineas.get(9));
+        // El siguiente bloque continúa donde lo dejó otra instancia
+        assertEquals(GeneradorLineaCaptura.lineaCaptura(501), lineas.get(10));
+    }
+
+    @Test
+    void testReintentaSiOtraInstanciaCreaLaSecuencia() {
+
+        // Dado que otra instancia crea la secuencia al mismo tiempo
+        ServicioSecuenciaFolio secuencia = mock(ServicioSecuenciaFolio.class);
+        when(secuencia.apartarBloque(anyString(), anyLong(), anyLong()))
+                .thenThrow(new DataIntegrityViolationException("llave duplicada"))
+                .thenReturn(1001L);
+        GeneradorLineaCaptura generador = new GeneradorLineaCaptura(secuencia, 1000);
+
+        // Entonces se vuelve a intentar y se usa el bloque que sigue
+        assertEquals(GeneradorLineaCaptura.lineaCaptura(1001), generador.siguiente());
+    }
+
+    @Test
+    void testFoliosAgotados() {
+        ServicioSecuenciaFolio secuencia = mock(ServicioSecuenciaFolio.class);
+        when(secuencia.apartarBloque(anyString(), anyLong(), anyLong()))
+                .thenReturn(GeneradorLineaCaptura.FOLIO_MAXIMO, GeneradorLineaCaptura.FOLIO_MAXIMO + 1);
+        GeneradorLineaCaptura generador = new GeneradorLineaCaptura(secuencia, 1000);
+
+        // El último folio se emite aunque el bloque pase del máximo
+        assertEquals(GeneradorLineaCaptura.lineaCaptura(GeneradorLineaCaptura.FOLIO_MAXIMO), generador.siguiente());
+        assertThrows(IllegalStateException.class, generador::siguiente);
+    }
+
+    @Test
+    void testLineasUnicasDesdeVariosHilos() throws Exception {
+
+        // Dado un generador con bloques pequeños para forzar cambios de bloque concurrentes
+        ServicioSecuenciaFolio secuencia = mock(ServicioSecuenciaFolio.class);
+        AtomicLong siguiente = new AtomicLong(1);
+        when(secuencia.apartarBloque(anyString(), anyLong(), anyLong()))
+                .thenAnswer(invocacion -> siguiente.getAndAdd(invocacion.getArgument(1)));
+        GeneradorLineaCaptura generador = new GeneradorLineaCaptura(secuencia, 7);
+
+        // Cuando 8 hilos emiten 2000 líneas cada uno
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<List<String>>> trabajos = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                trabajos.add(() -> {
+                    List<String> lineas = new ArrayList<>();
+                    for (int j = 0; j < 2000; j++) {
+                        lineas.add(generador.siguiente());
+                    }
+                    return lineas;
+                });
+            }
+
+            // Entonces ninguna se repite y todas son válidas
+            Set<String> emitidas = new HashSet<>();
+            for (Future<List<String>> resultado : hilos.invokeAll(trabajos)) {
+                for (String linea : resultado.get()) {
+                    assertTrue(emitidas.add(linea), "Línea repetida: " + linea);
+                    assertTrue(GeneradorLineaCaptura.esValida(linea));
+                }
+            }
+            assertEquals(16000, emitidas.size());
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+}
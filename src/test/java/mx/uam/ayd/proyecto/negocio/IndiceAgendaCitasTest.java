@@ -0,0 +1,98 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaAgendada;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para el índice de horarios ocupados por psicólogo.
+ */
+@ExtendWith(MockitoExtension.class)
+public class IndiceAgendaCitasTest {
+
+    @Mock
+    private CitaRepository citaRepository;
+    @InjectMocks
+    private IndiceAgendaCitas indice;
+
+    private final LocalDateTime lunes10 = LocalDateTime.of(2030, 1, 7, 10, 0);
+
+    @Test
+    void testReservarHorarioLibreYOcupado() {
+        assertTrue(indice.reservar(1, lunes10));
+        assertFalse(indice.reservar(1, lunes10), "El mismo horario no se puede reservar dos veces");
+        assertFalse(indice.reservar(1, lunes10.plusMinutes(30)), "Un horario traslapado tampoco");
+        assertTrue(indice.reservar(1, lunes10.plusHours(1)), "El horario siguiente sigue libre");
+    }
+
+    @Test
+    void testAgendasIndependientesPorPsicologo() {
+        assertTrue(indice.reservar(1, lunes10));
+        // Dos psicólogos pueden tener cita a la misma hora
+        assertTrue(indice.reservar(2, lunes10));
+        assertTrue(indice.estaOcupado(2, lunes10));
+        assertFalse(indice.estaOcupado(3, lunes10));
+    }
+
+    @Test
+    void testLiberarHorario() {
+        indice.reservar(1, lunes10);
+        indice.liberar(1, lunes10);
+
+        assertFalse(indice.estaOcupado(1, lunes10));
+        assertTrue(indice.reservar(1, lunes10));
+    }
+
+    @Test
+    void testReconstruirDesdeCitas() {
+        when(citaRepository.findAgendadasDesde(any(LocalDateTime.class), eq(TipoConfirmacionCita.CANCELADA)))
+                .thenReturn(List.of(
+                        new CitaAgendada(1, 5, lunes10),
+                        new CitaAgendada(2, 6, lunes10.plusHours(2))));
+
+        indice.reconstruir();
+
+        assertTrue(indice.estaOcupado(5, lunes10));
+        assertTrue(indice.estaOcupado(6, lunes10.plusHours(2)));
+        assertFalse(indice.estaOcupado(5, lunes10.plusHours(2)));
+    }
+
+    @Test
+    void testReservacionesConcurrentesSoloUnaGana() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> intentos = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                intentos.add(() -> indice.reservar(1, lunes10));
+            }
+
+            int exitosas = 0;
+            for (Future<Boolean> resultado : pool.invokeAll(intentos)) {
+                if (resultado.get()) {
+                    exitosas++;
+                }
+            }
+            assertEquals(1, exitosas);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas unitarias del conteo de intentos fallidos de inicio de sesión.
+ */
+class LimitadorIntentosTest {
+
+    private static final Duration VENTANA = Duration.ofMinutes(15);
+    private static final Duration BLOQUEO = Duration.ofMinutes(5);
+
+    private RelojManual reloj;
+    private LimitadorIntentos limitador;
+
+    @BeforeEach
+    void setUp() {
+        reloj = new RelojManual();
+        limitador = new LimitadorIntentos(3, VENTANA, BLOQUEO, reloj);
+    }
+
+    @Test
+    void testBloqueaAlLlegarAlMaximo() {
+        limitador.registrarFallo("paciente:ana");
+        limitador.registrarFallo("paciente:ana");
+        assertEquals(Duration.ZERO, limitador.tiempoBloqueado("paciente:ana"));
+
+        limitador.registrarFallo("paciente:ana");
+        assertEquals(BLOQUEO, limitador.tiempoBloqueado("paciente:ana"));
+        // Otro usuario no se ve afectado
+        assertEquals(Duration.ZERO, limitador.tiempoBloqueado("paciente:beto"));
+
+        reloj.avanzar(Duration.ofMinutes(2));
+        assertEquals(Duration.ofMinutes(3), limitador.tiempoBloqueado("paciente:ana"));
+
+        // Al terminar el bloqueo vuelve a tener todos sus intentos
+        reloj.avanzar(Duration.ofMinutes(3));
+        assertEquals(Duration.ZERO, limitador.tiempoBloqueado("paciente:ana"));
+        limitador.registrarFallo("paciente:ana");
+        assertEquals(Duration.ZERO, limitador.tiempoBloqueado("paciente:ana"));
+    }
+
+    @Test
+    void testLosFallosVencenYElExitoLosBorra() {
+        limitador.registrarFallo("psicologo:ana");
+        limitador.registrarFallo("psicologo:ana");
+        reloj.avanzar(VENTANA);
+        limitador.registrarFallo("psicologo:ana");
+        assertEquals(Duration.ZERO, limitador.tiempoBloqueado("psicologo:ana"));
+
+        limitador.registrarFallo("psicologo:ana");
+        limitador.registrarExito("psicologo:ana");
+        limitador.registrarFallo("psicologo:ana");
+        assertEquals(Duration.ZERO, limitador.tiempoBloqueado("psicologo:ana"));
+    }
+
+    @Test
+    void testMemoriaAcotada() {
+        int llaves = LimitadorIntentos.FRANJAS * LimitadorIntentos.LLAVES_POR_FRANJA * 2;
+        for (int i = 0; i < llaves; i++) {
+            limitador.registrarFallo("paciente:usuario" + i);
+        }
+        // Los bloqueados más recientes se conservan aunque se hayan descartado otros
+        for (int i = 0; i < 3; i++) {
+            limitador.registrarFallo("paciente:atacado");
+        }
+        assertEquals(BLOQUEO, limitador.tiempoBloqueado("paciente:atacado"));
+    }
+
+    @Test
+    void testFallosConcurrentes() throws Exception {
+        LimitadorIntentos concurrente = new LimitadorIntentos(1000, VENTANA, BLOQUEO, reloj);
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < 8; h++) {
+                tareas.add(hilos.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        concurrente.registrarFallo("paciente:compartido");
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+        // Ningún fallo se pierde: con 800 + 199 aún no se bloquea y con uno más sí
+        for (int i = 0; i < 199; i++) {
+            concurrente.registrarFallo("paciente:compartido");
+        }
+        assertEquals(Duration.ZERO, concurrente.tiempoBloqueado("paciente:compartido"));
+        concurrente.registrarFallo("paciente:compartido");
+        assertEquals(BLOQUEO, concurrente.tiempoBloqueado("paciente:compartido"));
+    }
+
+    /**
+     * Reloj que sólo avanza cuando la prueba lo indica.
+     */
+    private static class RelojManual extends Clock {
+
+        private Instant ahora = Instant.parse("2030-01-07T10:00:00Z");
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
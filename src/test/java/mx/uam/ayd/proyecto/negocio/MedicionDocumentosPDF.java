@@ -0,0 +1,113 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+
+/**
+ * Medición de la generación de documentos PDF: clases cargadas para el primer
+ * documento, bytes asignados por documento y documentos por segundo en un hilo.
+ *
+ * <p>No es una prueba (no la ejecuta surefire); se corre a mano después de
+ * {@code mvn test-compile}:</p>
+ *
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     mx.uam.ayd.proyecto.negocio.MedicionDocumentosPDF [documentos]
+ * </pre>
+ *
+ * <p>Conviene correrla en una JVM nueva: las clases cargadas sólo tienen
+ * sentido si ningún otro código generó PDFs antes.</p>
+ *
+ * @author Tech Solutions
+ * @version 1.0
+ */
+public class MedicionDocumentosPDF {
+
+    private static final int CALENTAMIENTO = 200;
+
+    /**
+     * Un tipo de documento que se genera en la salida dada.
+     */
+    private interface Documento {
+        void generar(ByteArrayOutputStream salida) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int documentos = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        ServicioDocumentosPDF servicioDocumentosPDF = new ServicioDocumentosPDF();
+        ServicioLineaCaptura servicioLineaCaptura = new ServicioLineaCaptura(servicioDocumentosPDF, null, null);
+        ServicioGenerarPDFCita servicioGenerarPDFCita = new ServicioGenerarPDFCita(servicioDocumentosPDF);
+        Cita cita = cita();
+
+        Documento comprobantePago = salida -> servicioLineaCaptura.generarComprobantePago(
+                "Juan Perez", 100.0, "1234567890", "15/05/2025", salida);
+        Documento comprobanteCita = salida -> servicioGenerarPDFCita.generarCitaPDF(
+                cita.getPaciente(), cita.getPsicologo(), cita, salida);
+
+        // Las entidades y los servicios ya están cargados; sólo se cuenta lo que necesita el PDF
+        ClassLoadingMXBean clases = ManagementFactory.getClassLoadingMXBean();
+        long clasesAntes = clases.getTotalLoadedClassCount();
+        comprobantePago.generar(new ByteArrayOutputStream());
+        comprobanteCita.generar(new ByteArrayOutputStream());
+        System.out.printf("Clases cargadas para el primer comprobante de pago y de cita: %d%n",
+                clases.getTotalLoadedClassCount() - clasesAntes);
+
+        medir("Comprobante de pago", comprobantePago, documentos);
+        medir("Comprobante de cita", comprobanteCita, documentos);
+    }
+
+    private static void medir(String nombre, Documento documento, int documentos) throws IOException {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            documento.generar(new ByteArrayOutputStream());
+        }
+
+        long bytesAntes = bytesAsignados();
+        long inicio = System.nanoTime();
+        long tamano = 0;
+        for (int i = 0; i < documentos; i++) {
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            documento.generar(salida);
+            tamano = salida.size();
+        }
+        long nanos = System.nanoTime() - inicio;
+        long bytes = bytesAsignados() - bytesAntes;
+
+        System.out.printf("%s: %d KB asignados por documento (%d KB de PDF), %.0f documentos por segundo%n",
+                nombre, bytes / documentos / 1024, tamano / 1024, documentos * 1e9 / nanos);
+    }
+
+    // Bytes asignados por el hilo actual; -1 si la JVM no lo reporta
+    private static long bytesAsignados() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean hilos) {
+            return hilos.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static Cita cita() {
+        Psicologo psicologo = new Psicologo();
+        psicologo.setNombre("Dra. Ana Lopez");
+        psicologo.setTelefono("5559876543");
+
+        Paciente paciente = new Paciente();
+        paciente.setNombre("Juan Perez");
+        paciente.setTelefono("5551234567");
+        paciente.setCorreo("juan@mail.com");
+
+        Cita cita = new Cita();
+        cita.setPaciente(paciente);
+        cita.setPsicologo(psicologo);
+        cita.setMotivo("Consulta general");
+        cita.setFechaCita(LocalDateTime.of(2025, 5, 15, 14, 30));
+        return cita;
+    }
+}
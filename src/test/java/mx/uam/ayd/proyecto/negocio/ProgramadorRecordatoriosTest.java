@@ -0,0 +1,134 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import mx.uam.ayd.proyecto.BaseIntegrationTest;
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.NotificacionRepository;
+import mx.uam.ayd.proyecto.datos.PacienteRepository;
+import mx.uam.ayd.proyecto.datos.PsicologoRepository;
+import mx.uam.ayd.proyecto.datos.RecordatorioCitaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoEspecialidad;
+
+/**
+ * Prueba de integración del envío de recordatorios al reagendar una cita.
+ */
+class ProgramadorRecordatoriosTest extends BaseIntegrationTest {
+
+    @Autowired
+    private ProgramadorRecordatorios programadorRecordatorios;
+
+    @Autowired
+    private ServicioRecordatorio servicioRecordatorio;
+
+    @Autowired
+    private ServicioCita servicioCita;
+
+    @Autowired
+    private PsicologoRepository psicologoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private CitaRepository citaRepository;
+
+    @Autowired
+    private RecordatorioCitaRepository recordatorioCitaRepository;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    private Psicologo psicologo;
+    private Paciente paciente;
+    private Cita cita;
+
+    @BeforeEach
+    void setUp() {
+        psicologo = new Psicologo();
+        psicologo.setNombre("Luis");
+        psicologo.setCorreo("luis@recordatorios.com");
+        psicologo.setTelefono("5551111111");
+        psicologo.setEspecialidad(TipoEspecialidad.FAMILIAR);
+        psicologo.setUsuario("luis_recordatorios");
+        psicologo = psicologoRepository.save(psicologo);
+
+        paciente = new Paciente();
+        paciente.setNombre("Eva");
+        paciente.setCorreo("eva@recordatorios.com");
+        paciente.setTelefono("5552222222");
+        paciente.setEdad(28);
+        paciente.setUsuario("eva_recordatorios");
+        paciente.setPsicologo(psicologo);
+        paciente = pacienteRepository.save(paciente);
+
+        cita = new Cita();
+        cita.setPaciente(paciente);
+        cita.setPsicologo(psicologo);
+        cita.setFechaCita(LocalDate.now().plusDays(1).atTime(10, 0));
+        cita.setEstadoCita(TipoConfirmacionCita.PENDIENTE);
+        cita = citaRepository.save(cita);
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificacionRepository.deleteAll();
+        recordatorioCitaRepository.deleteAll();
+        citaRepository.deleteAll();
+        pacienteRepository.deleteAll();
+        psicologoRepository.deleteAll();
+    }
+
+    @Test
+    void testReagendarVuelveAEnviarElRecordatorio() {
+        programadorRecordatorios.revisarCitasProximas();
+        assertFalse(pendiente());
+        assertEquals(1, notificacionRepository.findByPacienteOrderByFechaDesc(paciente).size());
+
+        // Sigue dentro de las 48 horas, pero el recordatorio enviado tenía la hora anterior
+        servicioCita.reagendarCita(cita.getId(), LocalDate.now().plusDays(1), "12:00", psicologo);
+        assertTrue(pendiente());
+
+        programadorRecordatorios.revisarCitasProximas();
+        assertFalse(pendiente());
+        assertEquals(1, recordatorioCitaRepository.count());
+        assertTrue(notificacionRepository.findByPacienteOrderByFechaDesc(paciente).get(0)
+                .getMensaje().contains("12:00"));
+    }
+
+    @Test
+    void testAsignarOtroPsicologoMismoHorarioNoRepiteElRecordatorio() {
+        programadorRecordatorios.revisarCitasProximas();
+
+        Psicologo otro = new Psicologo();
+        otro.setNombre("Rosa");
+        otro.setCorreo("rosa@recordatorios.com");
+        otro.setTelefono("5553333333");
+        otro.setEspecialidad(TipoEspecialidad.FAMILIAR);
+        otro.setUsuario("rosa_recordatorios");
+        otro = psicologoRepository.save(otro);
+
+        servicioCita.reagendarCita(cita.getId(), cita.getFechaCita().toLocalDate(), "10:00", otro);
+
+        assertFalse(pendiente());
+        assertEquals(1, notificacionRepository.findByPacienteOrderByFechaDesc(paciente).size());
+    }
+
+    private boolean pendiente() {
+        List<Cita> porRecordar = servicioRecordatorio.buscarCitasPorRecordar(LocalDateTime.now());
+        return porRecordar.stream().anyMatch(c -> c.getId() == cita.getId());
+    }
+}
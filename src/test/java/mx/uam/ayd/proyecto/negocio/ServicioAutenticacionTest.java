@@ -0,0 +1,131 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import mx.uam.ayd.proyecto.datos.PacienteRepository;
+import mx.uam.ayd.proyecto.datos.PsicologoRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+
+@ExtendWith(MockitoExtension.class)
+class ServicioAutenticacionTest {
+
+    @Mock
+    private PacienteRepository pacienteRepository;
+
+    @Mock
+    private PsicologoRepository psicologoRepository;
+
+    @Mock
+    private ServicioPaciente servicioPaciente;
+
+    @Mock
+    private ServicioPsicologo servicioPsicologo;
+
+    @Spy
+    private CifradoContrasenas cifradoContrasenas = new CifradoContrasenas(4, 1000);
+
+    @Spy
+    private LimitadorIntentos limitadorIntentos = new LimitadorIntentos(3, Duration.ofMinutes(15), Duration.ofMinutes(5));
+
+    @InjectMocks
+    private ServicioAutenticacion servicioAutenticacion;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(servicioAutenticacion, "usuarioAdministrador", "admin");
+        ReflectionTestUtils.setField(servicioAutenticacion, "contrasenaAdministrador",
+                cifradoContrasenas.cifrar("admin1234"));
+    }
+
+    private Paciente paciente(String contrasenaGuardada) {
+        Paciente paciente = new Paciente();
+        paciente.setUsuario("ana");
+        paciente.setContrasena(contrasenaGuardada);
+        return paciente;
+    }
+
+    @Test
+    void testPacienteConContrasenaCifrada() {
+        Paciente paciente = paciente(cifradoContrasenas.cifrar("secreta"));
+        when(pacienteRepository.findByUsuario("ana")).thenReturn(paciente);
+
+        assertSame(paciente, servicioAutenticacion.autenticarPaciente("ana", "secreta"));
+        assertNull(servicioAutenticacion.autenticarPaciente("ana", "otra"));
+        verify(servicioPaciente, never()).actualizarContrasena(any(), any());
+    }
+
+    @Test
+    void testPacienteConContrasenaEnClaroSeCifraAlEntrar() {
+        Paciente paciente = paciente("secreta");
+        when(pacienteRepository.findByUsuario("ana")).thenReturn(paciente);
+
+        // Una contraseña incorrecta no la migra
+        assertNull(servicioAutenticacion.autenticarPaciente("ana", "secret"));
+        verify(servicioPaciente, never()).actualizarContrasena(any(), any());
+
+        assertSame(paciente, servicioAutenticacion.autenticarPaciente("ana", "secreta"));
+        verify(servicioPaciente).actualizarContrasena(paciente, "secreta");
+    }
+
+    @Test
+    void testPsicologoConCostoMenorSeCifraDeNuevo() {
+        Psicologo psicologo = new Psicologo();
+        psicologo.setUsuario("luis");
+        psicologo.setContrasena(new CifradoContrasenas(4, 1000).cifrar("clave"));
+        when(psicologoRepository.findByUsuario("luis")).thenReturn(psicologo);
+
+        CifradoContrasenas costoMayor = new CifradoContrasenas(5, 1000);
+        ReflectionTestUtils.setField(servicioAutenticacion, "cifradoContrasenas", costoMayor);
+
+        assertSame(psicologo, servicioAutenticacion.autenticarPsicologo("luis", "clave"));
+        verify(servicioPsicologo).actualizarContrasena(psicologo, "clave");
+    }
+
+    @Test
+    void testUsuarioInexistente() {
+        assertNull(servicioAutenticacion.autenticarPaciente("nadie", "secreta"));
+        assertNull(servicioAutenticacion.autenticarPsicologo("nadie", "secreta"));
+        assertFalse(servicioAutenticacion.autenticarAdministrador("nadie", "admin1234"));
+        // Se verifica contra un cifrado ficticio para tardar lo mismo
+        verify(cifradoContrasenas, times(3)).coincide(any(), isNull());
+    }
+
+    @Test
+    void testAdministrador() {
+        assertTrue(servicioAutenticacion.autenticarAdministrador("admin", "admin1234"));
+        assertFalse(servicioAutenticacion.autenticarAdministrador("admin", "admin"));
+    }
+
+    @Test
+    void testBloqueoPorIntentosFallidos() {
+        Paciente paciente = paciente(cifradoContrasenas.cifrar("secreta"));
+        when(pacienteRepository.findByUsuario(any())).thenReturn(paciente);
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(servicioAutenticacion.autenticarPaciente("ana", "otra"));
+        }
+
+        // Bloqueado aunque cambie mayúsculas: ya no se consulta ni se verifica la contraseña
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> servicioAutenticacion.autenticarPaciente("ANA", "secreta"));
+        assertTrue(error.getMessage().contains("5 minutos"));
+        verify(pacienteRepository, times(3)).findByUsuario(any());
+
+        // El mismo usuario con otro rol no está bloqueado
+        assertFalse(servicioAutenticacion.autenticarAdministrador("ana", "otra"));
+    }
+}
@@ -1,9 +1,12 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.RecordatorioCitaRepository;
+import mx.uam.ayd.proyecto.negocio.eventos.CitaCreada;
+import mx.uam.ayd.proyecto.negocio.eventos.PublicadorEventos;
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaAgendada;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
-import mx.uam.ayd.proyecto.negocio.modelo.Notificacion;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
 import org.junit.jupiter.api.Test;
@@ -14,19 +17,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
  * Pruebas unitarias para la clase ServicioCita.
- * Verifica la lógica de crear citas y listar el historial de pagos.
+ * Verifica la lógica de crear, cancelar y reagendar citas.
  */
 @ExtendWith(MockitoExtension.class)
 public class ServicioCitaTest {
@@ -37,62 +39,16 @@ public class ServicioCitaTest {
     private ServicioLineaCaptura servicioLineaCaptura;
     @Mock
     private ServicioNotificacion servicioNotificacion;
+    @Mock // Simulador del índice de horarios ocupados
+    private IndiceAgendaCitas indiceAgendaCitas;
+    @Mock // Simulador de los saldos de los pacientes
+    private ServicioSaldoPaciente servicioSaldoPaciente;
+    @Mock // Simulador de los recordatorios enviados
+    private RecordatorioCitaRepository recordatorioCitaRepository;
+    @Mock // Simulador del publicador de eventos
+    private PublicadorEventos publicadorEventos;
     @InjectMocks // Inyectamos los simuladores en el Servicio real que probamos
     private ServicioCita servicioCita;
-    @Mock
-    private Paciente pacienteMock;
-    @Mock
-    private Cita citaMock;
-
-    @Test
-    void testListarCitasPorPacienteExitoso() {
-        System.out.println("TEST: Probando listar historial de pagos (citas) de un paciente");
-
-        Paciente pacientePrueba = new Paciente();
-        pacientePrueba.setId(1L);
-        pacientePrueba.setNombre("Paciente Test");
-
-        Psicologo psicoPrueba = new Psicologo();
-        psicoPrueba.setId(1);
-        psicoPrueba.setNombre("Psicologo Test");
-
-        Cita cita1 = new Cita();
-        cita1.setId(101);
-        cita1.setMonto(100.00);
-        cita1.setLineaCaptura("12345");
-        cita1.setPaciente(pacientePrueba);
-        cita1.setPsicologo(psicoPrueba);
-
-        List<Cita> listaSimulada = List.of(cita1);
-
-        when(citaRepository.findByPaciente(pacientePrueba)).thenReturn(listaSimulada);
-
-        List<Cita> resultado = servicioCita.listarCitasPorPaciente(pacientePrueba);
-
-        assertNotNull(resultado, "La lista no debe ser nula.");
-        assertEquals(1, resultado.size(), "La lista debe contener 1 cita.");
-        assertEquals("12345", resultado.get(0).getLineaCaptura(), "La línea de captura debe coincidir.");
-        assertEquals(100.00, resultado.get(0).getMonto(), "El monto debe coincidir.");
-
-        // Verificamos que el método del repositorio SÍ fue llamado
-        verify(citaRepository, times(1)).findByPaciente(pacientePrueba);
-    }
-
-    @Test
-    void testListarCitasPorPacienteVacio() {
-        System.out.println("TEST: Probando historial de pagos de un paciente SIN citas");
-
-        Paciente pacientePrueba = new Paciente();
-        pacientePrueba.setId(2L);
-
-        when(citaRepository.findByPaciente(pacientePrueba)).thenReturn(Collections.emptyList());
-
-        List<Cita> resultado = servicioCita.listarCitasPorPaciente(pacientePrueba);
-
-        assertNotNull(resultado, "La lista no debe ser nula.");
-        assertTrue(resultado.isEmpty(), "La lista debe estar vacía.");
-        verify(citaRepository, times(1)).findByPaciente(pacientePrueba);
-    }
 
     @Test
     void testCrearCitaExitoso() {
@@ -104,7 +60,7 @@ public class ServicioCitaTest {
         LocalDateTime fecha = LocalDateTime.now().plusDays(1);
         String motivo = "Test";
 
-        when(citaRepository.findByFechaCita(fecha)).thenReturn(null); // No hay cita existente
+        when(indiceAgendaCitas.reservar(0, fecha)).thenReturn(true); // El horario está libre
         when(servicioLineaCaptura.generarLineaCaptura()).thenReturn("LINEA123");
         when(servicioLineaCaptura.asignarPrecioCita()).thenReturn(100.0);
         when(citaRepository.save(any(Cita.class))).thenAnswer(invocation -> invocation.getArgument(0));
@@ -119,6 +75,9 @@ public class ServicioCitaTest {
         assertEquals(100.0, resultado.getMonto()); // Verificamos el monto
 
         verify(citaRepository, times(1)).save(any(Cita.class));
+        verify(servicioSaldoPaciente).registrarCargo(resultado); // El cargo se suma al saldo
+        // Las pantallas abiertas se enteran de la cita nueva
+        verify(publicadorEventos).publicar(new CitaCreada(resultado.getId(), null, null, 0, fecha));
     }
 
     @Test
@@ -126,10 +85,11 @@ public class ServicioCitaTest {
         System.out.println("TEST: Probando crear una cita en horario ya ocupado");
 
         Paciente pacientePrueba = new Paciente();
+        pacientePrueba.setPsicologo(new Psicologo());
         LocalDateTime fecha = LocalDateTime.now().plusDays(1);
 
-        // Simulamos que ya existe una cita en esa fecha
-        when(citaRepository.findByFechaCita(fecha)).thenReturn(new Cita());
+        // Simulamos que el psicólogo ya tiene una cita en esa fecha
+        when(indiceAgendaCitas.reservar(0, fecha)).thenReturn(false);
 
         Exception excepcion = assertThrows(IllegalArgumentException.class, () -> {
             servicioCita.crearCita(pacientePrueba, fecha, "Test");
@@ -138,92 +98,124 @@ public class ServicioCitaTest {
         assertEquals("Ya existe una cita agendada en esta fecha y hora", excepcion.getMessage());
 
         verify(citaRepository, never()).save(any());
+        verify(publicadorEventos, never()).publicar(any());
     }
 
-    /**
-     * Prueba: Verificar citas próximas (dentro de 48 horas).
-     */
     @Test
-    void testVerificarCitasProximas_DebeNotificar() {
-        // 1. Configurar fecha de cita para MAÑANA (aprox 24 horas, entra en el rango <= 48)
-        LocalDate fechaManana = LocalDate.now().plusDays(1);
-        LocalTime horaCita = LocalTime.of(10, 0); // 10:00 AM
-
-        when(citaMock.getFecha()).thenReturn(fechaManana);
-        when(citaMock.getHora()).thenReturn(horaCita);
-        
-        // Simulamos que el repositorio devuelve esta cita futura
-        List<Cita> listaCitas = Collections.singletonList(citaMock);
-        when(citaRepository.findByPacienteAndFechaCitaAfterAndEstadoCitaNot(
-            eq(pacienteMock), any(LocalDateTime.class), eq(TipoConfirmacionCita.CANCELADA))
-             ).thenReturn(listaCitas);
-
-        // Simulamos que NO existen notificaciones previas (lista vacía)
-        when(servicioNotificacion.obtenerTodasPorPaciente(pacienteMock)).thenReturn(new ArrayList<>());
-
-        // 2. Ejecutar el método
-        servicioCita.verificarCitasProximas(pacienteMock);
-
-        // 3. Verificar que SE LLAMÓ al servicio de notificación
-        // Se espera el mensaje exacto construido en tu lógica
-        String mensajeEsperado = "Recordatorio: Tienes una cita el " + fechaManana + " a las " + horaCita;
-        verify(servicioNotificacion).crearNotificacionPaciente(pacienteMock, mensajeEsperado);
+    void testCrearCitaSinPsicologoAsignado() {
+        Paciente pacientePrueba = new Paciente();
+        LocalDateTime fecha = LocalDateTime.now().plusDays(1);
+
+        assertThrows(IllegalArgumentException.class, () -> servicioCita.crearCita(pacientePrueba, fecha, "Test"));
+
+        verify(indiceAgendaCitas, never()).reservar(anyInt(), any());
+        verify(citaRepository, never()).save(any());
+    }
+
+    @Test
+    void testCancelarCitaLiberaHorario() {
+        Psicologo psicologo = new Psicologo();
+        psicologo.setId(3);
+        LocalDateTime fecha = LocalDateTime.now().plusDays(2).withMinute(0);
+
+        Cita cita = new Cita();
+        cita.setId(7);
+        cita.setPsicologo(psicologo);
+        cita.setFechaCita(fecha);
+        cita.setEstadoCita(TipoConfirmacionCita.PENDIENTE);
+
+        when(citaRepository.findById(7)).thenReturn(java.util.Optional.of(cita));
+
+        servicioCita.cancelarCita(7);
+
+        assertEquals(TipoConfirmacionCita.CANCELADA, cita.getEstadoCita());
+        verify(indiceAgendaCitas).liberar(3, fecha);
+        verify(servicioSaldoPaciente).registrarCancelacion(cita);
     }
 
-    /**
-     * Prueba: Cita lejana (más de 48 horas).
-     */
     @Test
-    void testVerificarCitasProximas_NoDebeNotificarSiFaltaMucho() {
-        // 1. Configurar fecha de cita para dentro de 5 DÍAS (> 48 horas)
-        LocalDate fechaLejana = LocalDate.now().plusDays(5);
-        LocalTime horaCita = LocalTime.of(10, 0);
+    void testReagendarCitaAHorarioOcupado() {
+        Psicologo psicologo = new Psicologo();
+        psicologo.setId(3);
+        LocalDate nuevaFecha = LocalDate.now().plusDays(3);
 
-        when(citaMock.getFecha()).thenReturn(fechaLejana);
-        when(citaMock.getHora()).thenReturn(horaCita);
+        Cita cita = new Cita();
+        cita.setId(8);
+        cita.setPsicologo(psicologo);
+        cita.setFechaCita(LocalDateTime.now().plusDays(1).withMinute(0));
+        cita.setEstadoCita(TipoConfirmacionCita.PENDIENTE);
 
-        List<Cita> listaCitas = Collections.singletonList(citaMock);
-        when(citaRepository.findByPacienteAndFechaCitaAfterAndEstadoCitaNot(
-                eq(pacienteMock), any(LocalDateTime.class), eq(TipoConfirmacionCita.CANCELADA))
-        ).thenReturn(listaCitas);
+        when(citaRepository.findByIdConRelaciones(8)).thenReturn(cita);
+        when(indiceAgendaCitas.reservar(3, nuevaFecha.atTime(10, 0))).thenReturn(false);
 
-        // 2. Ejecutar
-        servicioCita.verificarCitasProximas(pacienteMock);
+        assertThrows(IllegalArgumentException.class,
+                () -> servicioCita.reagendarCita(8, nuevaFecha, "10:00", psicologo));
 
-        // 3. Verificar que NUNCA se llamó a crear notificación
-        verify(servicioNotificacion, never()).crearNotificacionPaciente(any(), anyString());
+        verify(indiceAgendaCitas, never()).liberar(anyInt(), any());
+        verify(citaRepository, never()).save(any());
+        verify(recordatorioCitaRepository, never()).deleteByCitaId(anyInt());
     }
 
     /**
-     * Prueba: Evitar duplicados.
+     * Prueba: Horarios disponibles descuenta las horas ocupadas del psicólogo.
      */
     @Test
-    void testVerificarCitasProximas_NoDebeDuplicarNotificacion() {
-        // 1. Configurar fecha para MAÑANA (Rango válido)
-        LocalDate fechaManana = LocalDate.now().plusDays(1);
-        LocalTime horaCita = LocalTime.of(15, 30); // 3:30 PM
-
-        when(citaMock.getFecha()).thenReturn(fechaManana);
-        when(citaMock.getHora()).thenReturn(horaCita);
-
-        List<Cita> listaCitas = Collections.singletonList(citaMock);
-        when(citaRepository.findByPacienteAndFechaCitaAfterAndEstadoCitaNot(
-                eq(pacienteMock), any(LocalDateTime.class), eq(TipoConfirmacionCita.CANCELADA))
-        ).thenReturn(listaCitas);
-
-        // Simulamos que ya existe esa notificación en el historial
-        String mensajeGenerado = "Recordatorio: Tienes una cita el " + fechaManana + " a las " + horaCita;
-        
-        Notificacion notificacionExistente = new Notificacion();
-        notificacionExistente.setMensaje(mensajeGenerado); // El mensaje es IDÉNTICO
-        
-        when(servicioNotificacion.obtenerTodasPorPaciente(pacienteMock))
-                .thenReturn(Collections.singletonList(notificacionExistente));
-
-        // 3. Ejecutar
-        servicioCita.verificarCitasProximas(pacienteMock);
-
-        // 4. Verificar que NUNCA se crea una nueva (porque ya existía)
-        verify(servicioNotificacion, never()).crearNotificacionPaciente(any(), anyString());
+    void testObtenerHorariosDisponiblesDescuentaOcupados() {
+        Psicologo psicologo = new Psicologo();
+        psicologo.setId(4);
+
+        // Un lunes futuro: horario de atención de 8 a 17 h
+        LocalDate lunes = LocalDate.now().plusWeeks(1).with(java.time.DayOfWeek.MONDAY);
+        LocalDate domingo = lunes.plusDays(6);
+
+        when(citaRepository.findAgendadasEntre(eq(List.of(4)), eq(lunes.atStartOfDay()),
+                eq(domingo.plusDays(1).atStartOfDay()), eq(TipoConfirmacionCita.CANCELADA)))
+                .thenReturn(List.of(
+                        new CitaAgendada(1, 4, lunes.atTime(8, 0)),
+                        new CitaAgendada(2, 4, lunes.atTime(12, 0))));
+
+        Map<LocalDate, List<LocalTime>> disponibles =
+                servicioCita.obtenerHorariosDisponibles(List.of(psicologo), lunes, domingo).get(4);
+
+        assertEquals(8, disponibles.get(lunes).size(), "10 horas de atención menos 2 ocupadas");
+        assertFalse(disponibles.get(lunes).contains(LocalTime.of(8, 0)));
+        assertFalse(disponibles.get(lunes).contains(LocalTime.of(12, 0)));
+        assertEquals(LocalTime.of(9, 0), disponibles.get(lunes).get(0));
+        assertEquals(6, disponibles.get(lunes.plusDays(5)).size(), "Sábado de 9 a 14 h");
+        assertFalse(disponibles.containsKey(domingo), "Domingo no hay atención");
+    }
+
+    @Test
+    void testObtenerHorariosDisponiblesRangoInvalido() {
+        LocalDate hoy = LocalDate.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> servicioCita.obtenerHorariosDisponibles(List.of(new Psicologo()), hoy, hoy.minusDays(1)));
+        verify(citaRepository, never()).findAgendadasEntre(any(), any(), any(), any());
+    }
+
+    @Test
+    void testObtenerCitasParaExportarIncluyeElUltimoDia() {
+        Psicologo psicologo = new Psicologo();
+        psicologo.setId(4);
+        LocalDate lunes = LocalDate.of(2025, 5, 12);
+        LocalDate domingo = lunes.plusDays(6);
+        Cita cita = new Cita();
+        cita.setId(7);
+
+        when(citaRepository.findCompletasEntre(psicologo, lunes.atStartOfDay(),
+                domingo.plusDays(1).atStartOfDay(), TipoConfirmacionCita.CANCELADA))
+                .thenReturn(List.of(cita));
+
+        assertEquals(List.of(cita), servicioCita.obtenerCitasParaExportar(psicologo, lunes, domingo));
+    }
+
+    @Test
+    void testObtenerCitasParaExportarRangoInvalido() {
+        LocalDate hoy = LocalDate.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> servicioCita.obtenerCitasParaExportar(new Psicologo(), hoy, hoy.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> servicioCita.obtenerCitasParaExportar(null, hoy, hoy));
+        verify(citaRepository, never()).findCompletasEntre(any(), any(), any(), any());
     }
-}
\ No newline at end of file
+}
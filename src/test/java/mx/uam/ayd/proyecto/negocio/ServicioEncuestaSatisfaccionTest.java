@@ -1,6 +1,8 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.EncuestaSatisfaccionRepository;
+import mx.uam.ayd.proyecto.negocio.eventos.EncuestaHabilitada;
+import mx.uam.ayd.proyecto.negocio.eventos.PublicadorEventos;
 import mx.uam.ayd.proyecto.negocio.modelo.EncuestaSatisfaccion;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import mx.uam.ayd.proyecto.presentacion.pacientePrincipal.ControlPaciente;
@@ -24,6 +26,10 @@ public class ServicioEncuestaSatisfaccionTest {
     private EncuestaSatisfaccionRepository encuestaSatisfaccionRepository;
     @Mock
     private ControlPaciente controlPacienteMock; 
+    @Mock
+    private ServicioReporteEncuesta servicioReporteEncuesta;
+    @Mock
+    private PublicadorEventos publicadorEventos;
      
     @InjectMocks
     private ServicioEncuestaSatisfaccion servicioEncuestaSatisfaccion; 
@@ -76,6 +82,16 @@ public class ServicioEncuestaSatisfaccionTest {
         assertTrue(servicioEncuestaSatisfaccion.isEncuestaHabilitada(), "La encuesta debe estar habilitada.");
     }
 
+    @Test
+    void testHabilitarEncuestaAvisaUnaVez() {
+        // Given: la encuesta ya está habilitada
+        servicioEncuestaSatisfaccion.habilitarEncuesta();
+        // When: se vuelve a habilitar
+        servicioEncuestaSatisfaccion.habilitarEncuesta();
+        // Then: los pacientes sólo reciben un aviso
+        verify(publicadorEventos, times(1)).publicar(new EncuestaHabilitada());
+    }
+
     @Test
     void testAdminNoHabilitaEncuestaYPacienteNoPuedeResponder() {
         // Given: Dado que el administrador no ha habilitado la encuesta
@@ -95,6 +111,8 @@ public class ServicioEncuestaSatisfaccionTest {
         );        
         // Then: entonces veré un mensaje de éxito
         assertNotNull(resultado, "El guardado debe ser exitoso.");
+        // y la encuesta queda acumulada en el resumen del reporte
+        verify(servicioReporteEncuesta).acumularEncuesta(encuestaCompleta);
     }
     
     @Test
@@ -162,5 +180,40 @@ public class ServicioEncuestaSatisfaccionTest {
             "Sugerencia de mejora.".equals(encuesta.getQ8Mejora()) && 
             "Comentario adicional.".equals(encuesta.getQ9Comentarios())
         ));
-    }    
-}
\ No newline at end of file
+    }
+
+    // ESCENARIO: VERIFICAR SI YA RESPONDIÓ SIN RECORRER TODAS LAS ENCUESTAS
+    @Test
+    void testYaRespondioSeConsultaEnMemoria() {
+        // Given: Al arrancar, el paciente 7 ya había respondido
+        when(encuestaSatisfaccionRepository.findIdsPacientesQueRespondieron()).thenReturn(List.of(7L));
+        servicioEncuestaSatisfaccion.cargarPacientesQueRespondieron();
+        Paciente respondio = new Paciente();
+        respondio.setId(7L);
+        pacienteTest.setId(8L);
+
+        // When/Then: Se responde con el bitmap, sin consultar ni recorrer las encuestas
+        assertTrue(servicioEncuestaSatisfaccion.yaRespondio(respondio));
+        assertFalse(servicioEncuestaSatisfaccion.yaRespondio(pacienteTest));
+        verify(encuestaSatisfaccionRepository, never()).existsByPacienteId(any());
+        verify(encuestaSatisfaccionRepository, never()).findAll();
+
+        // When: El paciente 8 guarda su encuesta
+        when(encuestaSatisfaccionRepository.save(any(EncuestaSatisfaccion.class))).thenReturn(encuestaCompleta);
+        servicioEncuestaSatisfaccion.guardarEncuesta(encuestaCompleta);
+
+        // Then: Ya no puede volver a responder
+        assertTrue(servicioEncuestaSatisfaccion.yaRespondio(pacienteTest));
+    }
+
+    @Test
+    void testYaRespondioSinCargarUsaConsultaPorIndice() {
+        // Given: Los datos aún no se cargaron
+        pacienteTest.setId(3L);
+        when(encuestaSatisfaccionRepository.existsByPacienteId(3L)).thenReturn(true);
+
+        // When/Then: Se usa la consulta de existencia
+        assertTrue(servicioEncuestaSatisfaccion.yaRespondio(pacienteTest));
+        verify(encuestaSatisfaccionRepository, never()).findAll();
+    }
+}
@@ -1,23 +1,24 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyBoolean;
-import static org.mockito.ArgumentMatchers.anyFloat;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedConstruction;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 
-import com.lowagie.text.pdf.BaseFont;
-import com.lowagie.text.pdf.PdfContentByte;
 import com.lowagie.text.pdf.PdfReader;
-import com.lowagie.text.pdf.PdfStamper;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
 
 import mx.uam.ayd.proyecto.negocio.modelo.Cita;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
@@ -30,10 +31,10 @@ public class ServicioGenerarPDFCitaTest {
     private Psicologo psicologo;
     private Cita cita;
 
-    // Inicialización de datos de prueba antes de cada test 
+    // Inicialización de datos de prueba antes de cada test
     @BeforeEach
     void setUp() {
-        servicio = new ServicioGenerarPDFCita();
+        servicio = new ServicioGenerarPDFCita(new ServicioDocumentosPDF());
         // Sustitución de las entidades por mocks
         paciente = mock(Paciente.class);
         psicologo = mock(Psicologo.class);
@@ -43,51 +44,38 @@ public class ServicioGenerarPDFCitaTest {
         when(paciente.getTelefono()).thenReturn("5551234567");
         when(paciente.getCorreo()).thenReturn("juan@mail.com");
         // Datos del psicólogo
-        when(psicologo.getNombre()).thenReturn("Dra. Ana López");
+        when(psicologo.getNombre()).thenReturn("Dra. Ana Lopez");
         when(psicologo.getTelefono()).thenReturn("5559876543");
         // Datos de la cita
         when(cita.getMotivo()).thenReturn("Consulta general");
         when(cita.getFechaCita()).thenReturn(LocalDateTime.of(2025, 5, 15, 14, 30));
     }
 
+    static String texto(byte[] pdf) throws IOException {
+        PdfReader reader = new PdfReader(pdf);
+        try {
+            return new PdfTextExtractor(reader).getTextFromPage(1);
+        } finally {
+            reader.close();
+        }
+    }
+
     @Test
     void testGenerarCitaPDFCaminoFeliz() throws Exception {
 
         // Dado que existen datos válidos de paciente, psicólogo y cita
-
-        PdfContentByte canvasMock = mock(PdfContentByte.class);
-        BaseFont fuenteMock = mock(BaseFont.class);
-
-        try (
-            MockedConstruction<PdfReader> mockedReader = Mockito.mockConstruction(PdfReader.class);
-            MockedConstruction<PdfStamper> mockedStamper = Mockito.mockConstruction(PdfStamper.class,
-                (mock, context) -> {
-                    when(mock.getOverContent(1)).thenReturn(canvasMock);
-                });
-            MockedStatic<BaseFont> baseFontMock = Mockito.mockStatic(BaseFont.class)
-        ) {
-
-            baseFontMock.when(() ->
-                BaseFont.createFont(anyString(), anyString(), anyBoolean()))
-                .thenReturn(fuenteMock);
-
-            // Cuando se ejecuta la generación del PDF
-            servicio.generarCitaPDF(paciente, psicologo, cita, "salida.pdf");
-
-            // Entonces se crea el PdfReader y PdfStamper
-            assertEquals(1, mockedReader.constructed().size());
-            assertEquals(1, mockedStamper.constructed().size());
-
-            // se escribe texto en el PDF
-            verify(canvasMock, atLeastOnce()).beginText();
-            verify(canvasMock, atLeastOnce()).setTextMatrix(anyFloat(), anyFloat());
-            verify(canvasMock, atLeastOnce()).showText(anyString());
-            verify(canvasMock, atLeastOnce()).endText();
-
-            //y se cierra el PDF correctamente
-            verify(mockedStamper.constructed().get(0)).close();
-            verify(mockedReader.constructed().get(0)).close();
-        }
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Cuando se ejecuta la generación del PDF
+        servicio.generarCitaPDF(paciente, psicologo, cita, salida);
+
+        // Entonces el documento tiene los datos en la plantilla
+        String texto = texto(salida.toByteArray());
+        assertTrue(texto.contains("Juan Perez"));
+        assertTrue(texto.contains("Dra. Ana Lopez"));
+        assertTrue(texto.contains("15/05/2025"));
+        assertTrue(texto.contains("14:30"));
+        assertTrue(texto.contains("Consulta general"));
     }
 
     @Test
@@ -96,46 +84,129 @@ public class ServicioGenerarPDFCitaTest {
         // Dado que el paciente y el psicólogo contienen algunos valores nulos
         when(paciente.getNombre()).thenReturn(null);
         when(psicologo.getTelefono()).thenReturn(null);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Cuando se genera el PDF con valores nulos
+        servicio.generarCitaPDF(paciente, psicologo, cita, salida);
+
+        // Entonces los campos quedan vacíos y el resto se escribe
+        assertTrue(texto(salida.toByteArray()).contains("juan@mail.com"));
+    }
+
+    @Test
+    void testGenerarCitaPDFNoCierraLaSalida() throws Exception {
+
+        // Dado una salida que registra si se cerró
+        OutputStream salida = spy(new ByteArrayOutputStream());
+
+        // Cuando se generan dos documentos seguidos con la misma plantilla
+        servicio.generarCitaPDF(paciente, psicologo, cita, salida);
+        servicio.generarCitaPDF(paciente, psicologo, cita, new ByteArrayOutputStream());
+
+        // Entonces la salida del que llama sigue abierta
+        verify(salida, never()).close();
+    }
 
-        PdfContentByte canvasMock = mock(PdfContentByte.class);
-        BaseFont fuenteMock = mock(BaseFont.class);
+    @Test
+    void testGenerarCitaPDFErrorAlEscribir() throws Exception {
+
+        // Dado que la salida falla al escribir
+        OutputStream salida = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disco lleno");
+            }
+        };
+
+        // Cuando se ejecuta el servicio
+        // Entonces el error llega al que llama en lugar de perderse
+        assertThrows(IOException.class, () -> servicio.generarCitaPDF(paciente, psicologo, cita, salida));
+    }
+
+    @Test
+    void testPlantillaInexistente() {
+        // Cuando la plantilla no está en el classpath
+        // Entonces falla al construirse y no al generar cada documento
+        assertThrows(IllegalStateException.class,
+                () -> new ServicioDocumentosPDF().plantilla("/NoExiste.pdf", 12, ServicioGenerarPDFCita.CAMPOS_CITA));
+    }
+
+    @Test
+    void testCampoDesconocido() {
+        PlantillaPDF plantilla = new ServicioDocumentosPDF().plantilla(
+                "/Plantilla_Cita.pdf", 12, ServicioGenerarPDFCita.CAMPOS_CITA);
 
-        try (
-            MockedConstruction<PdfReader> mockedReader = Mockito.mockConstruction(PdfReader.class);
-            MockedConstruction<PdfStamper> mockedStamper = Mockito.mockConstruction(PdfStamper.class,
-                (mock, context) -> when(mock.getOverContent(1)).thenReturn(canvasMock));
-            MockedStatic<BaseFont> baseFontMock = Mockito.mockStatic(BaseFont.class)
-        ) {
+        assertThrows(IllegalArgumentException.class,
+                () -> plantilla.llenar(Map.of("paciente.edad", "30"), new ByteArrayOutputStream()));
+    }
 
-            baseFontMock.when(() ->
-                BaseFont.createFont(anyString(), anyString(), anyBoolean()))
-                .thenReturn(fuenteMock);
+    @Test
+    void testPlantillaSeCompartePorRecursoTamanoYCampos() {
+        ServicioDocumentosPDF documentos = new ServicioDocumentosPDF();
+        PlantillaPDF plantilla = documentos.plantilla("/Plantilla_Cita.pdf", 12, ServicioGenerarPDFCita.CAMPOS_CITA);
+
+        // Con los mismos argumentos se reutiliza; con otro tamaño u otros campos no
+        assertSame(plantilla, documentos.plantilla("/Plantilla_Cita.pdf", 12, Map.copyOf(ServicioGenerarPDFCita.CAMPOS_CITA)));
+        assertNotSame(plantilla, documentos.plantilla("/Plantilla_Cita.pdf", 10, ServicioGenerarPDFCita.CAMPOS_CITA));
+        PlantillaPDF soloNombre = documentos.plantilla("/Plantilla_Cita.pdf", 12,
+                Map.of("paciente.nombre", ServicioGenerarPDFCita.CAMPOS_CITA.get("paciente.nombre")));
+        assertNotSame(plantilla, soloNombre);
+        assertThrows(IllegalArgumentException.class,
+                () -> soloNombre.llenar(Map.of("cita.motivo", "Consulta"), new ByteArrayOutputStream()));
+    }
 
-            // Cuando se genera el PDF con valores nulos
-            servicio.generarCitaPDF(paciente, psicologo, cita, "salida.pdf");
+    private Cita citaReal(int id) {
+        Cita real = new Cita();
+        real.setId(id);
+        real.setPaciente(paciente);
+        real.setPsicologo(psicologo);
+        real.setMotivo("Motivo " + id);
+        real.setFechaCita(LocalDateTime.of(2025, 5, 15, 9, 0).plusHours(id));
+        return real;
+    }
 
-            // Entonces no se lanza excepción
-            verify(canvasMock, atLeastOnce()).showText(anyString());
+    @Test
+    void testExportarCitasZip() throws Exception {
+
+        // Dado más citas que comprobantes en curso
+        List<Cita> citas = new ArrayList<>();
+        for (int i = 1; i <= ServicioGenerarPDFCita.DOCUMENTOS_EN_CURSO + 3; i++) {
+            citas.add(citaReal(i));
+        }
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        List<Integer> avance = new ArrayList<>();
+
+        // Cuando se exportan
+        int exportados = servicio.exportarCitasZip(citas, salida, avance::add);
+
+        // Entonces el ZIP tiene un comprobante por cita, en el orden de la lista
+        assertEquals(citas.size(), exportados);
+        assertEquals(citas.size(), avance.size());
+        assertEquals(citas.size(), avance.get(avance.size() - 1).intValue());
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(salida.toByteArray()))) {
+            for (Cita cita : citas) {
+                ZipEntry entrada = zip.getNextEntry();
+                assertNotNull(entrada);
+                assertTrue(entrada.getName().startsWith("Cita_" + cita.getId() + "_"));
+                assertTrue(texto(zip.readAllBytes()).contains(cita.getMotivo()));
+            }
+            assertNull(zip.getNextEntry());
         }
     }
 
     @Test
-    void testGenerarCitaPDFErrorAlCrearPdf() throws Exception {
-        
-        // Dado que ocurre un error al crear el PdfReader
-
-        try (MockedConstruction<PdfReader> mockedReader =
-                     Mockito.mockConstruction(PdfReader.class,
-                        (mock, context) -> {
-                            throw new RuntimeException("Error al abrir PDF");
-                        })) {
-
-
-            // Cuando se ejecuta el servicio
-            // Entonces la excepción es manejada internamente y no truena el sistema
-            assertDoesNotThrow(() ->
-                servicio.generarCitaPDF(paciente, psicologo, cita, "salida.pdf")
-            );
+    void testExportarCitasZipInterrumpido() {
+
+        // Dado que el hilo que exporta fue interrumpido
+        List<Cita> citas = List.of(citaReal(1), citaReal(2));
+        Thread.currentThread().interrupt();
+
+        // Entonces la exportación se detiene
+        try {
+            assertThrows(InterruptedException.class,
+                    () -> servicio.exportarCitasZip(citas, new ByteArrayOutputStream(), escritos -> { }));
+        } finally {
+            Thread.interrupted();
         }
     }
 }
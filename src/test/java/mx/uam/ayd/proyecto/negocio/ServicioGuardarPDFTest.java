@@ -2,6 +2,7 @@ package mx.uam.ayd.proyecto.negocio;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 import java.io.File;
 
@@ -11,7 +12,8 @@ import java.io.File;
  */
 public class ServicioGuardarPDFTest {
 
-    private final ServicioLineaCaptura servicio = new ServicioLineaCaptura();
+    private final ServicioLineaCaptura servicio = new ServicioLineaCaptura(
+            new ServicioDocumentosPDF(), GeneradorLineaCapturaTest.enMemoria(), mock(ServicioPago.class));
 
     /**
      * Criterio 1:
@@ -2,7 +2,9 @@ package mx.uam.ayd.proyecto.negocio;
 
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -13,7 +15,9 @@ import java.time.format.DateTimeFormatter;
 public class ServicioLineaCapturaTest {
 
     // Instancia del servicio que vamos a probar.
-    private final ServicioLineaCaptura servicio = new ServicioLineaCaptura();
+    private final ServicioPago servicioPago = mock(ServicioPago.class);
+    private final ServicioLineaCaptura servicio = new ServicioLineaCaptura(
+            new ServicioDocumentosPDF(), GeneradorLineaCapturaTest.enMemoria(), servicioPago);
 
     @Test
     void testGenerarLineaCaptura() {
@@ -30,8 +34,11 @@ public class ServicioLineaCapturaTest {
         
         // 3. Verificar que todos los caracteres sean dígitos.
         assertTrue(linea.matches("\\d+"), "La línea de captura debe contener solo dígitos.");
+
+        // 4. Verificar que el dígito verificador sea correcto.
+        assertTrue(GeneradorLineaCaptura.esValida(linea), "La línea de captura debe tener un dígito verificador válido.");
         
-        // Prueba de aleatoriedad (probando que dos líneas sean diferentes, aunque puede fallar ocasionalmente)
+        // Prueba de unicidad (dos líneas consecutivas nunca son iguales)
         String otraLinea = servicio.generarLineaCaptura();
         assertNotEquals(linea, otraLinea, "Dos líneas consecutivas deben ser diferentes (probabilidad alta).");
     }
@@ -69,12 +76,24 @@ public class ServicioLineaCapturaTest {
     }
     @Test
     void testRegistrarPago() {
-        System.out.println("TEST: Probando el Stub de registrarPago (smoke test)");
+        System.out.println("TEST: Probando registrarPago");
         
-        // Dado que este método es un stub (no tiene persistencia real), 
-        // solo verificamos que no lance una excepción al ser llamado.
+        // El pago se registra en el registro de pagos con la fecha interpretada.
         assertDoesNotThrow(() -> {
             servicio.registrarPago("TestPaciente", 100.00, "1234567890", "01/01/2025");
-        }, "El método registrarPago no debe lanzar excepciones en la implementación actual (stub).");
+        }, "El método registrarPago no debe lanzar excepciones.");
+        verify(servicioPago).registrarPago("1234567890", 100.00, LocalDate.of(2025, 1, 1));
+    }
+
+    @Test
+    void testGenerarComprobantePago() throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        servicio.generarComprobantePago("TestPaciente", 100.00, "1234567890", "01/01/2025", salida);
+
+        String texto = ServicioGenerarPDFCitaTest.texto(salida.toByteArray());
+        assertTrue(texto.contains("Comprobante para: TestPaciente"));
+        assertTrue(texto.contains("Línea de captura: 1234567890"));
+        assertTrue(texto.contains("Fecha: 01/01/2025"));
     }
-}
\ No newline at end of file
+}
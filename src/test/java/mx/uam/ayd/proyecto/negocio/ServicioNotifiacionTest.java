@@ -1,6 +1,8 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.NotificacionRepository;
+import mx.uam.ayd.proyecto.negocio.eventos.NotificacionCreada;
+import mx.uam.ayd.proyecto.negocio.eventos.PublicadorEventos;
 import mx.uam.ayd.proyecto.negocio.modelo.Notificacion;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
 import org.junit.jupiter.api.Test;
@@ -10,8 +12,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongConsumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,6 +26,8 @@ public class ServicioNotifiacionTest {
 
     @Mock
     private NotificacionRepository notificacionRepository;
+    @Mock
+    private PublicadorEventos publicadorEventos;
     @InjectMocks
     private ServicioNotificacion servicioNotificacion;
     @Mock
@@ -49,6 +55,7 @@ public class ServicioNotifiacionTest {
         assertEquals(pacienteMock, notificacionGuardada.getPaciente());
         assertEquals(mensaje, notificacionGuardada.getMensaje());
         assertNotNull(notificacionGuardada.getFecha()); // Validamos que se asigne fecha (LocalDateTime.now())
+        verify(publicadorEventos).publicar(new NotificacionCreada(null, null, pacienteMock.getId(), mensaje));
     }
 
     /**
@@ -96,25 +103,79 @@ public class ServicioNotifiacionTest {
      */
     @Test
     public void testMarcarTodasComoLeidasPaciente() {
-        // 1. Preparamos datos de prueba: Notificaciones NO leídas
-        Notificacion n1 = new Notificacion();
-        n1.setLeida(false);
-        Notificacion n2 = new Notificacion();
-        n2.setLeida(false);
-        
-        List<Notificacion> noLeidas = Arrays.asList(n1, n2);
+        // El repositorio marca en un solo UPDATE y regresa cuántas filas cambió
+        when(notificacionRepository.marcarLeidasPaciente(pacienteMock, null)).thenReturn(2);
 
-        // 2. Configuramos el mock para que devuelva estas notificaciones cuando se busquen las no leídas
-        when(notificacionRepository.findByPacienteAndLeidaFalseOrderByFechaDesc(pacienteMock))
-                .thenReturn(noLeidas);
+        int marcadas = servicioNotificacion.marcarTodasComoLeidasPaciente(pacienteMock);
 
-        // 3. Ejecutamos el método a probar
-        servicioNotificacion.marcarTodasComoLeidasPaciente(pacienteMock);
+        assertEquals(2, marcadas);
+        // Ya no se cargan ni se guardan una por una
+        verify(notificacionRepository, never()).findByPacienteAndLeidaFalseOrderByFechaDesc(any());
+        verify(notificacionRepository, never()).save(any(Notificacion.class));
+    }
 
-        // 4. Verificaciones
-                assertTrue(n1.isLeida());
-        assertTrue(n2.isLeida());
-        verify(notificacionRepository, times(2)).save(any(Notificacion.class));
+    /**
+     * Test para: marcarTodasComoLeidasPaciente con límite
+     * Las notificaciones que llegan después de la última mostrada no se marcan.
+     */
+    @Test
+    public void testMarcarLeidasHastaLaUltimaMostrada() {
+        Notificacion n1 = mock(Notificacion.class);
+        Notificacion n2 = mock(Notificacion.class);
+        when(n1.getId()).thenReturn(7L);
+        when(n2.getId()).thenReturn(12L);
+
+        long hastaId = servicioNotificacion.idMasReciente(Arrays.asList(n1, n2));
+        servicioNotificacion.marcarTodasComoLeidasPaciente(pacienteMock, hastaId);
+
+        assertEquals(12L, hastaId);
+        verify(notificacionRepository).marcarLeidasPaciente(pacienteMock, 12L);
+    }
+
+    @Test
+    public void testIdMasRecienteSinNotificaciones() {
+        // Con la lista vacía el límite es 0 y no se marca nada
+        assertEquals(0L, servicioNotificacion.idMasReciente(List.of()));
+    }
+
+    /**
+     * Test para: contarNoLeidasPaciente con contador en memoria
+     * La burbuja sólo consulta la base de datos la primera vez; las notificaciones nuevas
+     * y las marcadas como leídas ajustan el contador y se avisan al oyente.
+     */
+    @Test
+    public void testContadorNoLeidasSeMantieneSinConsultas() {
+        Paciente paciente = new Paciente();
+        paciente.setId(5L);
+        when(notificacionRepository.countByPacienteAndLeidaFalse(paciente)).thenReturn(1L);
+        when(notificacionRepository.marcarLeidasPaciente(paciente, 20L)).thenReturn(2);
+        List<Long> avisos = new ArrayList<>();
+        servicioNotificacion.registrarOyentePaciente(paciente, avisos::add);
+
+        assertEquals(1, servicioNotificacion.contarNoLeidasPaciente(paciente));
+        servicioNotificacion.crearNotificacionPaciente(paciente, "Nueva cita");
+        assertEquals(2, servicioNotificacion.contarNoLeidasPaciente(paciente));
+        servicioNotificacion.marcarTodasComoLeidasPaciente(paciente, 20L);
+        assertEquals(0, servicioNotificacion.contarNoLeidasPaciente(paciente));
+
+        assertEquals(List.of(2L, 0L), avisos);
+        verify(notificacionRepository, times(1)).countByPacienteAndLeidaFalse(paciente);
+    }
+
+    @Test
+    public void testOyenteDesregistradoNoRecibeAvisos() {
+        Paciente paciente = new Paciente();
+        paciente.setId(6L);
+        when(notificacionRepository.countByPacienteAndLeidaFalse(paciente)).thenReturn(0L);
+        List<Long> avisos = new ArrayList<>();
+        LongConsumer oyente = avisos::add;
+
+        servicioNotificacion.registrarOyentePaciente(paciente, oyente);
+        servicioNotificacion.contarNoLeidasPaciente(paciente);
+        servicioNotificacion.desregistrarOyentePaciente(paciente, oyente);
+        servicioNotificacion.crearNotificacionPaciente(paciente, "Aviso");
+
+        assertTrue(avisos.isEmpty());
+        assertEquals(1, servicioNotificacion.contarNoLeidasPaciente(paciente));
     }
-    
-}
\ No newline at end of file
+}
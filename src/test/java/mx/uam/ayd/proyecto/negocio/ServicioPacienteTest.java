@@ -7,12 +7,16 @@ import static org.mockito.Mockito.*;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import mx.uam.ayd.proyecto.datos.PacienteRepository;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
@@ -24,6 +28,12 @@ class ServicioPacienteTest {
     @Mock
     private PacienteRepository pacienteRepository;
 
+    @Spy
+    private CifradoContrasenas cifradoContrasenas = new CifradoContrasenas(4, 1000);
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(ConfiguracionCaches.PACIENTES_POR_USUARIO);
+
     @InjectMocks
     private ServicioPaciente servicioPaciente;
 
@@ -56,6 +66,9 @@ class ServicioPacienteTest {
         assertEquals("123456789", result.getTelefono());
         assertEquals(30, result.getEdad());
         assertEquals(USUARIO_VALIDO, result.getUsuario());
+        // La contraseña se guarda cifrada
+        verify(pacienteRepository).save(argThat(guardado -> !CONTRASENA_VALIDA.equals(guardado.getContrasena())
+                && cifradoContrasenas.coincide(CONTRASENA_VALIDA, guardado.getContrasena())));
 
         // Caso 2: Nombre nulo o vacío
         assertThrows(IllegalArgumentException.class, () -> {
@@ -110,19 +123,33 @@ class ServicioPacienteTest {
     @Test
     void testRecuperarTodosLosPacientes() {
         // Caso 1: Lista vacía
-        when(pacienteRepository.findAll()).thenReturn(Collections.emptyList());
+        when(pacienteRepository.findListaBy()).thenReturn(Collections.emptyList());
         List<Paciente> pacientes = servicioPaciente.recuperarTodosLosPacientes();
         assertEquals(0, pacientes.size(), "La lista de pacientes debe tener tamaño 0");
 
         // Caso 2: Lista con pacientes
         Paciente p1 = new Paciente();
         Paciente p2 = new Paciente();
-        when(pacienteRepository.findAll()).thenReturn(Arrays.asList(p1, p2));
+        when(pacienteRepository.findListaBy()).thenReturn(Arrays.asList(p1, p2));
 
         pacientes = servicioPaciente.recuperarTodosLosPacientes();
         assertEquals(2, pacientes.size(), "La lista de pacientes debe tener tamaño 2");
     }
 
+    @Test
+    void testObtenerDetallePaciente() {
+        // La lista trae pacientes sin expediente; el detalle se pide por id con su plan de carga
+        Paciente seleccionado = new Paciente();
+        seleccionado.setId(4L);
+        Paciente detalle = new Paciente();
+        detalle.setId(4L);
+        when(pacienteRepository.findDetalleById(4L)).thenReturn(Optional.of(detalle));
+
+        assertSame(detalle, servicioPaciente.obtenerDetallePaciente(seleccionado));
+        // Un paciente sin guardar no tiene expediente
+        assertNull(servicioPaciente.obtenerDetallePaciente(new Paciente()));
+    }
+
     @Test
     void testAsignarPsicologo() {
         Paciente paciente = new Paciente();
@@ -161,6 +188,32 @@ class ServicioPacienteTest {
         verify(pacienteRepository).findByUsuario(USUARIO_NO_EXISTENTE);
     }
 
+    /**
+     * Prueba: Cada llamada recibe su propia copia del paciente en caché, así que
+     * modificarla no afecta a las siguientes; para editar se lee sin la caché.
+     */
+    @Test
+    void testPacienteEnCacheNoSeComparte() {
+        Paciente enBaseDeDatos = new Paciente();
+        enBaseDeDatos.setId(7L);
+        enBaseDeDatos.setUsuario(USUARIO_VALIDO);
+        enBaseDeDatos.setTelefono("5550000000");
+        when(pacienteRepository.findByUsuario(USUARIO_VALIDO)).thenReturn(enBaseDeDatos);
+
+        Paciente primero = servicioPaciente.obtenerPacientePorUsuario(USUARIO_VALIDO);
+        primero.setTelefono("5551111111");
+        Paciente segundo = servicioPaciente.obtenerPacientePorUsuario(USUARIO_VALIDO);
+
+        assertNotSame(primero, segundo);
+        assertEquals(7L, segundo.getId());
+        assertEquals("5550000000", segundo.getTelefono());
+        assertEquals("5550000000", enBaseDeDatos.getTelefono());
+        verify(pacienteRepository, times(1)).findByUsuario(USUARIO_VALIDO);
+
+        assertSame(enBaseDeDatos, servicioPaciente.obtenerPacienteParaEditar(USUARIO_VALIDO));
+        verify(pacienteRepository, times(2)).findByUsuario(USUARIO_VALIDO);
+    }
+
     @Test
     void testActualizarPaciente() {
         Paciente paciente = new Paciente();
@@ -0,0 +1,276 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.PagoRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaPorPagar;
+import mx.uam.ayd.proyecto.negocio.modelo.EstadoPago;
+import mx.uam.ayd.proyecto.negocio.modelo.MovimientoBancario;
+import mx.uam.ayd.proyecto.negocio.modelo.OrdenHistorialPagos;
+import mx.uam.ayd.proyecto.negocio.modelo.OrigenPago;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Pago;
+import mx.uam.ayd.proyecto.negocio.modelo.PagoHistorial;
+import mx.uam.ayd.proyecto.negocio.modelo.ResultadoConciliacion;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para el registro y la conciliación de pagos (HU-16).
+ */
+@ExtendWith(MockitoExtension.class)
+public class ServicioPagoTest {
+
+    private static final LocalDate HOY = LocalDate.of(2025, 5, 2);
+
+    @Mock
+    private CitaRepository citaRepository;
+    @Mock
+    private PagoRepository pagoRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private ServicioSaldoPaciente servicioSaldoPaciente;
+    @InjectMocks
+    private ServicioPago servicioPago;
+
+    private static CitaPorPagar porPagar(int id, String lineaCaptura, Double monto, LocalDate fechaPago) {
+        return new CitaPorPagar(id, 10L, lineaCaptura, monto, TipoConfirmacionCita.PENDIENTE, HOY, fechaPago);
+    }
+
+    // La actualización marca todas las citas que recibe, como cuando están bloqueadas
+    private void marcarTodas() {
+        when(citaRepository.marcarPagadas(anyCollection(), any()))
+                .thenAnswer(invocacion -> invocacion.<Collection<?>>getArgument(0).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Pago> pagosGuardados() {
+        ArgumentCaptor<List<Pago>> pagos = ArgumentCaptor.forClass(List.class);
+        verify(pagoRepository).saveAll(pagos.capture());
+        return pagos.getValue();
+    }
+
+    /**
+     * Prueba: Un lote se cruza con las citas con una sola consulta, marca las que
+     * coinciden y registra todos los pagos, incluso los que no concilian.
+     */
+    @Test
+    void testAplicarLoteClasificaCadaPago() {
+        when(pagoRepository.findReferenciasRegistradas(any())).thenReturn(Set.of("R5"));
+        when(citaRepository.findPorPagar(any())).thenReturn(List.of(
+                porPagar(1, "L1", 100.0, null),
+                porPagar(2, "L2", 100.0, null),
+                porPagar(3, "L3", 100.0, HOY.minusDays(1))));
+        marcarTodas();
+        when(entityManager.getReference(eq(Cita.class), any())).thenAnswer(invocacion -> {
+            Cita cita = new Cita();
+            cita.setId(invocacion.getArgument(1));
+            return cita;
+        });
+
+        ResultadoConciliacion resultado = servicioPago.aplicarLote(List.of(
+                new MovimientoBancario("R1", "L1", 100.00, HOY),
+                new MovimientoBancario("R2", "L2", 99.00, HOY),
+                new MovimientoBancario("R3", "L3", 100.00, HOY),
+                new MovimientoBancario("R4", "L9", 100.00, HOY),
+                new MovimientoBancario("R5", "L1", 100.00, HOY),
+                new MovimientoBancario("R1", "L1", 100.00, HOY)));
+
+        assertEquals(new ResultadoConciliacion(6, 1, 1, 1, 1, 0, 2, 0), resultado);
+        verify(citaRepository, times(1)).findPorPagar(Set.of("L1", "L2", "L3", "L9"));
+        verify(citaRepository).marcarPagadas(List.of(1), HOY);
+        // Sólo la cita conciliada pasa a pagada en el saldo del paciente
+        verify(servicioSaldoPaciente).registrarPagos(List.of(porPagar(1, "L1", 100.0, null)));
+
+        List<Pago> pagos = pagosGuardados();
+        assertEquals(4, pagos.size());
+        assertEquals(1, pagos.get(0).getCita().getId());
+        assertEquals(OrigenPago.CONCILIACION, pagos.get(0).getOrigen());
+        // El pago sin cita se registra igualmente para aclararlo
+        assertNull(pagos.get(3).getCita());
+    }
+
+    /**
+     * Prueba: Dos pagos de la misma cita en el lote sólo la marcan una vez; las
+     * citas se marcan con una actualización por día de pago.
+     */
+    @Test
+    void testAplicarLoteMarcaPorDia() {
+        when(pagoRepository.findReferenciasRegistradas(any())).thenReturn(Set.of());
+        List<CitaPorPagar> citas = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            citas.add(porPagar(i, "L" + i, 100.0, null));
+        }
+        when(citaRepository.findPorPagar(any())).thenReturn(citas);
+        marcarTodas();
+
+        ResultadoConciliacion resultado = servicioPago.aplicarLote(List.of(
+                new MovimientoBancario("R1", "L1", 100.00, HOY),
+                new MovimientoBancario("R2", "L2", 100.00, HOY),
+                new MovimientoBancario("R3", "L3", 100.00, HOY.plusDays(1)),
+                new MovimientoBancario("R4", "L4", 100.00, HOY.plusDays(1)),
+                new MovimientoBancario("R5", "L4", 100.00, HOY.plusDays(1))));
+
+        assertEquals(4, resultado.conciliados());
+        assertEquals(1, resultado.yaPagados());
+        verify(citaRepository).marcarPagadas(List.of(1, 2), HOY);
+        verify(citaRepository).marcarPagadas(List.of(3, 4), HOY.plusDays(1));
+        verify(citaRepository).findPorPagar(any());
+        verifyNoMoreInteractions(citaRepository);
+    }
+
+    /**
+     * Prueba: Un lote ya importado no registra nada y no consulta las citas.
+     */
+    @Test
+    void testAplicarLoteRepetido() {
+        when(pagoRepository.findReferenciasRegistradas(any())).thenReturn(Set.of("R1", "R2"));
+
+        ResultadoConciliacion resultado = servicioPago.aplicarLote(List.of(
+                new MovimientoBancario("R1", "L1", 100.00, HOY),
+                new MovimientoBancario("R2", "L2", 100.00, HOY)));
+
+        assertEquals(new ResultadoConciliacion(2, 0, 0, 0, 0, 0, 2, 0), resultado);
+        verifyNoInteractions(citaRepository);
+        verifyNoInteractions(servicioSaldoPaciente);
+        verify(pagoRepository, never()).saveAll(any());
+    }
+
+    /**
+     * Prueba: Un pago capturado a mano se registra sin referencia del banco.
+     */
+    @Test
+    void testRegistrarPagoManual() {
+        when(citaRepository.findPorPagar(Set.of("L1"))).thenReturn(List.of(porPagar(1, "L1", 100.0, null)));
+        marcarTodas();
+
+        ResultadoConciliacion resultado = servicioPago.registrarPago(" L1 ", 100.00, HOY);
+
+        assertEquals(1, resultado.conciliados());
+        verify(pagoRepository, never()).findReferenciasRegistradas(any());
+        Pago pago = pagosGuardados().get(0);
+        assertNull(pago.getReferencia());
+        assertEquals(OrigenPago.MANUAL, pago.getOrigen());
+        assertEquals(HOY, pago.getFechaPago());
+    }
+
+    /**
+     * Prueba: El pago de una cita cancelada se registra ligado a la cita para
+     * aclararlo (devolverlo), pero no la marca como pagada ni ajusta el saldo.
+     */
+    @Test
+    void testAplicarLoteNoConciliaCitasCanceladas() {
+        when(pagoRepository.findReferenciasRegistradas(any())).thenReturn(Set.of());
+        when(citaRepository.findPorPagar(any())).thenReturn(List.of(
+                new CitaPorPagar(1, 10L, "L1", 100.0, TipoConfirmacionCita.CANCELADA, HOY, null)));
+        when(entityManager.getReference(eq(Cita.class), any())).thenAnswer(invocacion -> {
+            Cita cita = new Cita();
+            cita.setId(invocacion.getArgument(1));
+            return cita;
+        });
+
+        ResultadoConciliacion resultado = servicioPago.aplicarLote(List.of(
+                new MovimientoBancario("R1", "L1", 100.00, HOY)));
+
+        assertEquals(new ResultadoConciliacion(1, 0, 0, 0, 0, 1, 0, 0), resultado);
+        verify(citaRepository, never()).marcarPagadas(any(), any());
+        verifyNoInteractions(servicioSaldoPaciente);
+        assertEquals(1, pagosGuardados().get(0).getCita().getId());
+    }
+
+    /**
+     * Prueba: Si la actualización no marca todas las citas elegidas, el lote falla
+     * antes de abonar saldos o registrar pagos, para que se revierta completo.
+     */
+    @Test
+    void testAplicarLoteFallaSiNoSeMarcanTodas() {
+        when(pagoRepository.findReferenciasRegistradas(any())).thenReturn(Set.of());
+        when(citaRepository.findPorPagar(any())).thenReturn(List.of(
+                porPagar(1, "L1", 100.0, null),
+                porPagar(2, "L2", 100.0, null)));
+        when(citaRepository.marcarPagadas(List.of(1, 2), HOY)).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> servicioPago.aplicarLote(List.of(
+                new MovimientoBancario("R1", "L1", 100.00, HOY),
+                new MovimientoBancario("R2", "L2", 100.00, HOY))));
+        verifyNoInteractions(servicioSaldoPaciente);
+        verify(pagoRepository, never()).saveAll(any());
+    }
+
+    /**
+     * Prueba: Sin línea de captura o sin fecha no se registra el pago.
+     */
+    @Test
+    void testRegistrarPagoIncompleto() {
+        assertThrows(IllegalArgumentException.class, () -> servicioPago.registrarPago(" ", 100.00, HOY));
+        assertThrows(IllegalArgumentException.class, () -> servicioPago.registrarPago("L1", 100.00, null));
+        verifyNoInteractions(pagoRepository);
+    }
+
+    /**
+     * Prueba: El historial se pide en una página con el orden elegido y
+     * termina en el id para que la posición sea única.
+     */
+    @Test
+    void testListarHistorialPagos() {
+        Paciente paciente = new Paciente();
+        paciente.setId(1L);
+        PagoHistorial pago = new PagoHistorial(101, LocalDateTime.of(2025, 5, 1, 10, 0), 100.0, "12345",
+                TipoConfirmacionCita.PENDIENTE, HOY.minusDays(1), null);
+        when(citaRepository.findHistorialByPaciente(eq(paciente), eq(ScrollPosition.keyset()), any(),
+                eq(Limit.of(ServicioPago.TAMANO_PAGINA_HISTORIAL))))
+                .thenReturn(Window.from(List.of(pago), ScrollPosition::offset));
+
+        Window<PagoHistorial> resultado = servicioPago.listarHistorialPagos(paciente,
+                OrdenHistorialPagos.ANTIGUAS, ScrollPosition.keyset());
+
+        assertEquals(List.of(pago), resultado.getContent());
+        assertEquals(EstadoPago.VENCIDA, pago.estadoPago(HOY));
+        ArgumentCaptor<Sort> orden = ArgumentCaptor.forClass(Sort.class);
+        verify(citaRepository).findHistorialByPaciente(eq(paciente), any(), orden.capture(), any());
+        assertEquals(Sort.by(Sort.Order.asc("fechaCita"), Sort.Order.asc("id")), orden.getValue());
+    }
+
+    /**
+     * Prueba: Un paciente sin citas recibe una página vacía sin siguiente.
+     */
+    @Test
+    void testListarHistorialPagosVacio() {
+        Paciente paciente = new Paciente();
+        paciente.setId(2L);
+        when(citaRepository.findHistorialByPaciente(eq(paciente), any(), any(), any()))
+                .thenReturn(Window.from(Collections.emptyList(), ScrollPosition::offset));
+
+        Window<PagoHistorial> resultado = servicioPago.listarHistorialPagos(paciente,
+                OrdenHistorialPagos.RECIENTES, ScrollPosition.keyset());
+
+        assertTrue(resultado.isEmpty());
+        assertFalse(resultado.hasNext());
+        ArgumentCaptor<Sort> orden = ArgumentCaptor.forClass(Sort.class);
+        verify(citaRepository).findHistorialByPaciente(eq(paciente), any(), orden.capture(), any());
+        assertEquals(Sort.by(Sort.Order.desc("fechaCita"), Sort.Order.desc("id")), orden.getValue());
+    }
+}
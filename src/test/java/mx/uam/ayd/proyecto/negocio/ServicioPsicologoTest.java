@@ -8,10 +8,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import mx.uam.ayd.proyecto.datos.BateriaClinicaRepository;
 import mx.uam.ayd.proyecto.datos.PacienteRepository;
 import mx.uam.ayd.proyecto.datos.PsicologoRepository;
-import mx.uam.ayd.proyecto.negocio.modelo.BateriaClinica;
+import mx.uam.ayd.proyecto.negocio.modelo.CuestionarioAplicado;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.PacienteConCuestionarios;
 import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoBateria;
 import mx.uam.ayd.proyecto.negocio.modelo.TipoEspecialidad;
@@ -20,7 +22,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
 @ExtendWith(MockitoExtension.class)
 public class ServicioPsicologoTest {
@@ -31,6 +37,12 @@ public class ServicioPsicologoTest {
     @Mock
     private PsicologoRepository psicologoRepository;
 
+    @Mock
+    private BateriaClinicaRepository bateriaClinicaRepository;
+
+    @Spy
+    private CifradoContrasenas cifradoContrasenas = new CifradoContrasenas(4, 1000);
+
     @InjectMocks
     private ServicioPsicologo servicio;
     
@@ -41,27 +53,40 @@ public class ServicioPsicologoTest {
 
     // Pruebas sobre el filtrado de 
     @Test
-    void testObtenerPacientesConCuestionarios_filtraCorrectamente(){
-        Paciente sinBaterias = new Paciente();
-        sinBaterias.setNombre("Ana");
-        sinBaterias.setBateriasClinicas(Collections.emptyList());
-
-        Paciente conBaterias = new Paciente();
-        conBaterias.setNombre("Luis");
-        BateriaClinica bc = new BateriaClinica();
-        bc.setTipoDeBateria(TipoBateria.CEPER);
-        conBaterias.setBateriasClinicas(Arrays.asList(bc));
-
-        Paciente bateriasNulas = new Paciente();
-        bateriasNulas.setNombre("Mar");
-        bateriasNulas.setBateriasClinicas(null);
+    void testObtenerPacientesConCuestionarios_agrupaCuestionarios(){
+        Paciente luis = new Paciente();
+        luis.setId(1L);
+        luis.setNombre("Luis");
+
+        Paciente mar = new Paciente();
+        mar.setId(2L);
+        mar.setNombre("Mar");
+
+        when(pacienteRepository.findListaByBateriasClinicasIsNotEmptyOrderByIdAsc(any(ScrollPosition.class), any(Limit.class)))
+                .thenReturn(Window.from(Arrays.asList(luis, mar), ScrollPosition::offset));
+        when(bateriaClinicaRepository.findUltimosCuestionarios(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(
+                new CuestionarioAplicado(1L, TipoBateria.BAI, 12, null),
+                new CuestionarioAplicado(2L, TipoBateria.BDI_II, 20, null),
+                new CuestionarioAplicado(1L, TipoBateria.CEPER, 7, null)));
+
+        Window<PacienteConCuestionarios> resultado = servicio.obtenerPacientesConCuestionarios(ScrollPosition.keyset());
+
+        assertEquals(2, resultado.size());
+        assertEquals("Luis", resultado.getContent().get(0).paciente().getNombre());
+        assertEquals(2, resultado.getContent().get(0).cuestionarios().size());
+        assertEquals(TipoBateria.BDI_II, resultado.getContent().get(1).cuestionarios().get(0).tipo());
+        assertEquals(20, resultado.getContent().get(1).cuestionarios().get(0).calificacion());
+    }
 
-        when(pacienteRepository.findAll()).thenReturn(Arrays.asList(sinBaterias, conBaterias, bateriasNulas));
+    @Test
+    void testObtenerPacientesConCuestionarios_paginaVacia(){
+        when(pacienteRepository.findListaByBateriasClinicasIsNotEmptyOrderByIdAsc(any(ScrollPosition.class), any(Limit.class)))
+                .thenReturn(Window.from(Collections.emptyList(), ScrollPosition::offset));
 
-        List<Paciente> resultado = servicio.obtenerPacientesConCuestionarios();
+        Window<PacienteConCuestionarios> resultado = servicio.obtenerPacientesConCuestionarios(ScrollPosition.keyset());
 
-        assertEquals(1, resultado.size());
-        assertEquals("Luis", resultado.get(0).getNombre());
+        assertTrue(resultado.isEmpty());
+        verify(bateriaClinicaRepository, never()).findUltimosCuestionarios(any());
     }
 
     @Test
@@ -87,7 +112,9 @@ public class ServicioPsicologoTest {
         assertEquals(tel, p.getTelefono());
         assertEquals(esp, p.getEspecialidad());
         assertEquals(usuario, p.getUsuario()); 
-        assertEquals(contrasena, p.getContrasena());
+        // La contraseña se guarda cifrada
+        assertNotEquals(contrasena, p.getContrasena());
+        assertTrue(cifradoContrasenas.coincide(contrasena, p.getContrasena()));
     }
 
     @Test
@@ -0,0 +1,103 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.RecordatorioCitaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.RecordatorioCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoRecordatorio;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para los recordatorios de citas próximas (HU-03).
+ */
+@ExtendWith(MockitoExtension.class)
+public class ServicioRecordatorioTest {
+
+    @Mock
+    private CitaRepository citaRepository;
+    @Mock
+    private RecordatorioCitaRepository recordatorioCitaRepository;
+    @Mock
+    private ServicioNotificacion servicioNotificacion;
+    @InjectMocks
+    private ServicioRecordatorio servicioRecordatorio;
+
+    /**
+     * Prueba: La búsqueda cubre las próximas 48 horas de todos los pacientes
+     * y excluye las citas canceladas o ya recordadas.
+     */
+    @Test
+    void testBuscarCitasPorRecordarUsaVentanaDe48Horas() {
+        LocalDateTime ahora = LocalDateTime.of(2030, 3, 4, 9, 0);
+        Cita cita = new Cita();
+        when(citaRepository.findSinRecordatorioEntre(ahora, ahora.plusHours(48),
+                TipoConfirmacionCita.CANCELADA, TipoRecordatorio.CITA_48_HORAS)).thenReturn(List.of(cita));
+
+        List<Cita> resultado = servicioRecordatorio.buscarCitasPorRecordar(ahora);
+
+        assertEquals(1, resultado.size());
+    }
+
+    /**
+     * Prueba: Enviar un recordatorio registra la llave (cita, tipo) y notifica al paciente.
+     */
+    @Test
+    void testEnviarRecordatorioNotificaAlPaciente() {
+        Paciente paciente = new Paciente();
+        Cita cita = new Cita();
+        cita.setPaciente(paciente);
+        cita.setFechaCita(LocalDateTime.of(2030, 3, 5, 10, 0));
+
+        servicioRecordatorio.enviarRecordatorio(cita);
+
+        ArgumentCaptor<RecordatorioCita> captor = ArgumentCaptor.forClass(RecordatorioCita.class);
+        verify(recordatorioCitaRepository).save(captor.capture());
+        assertEquals(cita, captor.getValue().getCita());
+        assertEquals(TipoRecordatorio.CITA_48_HORAS, captor.getValue().getTipoRecordatorio());
+        assertNotNull(captor.getValue().getFechaEnvio());
+
+        verify(servicioNotificacion).crearNotificacionPaciente(paciente,
+                "Recordatorio: Tienes una cita el 2030-03-05 a las 10:00");
+    }
+
+    /**
+     * Prueba: El programador envía cada recordatorio y omite los que otro
+     * proceso ya registró (violación de la llave única).
+     */
+    @Test
+    void testProgramadorOmiteRecordatoriosDuplicados() {
+        ServicioRecordatorio servicioMock = mock(ServicioRecordatorio.class);
+        ProgramadorRecordatorios programador = new ProgramadorRecordatorios();
+        ReflectionTestUtils.setField(programador, "servicioRecordatorio", servicioMock);
+
+        Cita nueva = new Cita();
+        nueva.setId(1);
+        Cita yaEnviada = new Cita();
+        yaEnviada.setId(2);
+        when(servicioMock.buscarCitasPorRecordar(any(LocalDateTime.class))).thenReturn(List.of(nueva, yaEnviada));
+        doNothing().when(servicioMock).enviarRecordatorio(nueva);
+        doThrow(new DataIntegrityViolationException("uk_recordatorio_cita_tipo"))
+                .when(servicioMock).enviarRecordatorio(yaEnviada);
+
+        int enviados = programador.revisarCitasProximas();
+
+        assertEquals(1, enviados);
+        verify(servicioMock).enviarRecordatorio(nueva);
+    }
+}
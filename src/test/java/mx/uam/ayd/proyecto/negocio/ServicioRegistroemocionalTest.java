@@ -2,19 +2,30 @@ package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.RegistroEmocionalRepository;
 import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
 import mx.uam.ayd.proyecto.negocio.modelo.RegistroEmocional;
+import mx.uam.ayd.proyecto.negocio.modelo.TendenciaEmocional;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -114,6 +125,60 @@ public class ServicioRegistroemocionalTest {
         verify(registroEmocionalRepository, never()).save(any());
     }
 
+    private static DataIntegrityViolationException violacion(String restriccion) {
+        return new DataIntegrityViolationException("violación",
+                new ConstraintViolationException("violación", new SQLException(), restriccion));
+    }
+
+    @Test
+    void testGuardarRegistroRepetidoElMismoDia() {
+        System.out.println("TEST: Probando guardar un segundo registro el mismo día");
+
+        Paciente paciente = new Paciente();
+        paciente.setId(1L);
+        // La restricción única de la base rechaza el segundo registro del día
+        when(registroEmocionalRepository.save(any(RegistroEmocional.class)))
+                .thenThrow(violacion("PUBLIC.UK_REGISTRO_EMOCIONAL_PACIENTE_FECHA_INDEX_B"));
+
+        Exception excepcion = assertThrows(IllegalArgumentException.class,
+                () -> servicioRegistroemocional.guardarRegistro("Feliz", null, paciente));
+
+        assertEquals(ServicioRegistroemocional.YA_REGISTRADO, excepcion.getMessage());
+        // Ya no se consulta antes de insertar
+        verify(registroEmocionalRepository, times(1)).save(any(RegistroEmocional.class));
+        verifyNoMoreInteractions(registroEmocionalRepository);
+    }
+
+    @Test
+    void testGuardarRegistroConOtraViolacion() {
+        Paciente paciente = new Paciente();
+        paciente.setId(1L);
+        when(registroEmocionalRepository.save(any(RegistroEmocional.class)))
+                .thenThrow(violacion("FK_REGISTRO_PACIENTE"));
+
+        // Otras violaciones no se confunden con un registro repetido
+        assertThrows(DataIntegrityViolationException.class,
+                () -> servicioRegistroemocional.guardarRegistro("Feliz", null, paciente));
+    }
+
+    @Test
+    void testGuardarLoteDescartaPacientesConRegistro() {
+        Paciente conRegistro = new Paciente();
+        conRegistro.setId(1L);
+        Paciente sinRegistro = new Paciente();
+        sinRegistro.setId(2L);
+        RegistroEmocional primero = servicioRegistroemocional.nuevoRegistro("Feliz", null, conRegistro);
+        RegistroEmocional segundo = servicioRegistroemocional.nuevoRegistro("Triste", "nota", sinRegistro);
+        when(registroEmocionalRepository.findPacientesConRegistro(Set.of(1L, 2L), LocalDate.now()))
+                .thenReturn(Set.of(1L));
+
+        List<RegistroEmocional> guardados = servicioRegistroemocional.guardarLote(List.of(primero, segundo));
+
+        assertEquals(List.of(segundo), guardados);
+        verify(registroEmocionalRepository, times(1)).findPacientesConRegistro(any(), eq(LocalDate.now()));
+        verify(registroEmocionalRepository).saveAll(List.of(segundo));
+    }
+
     @Test
     void testListarRegistros() {
         System.out.println("TEST: Probando listar registros existentes");
@@ -122,9 +187,11 @@ public class ServicioRegistroemocionalTest {
         r1.setEmocion("Triste");
         List<RegistroEmocional> listaSimulada = List.of(r1);
 
-        when(registroEmocionalRepository.findAll()).thenReturn(listaSimulada);
+        when(registroEmocionalRepository.findByOrderByIdDesc(ScrollPosition.keyset(),
+                Limit.of(ServicioRegistroemocional.TAMANO_PAGINA_REGISTROS)))
+                .thenReturn(Window.from(listaSimulada, ScrollPosition::offset));
 
-        List<RegistroEmocional> resultado = servicioRegistroemocional.listarRegistros();
+        List<RegistroEmocional> resultado = servicioRegistroemocional.listarRegistros(ScrollPosition.keyset()).getContent();
 
         assertNotNull(resultado, "La lista no debe ser nula.");
         assertEquals(1, resultado.size(), "La lista debe contener 1 elemento.");
@@ -135,11 +202,72 @@ public class ServicioRegistroemocionalTest {
     void testListarRegistrosCuandoNoHay() {
         System.out.println("TEST: Probando listar registros cuando la base está vacía");
 
-        when(registroEmocionalRepository.findAll()).thenReturn(Collections.emptyList());
+        when(registroEmocionalRepository.findByOrderByIdDesc(any(), any()))
+                .thenReturn(Window.from(Collections.emptyList(), ScrollPosition::offset));
 
-        List<RegistroEmocional> resultado = servicioRegistroemocional.listarRegistros();
+        List<RegistroEmocional> resultado = servicioRegistroemocional.listarRegistros(ScrollPosition.keyset()).getContent();
 
         assertNotNull(resultado, "La lista no debe ser nula.");
         assertTrue(resultado.isEmpty(), "La lista debe estar vacía.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testListarRegistrosPorPsicologoNulo() {
+        Window<RegistroEmocional> resultado =
+                servicioRegistroemocional.listarRegistrosPorPsicologo(null, ScrollPosition.keyset());
+
+        assertTrue(resultado.isEmpty(), "La página debe estar vacía.");
+        assertFalse(resultado.hasNext(), "No debe haber más páginas.");
+        verifyNoInteractions(registroEmocionalRepository);
+    }
+
+    @Test
+    void testObtenerTendenciaCompletaLaPrimeraSemana() {
+        Psicologo psicologo = new Psicologo();
+        // Miércoles 8 de octubre al domingo 19 de octubre de 2025
+        LocalDate desde = LocalDate.of(2025, 10, 8);
+        LocalDate hasta = LocalDate.of(2025, 10, 19);
+        List<TendenciaEmocional> tendencia = List.of(
+                new TendenciaEmocional(1L, "Ana", LocalDate.of(2025, 10, 6), "Feliz", 3));
+        when(registroEmocionalRepository.calcularTendencia(psicologo, LocalDate.of(2025, 10, 6),
+                LocalDate.of(2025, 10, 20))).thenReturn(tendencia);
+
+        assertEquals(tendencia, servicioRegistroemocional.obtenerTendencia(psicologo, desde, hasta));
+    }
+
+    @Test
+    void testObtenerTendenciaRangoInvalido() {
+        Psicologo psicologo = new Psicologo();
+        LocalDate hoy = LocalDate.now();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> servicioRegistroemocional.obtenerTendencia(psicologo, hoy, hoy.minusDays(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> servicioRegistroemocional.listarRegistrosPorPsicologo(psicologo, null, hoy, ScrollPosition.keyset()));
+        assertTrue(servicioRegistroemocional.obtenerTendencia(null, hoy, hoy).isEmpty());
+        verifyNoInteractions(registroEmocionalRepository);
+    }
+
+    @Test
+    void testAlinearSecuenciaConRegistrosAnteriores() {
+        // Base con ids 1 a 4 de antes de la secuencia, que empieza en 1
+        when(registroEmocionalRepository.findMaxId()).thenReturn(4L);
+        when(registroEmocionalRepository.siguienteValorSecuencia()).thenReturn(1L);
+
+        servicioRegistroemocional.alinearSecuenciaIds();
+
+        verify(registroEmocionalRepository).reiniciarSecuencia(4L + RegistroEmocional.BLOQUE_IDS + 1);
+    }
+
+    @Test
+    void testAlinearSecuenciaYaAlineadaOSinRegistros() {
+        when(registroEmocionalRepository.findMaxId()).thenReturn(150L, (Long) null);
+        when(registroEmocionalRepository.siguienteValorSecuencia()).thenReturn(251L);
+
+        servicioRegistroemocional.alinearSecuenciaIds();
+        servicioRegistroemocional.alinearSecuenciaIds();
+
+        verify(registroEmocionalRepository, times(1)).siguienteValorSecuencia();
+        verify(registroEmocionalRepository, never()).reiniciarSecuencia(anyLong());
+    }
+}
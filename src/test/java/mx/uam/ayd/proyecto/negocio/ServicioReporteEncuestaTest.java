@@ -1,20 +1,37 @@
 package mx.uam.ayd.proyecto.negocio;
 
 import mx.uam.ayd.proyecto.datos.EncuestaSatisfaccionRepository;
+import mx.uam.ayd.proyecto.datos.ResumenEncuestaRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.CalificacionesEncuesta;
 import mx.uam.ayd.proyecto.negocio.modelo.EncuestaSatisfaccion;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.Psicologo;
+import mx.uam.ayd.proyecto.negocio.modelo.ReporteCalificaciones;
+import mx.uam.ayd.proyecto.negocio.modelo.ResumenEncuesta;
+import mx.uam.ayd.proyecto.negocio.modelo.TotalesPregunta;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Arrays;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,50 +40,78 @@ public class ServicioReporteEncuestaTest {
     @Mock
     private EncuestaSatisfaccionRepository encuestaSatisfaccionRepository;
 
+    @Mock
+    private ResumenEncuestaRepository resumenEncuestaRepository;
+
+    @Mock
+    private CreadorResumenEncuesta creadorResumenEncuesta;
+
     @InjectMocks
     private ServicioReporteEncuesta servicioReporteEncuesta;
 
-    private List<EncuestaSatisfaccion> encuestasDePrueba;
+    private List<CalificacionesEncuesta> calificacionesDePrueba;
 
     @BeforeEach
     void setUp() {
-        // Configuración de datos de prueba
-        EncuestaSatisfaccion e1 = new EncuestaSatisfaccion();
-        e1.setQ1Empatia(4); 
-        e1.setQ3Respeto(3); 
-        e1.setQ7Recomendacion(1); 
-        e1.setQ8Mejora("Sugerencia valida.");
-        e1.setQ9Comentarios(""); 
-
-        EncuestaSatisfaccion e2 = new EncuestaSatisfaccion();
-        e2.setQ1Empatia(4); 
-        e2.setQ3Respeto(3); 
-        e2.setQ7Recomendacion(2); 
-        e2.setQ8Mejora(null); 
-        e2.setQ9Comentarios("Comentario final.");
-
-        EncuestaSatisfaccion e3 = new EncuestaSatisfaccion();
-        e3.setQ1Empatia(2); 
-        e3.setQ3Respeto(4); 
-        e3.setQ7Recomendacion(4); 
-        e3.setQ8Mejora("  ");
-        e3.setQ9Comentarios("  "); 
-
-        EncuestaSatisfaccion e4 = new EncuestaSatisfaccion();
-        e4.setQ1Empatia(0); 
-        e4.setQ3Respeto(4); 
-        e4.setQ7Recomendacion(4); 
-
-        encuestasDePrueba = Arrays.asList(e1, e2, e3, e4);
-
-        // Configuración del Mock: El repositorio siempre devuelve esta lista
-        when(encuestaSatisfaccionRepository.findAll()).thenReturn(encuestasDePrueba);
+        // Configuración de datos de prueba (Q1..Q7); las respuestas abiertas se consultan por separado
+        LocalDateTime octubre = LocalDateTime.of(2026, 10, 5, 10, 0);
+        calificacionesDePrueba = List.of(
+                new CalificacionesEncuesta(octubre, 1, 4, 0, 3, 0, 0, 0, 1),
+                new CalificacionesEncuesta(octubre, 1, 4, 0, 3, 0, 0, 0, 2),
+                new CalificacionesEncuesta(octubre, 2, 2, 0, 4, 0, 0, 0, 4),
+                new CalificacionesEncuesta(octubre.minusMonths(1), null, 0, 0, 4, 0, 0, 0, 4));
+    }
+
+    // La tabla de resúmenes contiene los acumulados de las calificaciones dadas
+    private void simularEncuestas(List<CalificacionesEncuesta> calificaciones) {
+        when(resumenEncuestaRepository.sumarPorPregunta()).thenReturn(totalesDe(resumenesDe(calificaciones)));
+    }
+
+    // Lo que calcula la consulta agrupada por pregunta
+    private static List<TotalesPregunta> totalesDe(List<ResumenEncuesta> resumenes) {
+        List<TotalesPregunta> totales = new ArrayList<>();
+        for (int pregunta = 1; pregunta <= ReporteCalificaciones.PREGUNTAS; pregunta++) {
+            long[] t = new long[8];
+            boolean hay = false;
+            for (ResumenEncuesta r : resumenes) {
+                if (r.getPregunta() == pregunta) {
+                    hay = true;
+                    t[0] += r.getConteoMalo();
+                    t[1] += r.getConteoRegular();
+                    t[2] += r.getConteoBueno();
+                    t[3] += r.getConteoExcelente();
+                    t[4] += r.getConteoDesconocido();
+                    t[5] += r.getTotal();
+                    t[6] += r.getSuma();
+                    t[7] += r.getSumaCuadrados();
+                }
+            }
+            if (hay) {
+                totales.add(new TotalesPregunta(pregunta, t[0], t[1], t[2], t[3], t[4], t[5], t[6], t[7]));
+            }
+        }
+        return totales;
+    }
+
+    private static List<ResumenEncuesta> resumenesDe(List<CalificacionesEncuesta> calificaciones) {
+        Map<String, ResumenEncuesta> resumenes = new HashMap<>();
+        for (CalificacionesEncuesta c : calificaciones) {
+            int periodo = ResumenEncuesta.periodo(c.fechaHora());
+            int psicologoId = c.psicologoId() != null ? c.psicologoId() : ResumenEncuesta.SIN_PSICOLOGO;
+            for (int pregunta = 1; pregunta <= ReporteCalificaciones.PREGUNTAS; pregunta++) {
+                int p = pregunta;
+                resumenes.computeIfAbsent(periodo + "/" + psicologoId + "/" + p,
+                        k -> new ResumenEncuesta(periodo, psicologoId, p)).agregar(c.valor(p));
+            }
+        }
+        return new ArrayList<>(resumenes.values());
     }
 
     // ESCENARIO 1: CONTEO CORRECTO 
     @Test
     void testConteoYTraduccionEtiquetas() {
         // Given: Datos de prueba con Q3: 3(x2), 4(x2) y Q3 en e4 es 4.        
+        simularEncuestas(calificacionesDePrueba);
         // When: Cuando se pide el conteo de la Pregunta 3 (Respeto)
         Map<String, Long> resultado = servicioReporteEncuesta.obtenerConteoRespuestas("Pregunta 3");
         // Then: El mapa debe reflejar el conteo y las etiquetas textuales.
@@ -80,6 +125,7 @@ public class ServicioReporteEncuestaTest {
     @Test
     void testFiltradoDatosNulosYCero() {
         // Given: Los datos de prueba contienen Q1=0 (e4) y Q1=2 (e3).        
+        simularEncuestas(calificacionesDePrueba);
         // When: Cuando se pide el conteo de la Pregunta 1 (Empatía)
         Map<String, Long> resultado = servicioReporteEncuesta.obtenerConteoRespuestas("Pregunta 1");
         // Then: La encuesta con valor 0 debe ser ignorada y el conteo total debe ser 3.
@@ -95,26 +141,130 @@ public class ServicioReporteEncuestaTest {
     // ESCENARIO 3: EXTRACCIÓN Y LIMPIEZA DE RESPUESTAS ABIERTAS (Q8 y Q9)
 
     @Test
-    void testExtraccionYLimpiezaComentarios() {
-        // Given: Datos de prueba con Q8 válido, nulo y solo espacios.        
+    void testExtraccionPaginadaComentarios() {
+        // Given: El repositorio ya filtra los textos nulos o vacíos y pagina de 50 en 50
+        when(encuestaSatisfaccionRepository.findSugerenciasMejora(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of("Sugerencia valida."), PageRequest.of(0, 50), false));
+        when(encuestaSatisfaccionRepository.findComentarios(PageRequest.of(1, 50)))
+                .thenReturn(new SliceImpl<>(List.of("Comentario final."), PageRequest.of(1, 50), true));
+
         // When: Cuando se piden los comentarios de la Pregunta 8 (Sugerencia de Mejora)
         List<String> comentariosQ8 = servicioReporteEncuesta.obtenerRespuestasAbiertas("Pregunta 8");
-        // Then: Solo deben devolverse los comentarios no nulos y no vacíos (e1).
-        assertEquals(1, comentariosQ8.size(), "Debe devolver solo 1 comentario válido para Q8.");
-        assertEquals("Sugerencia valida.", comentariosQ8.get(0));        
-        
-        // When: Cuando se piden los comentarios de la Pregunta 9 (Comentarios Adicionales)
-        List<String> comentariosQ9 = servicioReporteEncuesta.obtenerRespuestasAbiertas("Pregunta 9");
-        // Then: Solo deben devolverse los comentarios no nulos y no vacíos (e2).
-        assertEquals(1, comentariosQ9.size(), "Debe devolver solo 1 comentario válido para Q9.");
-        assertEquals("Comentario final.", comentariosQ9.get(0));
+        // Then: Se devuelve la primera página sin recorrer las encuestas
+        assertEquals(List.of("Sugerencia valida."), comentariosQ8);
+        verify(encuestaSatisfaccionRepository, never()).streamCalificaciones();
+
+        // When: Cuando se pide la segunda página de la Pregunta 9 (Comentarios Adicionales)
+        Slice<String> paginaQ9 = servicioReporteEncuesta.obtenerRespuestasAbiertas("Pregunta 9", 1);
+        // Then: Se devuelve esa página e indica que hay más
+        assertEquals(List.of("Comentario final."), paginaQ9.getContent());
+        assertTrue(paginaQ9.hasNext());
     }
-    
+
+    // ESCENARIO: UNA SOLA LECTURA DEL RESUMEN PARA LAS SIETE PREGUNTAS
+    @Test
+    void testReporteCompletoDesdeResumen() {
+        simularEncuestas(calificacionesDePrueba);
+
+        ReporteCalificaciones reporte = servicioReporteEncuesta.generarReporte();
+
+        // Todas las preguntas se resuelven con el mismo reporte, sin leer las encuestas
+        assertEquals(Map.of("Regular", 1L, "Excelente", 2L), servicioReporteEncuesta.obtenerConteoRespuestas(reporte, "Pregunta 1"));
+        assertEquals(Map.of("Malo", 1L, "Regular", 1L, "Excelente", 2L), servicioReporteEncuesta.obtenerConteoRespuestas(reporte, "Pregunta 7"));
+        assertTrue(servicioReporteEncuesta.obtenerConteoRespuestas(reporte, "Pregunta 2").isEmpty());
+        // Q3: 3, 3, 4, 4 -> promedio 3.5, varianza 0.25
+        assertEquals(3.5, reporte.promedio(3), 1e-9);
+        assertEquals(0.25, reporte.varianza(3), 1e-9);
+        verify(resumenEncuestaRepository, times(1)).sumarPorPregunta();
+        verify(resumenEncuestaRepository, never()).findAll();
+        verify(encuestaSatisfaccionRepository, never()).streamCalificaciones();
+    }
+
+    // ESCENARIO: AL GUARDAR UNA ENCUESTA SE ACUMULA EN EL RESUMEN DE SU MES Y PSICÓLOGO
+    @Test
+    void testAcumularEncuestaEnResumenExistente() {
+        Psicologo psicologo = new Psicologo();
+        psicologo.setId(3);
+        Paciente paciente = new Paciente();
+        paciente.setPsicologo(psicologo);
+        EncuestaSatisfaccion encuesta = new EncuestaSatisfaccion();
+        encuesta.setPaciente(paciente);
+        encuesta.setFechaHora(LocalDateTime.of(2026, 10, 18, 12, 0));
+        encuesta.setQ1Empatia(4);
+        encuesta.setQ2Confianza(3);
+
+        ResumenEncuesta q1Existente = new ResumenEncuesta(202610, 3, 1);
+        q1Existente.agregar(2);
+        when(resumenEncuestaRepository.findByPeriodoAndPsicologoId(202610, 3)).thenReturn(List.of(q1Existente));
+
+        servicioReporteEncuesta.acumularEncuesta(encuesta);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Iterable<ResumenEncuesta>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(resumenEncuestaRepository).saveAll(captor.capture());
+        List<ResumenEncuesta> guardados = new ArrayList<>();
+        captor.getValue().forEach(guardados::add);
+
+        assertEquals(ReporteCalificaciones.PREGUNTAS, guardados.size());
+        assertSame(q1Existente, guardados.get(0));
+        assertEquals(2, q1Existente.getTotal());
+        assertEquals(6, q1Existente.getSuma());
+        assertEquals(1, guardados.get(1).getConteoBueno());
+        // Las preguntas sin respuesta se crean pero no cuentan
+        assertEquals(0, guardados.get(6).getTotal());
+        verify(creadorResumenEncuesta, never()).crearFilas(anyInt(), anyInt());
+    }
+
+    // ESCENARIO: LA PRIMERA ENCUESTA DEL MES CREA LAS FILAS; SI OTRA LAS CREÓ ANTES, SÓLO LAS VUELVE A LEER
+    @Test
+    void testAcumularPrimeraEncuestaDelMesConCreacionSimultanea() {
+        EncuestaSatisfaccion encuesta = new EncuestaSatisfaccion();
+        encuesta.setPaciente(new Paciente());
+        encuesta.setFechaHora(LocalDateTime.of(2026, 11, 2, 9, 0));
+        encuesta.setQ1Empatia(4);
+
+        List<ResumenEncuesta> creadas = new ArrayList<>();
+        for (int pregunta = 1; pregunta <= ReporteCalificaciones.PREGUNTAS; pregunta++) {
+            creadas.add(new ResumenEncuesta(202611, ResumenEncuesta.SIN_PSICOLOGO, pregunta));
+        }
+        when(resumenEncuestaRepository.findByPeriodoAndPsicologoId(202611, ResumenEncuesta.SIN_PSICOLOGO))
+                .thenReturn(List.of(), creadas);
+        doThrow(new DataIntegrityViolationException("uk_resumen_encuesta"))
+                .when(creadorResumenEncuesta).crearFilas(202611, ResumenEncuesta.SIN_PSICOLOGO);
+
+        // La encuesta no falla por la fila repetida
+        servicioReporteEncuesta.acumularEncuesta(encuesta);
+
+        verify(resumenEncuestaRepository, times(2)).findByPeriodoAndPsicologoId(202611, ResumenEncuesta.SIN_PSICOLOGO);
+        verify(resumenEncuestaRepository).saveAll(creadas);
+        assertEquals(1, creadas.get(0).getConteoExcelente());
+    }
+
+    // ESCENARIO: RECONSTRUIR EL RESUMEN CORRIGE LAS DESVIACIONES
+    @Test
+    void testReconstruirResumenCorrigeDesviaciones() {
+        when(encuestaSatisfaccionRepository.streamCalificaciones()).thenAnswer(inv -> calificacionesDePrueba.stream());
+        List<ResumenEncuesta> almacenados = resumenesDe(calificacionesDePrueba);
+        // Una fila desviada y una fila que ya no corresponde a ninguna encuesta
+        almacenados.get(0).agregar(1);
+        ResumenEncuesta sobrante = new ResumenEncuesta(202001, 9, 1);
+        almacenados.add(sobrante);
+        when(resumenEncuestaRepository.findAll()).thenReturn(almacenados);
+
+        int diferencias = servicioReporteEncuesta.reconstruirResumen();
+
+        assertEquals(2, diferencias);
+        verify(resumenEncuestaRepository).deleteAll(List.of(sobrante));
+        verify(resumenEncuestaRepository).saveAll(List.of(almacenados.get(0)));
+    }
+
     // ESCENARIO 4: REPORTE CON REPOSITORIO VACÍO
     @Test
     void testReporteConRepositorioVacio() {
         // Given: Se simula que el repositorio devuelve una lista completamente vacía
-        when(encuestaSatisfaccionRepository.findAll()).thenReturn(Collections.emptyList());        
+        simularEncuestas(List.of());
+        when(encuestaSatisfaccionRepository.findSugerenciasMejora(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
         // When: Cuando se pide el conteo de una pregunta cerrada (P1)
         Map<String, Long> resultadoCerrada = servicioReporteEncuesta.obtenerConteoRespuestas("Pregunta 1");
         // Then: El mapa de conteo debe estar vacío
@@ -0,0 +1,200 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import mx.uam.ayd.proyecto.datos.CitaRepository;
+import mx.uam.ayd.proyecto.datos.SaldoPacienteRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.Cita;
+import mx.uam.ayd.proyecto.negocio.modelo.CitaPorPagar;
+import mx.uam.ayd.proyecto.negocio.modelo.Paciente;
+import mx.uam.ayd.proyecto.negocio.modelo.SaldoPaciente;
+import mx.uam.ayd.proyecto.negocio.modelo.TipoConfirmacionCita;
+import mx.uam.ayd.proyecto.negocio.modelo.TotalesPago;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para los saldos precalculados de los pacientes (HU-16).
+ */
+@ExtendWith(MockitoExtension.class)
+public class ServicioSaldoPacienteTest {
+
+    private static final LocalDate HOY = LocalDate.now();
+
+    @Mock
+    private SaldoPacienteRepository saldoPacienteRepository;
+    @Mock
+    private CitaRepository citaRepository;
+    @Mock
+    private CreadorSaldoPaciente creadorSaldoPaciente;
+    @InjectMocks
+    private ServicioSaldoPaciente servicioSaldoPaciente;
+
+    private static Paciente paciente(long id) {
+        Paciente paciente = new Paciente();
+        paciente.setId(id);
+        return paciente;
+    }
+
+    private static SaldoPaciente saldoAlDia(long pacienteId) {
+        SaldoPaciente saldo = new SaldoPaciente(pacienteId);
+        saldo.fijar(new TotalesPago(pacienteId, 1, 100.0, 2, 200.0, 1, 100.0), HOY);
+        return saldo;
+    }
+
+    private static Cita cita(long pacienteId, LocalDate vence) {
+        Cita cita = new Cita();
+        cita.setPaciente(paciente(pacienteId));
+        cita.setMonto(100.0);
+        cita.setFechaVencimiento(vence);
+        return cita;
+    }
+
+    /**
+     * Prueba: Un saldo calculado hoy se devuelve con una sola lectura.
+     */
+    @Test
+    void testObtenerSaldoAlDia() {
+        SaldoPaciente saldo = saldoAlDia(1L);
+        when(saldoPacienteRepository.findById(1L)).thenReturn(Optional.of(saldo));
+
+        assertSame(saldo, servicioSaldoPaciente.obtenerSaldo(paciente(1L)));
+
+        verify(saldoPacienteRepository, never()).findByPacienteIdInOrderByPacienteId(any());
+        verifyNoInteractions(citaRepository);
+    }
+
+    /**
+     * Prueba: Un saldo calculado otro día se recalcula desde las citas, porque
+     * algunas pudieron vencer desde entonces.
+     */
+    @Test
+    void testObtenerSaldoDeOtroDiaSeRecalcula() {
+        SaldoPaciente saldo = saldoAlDia(1L);
+        saldo.setFechaCalculo(HOY.minusDays(1));
+        when(saldoPacienteRepository.findById(1L)).thenReturn(Optional.of(saldo));
+        when(saldoPacienteRepository.findByPacienteIdInOrderByPacienteId(Set.of(1L))).thenReturn(List.of(saldo));
+        when(citaRepository.calcularTotalesPago(Set.of(1L), HOY, TipoConfirmacionCita.CANCELADA))
+                .thenReturn(List.of(new TotalesPago(1L, 1, 100.0, 0, 0.0, 3, 300.0)));
+
+        SaldoPaciente resultado = servicioSaldoPaciente.obtenerSaldo(paciente(1L));
+
+        assertEquals(HOY, resultado.getFechaCalculo());
+        assertEquals(0, resultado.getCitasPendientes());
+        assertEquals(3, resultado.getCitasVencidas());
+        assertEquals(300.0, resultado.getMontoVencido(), 0.001);
+        verifyNoInteractions(creadorSaldoPaciente);
+    }
+
+    /**
+     * Prueba: El primer cargo de un paciente crea su saldo vacío, lo vuelve a leer
+     * bloqueado y lo calcula; el cálculo ya incluye la cita recién guardada, sin
+     * sumarla dos veces.
+     */
+    @Test
+    void testRegistrarCargoSinSaldoLoCrea() {
+        SaldoPaciente creado = new SaldoPaciente(2L);
+        when(saldoPacienteRepository.findByPacienteIdInOrderByPacienteId(Set.of(2L)))
+                .thenReturn(List.of(), List.of(creado));
+        when(citaRepository.calcularTotalesPago(Set.of(2L), HOY, TipoConfirmacionCita.CANCELADA))
+                .thenReturn(List.of(new TotalesPago(2L, 0, 0.0, 1, 100.0, 0, 0.0)));
+
+        servicioSaldoPaciente.registrarCargo(cita(2L, HOY.plusDays(3)));
+
+        verify(creadorSaldoPaciente).crear(Set.of(2L));
+        assertEquals(HOY, creado.getFechaCalculo());
+        assertEquals(1, creado.getCitasPendientes());
+        assertEquals(100.0, creado.getMontoPendiente(), 0.001);
+    }
+
+    /**
+     * Prueba: Si otra transacción crea uno de los saldos al mismo tiempo, los
+     * demás se crean uno por uno y el lote de pagos no falla.
+     */
+    @Test
+    void testRegistrarPagosConSaldoCreadoAlMismoTiempo() {
+        SaldoPaciente saldo4 = new SaldoPaciente(4L);
+        SaldoPaciente saldo5 = new SaldoPaciente(5L);
+        when(saldoPacienteRepository.findByPacienteIdInOrderByPacienteId(Set.of(4L, 5L)))
+                .thenReturn(List.of(), List.of(saldo4, saldo5));
+        doThrow(new DataIntegrityViolationException("PRIMARY KEY"))
+                .when(creadorSaldoPaciente).crear(Set.of(4L, 5L));
+        doThrow(new DataIntegrityViolationException("PRIMARY KEY"))
+                .when(creadorSaldoPaciente).crear(Set.of(4L));
+        when(citaRepository.calcularTotalesPago(Set.of(4L, 5L), HOY, TipoConfirmacionCita.CANCELADA))
+                .thenReturn(List.of(new TotalesPago(4L, 1, 100.0, 0, 0.0, 0, 0.0),
+                        new TotalesPago(5L, 1, 100.0, 0, 0.0, 0, 0.0)));
+
+        servicioSaldoPaciente.registrarPagos(List.of(
+                new CitaPorPagar(40, 4L, "L40", 100.0, TipoConfirmacionCita.PENDIENTE, HOY, null),
+                new CitaPorPagar(50, 5L, "L50", 100.0, TipoConfirmacionCita.PENDIENTE, HOY, null)));
+
+        verify(creadorSaldoPaciente).crear(Set.of(5L));
+        assertEquals(1, saldo4.getCitasPagadas());
+        assertEquals(1, saldo5.getCitasPagadas());
+        assertEquals(HOY, saldo5.getFechaCalculo());
+    }
+
+    /**
+     * Prueba: Con el saldo al día, agendar y cancelar sólo ajustan los totales.
+     */
+    @Test
+    void testCargoYCancelacionAjustanElSaldo() {
+        SaldoPaciente saldo = saldoAlDia(1L);
+        when(saldoPacienteRepository.findByPacienteIdInOrderByPacienteId(Set.of(1L))).thenReturn(List.of(saldo));
+
+        servicioSaldoPaciente.registrarCargo(cita(1L, HOY));
+        assertEquals(3, saldo.getCitasPendientes());
+        assertEquals(300.0, saldo.getMontoPendiente(), 0.001);
+
+        servicioSaldoPaciente.registrarCancelacion(cita(1L, HOY.minusDays(2)));
+        assertEquals(0, saldo.getCitasVencidas());
+        assertEquals(0.0, saldo.getMontoVencido(), 0.001);
+        verifyNoInteractions(citaRepository);
+    }
+
+    /**
+     * Prueba: Un lote de pagos bloquea los saldos de todos sus pacientes en una
+     * consulta; lo pagado de una cita cancelada no se descuenta de lo pendiente.
+     */
+    @Test
+    void testRegistrarPagosDeVariosPacientes() {
+        SaldoPaciente saldo1 = saldoAlDia(1L);
+        SaldoPaciente saldo3 = saldoAlDia(3L);
+        when(saldoPacienteRepository.findByPacienteIdInOrderByPacienteId(Set.of(1L, 3L)))
+                .thenReturn(List.of(saldo1, saldo3));
+
+        servicioSaldoPaciente.registrarPagos(List.of(
+                new CitaPorPagar(10, 1L, "L10", 100.0, TipoConfirmacionCita.PENDIENTE, HOY.minusDays(1), null),
+                new CitaPorPagar(11, 1L, "L11", 100.0, TipoConfirmacionCita.CONFIRMADA, HOY, null),
+                new CitaPorPagar(30, 3L, "L30", 100.0, TipoConfirmacionCita.CANCELADA, HOY, null)));
+
+        assertEquals(3, saldo1.getCitasPagadas());
+        assertEquals(1, saldo1.getCitasPendientes());
+        assertEquals(0, saldo1.getCitasVencidas());
+        assertEquals(2, saldo3.getCitasPagadas());
+        assertEquals(2, saldo3.getCitasPendientes());
+        verify(saldoPacienteRepository, times(1)).findByPacienteIdInOrderByPacienteId(any());
+        verifyNoInteractions(citaRepository);
+    }
+
+    /**
+     * Prueba: Un paciente no guardado no tiene saldo.
+     */
+    @Test
+    void testObtenerSaldoSinPaciente() {
+        assertThrows(IllegalArgumentException.class, () -> servicioSaldoPaciente.obtenerSaldo(new Paciente()));
+        verifyNoInteractions(saldoPacienteRepository);
+    }
+}
@@ -0,0 +1,59 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import mx.uam.ayd.proyecto.datos.SecuenciaFolioRepository;
+import mx.uam.ayd.proyecto.negocio.modelo.SecuenciaFolio;
+
+@ExtendWith(MockitoExtension.class)
+class ServicioSecuenciaFolioTest {
+
+    @Mock
+    private SecuenciaFolioRepository secuenciaFolioRepository;
+
+    @InjectMocks
+    private ServicioSecuenciaFolio servicio;
+
+    @Test
+    void testApartarBloqueSecuenciaExistente() {
+        // Dado que la secuencia ya avanzó hasta 2001 con este bloque
+        SecuenciaFolio secuencia = new SecuenciaFolio();
+        secuencia.setNombre("lineaCaptura");
+        secuencia.setSiguiente(2001);
+        when(secuenciaFolioRepository.avanzar("lineaCaptura", 1000)).thenReturn(1);
+        when(secuenciaFolioRepository.findById("lineaCaptura")).thenReturn(Optional.of(secuencia));
+
+        // Entonces el bloque empieza donde terminó el anterior
+        assertEquals(1001, servicio.apartarBloque("lineaCaptura", 1000, 1));
+        verify(secuenciaFolioRepository, never()).save(any());
+    }
+
+    @Test
+    void testApartarBloqueSecuenciaNueva() {
+        // Dado que la secuencia no existe
+        when(secuenciaFolioRepository.avanzar("lineaCaptura", 1000)).thenReturn(0);
+
+        // Entonces se crea después del primer bloque
+        assertEquals(1, servicio.apartarBloque("lineaCaptura", 1000, 1));
+        ArgumentCaptor<SecuenciaFolio> creada = ArgumentCaptor.forClass(SecuenciaFolio.class);
+        verify(secuenciaFolioRepository).save(creada.capture());
+        assertEquals(1001, creada.getValue().getSiguiente());
+    }
+
+    @Test
+    void testApartarBloqueCantidadInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> servicio.apartarBloque("lineaCaptura", 0, 1));
+        verifyNoInteractions(secuenciaFolioRepository);
+    }
+}
@@ -0,0 +1,215 @@
+package mx.uam.ayd.proyecto.negocio;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mx.uam.ayd.proyecto.negocio.modelo.RolSesion;
+import mx.uam.ayd.proyecto.negocio.modelo.Sesion;
+
+/**
+ * Pruebas unitarias del registro de sesiones.
+ */
+class ServicioSesionTest {
+
+    private static final Duration INACTIVIDAD = Duration.ofMinutes(30);
+
+    private RelojManual reloj;
+    private ServicioSesion servicioSesion;
+    private List<String> eventos;
+
+    @BeforeEach
+    void setUp() {
+        reloj = new RelojManual();
+        servicioSesion = new ServicioSesion(INACTIVIDAD, reloj);
+        eventos = new CopyOnWriteArrayList<>();
+        servicioSesion.agregarOyente(new OyenteSesion() {
+            @Override
+            public void sesionAbierta(Sesion sesion) {
+                eventos.add("abierta:" + sesion.getUsuario());
+            }
+
+            @Override
+            public void sesionCerrada(Sesion sesion, Motivo motivo) {
+                eventos.add(motivo + ":" + sesion.getUsuario());
+            }
+        });
+    }
+
+    @Test
+    void testVariasSesionesIndependientes() {
+        Sesion ana = servicioSesion.abrir("ana", RolSesion.PACIENTE);
+        Sesion beto = servicioSesion.abrir("beto", RolSesion.PSICOLOGO);
+
+        assertNotEquals(ana.getId(), beto.getId());
+        assertEquals(2, servicioSesion.sesionesAbiertas().size());
+        assertSame(ana, servicioSesion.obtener(ana.getId()).orElseThrow());
+        assertEquals(RolSesion.PSICOLOGO, servicioSesion.obtener(beto.getId()).orElseThrow().getRol());
+
+        servicioSesion.cerrar(ana.getId());
+        servicioSesion.cerrar(ana.getId());
+
+        assertTrue(servicioSesion.obtener(ana.getId()).isEmpty());
+        assertTrue(servicioSesion.obtener(beto.getId()).isPresent());
+        assertTrue(servicioSesion.obtener("inexistente").isEmpty());
+        // El segundo cierre no avisa otra vez
+        assertEquals(List.of("abierta:ana", "abierta:beto", "CERRADA:ana"), eventos);
+    }
+
+    @Test
+    void testAbrirSinUsuarioORol() {
+        assertThrows(IllegalArgumentException.class, () -> servicioSesion.abrir(" ", RolSesion.PACIENTE));
+        assertThrows(IllegalArgumentException.class, () -> servicioSesion.abrir("ana", null));
+    }
+
+    @Test
+    void testLaRuedaCierraLasSesionesInactivas() {
+        Sesion ana = servicioSesion.abrir("ana", RolSesion.PACIENTE);
+        Sesion beto = servicioSesion.abrir("beto", RolSesion.PACIENTE);
+        Sesion escritorio = servicioSesion.abrir("admin", RolSesion.ADMINISTRADOR, null);
+
+        // Beto sigue usando su sesión; sólo se actualiza su último acceso
+        reloj.avanzar(Duration.ofMinutes(20));
+        servicioSesion.revisarVencidas();
+        assertTrue(servicioSesion.obtener(beto.getId()).isPresent());
+
+        reloj.avanzar(Duration.ofMinutes(11));
+        servicioSesion.revisarVencidas();
+
+        assertTrue(servicioSesion.sesionesAbiertas().stream().noneMatch(s -> s == ana));
+        assertTrue(servicioSesion.sesionesAbiertas().contains(beto));
+        assertTrue(eventos.contains("INACTIVIDAD:ana"));
+
+        // Beto vence 30 minutos después de su último acceso
+        reloj.avanzar(Duration.ofMinutes(18));
+        servicioSesion.revisarVencidas();
+        assertTrue(servicioSesion.sesionesAbiertas().contains(beto));
+
+        reloj.avanzar(Duration.ofMinutes(3));
+        servicioSesion.revisarVencidas();
+        assertFalse(servicioSesion.sesionesAbiertas().contains(beto));
+
+        // La de escritorio no vence
+        reloj.avanzar(Duration.ofDays(2));
+        servicioSesion.revisarVencidas();
+        assertEquals(List.of(escritorio), servicioSesion.sesionesAbiertas());
+    }
+
+    @Test
+    void testObtenerUnaSesionVencidaLaCierra() {
+        Sesion ana = servicioSesion.abrir("ana", RolSesion.PACIENTE);
+
+        // El temporizador aún no la revisa
+        reloj.avanzar(INACTIVIDAD);
+
+        assertTrue(servicioSesion.obtener(ana.getId()).isEmpty());
+        assertTrue(servicioSesion.sesionesAbiertas().isEmpty());
+        assertEquals(List.of("abierta:ana", "INACTIVIDAD:ana"), eventos);
+    }
+
+    @Test
+    void testUnOyenteQueFallaNoAfectaALosDemas() {
+        List<String> otros = new ArrayList<>();
+        servicioSesion.agregarOyente(new OyenteSesion() {
+            @Override
+            public void sesionAbierta(Sesion sesion) {
+                throw new IllegalStateException("falla");
+            }
+        });
+        OyenteSesion quitado = new OyenteSesion() {
+            @Override
+            public void sesionAbierta(Sesion sesion) {
+                otros.add(sesion.getUsuario());
+            }
+        };
+        servicioSesion.agregarOyente(quitado);
+
+        servicioSesion.abrir("ana", RolSesion.PACIENTE);
+        servicioSesion.quitarOyente(quitado);
+        servicioSesion.abrir("beto", RolSesion.PACIENTE);
+
+        assertEquals(List.of("abierta:ana", "abierta:beto"), eventos);
+        assertEquals(List.of("ana"), otros);
+    }
+
+    @Test
+    void testAperturasConcurrentes() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> tareas = new ArrayList<>();
+        try {
+            for (int h = 0; h < 8; h++) {
+                int hilo = h;
+                tareas.add(hilos.submit(() -> {
+                    List<String> ids = new ArrayList<>();
+                    for (int i = 0; i < 100; i++) {
+                        Sesion sesion = servicioSesion.abrir("usuario" + hilo + "-" + i, RolSesion.PACIENTE);
+                        servicioSesion.obtener(sesion.getId()).orElseThrow().setAtributo("hilo", hilo);
+                        ids.add(sesion.getId());
+                    }
+                    // Cada hilo cierra la mitad de las suyas
+                    for (int i = 0; i < 50; i++) {
+                        servicioSesion.cerrar(ids.get(i));
+                    }
+                    return ids;
+                }));
+            }
+            Set<String> ids = new HashSet<>();
+            for (Future<List<String>> tarea : tareas) {
+                ids.addAll(tarea.get());
+            }
+            assertEquals(800, ids.size());
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        assertEquals(400, servicioSesion.sesionesAbiertas().size());
+        assertEquals(1200, eventos.size());
+
+        // Se cierran en la revisión siguiente a su vencimiento
+        reloj.avanzar(INACTIVIDAD.plusMinutes(1));
+        servicioSesion.revisarVencidas();
+        assertTrue(servicioSesion.sesionesAbiertas().isEmpty());
+    }
+
+    /**
+     * Reloj que sólo avanza cuando la prueba lo indica.
+     */
+    private static class RelojManual extends Clock {
+
+        private volatile Instant ahora = Instant.parse("2030-01-07T10:00:00Z");
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
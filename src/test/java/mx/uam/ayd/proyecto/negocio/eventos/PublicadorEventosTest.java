@@ -0,0 +1,89 @@
+package mx.uam.ayd.proyecto.negocio.eventos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Pruebas unitarias de la entrega de eventos de negocio.
+ */
+class PublicadorEventosTest {
+
+    private final List<String> entregados = new CopyOnWriteArrayList<>();
+    private final List<String> hilos = new CopyOnWriteArrayList<>();
+
+    private CountDownLatch pendientes;
+    private PublicadorEventos publicadorEventos;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationEventPublisher publicador = evento -> {
+            hilos.add(Thread.currentThread().getName());
+            try {
+                if ("falla".equals(evento)) {
+                    throw new IllegalStateException("Oyente con error");
+                }
+                entregados.add(evento.toString());
+            } finally {
+                pendientes.countDown();
+            }
+        };
+        publicadorEventos = new PublicadorEventos(publicador);
+        publicadorEventos.inicia();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publicadorEventos.detiene();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testEntregaEnOrdenEnSuPropioHilo() throws Exception {
+        pendientes = new CountDownLatch(4);
+
+        publicadorEventos.publicar("uno");
+        publicadorEventos.publicar("falla");
+        publicadorEventos.publicar("dos");
+        publicadorEventos.publicar("tres");
+
+        assertTrue(pendientes.await(5, TimeUnit.SECONDS));
+        // Un oyente con error no impide entregar los eventos siguientes
+        assertEquals(List.of("uno", "dos", "tres"), entregados);
+        assertTrue(hilos.stream().allMatch("eventos-negocio"::equals));
+    }
+
+    @Test
+    void testDentroDeUnaTransaccionEsperaALaConfirmacion() throws Exception {
+        pendientes = new CountDownLatch(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        publicadorEventos.publicar("cita");
+        assertFalse(pendientes.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(entregados.isEmpty());
+
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            sincronizacion.afterCommit();
+        }
+
+        assertTrue(pendientes.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("cita"), entregados);
+    }
+
+    @Test
+    void testEventoNulo() {
+        assertThrows(IllegalArgumentException.class, () -> publicadorEventos.publicar(null));
+    }
+}